@@ -0,0 +1,27 @@
+/*é*/// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass.step5;
+
+import java.lang.System;
+
+// Computes the factorial of a number recursively.
+
+public class Factorial {
+
+    // Two methods and a field
+
+    public static int factorial(int n) {
+        if (n <= 0)
+            return 1;
+        else
+            return n * factorial(n - 1);
+    }
+
+    public static void main(String[] args) {
+        int x = n;
+        System.out.println(x + "! = " + factorial(x));
+    }
+
+    static int n = 5;
+
+}
@@ -0,0 +1,17 @@
+/*é*/// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass.step5;
+
+import java.lang.System;
+
+public class HelloWorld {
+
+    public static String message() {
+        return "Hello, World!";
+    }
+
+    public static void main(String[] args) {
+        System.out.println(HelloWorld.message());
+    }
+
+}
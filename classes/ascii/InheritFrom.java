@@ -0,0 +1,8 @@
+/*é*/package pass.step5;
+
+public class InheritFrom {
+    public static void main(String[] args)
+    {
+        Object a = "Hello inheritance!";
+    }
+}
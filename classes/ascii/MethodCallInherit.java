@@ -0,0 +1,10 @@
+/*é*/package pass;
+
+public class MethodCallInherit {
+    public static void func(Object obj) {
+    }
+
+    public static void main(String[] args) {
+        func("");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+/*é*/package pass.step5;
+
+import java.lang.Integer;
+import java.lang.System;
+
+public class RightShift {
+    public static int rightShift(int x, int y) { return x >> y; }
+
+    public static void main(String[] args) {
+        int a = 8;
+        int b = 2;
+        System.out.println(a + " >> " + b + " = " + rightShift(a, b));
+    }
+}
@@ -0,0 +1,5 @@
+package cached;
+import cached.Base;
+public class User {
+    public int g() { return new Base().f(); }
+}
@@ -0,0 +1,3 @@
+package daemon;
+public class Served {
+}
@@ -0,0 +1,5 @@
+package incremental;
+public class Base {
+    public int f() { return 1; }
+    public int k() { return 2; }
+}
@@ -0,0 +1,4 @@
+package incremental;
+public class Other {
+    public int h() { return 4; }
+}
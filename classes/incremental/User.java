@@ -0,0 +1,5 @@
+package incremental;
+import incremental.Base;
+public class User {
+    public int g() { return new Base().f(); }
+}
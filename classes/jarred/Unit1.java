@@ -0,0 +1,6 @@
+package jarred;
+public class Unit1 {
+    public int f(int n) {
+        return n * 1;
+    }
+}
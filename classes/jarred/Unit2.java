@@ -0,0 +1,6 @@
+package jarred;
+public class Unit2 {
+    public int f(int n) {
+        return n * 2;
+    }
+}
@@ -0,0 +1,4 @@
+package members;
+public class Local {
+    public int g(Object o) { return 1; }
+}
@@ -0,0 +1,6 @@
+public class First {
+    public int f() { return 1; }
+}
+class Second {
+    public int g() { return "g"; }
+}
@@ -0,0 +1,4 @@
+package symbols;
+public class Whole {
+    public int f() { return 1; }
+}
@@ -0,0 +1,3 @@
+package unloadable;
+public class Present {
+}
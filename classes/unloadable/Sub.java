@@ -0,0 +1,5 @@
+package unloadable;
+import unloadable.Present;
+public class Sub extends Present {
+    public int f() { return 1; }
+}
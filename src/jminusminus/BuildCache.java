@@ -0,0 +1,490 @@
+package jminusminus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A content-addressed, on-disk cache of the files written for compilation
+ * units (-cache). An entry is keyed by the SHA-256 digest of the source, the
+ * name of the source file, the compiler (its class files), the Java platform
+ * version and the options that affect the code generated. Since the types a
+ * unit imports are known only once it is compiled, an entry also records the
+ * ABI of each type (declared elsewhere) that the unit referred to, and is a
+ * hit only if all of these ABIs are still the same; otherwise the unit is
+ * compiled, and its entry replaced.
+ * <p>
+ * On a hit, the files are written from the entry instead of compiling the
+ * unit; this relies on the compiler writing the same bytes for the same
+ * input. Entries are written to a temporary file first and then moved into
+ * place, so that several compilers may share a cache.
+ */
+
+class BuildCache {
+
+    /**
+     * First four bytes of an entry ("J--C").
+     */
+    private static final int MAGIC = 0x4A2D2D43;
+
+    /**
+     * Version of the entry format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Digest of the compiler's own class files; computed on first use.
+     */
+    private String compilerDigest;
+
+    /**
+     * The cache directory.
+     */
+    private File dir;
+
+    /**
+     * The compilation options.
+     */
+    private CompilationOptions options;
+
+    /**
+     * Construct a BuildCache.
+     *
+     * @param dir     the cache directory.
+     * @param options the compilation options.
+     */
+
+    public BuildCache(File dir, CompilationOptions options) {
+        this.dir = dir;
+        this.options = options;
+    }
+
+    /**
+     * Return the key of the entry for the specified unit.
+     *
+     * @param sourceFile the source file.
+     * @param source     its contents.
+     * @return the key.
+     */
+
+    public String key(String sourceFile, byte[] source) {
+        MessageDigest digest = digest();
+        update(digest, "j-- build cache " + VERSION);
+        update(digest, compilerDigest());
+        update(digest, System.getProperty("java.specification.version"));
+        update(digest, new File(sourceFile).getName());
+        if (options.spimOutput) {
+            // The SPIM file names the output directory, and includes the
+            // SPIM runtime.
+            update(digest, options.registerAllocation + " "
+                    + options.maxRegisterCount + " " + options.outputDir);
+            File runtime = new File(System.getenv("j") + File.separator
+                    + "src" + File.separator + "spim" + File.separator
+                    + "SPIM.s");
+            try {
+                digest.update(Files.readAllBytes(runtime.toPath()));
+            } catch (IOException e) {
+                // The SPIM back end reports it.
+            }
+        } else {
+            update(digest, "jvm");
+        }
+        digest.update(source);
+        return hex(digest.digest());
+    }
+
+    /**
+     * Write the files of the entry having the specified key, if there is one
+     * and the ABIs of the types it refers to are unchanged, into the output
+     * directory, and record them in the current CompilationSession.
+     *
+     * @param key the key of the entry.
+     * @return the entry if it was restored; null otherwise.
+     */
+
+    public CacheEntry restore(String key) {
+        CacheEntry entry = read(key);
+        if (entry == null) {
+            return null;
+        }
+        CompilationSession session = CompilationSession.current();
+        for (String type : entry.referencedTypes.keySet()) {
+            if (!entry.referencedTypes.get(type).equals(abiFingerprint(type))) {
+                return null;
+            }
+        }
+        for (String outputFile : entry.outputFiles.keySet()) {
+            String name = options.outputDir + File.separator
+                    + outputFile.replace('/', File.separatorChar);
+            File file = session.file(name);
+            file.getParentFile().mkdirs();
+            try {
+                Files.write(file.toPath(), entry.outputFiles.get(outputFile));
+            } catch (IOException e) {
+                return null;
+            }
+            session.addOutputFile(name);
+        }
+        return entry;
+    }
+
+    /**
+     * Store the outcome of compiling a unit, without errors, in the current
+     * CompilationSession, under the specified key.
+     *
+     * @param key the key of the entry.
+     * @return true if the entry was stored; false otherwise.
+     */
+
+    public boolean store(String key) {
+        CompilationSession session = CompilationSession.current();
+        CacheEntry entry = new CacheEntry();
+        entry.types.putAll(session.compilationUnit().abiFingerprints());
+        ArrayList<String> referencedTypes = new ArrayList<String>(session
+                .referencedTypes());
+        Collections.sort(referencedTypes);
+        for (String type : referencedTypes) {
+            if (!entry.types.containsKey(type)) {
+                entry.referencedTypes.put(type, abiFingerprint(type));
+            }
+        }
+        String prefix = options.outputDir + File.separator;
+        for (String outputFile : session.outputFiles()) {
+            if (!outputFile.startsWith(prefix)) {
+                return false;
+            }
+            try {
+                entry.outputFiles.put(outputFile.substring(prefix.length())
+                        .replace(File.separatorChar, '/'), Files
+                        .readAllBytes(session.file(outputFile).toPath()));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return write(key, entry);
+    }
+
+    /**
+     * Return the file holding the entry having the specified key.
+     *
+     * @param key the key.
+     * @return the file.
+     */
+
+    private File file(String key) {
+        return new File(new File(dir, key.substring(0, 2)), key);
+    }
+
+    /**
+     * Read the entry having the specified key.
+     *
+     * @param key the key.
+     * @return the entry, or null if there is none (or it can't be read).
+     */
+
+    private CacheEntry read(String key) {
+        File file = file(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                return CacheEntry.read(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write an entry under the specified key.
+     *
+     * @param key   the key.
+     * @param entry the entry.
+     * @return true if the entry was written; false otherwise.
+     */
+
+    private boolean write(String key, CacheEntry entry) {
+        File file = file(key);
+        file.getParentFile().mkdirs();
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(key, ".tmp", file.getParentFile());
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            entry.write(out);
+            out.close();
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            if (tmp != null) {
+                tmp.delete();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Return the fingerprint of the ABI of the specified type as the
+     * current CompilationSession sees it: its modifiers, superclass,
+     * interfaces, and non-private fields, constructors and methods; or 0 if
+     * the type can't be found. This is read from the type's class file,
+     * without loading the class, and is the fingerprint the unit declaring
+     * the type recorded when it was compiled.
+     *
+     * @param name fully qualified name of the type.
+     * @return the fingerprint.
+     */
+
+    private static Long abiFingerprint(String name) {
+        ClassSymbol symbol = CompilationSession.current().classSymbolForName(
+                name);
+        return symbol == null ? 0L : symbol.abiFingerprint();
+    }
+
+    /**
+     * Return the hexadecimal digest of the compiler's class files (or jar
+     * file), so that a rebuilt compiler does not reuse the entries of the old
+     * one. Reading the compiler costs more than compiling a small unit, so
+     * the digest is remembered in the cache along with a stamp made of the
+     * files' paths, sizes and times of last modification; the memo is found
+     * by the CRC-32 of the stamp, which is much cheaper than SHA-256 on a JVM
+     * that has not warmed up.
+     *
+     * @return the digest.
+     */
+
+    private synchronized String compilerDigest() {
+        if (compilerDigest == null) {
+            MessageDigest digest = digest();
+            try {
+                ArrayList<File> files = compilerFiles();
+                StringBuilder stamp = new StringBuilder();
+                for (File file : files) {
+                    stamp.append(file.getAbsolutePath()).append(' ')
+                            .append(file.length()).append(' ')
+                            .append(file.lastModified()).append('\n');
+                }
+                byte[] stampBytes = stamp.toString().getBytes("UTF-8");
+                CRC32 crc = new CRC32();
+                crc.update(stampBytes, 0, stampBytes.length);
+                File memo = new File(new File(dir, "compiler"), Long
+                        .toHexString(crc.getValue()));
+                if (memo.exists()) {
+                    String text = new String(Files.readAllBytes(memo
+                            .toPath()), "UTF-8");
+                    if (text.startsWith(stamp.toString())) {
+                        compilerDigest = text.substring(stamp.length());
+                        return compilerDigest;
+                    }
+                }
+                for (File file : files) {
+                    update(digest, file.getName());
+                    digest.update(Files.readAllBytes(file.toPath()));
+                }
+                compilerDigest = hex(digest.digest());
+                memo.getParentFile().mkdirs();
+                File tmp = File.createTempFile(memo.getName(), ".tmp",
+                        memo.getParentFile());
+                Files.write(tmp.toPath(), (stamp + compilerDigest)
+                        .getBytes("UTF-8"));
+                Files.move(tmp.toPath(), memo.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                if (compilerDigest == null) {
+                    // Can't tell this compiler from another; make its
+                    // entries its own.
+                    update(digest, String.valueOf(System.nanoTime()));
+                    compilerDigest = hex(digest.digest());
+                }
+            }
+        }
+        return compilerDigest;
+    }
+
+    /**
+     * Return the compiler's class files, or its jar file.
+     *
+     * @return the files.
+     * @throws URISyntaxException if the compiler's location is not a file.
+     */
+
+    private static ArrayList<File> compilerFiles() throws URISyntaxException {
+        File location = new File(BuildCache.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        ArrayList<File> files = new ArrayList<File>();
+        if (location.isDirectory()) {
+            location = new File(location, "jminusminus");
+            ArrayList<String> names = new ArrayList<String>();
+            Collections.addAll(names, location.list());
+            Collections.sort(names);
+            for (String name : names) {
+                files.add(new File(location, name));
+            }
+        } else {
+            files.add(location);
+        }
+        return files;
+    }
+
+    /**
+     * Return a new SHA-256 digest.
+     *
+     * @return the digest.
+     */
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Add a string, and its end, to a digest.
+     *
+     * @param digest the digest.
+     * @param s      the string.
+     */
+
+    private static void update(MessageDigest digest, String s) {
+        try {
+            digest.update(s.getBytes("UTF-8"));
+        } catch (IOException e) {
+            // Every Java platform is required to support UTF-8.
+            throw new IllegalStateException(e);
+        }
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Return the specified bytes in hexadecimal.
+     *
+     * @param bytes the bytes.
+     * @return the hexadecimal string.
+     */
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(
+                    Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+}
+
+/**
+ * An entry of a BuildCache.
+ */
+
+class CacheEntry {
+
+    /**
+     * Maps the names of the types emitted to the fingerprints of their ABIs
+     * (as IncrementalIndex computes them).
+     */
+    public LinkedHashMap<String, Long> types;
+
+    /**
+     * Maps the names of the types (declared elsewhere) that the unit refers
+     * to, to the fingerprints of their ABIs when it was compiled.
+     */
+    public LinkedHashMap<String, Long> referencedTypes;
+
+    /**
+     * Maps the names of the files written, relative to the output directory
+     * and separated by '/', to their contents.
+     */
+    public LinkedHashMap<String, byte[]> outputFiles;
+
+    /**
+     * Construct an empty CacheEntry.
+     */
+
+    public CacheEntry() {
+        types = new LinkedHashMap<String, Long>();
+        referencedTypes = new LinkedHashMap<String, Long>();
+        outputFiles = new LinkedHashMap<String, byte[]>();
+    }
+
+    /**
+     * Write the entry.
+     *
+     * @param out where to write.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(types.size());
+        for (String type : types.keySet()) {
+            out.writeUTF(type);
+            out.writeLong(types.get(type));
+        }
+        out.writeInt(referencedTypes.size());
+        for (String type : referencedTypes.keySet()) {
+            out.writeUTF(type);
+            out.writeLong(referencedTypes.get(type));
+        }
+        out.writeInt(outputFiles.size());
+        for (String outputFile : outputFiles.keySet()) {
+            byte[] bytes = outputFiles.get(outputFile);
+            out.writeUTF(outputFile);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read an entry written by write().
+     *
+     * @param in where to read from.
+     * @return the entry.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    public static CacheEntry read(DataInputStream in) throws IOException {
+        CacheEntry entry = new CacheEntry();
+        for (int n = in.readInt(); n > 0; n--) {
+            entry.types.put(in.readUTF(), in.readLong());
+        }
+        for (int n = in.readInt(); n > 0; n--) {
+            entry.referencedTypes.put(in.readUTF(), in.readLong());
+        }
+        for (int n = in.readInt(); n > 0; n--) {
+            String outputFile = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            entry.outputFiles.put(outputFile, bytes);
+        }
+        return entry;
+    }
+
+}
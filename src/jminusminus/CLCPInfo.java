@@ -4,6 +4,7 @@ package jminusminus;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 import static jminusminus.CLConstants.*;
 
@@ -100,6 +101,14 @@ class CLConstantClassInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return nameIndex;
+    }
+
     /**
      * @inheritDoc
      */
@@ -166,6 +175,14 @@ abstract class CLConstantMemberRefInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return (tag * 31 + classIndex) * 31 + nameAndTypeIndex;
+    }
+
 }
 
 /**
@@ -297,6 +314,14 @@ class CLConstantStringInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return stringIndex;
+    }
+
     /**
      * @inheritDoc
      */
@@ -372,6 +397,14 @@ class CLConstantIntegerInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return i;
+    }
+
     /**
      * @inheritDoc
      */
@@ -443,6 +476,15 @@ class CLConstantFloatInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        // 0.0f and -0.0f are equal.
+        return f == 0 ? 0 : Float.floatToIntBits(f);
+    }
+
     /**
      * @inheritDoc
      */
@@ -546,6 +588,14 @@ class CLConstantLongInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return (int) (l ^ (l >>> 32));
+    }
+
     /**
      * @inheritDoc
      */
@@ -649,6 +699,16 @@ class CLConstantDoubleInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        // 0.0 and -0.0 are equal.
+        long bits = d == 0 ? 0 : Double.doubleToLongBits(d);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
     /**
      * @inheritDoc
      */
@@ -713,6 +773,14 @@ class CLConstantNameAndTypeInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return nameIndex * 31 + descriptorIndex;
+    }
+
     /**
      * @inheritDoc
      */
@@ -772,11 +840,19 @@ class CLConstantUtf8Info extends CLCPInfo {
     public boolean equals(Object obj) {
         if (obj instanceof CLConstantUtf8Info) {
             CLConstantUtf8Info c = (CLConstantUtf8Info) obj;
-            return (new String(b)).equals(new String(c.b));
+            return Arrays.equals(b, c.b);
         }
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return Arrays.hashCode(b);
+    }
+
     /**
      * @inheritDoc
      */
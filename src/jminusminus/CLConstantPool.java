@@ -4,6 +4,7 @@ package jminusminus;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * Representation of a class' constant_pool table (JVM Spec Section 4.5). An
@@ -26,6 +27,19 @@ class CLConstantPool {
      */
     private ArrayList<CLCPInfo> cpItems;
 
+    /**
+     * Maps each item to its constant pool index (that of its first
+     * occurrence).
+     */
+    private HashMap<CLCPInfo, Integer> cpIndices;
+
+    /**
+     * Maps the strings of the Utf8 items made by constantUtf8Info() to their
+     * constant pool indices. Most of them are names, interned in Names, and
+     * so are found here by identity, without encoding them again.
+     */
+    private HashMap<String, Integer> utf8Indices;
+
     /**
      * Look for the specified item in the constant pool. If it exists, return
      * its index. Otherwise, add the item to the constant pool and return its
@@ -50,6 +64,8 @@ class CLConstantPool {
     public CLConstantPool() {
         cpIndex = 1;
         cpItems = new ArrayList<CLCPInfo>();
+        cpIndices = new HashMap<CLCPInfo, Integer>();
+        utf8Indices = new HashMap<String, Integer>();
     }
 
     /**
@@ -71,12 +87,8 @@ class CLConstantPool {
      */
 
     public int find(CLCPInfo cpInfo) {
-        int index = cpItems.indexOf(cpInfo);
-        if (index != -1) {
-            CLCPInfo c = cpItems.get(index);
-            index = c.cpIndex;
-        }
-        return index;
+        Integer index = cpIndices.get(cpInfo);
+        return index == null ? -1 : index;
     }
 
     /**
@@ -106,6 +118,9 @@ class CLConstantPool {
         int i = cpIndex++;
         cpInfo.cpIndex = i;
         cpItems.add(cpInfo);
+        if (!cpIndices.containsKey(cpInfo)) {
+            cpIndices.put(cpInfo, i);
+        }
 
         // long and double, with their lower and higher words,
         // are treated by JVM as two items in the constant pool. We
@@ -315,8 +330,13 @@ class CLConstantPool {
      */
 
     public int constantUtf8Info(String s) {
-        CLCPInfo c = new CLConstantUtf8Info(s.getBytes());
-        return findOrAdd(c);
+        Integer index = utf8Indices.get(s);
+        if (index == null) {
+            CLCPInfo c = new CLConstantUtf8Info(s.getBytes());
+            index = findOrAdd(c);
+            utf8Indices.put(s, index);
+        }
+        return index;
     }
 
 }
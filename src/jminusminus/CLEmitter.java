@@ -171,10 +171,9 @@ public class CLEmitter {
     private boolean errorHasOccurred;
 
     /**
-     * Class loader to use for creating in-memory representation of classes from
-     * byte streams.
+     * Emitters spun off this one with fork(), for classes built in parallel.
      */
-    private static ByteClassLoader byteClassLoader;
+    private ArrayList<CLEmitter> forks;
 
     /**
      * Initialize all variables used for adding a method to the ClassFile
@@ -614,54 +613,53 @@ public class CLEmitter {
     }
 
     /**
-     * Return the instruction with the specified pc within the code array of the
-     * current method being added.
+     * Return the indices of the instructions within the code array of the
+     * current method being added, by pc.
      *
-     * @param pc pc of the instruction.
-     * @return the instruction with the specified pc, or null.
+     * @return the index of the instruction at each pc, or -1 where no
+     * instruction starts.
      */
 
-    private CLInstruction instruction(int pc) {
+    private int[] instructionIndices() {
+        int[] indices = new int[mCode.isEmpty() ? 0
+                : mCode.get(mCode.size() - 1).pc() + 1];
+        Arrays.fill(indices, -1);
         for (int j = 0; j < mCode.size(); j++) {
-            CLInstruction i = mCode.get(j);
-            if (i.pc() == pc) {
-                return i;
-            }
+            indices[mCode.get(j).pc()] = j;
         }
-        return null;
+        return indices;
     }
 
     /**
-     * Return the index of the instruction with the specified pc, within the
-     * code array of the current method being added.
+     * Return the instruction with the specified pc within the code array of the
+     * current method being added.
      *
-     * @param pc pc of the instruction.
-     * @return index of the instruction with the specified pc.
+     * @param indices the indices of the instructions, by pc.
+     * @param pc      pc of the instruction.
+     * @return the instruction with the specified pc, or null.
      */
 
-    private int instructionIndex(int pc) {
-        int j = 0;
-        for (; j < mCode.size(); j++) {
-            CLInstruction i = mCode.get(j);
-            if (i.pc() == pc) {
-                return j;
-            }
-        }
-        return j;
+    private CLInstruction instruction(int[] indices, int pc) {
+        return pc >= 0 && pc < indices.length && indices[pc] >= 0 ? mCode
+                .get(indices[pc]) : null;
     }
 
     /**
      * Compute the maximum depth of the operand stack for the method last added,
-     * and return the value.
+     * and return the value. Each instruction is visited once (the stack has
+     * the same depth whichever way an instruction is reached), so this takes
+     * time linear in the length of the code.
      *
      * @return maximum depth of operand stack.
      */
 
     private int stackDepth() {
+        int[] indices = instructionIndices();
+        boolean[] visited = new boolean[mCode.size()];
         CLBranchStack branchTargets = new CLBranchStack();
         for (int i = 0; i < mExceptionHandlers.size(); i++) {
             CLException e = mExceptionHandlers.get(i);
-            CLInstruction h = instruction(e.handlerPC);
+            CLInstruction h = instruction(indices, e.handlerPC);
             if (h != null) {
                 // 1 because the exception that is thrown is
                 // pushed
@@ -672,6 +670,7 @@ public class CLEmitter {
         int stackDepth = 0, maxStackDepth = 0, c = 0;
         CLInstruction instr = (mCode.size() == 0) ? null : mCode.get(c);
         while (instr != null) {
+            visited[c] = true;
             int opcode = instr.opcode();
             int stackUnits = instr.stackUnits();
             if (stackUnits == EMPTY_STACK) {
@@ -704,7 +703,7 @@ public class CLEmitter {
                     case GOTO_W:
                         instr = null;
                     default:
-                        instrAt = instruction(jumpToIndex);
+                        instrAt = instruction(indices, jumpToIndex);
                         if (instrAt != null) {
                             branchTargets.push(instrAt, stackDepth);
                         }
@@ -717,14 +716,18 @@ public class CLEmitter {
             }
             if (instr != null) {
                 c++;
-                instr = (c >= mCode.size()) ? null : mCode.get(c);
+                instr = (c >= mCode.size() || visited[c]) ? null : mCode
+                        .get(c);
             }
-            if (instr == null) {
+            while (instr == null) {
                 CLBranchTarget bt = branchTargets.pop();
-                if (bt != null) {
+                if (bt == null) {
+                    break;
+                }
+                c = indices[bt.target.pc()];
+                if (!visited[c]) {
                     instr = bt.target;
                     stackDepth = bt.stackDepth;
-                    c = instructionIndex(instr.pc());
                 }
             }
         }
@@ -884,8 +887,8 @@ public class CLEmitter {
      */
 
     private void reportEmitterError(String message, Object... args) {
-        System.err.printf(message, args);
-        System.err.println();
+        CompilationSession.current().report(new Diagnostic(null, 0,
+                String.format(message, args)));
         errorHasOccurred = true;
     }
 
@@ -904,6 +907,22 @@ public class CLEmitter {
     public CLEmitter(boolean toFile) {
         destDir = ".";
         this.toFile = toFile;
+        forks = new ArrayList<CLEmitter>();
+    }
+
+    /**
+     * Return a new CLEmitter that writes its class where this one does, for
+     * building a class in parallel with those built by this one. Errors that
+     * occur in the new emitter are reported by this one's errorHasOccurred().
+     *
+     * @return the new emitter.
+     */
+
+    public synchronized CLEmitter fork() {
+        CLEmitter emitter = new CLEmitter(toFile);
+        emitter.destDir = destDir;
+        forks.add(emitter);
+        return emitter;
     }
 
     /**
@@ -922,7 +941,12 @@ public class CLEmitter {
      * @return true or false.
      */
 
-    public boolean errorHasOccurred() {
+    public synchronized boolean errorHasOccurred() {
+        for (CLEmitter emitter : forks) {
+            if (emitter.errorHasOccurred()) {
+                return true;
+            }
+        }
         return errorHasOccurred;
     }
 
@@ -1809,11 +1833,12 @@ public class CLEmitter {
     }
 
     /**
-     * Set a new ByteClassLoader for loading classes from byte streams.
+     * Set a new ByteClassLoader (for the current CompilationSession) for
+     * loading classes from byte streams.
      */
 
     public static void initializeByteClassLoader() {
-        byteClassLoader = new ByteClassLoader();
+        CompilationSession.current().initializeByteClassLoader();
     }
 
     /**
@@ -1846,8 +1871,12 @@ public class CLEmitter {
 
             // Load a Java Class instance from its byte
             // representation
-            byteClassLoader.setClassBytes(classBytes);
-            theClass = byteClassLoader.loadClass(name, true);
+            ByteClassLoader byteClassLoader = CompilationSession.current()
+                    .byteClassLoader();
+            synchronized (byteClassLoader) {
+                byteClassLoader.setClassBytes(name, classBytes);
+                theClass = byteClassLoader.loadClass(name, true);
+            }
         } catch (IOException e) {
             reportEmitterError("Cannot write class to byte stream");
         } catch (ClassNotFoundException e) {
@@ -1859,7 +1888,9 @@ public class CLEmitter {
     /**
      * Write out the class to the file system as a .class file if toFile is
      * true. The destination directory for the file can be set using the
-     * destinationDir(String dir) method.
+     * destinationDir(String dir) method. If the current CompilationSession
+     * keeps class files in memory, the class is put there instead; if it
+     * streams them into a jar, the class is written there.
      */
 
     public void write() {
@@ -1867,19 +1898,50 @@ public class CLEmitter {
         if (!toFile) {
             return;
         }
+        CompilationSession session = CompilationSession.current();
+        session.enterPhase("write");
+        if (session.classFiles() != null) {
+            try {
+                ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+                CLOutputStream out = new CLOutputStream(byteStream);
+                clFile.write(out);
+                out.close();
+                session.classFiles().put(name.replace('/', '.'),
+                        byteStream.toByteArray());
+            } catch (IOException e) {
+                reportEmitterError("Cannot write class to byte stream");
+            } finally {
+                session.exitPhase();
+            }
+            return;
+        }
+        if (session.jar() != null) {
+            try {
+                session.jar().write(session.jarUnit(), name, clFile);
+            } catch (IOException e) {
+                reportEmitterError("Cannot write class %s to jar: %s", name,
+                        e.getMessage());
+            } finally {
+                session.exitPhase();
+            }
+            return;
+        }
         String outFile = destDir + File.separator + name + ".class";
         try {
-            File file = new File(destDir + File.separator
+            File file = session.file(destDir + File.separator
                     + name.substring(0, name.lastIndexOf("/") + 1));
             file.mkdirs();
             CLOutputStream out = new CLOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(outFile)));
+                    new FileOutputStream(session.file(outFile))));
             clFile.write(out);
             out.close();
+            session.addOutputFile(outFile);
         } catch (FileNotFoundException e) {
             reportEmitterError("File %s not found", outFile);
         } catch (IOException e) {
             reportEmitterError("Cannot write to file %s", outFile);
+        } finally {
+            session.exitPhase();
         }
     }
 }
@@ -2108,6 +2170,11 @@ class CLBranchStack {
 
 class ByteClassLoader extends ClassLoader {
 
+    /**
+     * Name of the class.
+     */
+    private String name;
+
     /**
      * Bytes representing the class.
      */
@@ -2119,12 +2186,25 @@ class ByteClassLoader extends ClassLoader {
     private boolean pkgDefined = false;
 
     /**
-     * Set the bytes representing the class.
+     * Construct a ByteClassLoader that delegates to the specified loader for
+     * classes other than the one whose bytes it is given.
      *
+     * @param parent the parent class loader.
+     */
+
+    public ByteClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    /**
+     * Set the name and the bytes representing the class.
+     *
+     * @param name  name of the class.
      * @param bytes bytes representing the class.
      */
 
-    public void setClassBytes(byte[] bytes) {
+    public void setClassBytes(String name, byte[] bytes) {
+        this.name = name.replace("/", ".");
         this.bytes = bytes;
     }
 
@@ -2135,12 +2215,25 @@ class ByteClassLoader extends ClassLoader {
     public Class<?> loadClass(String name, boolean resolve)
             throws ClassNotFoundException {
         Class cls = findLoadedClass(name);
-        if (cls == null) {
+
+        // The class whose bytes we have is never looked for elsewhere, as
+        // the class path may hold a stale class file for it. Others not on
+        // the class path proper are looked for with the loader of the
+        // compiler, as CompilationSession looks for their class files.
+        if (cls == null && !name.replace("/", ".").equals(this.name)) {
             try {
-                cls = findSystemClass(name);
+                cls = getParent().loadClass(name);
             } catch (Exception e) {
                 // Ignore these
             }
+            if (cls == null) {
+                try {
+                    cls = ByteClassLoader.class.getClassLoader().loadClass(
+                            name);
+                } catch (Exception e) {
+                    // Ignore these
+                }
+            }
         }
         if (cls == null) {
             name = name.replace("/", ".");
@@ -0,0 +1,534 @@
+package jminusminus;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+import static jminusminus.CLConstants.*;
+
+/**
+ * A class as its class file declares it -- its name, modifiers, superclass,
+ * interfaces, and the names, modifiers and descriptors of its fields and
+ * methods -- read from the class file rather than from a Class, so the class
+ * is never loaded into the compiler. This is what Type knows of JDK and class
+ * path classes.
+ * <p>
+ * Unlike CLAbsorber, which reads a class file whole into a CLFile, a
+ * ClassSymbol keeps only the bytes of the constant pool, and decodes a string
+ * from the pool when it is first asked for. The class file is read as a
+ * stream, only as far as the end of the methods; the attributes of the fields
+ * and methods (code and all) are skipped over, and those of the class are not
+ * read at all. Everything a ClassSymbol hands out is checked as it is read, so
+ * a truncated or malformed class file is an IOException from read(), and
+ * never an exception later.
+ */
+
+class ClassSymbol {
+
+    /**
+     * The bytes of the constant pool entries, less their tags.
+     */
+    private byte[] pool;
+
+    /**
+     * Positions in pool of the constant pool entries, by index.
+     */
+    private int[] offsets;
+
+    /**
+     * Tags of the constant pool entries, by index; 0 for the unusable ones.
+     */
+    private byte[] tags;
+
+    /**
+     * Strings of the constant pool, by index, as they are decoded; null
+     * where they aren't yet.
+     */
+    private String[] strings;
+
+    /**
+     * The access flags of the class.
+     */
+    private int accessFlags;
+
+    /**
+     * Constant pool index of the class.
+     */
+    private int thisIndex;
+
+    /**
+     * Constant pool index of the superclass; 0 if there is none.
+     */
+    private int superIndex;
+
+    /**
+     * Constant pool indices of the interfaces.
+     */
+    private int[] interfaceIndices;
+
+    /**
+     * The fields.
+     */
+    private MemberSymbol[] fields;
+
+    /**
+     * The methods (and constructors).
+     */
+    private MemberSymbol[] methods;
+
+    /**
+     * Construct a ClassSymbol by reading a class file from the specified
+     * stream, up to the end of its methods.
+     *
+     * @param in the stream.
+     * @throws IOException if the class file cannot be read, or is not a
+     *                     well-formed class file.
+     */
+
+    private ClassSymbol(DataInputStream in) throws IOException {
+        if ((in.readInt() & 0xffffffffL) != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        in.readInt(); // minor and major version
+        readConstantPool(in);
+        accessFlags = in.readUnsignedShort();
+        thisIndex = checkClass(in.readUnsignedShort());
+        superIndex = in.readUnsignedShort();
+        if (superIndex != 0) {
+            checkClass(superIndex);
+        }
+        interfaceIndices = new int[in.readUnsignedShort()];
+        for (int i = 0; i < interfaceIndices.length; i++) {
+            interfaceIndices[i] = checkClass(in.readUnsignedShort());
+        }
+        fields = readMembers(in);
+        methods = readMembers(in);
+    }
+
+    /**
+     * Return the ClassSymbol of the class file read from the specified
+     * stream, which is closed.
+     *
+     * @param in the stream.
+     * @return the ClassSymbol.
+     * @throws IOException if the class file cannot be read, or is not a
+     *                     well-formed class file.
+     */
+
+    public static ClassSymbol read(InputStream in) throws IOException {
+        try {
+            return new ClassSymbol(new DataInputStream(
+                    new BufferedInputStream(in)));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Return the access flags of the class.
+     *
+     * @return the access flags.
+     */
+
+    public int accessFlags() {
+        return accessFlags;
+    }
+
+    /**
+     * Return the internal name of the class (eg java/lang/String).
+     *
+     * @return the internal name.
+     */
+
+    public String name() {
+        return className(thisIndex);
+    }
+
+    /**
+     * Return the internal name of the superclass.
+     *
+     * @return the internal name, or null if the class has no superclass.
+     */
+
+    public String superName() {
+        return superIndex == 0 ? null : className(superIndex);
+    }
+
+    /**
+     * Return the internal names of the interfaces the class directly
+     * implements.
+     *
+     * @return the internal names.
+     */
+
+    public String[] interfaceNames() {
+        String[] names = new String[interfaceIndices.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = className(interfaceIndices[i]);
+        }
+        return names;
+    }
+
+    /**
+     * Return the fields declared by the class. The array must not be changed.
+     *
+     * @return the fields.
+     */
+
+    public MemberSymbol[] fields() {
+        return fields;
+    }
+
+    /**
+     * Return the methods (and constructors, named &lt;init&gt;) declared by
+     * the class. The array must not be changed.
+     *
+     * @return the methods.
+     */
+
+    public MemberSymbol[] methods() {
+        return methods;
+    }
+
+    /**
+     * Return the fingerprint of the ABI of the class: the same as
+     * IncrementalIndex.abiFingerprint() of the CLFile the class file was
+     * written from.
+     *
+     * @return the fingerprint.
+     */
+
+    public long abiFingerprint() {
+        ArrayList<String> members = new ArrayList<String>();
+        for (MemberSymbol[] symbols : new MemberSymbol[][] { fields,
+                methods }) {
+            for (MemberSymbol symbol : symbols) {
+                if ((symbol.accessFlags() & ACC_PRIVATE) == 0) {
+                    members.add(symbol.accessFlags() + " " + symbol.name()
+                            + " " + symbol.descriptor());
+                }
+            }
+        }
+        return IncrementalIndex.abiFingerprint(accessFlags & ~ACC_SUPER,
+                name(), superName(), interfaceNames(), members);
+    }
+
+    /**
+     * Return the string at the specified index of the constant pool,
+     * decoding it the first time it is asked for.
+     *
+     * @param index index of a Utf8 entry (checked when it was read).
+     * @return the string.
+     */
+
+    String utf8(int index) {
+        String string = strings[index];
+        if (string == null) {
+            int at = offsets[index];
+            int end = at + 2 + u2(at);
+            char[] chars = new char[end - at - 2];
+            int n = 0;
+            for (at += 2; at < end; ) {
+                int c = pool[at++] & 0xff;
+                if (c < 0x80) {
+                    chars[n++] = (char) c;
+                } else if (c < 0xe0) {
+                    chars[n++] = (char) (((c & 0x1f) << 6)
+                            | (pool[at++] & 0x3f));
+                } else {
+                    chars[n++] = (char) (((c & 0x0f) << 12)
+                            | ((pool[at] & 0x3f) << 6)
+                            | (pool[at + 1] & 0x3f));
+                    at += 2;
+                }
+            }
+            string = new String(chars, 0, n);
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Return the internal name of the class at the specified index of the
+     * constant pool.
+     *
+     * @param index index of a Class entry (checked when it was read).
+     * @return the internal name.
+     */
+
+    private String className(int index) {
+        return utf8(u2(offsets[index]));
+    }
+
+    /**
+     * Read the constant pool, keeping the bytes of its entries.
+     *
+     * @param in the stream, positioned at the constant pool count.
+     * @throws IOException if the constant pool cannot be read, or is
+     *                     malformed.
+     */
+
+    private void readConstantPool(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        offsets = new int[count];
+        tags = new byte[count];
+        strings = new String[count];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            offsets[i] = out.size();
+            tags[i] = (byte) tag;
+            int length;
+            switch (tag) {
+            case 1: // Utf8
+                int utf8Length = in.readUnsignedShort();
+                if (buffer.length < 2 + utf8Length) {
+                    buffer = new byte[2 + utf8Length];
+                }
+                buffer[0] = (byte) (utf8Length >> 8);
+                buffer[1] = (byte) utf8Length;
+                in.readFully(buffer, 2, utf8Length);
+                if (!isModifiedUtf8(buffer, 2, 2 + utf8Length)) {
+                    throw new IOException("malformed string in constant pool");
+                }
+                length = 2 + utf8Length;
+                break;
+            case 7: // Class
+            case 8: // String
+            case 16: // MethodType
+            case 19: // Module
+            case 20: // Package
+                length = 2;
+                break;
+            case 15: // MethodHandle
+                length = 3;
+                break;
+            case 3: // Integer
+            case 4: // Float
+            case 9: // Fieldref
+            case 10: // Methodref
+            case 11: // InterfaceMethodref
+            case 12: // NameAndType
+            case 17: // Dynamic
+            case 18: // InvokeDynamic
+                length = 4;
+                break;
+            case 5: // Long
+            case 6: // Double
+                length = 8;
+                i++;
+                break;
+            default:
+                throw new IOException("bad constant pool tag " + tag);
+            }
+            if (tag != 1) {
+                in.readFully(buffer, 0, length);
+            }
+            out.write(buffer, 0, length);
+        }
+        pool = out.toByteArray();
+    }
+
+    /**
+     * Read the fields (or the methods) of the class, skipping their
+     * attributes.
+     *
+     * @param in the stream, positioned at the count of the members.
+     * @return the members.
+     * @throws IOException if the members cannot be read, or are malformed.
+     */
+
+    private MemberSymbol[] readMembers(DataInputStream in)
+            throws IOException {
+        MemberSymbol[] members = new MemberSymbol[in.readUnsignedShort()];
+        for (int i = 0; i < members.length; i++) {
+            int accessFlags = in.readUnsignedShort();
+            int nameIndex = checkUtf8(in.readUnsignedShort());
+            int descriptorIndex = checkUtf8(in.readUnsignedShort());
+            members[i] = new MemberSymbol(this, accessFlags, nameIndex,
+                    descriptorIndex);
+            for (int j = in.readUnsignedShort(); j > 0; j--) {
+                in.readUnsignedShort(); // attribute name
+                skipFully(in, in.readInt() & 0xffffffffL);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Check that the specified index is that of a Class entry of the
+     * constant pool naming the class by a Utf8 entry.
+     *
+     * @param index the index.
+     * @return the index.
+     * @throws IOException if it is not.
+     */
+
+    private int checkClass(int index) throws IOException {
+        if (index <= 0 || index >= tags.length || tags[index] != 7) {
+            throw new IOException("bad class index " + index);
+        }
+        checkUtf8(u2(offsets[index]));
+        return index;
+    }
+
+    /**
+     * Check that the specified index is that of a Utf8 entry of the
+     * constant pool.
+     *
+     * @param index the index.
+     * @return the index.
+     * @throws IOException if it is not.
+     */
+
+    private int checkUtf8(int index) throws IOException {
+        if (index <= 0 || index >= tags.length || tags[index] != 1) {
+            throw new IOException("bad string index " + index);
+        }
+        return index;
+    }
+
+    /**
+     * Return true if the specified bytes are well-formed modified UTF-8 (as
+     * DataInputStream.readUTF() would have them); false otherwise.
+     *
+     * @param bytes the bytes.
+     * @param at    position of the first byte.
+     * @param end   position just past the last byte.
+     * @return true or false.
+     */
+
+    private static boolean isModifiedUtf8(byte[] bytes, int at, int end) {
+        while (at < end) {
+            int c = bytes[at++] & 0xff;
+            int more = c < 0x80 ? 0 : (c & 0xe0) == 0xc0 ? 1
+                    : (c & 0xf0) == 0xe0 ? 2 : -1;
+            if (more < 0 || at + more > end) {
+                return false;
+            }
+            for (; more > 0; more--) {
+                if ((bytes[at++] & 0xc0) != 0x80) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skip the specified number of bytes of the stream.
+     *
+     * @param in    the stream.
+     * @param count the number of bytes.
+     * @throws IOException if the stream ends first.
+     */
+
+    private static void skipFully(DataInputStream in, long count)
+            throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    /**
+     * Return the unsigned two-byte value at the specified position of the
+     * constant pool.
+     *
+     * @param at the position.
+     * @return the value.
+     */
+
+    private int u2(int at) {
+        return ((pool[at] & 0xff) << 8) | (pool[at + 1] & 0xff);
+    }
+
+}
+
+/**
+ * A field or method of a ClassSymbol: its access flags, and the indices of
+ * its name and descriptor in the class's constant pool, decoded when they
+ * are asked for.
+ */
+
+class MemberSymbol {
+
+    /**
+     * The class declaring the member.
+     */
+    private ClassSymbol declaringClass;
+
+    /**
+     * The access flags.
+     */
+    private int accessFlags;
+
+    /**
+     * Constant pool index of the name.
+     */
+    private int nameIndex;
+
+    /**
+     * Constant pool index of the descriptor.
+     */
+    private int descriptorIndex;
+
+    /**
+     * Construct a MemberSymbol.
+     *
+     * @param declaringClass  the class declaring the member.
+     * @param accessFlags     the access flags.
+     * @param nameIndex       constant pool index of the name.
+     * @param descriptorIndex constant pool index of the descriptor.
+     */
+
+    public MemberSymbol(ClassSymbol declaringClass, int accessFlags,
+                        int nameIndex, int descriptorIndex) {
+        this.declaringClass = declaringClass;
+        this.accessFlags = accessFlags;
+        this.nameIndex = nameIndex;
+        this.descriptorIndex = descriptorIndex;
+    }
+
+    /**
+     * Return the access flags.
+     *
+     * @return the access flags.
+     */
+
+    public int accessFlags() {
+        return accessFlags;
+    }
+
+    /**
+     * Return the name.
+     *
+     * @return the name.
+     */
+
+    public String name() {
+        return declaringClass.utf8(nameIndex);
+    }
+
+    /**
+     * Return the descriptor (eg (I)Ljava/lang/String;).
+     *
+     * @return the descriptor.
+     */
+
+    public String descriptor() {
+        return declaringClass.utf8(descriptorIndex);
+    }
+
+}
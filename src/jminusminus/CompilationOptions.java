@@ -0,0 +1,128 @@
+package jminusminus;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * The options, read from the command line, that apply to every compilation
+ * unit compiled by one invocation of Main.
+ */
+
+class CompilationOptions {
+
+    /**
+     * One of -t, -p, -pa, -a, or "".
+     */
+    public String debugOption = "";
+
+    /**
+     * Where to place output files.
+     */
+    public String outputDir = ".";
+
+    /**
+     * Whether to generate SPIM code.
+     */
+    public boolean spimOutput = false;
+
+    /**
+     * Register allocation scheme for SPIM code.
+     */
+    public String registerAllocation = "";
+
+    /**
+     * Max. physical registers for SPIM code.
+     */
+    public int maxRegisterCount = CompilationSession.DEFAULT_MAX_REGISTER_COUNT;
+
+    /**
+     * Whether each unit's types are analyzed, generated and written one at a
+     * time, each one's AST and code being let go of once written.
+     */
+    public boolean stream = false;
+
+    /**
+     * Whether each unit is scanned on a lexer thread of its own, ahead of
+     * the parser.
+     */
+    public boolean pipeline = false;
+
+    /**
+     * Number of units compiled at the same time.
+     */
+    public int threads = 1;
+
+    /**
+     * Stream to which diagnostics are printed.
+     */
+    public PrintStream err = System.err;
+
+    /**
+     * Directory against which relative file names are resolved; null for the
+     * working directory.
+     */
+    public File baseDir = null;
+
+    /**
+     * If not null, the names of the files written are added to it.
+     */
+    public ArrayList<String> outputFiles = null;
+
+    /**
+     * If not null, the per-phase statistics gathered for each unit are
+     * added to it.
+     */
+    public ArrayList<CompilationStats> stats = null;
+
+    /**
+     * If not null, the jar into which class files are streamed.
+     */
+    public JarOutput jar = null;
+
+    /**
+     * If not null, the cache from which the files of unchanged units are
+     * restored, and in which the files of the other units are stored.
+     */
+    public BuildCache cache = null;
+
+    /**
+     * Return a new CompilationSession for compiling a unit with these
+     * options.
+     *
+     * @return the session.
+     */
+
+    public CompilationSession newSession() {
+        CompilationSession session = new CompilationSession(err, baseDir);
+        session.setMaxRegisterCount(maxRegisterCount);
+        return session;
+    }
+
+    /**
+     * Return the file denoted by the specified name, resolving a relative
+     * name against the base directory.
+     *
+     * @param name the file name.
+     * @return the file.
+     */
+
+    public File file(String name) {
+        File file = new File(name);
+        return baseDir == null || file.isAbsolute() ? file
+                : new File(baseDir, name);
+    }
+
+    /**
+     * Return the options that affect the code generated, in a form that can
+     * be compared from one invocation to the next.
+     *
+     * @return the code-generation options.
+     */
+
+    public String codegenOptions() {
+        return outputDir + " " + (spimOutput ? registerAllocation + " "
+                + maxRegisterCount : "jvm");
+    }
+
+}
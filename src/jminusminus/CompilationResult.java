@@ -0,0 +1,79 @@
+package jminusminus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of compiling a unit with MemoryCompiler: the class files
+ * produced, and the errors reported.
+ */
+
+public class CompilationResult {
+
+    /**
+     * Whether an error occurred.
+     */
+    private boolean errorHasOccurred;
+
+    /**
+     * Maps binary class names to class file contents, in the order the
+     * classes were declared.
+     */
+    private Map<String, byte[]> classFiles;
+
+    /**
+     * The errors reported.
+     */
+    private List<Diagnostic> diagnostics;
+
+    /**
+     * Construct a CompilationResult.
+     *
+     * @param errorHasOccurred whether an error occurred.
+     * @param classFiles       the class files produced.
+     * @param diagnostics      the errors reported.
+     */
+
+    CompilationResult(boolean errorHasOccurred,
+                      Map<String, byte[]> classFiles,
+                      ArrayList<Diagnostic> diagnostics) {
+        this.errorHasOccurred = errorHasOccurred;
+        this.classFiles = Collections.unmodifiableMap(classFiles);
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * Return true if the unit compiled without errors; false otherwise.
+     *
+     * @return true or false.
+     */
+
+    public boolean succeeded() {
+        return !errorHasOccurred;
+    }
+
+    /**
+     * Return the class files produced (none if an error was found before
+     * code generation), keyed by binary class name (eg pass.Factorial), in
+     * the order the classes were declared.
+     *
+     * @return the class files.
+     */
+
+    public Map<String, byte[]> classFiles() {
+        return classFiles;
+    }
+
+    /**
+     * Return the errors reported, in the order they were found.
+     *
+     * @return the diagnostics.
+     */
+
+    public List<Diagnostic> diagnostics() {
+        return diagnostics;
+    }
+
+}
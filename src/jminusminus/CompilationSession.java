@@ -0,0 +1,641 @@
+package jminusminus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+
+/**
+ * The state that belongs to the compilation of a single compilation unit: the
+ * unit itself, the class loader for its partial classes, the Types backed by
+ * those partial classes, and the options that affect code generation.
+ * <p>
+ * A session is bound to the thread doing the compiling (see setCurrent()), so
+ * independent compilation units can be compiled at the same time on different
+ * threads without seeing each other's declarations. Types of JDK classes (eg
+ * java.lang.String) don't belong to any unit, and are still shared by all
+ * sessions in Type. The code for a unit's type declarations may itself be
+ * generated on several threads (see JCompilationUnit.codegen()), each bound to
+ * the same session, so what codegen records here is synchronized.
+ * <p>
+ * Diagnostics are recorded and printed to the session's error stream,
+ * relative file names are resolved against the session's base directory, the
+ * names of the files written are recorded, and class files may be kept in
+ * memory instead of written, so that a caller other than the command line
+ * (see CompilerDaemon and MemoryCompiler) can compile on behalf of a client.
+ * <p>
+ * The session's class loaders are made only when a class is first looked
+ * for, so a session that only scans and parses (eg an IncrementalParser's)
+ * has none; whoever ends a session that compiled a unit closes it, so that
+ * the jar files its loader opened are closed too.
+ */
+
+class CompilationSession implements Closeable {
+
+    /**
+     * Default maximum number of physical registers used for allocation.
+     */
+    public static final int DEFAULT_MAX_REGISTER_COUNT = 8;
+
+    /**
+     * The session bound to each compiling thread.
+     */
+    private static final ThreadLocal<CompilationSession> current = new ThreadLocal<CompilationSession>();
+
+    /**
+     * The compilation unit being compiled (set in JCompilationUnit()).
+     */
+    private JCompilationUnit compilationUnit;
+
+    /**
+     * The loader of the JDK's own classes (null stands for the bootstrap
+     * loader).
+     */
+    private static final ClassLoader JDK_CLASS_LOADER = ClassLoader
+            .getSystemClassLoader().getParent();
+
+    /**
+     * Class loader for the classes on the class path, other than the JDK's;
+     * null until it is needed.
+     */
+    private URLClassLoader classLoader;
+
+    /**
+     * Class loader for creating partial classes from byte streams; null until
+     * it is needed.
+     */
+    private ByteClassLoader byteClassLoader;
+
+    /**
+     * Maps type names to the Types of classes defined by this session's class
+     * loaders.
+     */
+    private Hashtable<String, Type> types;
+
+    /**
+     * Maximum number of physical registers used for allocation, starting at
+     * T0.
+     */
+    private int maxRegisterCount;
+
+    /**
+     * Stream to which diagnostics are printed; null if they are only
+     * recorded.
+     */
+    private PrintStream err;
+
+    /**
+     * The diagnostics reported so far.
+     */
+    private ArrayList<Diagnostic> diagnostics;
+
+    /**
+     * If not null, class files are put here (keyed by binary class name)
+     * rather than written to the file system.
+     */
+    private LinkedHashMap<String, byte[]> classFiles;
+
+    /**
+     * If not null, class files are streamed into this jar rather than
+     * written to the file system.
+     */
+    private JarOutput jar;
+
+    /**
+     * Position of the unit on the command line, which orders its classes in
+     * the jar.
+     */
+    private int jarUnit;
+
+    /**
+     * Directory against which relative file names are resolved; null for the
+     * working directory of the process.
+     */
+    private File baseDir;
+
+    /**
+     * Names of the files written so far.
+     */
+    private ArrayList<String> outputFiles;
+
+    /**
+     * Names of the types (other than arrays and primitives) that the unit
+     * refers to.
+     */
+    private HashSet<String> referencedTypes;
+
+    /**
+     * Per-phase statistics; null unless they were asked for.
+     */
+    private CompilationStats stats;
+
+    /**
+     * Construct a CompilationSession that prints its diagnostics to STDERR.
+     */
+
+    public CompilationSession() {
+        this(System.err, null);
+    }
+
+    /**
+     * Construct a CompilationSession given where to print diagnostics and
+     * where to resolve relative file names.
+     *
+     * @param err     stream to which diagnostics are printed; null if they are
+     *                only to be recorded.
+     * @param baseDir directory against which relative file names are
+     *                resolved; null for the working directory.
+     */
+
+    public CompilationSession(PrintStream err, File baseDir) {
+        types = new Hashtable<String, Type>();
+        maxRegisterCount = DEFAULT_MAX_REGISTER_COUNT;
+        this.err = err;
+        diagnostics = new ArrayList<Diagnostic>();
+        this.baseDir = baseDir;
+        outputFiles = new ArrayList<String>();
+        referencedTypes = new HashSet<String>();
+    }
+
+    /**
+     * Return the session bound to the current thread. A thread that has not
+     * been given a session gets a fresh one.
+     *
+     * @return the current session.
+     */
+
+    public static CompilationSession current() {
+        CompilationSession session = current.get();
+        if (session == null) {
+            session = new CompilationSession();
+            current.set(session);
+        }
+        return session;
+    }
+
+    /**
+     * Return the session bound to the current thread, without giving it a
+     * fresh one if it has none.
+     *
+     * @return the current session, or null.
+     */
+
+    static CompilationSession peek() {
+        return current.get();
+    }
+
+    /**
+     * Bind the specified session to the current thread.
+     *
+     * @param session the session; null unbinds the current one.
+     */
+
+    public static void setCurrent(CompilationSession session) {
+        if (session == null) {
+            current.remove();
+        } else {
+            current.set(session);
+        }
+    }
+
+    /**
+     * Return the compilation unit being compiled.
+     *
+     * @return the compilation unit.
+     */
+
+    public JCompilationUnit compilationUnit() {
+        return compilationUnit;
+    }
+
+    /**
+     * Set the compilation unit being compiled.
+     *
+     * @param compilationUnit the compilation unit.
+     */
+
+    public void setCompilationUnit(JCompilationUnit compilationUnit) {
+        this.compilationUnit = compilationUnit;
+    }
+
+    /**
+     * Return the class loader for partial classes.
+     *
+     * @return the class loader.
+     */
+
+    public synchronized ByteClassLoader byteClassLoader() {
+        if (byteClassLoader == null) {
+            byteClassLoader = new ByteClassLoader(classLoader());
+        }
+        return byteClassLoader;
+    }
+
+    /**
+     * Set a new ByteClassLoader for loading classes from byte streams.
+     */
+
+    public synchronized void initializeByteClassLoader() {
+        byteClassLoader = new ByteClassLoader(classLoader());
+    }
+
+    /**
+     * Return the ClassSymbol read from the class file of the class having
+     * the specified fully qualified name, on the class path. A class that is
+     * not on the class path proper (eg when the compiler runs in a container
+     * having class loaders of its own) is looked for with the loader of the
+     * compiler. Class files are read afresh for each session, so that one
+     * rewritten since an earlier session (eg by the compilation of another
+     * unit) is read again. The class is not loaded.
+     *
+     * @param name fully qualified name of the class.
+     * @return the ClassSymbol, or null if the class file cannot be found or
+     * read, or is not well-formed.
+     */
+
+    public ClassSymbol classSymbolForName(String name) {
+        ClassSymbol symbol = classSymbolForName(classLoader(), name);
+        return symbol != null ? symbol : classSymbolForName(
+                CompilationSession.class.getClassLoader(), name);
+    }
+
+    /**
+     * Return the ClassSymbol read from the class file of the JDK class
+     * having the specified fully qualified name. The class is not loaded.
+     *
+     * @param name fully qualified name of the class.
+     * @return the ClassSymbol, or null if there is no such JDK class, or its
+     * class file cannot be read.
+     */
+
+    public static ClassSymbol jdkClassSymbolForName(String name) {
+        // Most JDK classes are the bootstrap loader's, whose class files are
+        // read directly rather than through the platform loader's URLs.
+        ClassSymbol symbol = classSymbolForName(null, name);
+        return symbol != null ? symbol
+                : classSymbolForName(JDK_CLASS_LOADER, name);
+    }
+
+    /**
+     * Close the class loader for the classes on the class path, if one was
+     * made, and with it the jar files it opened. Classes already loaded can
+     * still be used, but no more can be looked for.
+     */
+
+    public synchronized void close() {
+        if (classLoader != null) {
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                // Nothing more can be done about it.
+            }
+        }
+    }
+
+    /**
+     * Return the loader for the classes on the class path, other than the
+     * JDK's, making it the first time it is asked for.
+     *
+     * @return the class loader.
+     */
+
+    private synchronized ClassLoader classLoader() {
+        if (classLoader == null) {
+            classLoader = new URLClassLoader(classPath(), JDK_CLASS_LOADER);
+        }
+        return classLoader;
+    }
+
+    /**
+     * Return the ClassSymbol read from the class file of the class having
+     * the specified fully qualified name, found as a resource of the
+     * specified loader.
+     *
+     * @param classLoader the class loader (null for the bootstrap loader).
+     * @param name        fully qualified name of the class.
+     * @return the ClassSymbol, or null if the class file cannot be found or
+     * read, is not well-formed, or is that of another class.
+     */
+
+    private static ClassSymbol classSymbolForName(ClassLoader classLoader,
+                                                  String name) {
+        String internalName = name.replace('.', '/');
+        InputStream in = classLoader == null ? Object.class
+                .getResourceAsStream("/" + internalName + ".class")
+                : classLoader.getResourceAsStream(internalName + ".class");
+        try {
+            ClassSymbol symbol = in == null ? null : ClassSymbol.read(in);
+            return symbol == null || !symbol.name().equals(internalName)
+                    ? null : symbol;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Return true if the specified loader loads the JDK's own classes; false
+     * otherwise. Types of these classes are shared by all sessions.
+     *
+     * @param classLoader the class loader (null for the bootstrap loader).
+     * @return true or false.
+     */
+
+    public static boolean isJDKClassLoader(ClassLoader classLoader) {
+        return classLoader == null || classLoader == JDK_CLASS_LOADER;
+    }
+
+    /**
+     * Return the entries of the class path as URLs.
+     *
+     * @return the class path.
+     */
+
+    private static URL[] classPath() {
+        ArrayList<URL> urls = new ArrayList<URL>();
+        for (String entry : System.getProperty("java.class.path").split(
+                File.pathSeparator)) {
+            try {
+                urls.add(new File(entry).toURI().toURL());
+            } catch (MalformedURLException e) {
+                // Leave the entry out.
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+    /**
+     * Return the table of Types for classes defined by this session's class
+     * loaders.
+     *
+     * @return the table of types.
+     */
+
+    public Hashtable<String, Type> types() {
+        return types;
+    }
+
+    /**
+     * Return the maximum number of physical registers available for
+     * allocation.
+     *
+     * @return the maximum number of registers.
+     */
+
+    public int maxRegisterCount() {
+        return maxRegisterCount;
+    }
+
+    /**
+     * Set the maximum number of physical registers available for allocation.
+     *
+     * @param maxRegisterCount the maximum number of registers (1-18).
+     */
+
+    public void setMaxRegisterCount(int maxRegisterCount) {
+        this.maxRegisterCount = maxRegisterCount;
+    }
+
+    /**
+     * Report an error: record it, and print it to the session's error stream.
+     *
+     * @param diagnostic the error.
+     */
+
+    public synchronized void report(Diagnostic diagnostic) {
+        diagnostics.add(diagnostic);
+        if (err != null) {
+            err.println(diagnostic);
+        }
+    }
+
+    /**
+     * Return the diagnostics reported so far.
+     *
+     * @return the list of diagnostics.
+     */
+
+    public ArrayList<Diagnostic> diagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Keep class files in memory, in the specified map, instead of writing
+     * them to the file system.
+     *
+     * @param classFiles maps binary class names to class file contents.
+     */
+
+    public void setClassFiles(LinkedHashMap<String, byte[]> classFiles) {
+        this.classFiles = classFiles;
+    }
+
+    /**
+     * Return the map in which class files are kept in memory.
+     *
+     * @return the map, or null if class files are written to the file system.
+     */
+
+    public LinkedHashMap<String, byte[]> classFiles() {
+        return classFiles;
+    }
+
+    /**
+     * Stream class files into the specified jar, as those of the unit at the
+     * specified position on the command line, instead of writing them to the
+     * file system.
+     *
+     * @param jar  the jar.
+     * @param unit position of the unit.
+     */
+
+    public void setJar(JarOutput jar, int unit) {
+        this.jar = jar;
+        this.jarUnit = unit;
+    }
+
+    /**
+     * Return the jar into which class files are streamed.
+     *
+     * @return the jar, or null if class files are written to the file system.
+     */
+
+    public JarOutput jar() {
+        return jar;
+    }
+
+    /**
+     * Return the position of the unit on the command line.
+     *
+     * @return the position.
+     */
+
+    public int jarUnit() {
+        return jarUnit;
+    }
+
+    /**
+     * Return the file denoted by the specified name, resolving a relative
+     * name against the session's base directory.
+     *
+     * @param name the file name.
+     * @return the file.
+     */
+
+    public File file(String name) {
+        File file = new File(name);
+        if (baseDir == null || file.isAbsolute()) {
+            return file;
+        }
+        return new File(baseDir, name);
+    }
+
+    /**
+     * Record that the specified file has been written.
+     *
+     * @param name name of the file.
+     */
+
+    public synchronized void addOutputFile(String name) {
+        outputFiles.add(name);
+    }
+
+    /**
+     * Move the files written since the specified number of them had been
+     * from under one directory to the same place under another, and record
+     * them by their new names.
+     *
+     * @param count number of files written before those to move.
+     * @param from  the directory they were written under.
+     * @param to    the directory to move them under.
+     * @throws IOException if a file cannot be moved.
+     */
+
+    public synchronized void moveOutputFiles(int count, String from, String to)
+            throws IOException {
+        for (int i = count; i < outputFiles.size(); i++) {
+            String name = outputFiles.get(i);
+            if (name.startsWith(from + File.separator)) {
+                String moved = to + name.substring(from.length());
+                File target = file(moved);
+                target.getParentFile().mkdirs();
+                Files.move(file(name).toPath(), target.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+                outputFiles.set(i, moved);
+            }
+        }
+    }
+
+    /**
+     * Delete the files written since the specified number of them had been,
+     * and forget them.
+     *
+     * @param count number of files written before those to delete.
+     */
+
+    public synchronized void discardOutputFiles(int count) {
+        while (outputFiles.size() > count) {
+            file(outputFiles.remove(outputFiles.size() - 1)).delete();
+        }
+    }
+
+    /**
+     * Return the names of the files written so far.
+     *
+     * @return the list of file names.
+     */
+
+    public synchronized ArrayList<String> outputFiles() {
+        return new ArrayList<String>(outputFiles);
+    }
+
+    /**
+     * Record that the unit refers to the specified type.
+     *
+     * @param type the type.
+     */
+
+    public synchronized void addReferencedType(Type type) {
+        while (type.isArray()) {
+            type = type.componentType();
+        }
+        if (type.toDescriptor().startsWith("L")) {
+            referencedTypes.add(type.toString());
+        }
+    }
+
+    /**
+     * Return the names of the types the unit refers to.
+     *
+     * @return the set of type names.
+     */
+
+    public synchronized HashSet<String> referencedTypes() {
+        return referencedTypes;
+    }
+
+    /**
+     * Return the per-phase statistics.
+     *
+     * @return the statistics, or null if they are not being gathered.
+     */
+
+    public CompilationStats stats() {
+        return stats;
+    }
+
+    /**
+     * Gather per-phase statistics in the specified object.
+     *
+     * @param stats the statistics.
+     */
+
+    public void setStats(CompilationStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Move on to the specified phase, if statistics are being gathered.
+     *
+     * @param phase name of the phase.
+     */
+
+    public void phase(String phase) {
+        if (stats != null) {
+            stats.switchTo(phase);
+        }
+    }
+
+    /**
+     * Enter the specified phase (nested in the current one), if statistics are
+     * being gathered.
+     *
+     * @param phase name of the phase.
+     */
+
+    public void enterPhase(String phase) {
+        if (stats != null) {
+            stats.enter(phase);
+        }
+    }
+
+    /**
+     * Leave the phase entered last, if statistics are being gathered.
+     */
+
+    public void exitPhase() {
+        if (stats != null) {
+            stats.exit();
+        }
+    }
+
+}
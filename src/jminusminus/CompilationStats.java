@@ -0,0 +1,432 @@
+package jminusminus;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Wall time, CPU time and bytes allocated, per phase, for the compilation of
+ * a unit (-stats). The compiler announces the phases it enters and leaves;
+ * phases nest (eg CLEmitter.write() within codegen), and a phase is charged
+ * only for the time spent in it outside of any nested phase, so that the
+ * phases add up to the total. Everything is measured with the JVM's
+ * ThreadMXBean, on the thread doing the compiling, to which the CPU time and
+ * allocation of work done for the unit on other threads (code generated in
+ * parallel by the fork-join pool) are added; allocation is reported only
+ * where the JVM supports it (HotSpot does).
+ */
+
+class CompilationStats {
+
+    /**
+     * Index of wall time (in nanoseconds) in a phase's measures.
+     */
+    private static final int WALL = 0;
+
+    /**
+     * Index of CPU time (in nanoseconds) in a phase's measures.
+     */
+    private static final int CPU = 1;
+
+    /**
+     * Index of bytes allocated in a phase's measures.
+     */
+    private static final int ALLOCATED = 2;
+
+    /**
+     * The JVM's thread management interface.
+     */
+    private static final ThreadMXBean threads = ManagementFactory
+            .getThreadMXBean();
+
+    /**
+     * Whether the JVM measures the bytes allocated by a thread.
+     */
+    private static final boolean allocationSupported = isAllocationSupported();
+
+    /**
+     * The source file compiled (or a title for aggregate statistics).
+     */
+    private String name;
+
+    /**
+     * Maps each phase, in the order first entered, to its measures.
+     */
+    private LinkedHashMap<String, long[]> phases;
+
+    /**
+     * Maps each counter, in the order first counted, to its count.
+     */
+    private LinkedHashMap<String, Long> counters;
+
+    /**
+     * Maps each maximum, in the order first taken, to its value.
+     */
+    private LinkedHashMap<String, Long> maxima;
+
+    /**
+     * Whether the heap taken up by the unit's AST is measured.
+     */
+    private boolean measuresFootprint;
+
+    /**
+     * Phases entered and not yet left; the last one is being charged.
+     */
+    private ArrayList<String> stack;
+
+    /**
+     * Measures taken when the current phase was last charged.
+     */
+    private long[] mark;
+
+    /**
+     * Construct a CompilationStats.
+     *
+     * @param name the source file compiled.
+     */
+
+    public CompilationStats(String name) {
+        this.name = name;
+        phases = new LinkedHashMap<String, long[]>();
+        counters = new LinkedHashMap<String, Long>();
+        maxima = new LinkedHashMap<String, Long>();
+        stack = new ArrayList<String>();
+    }
+
+    /**
+     * Return the source file compiled.
+     *
+     * @return the file name.
+     */
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Enter the specified phase.
+     *
+     * @param phase name of the phase.
+     */
+
+    public void enter(String phase) {
+        charge();
+        stack.add(phase);
+    }
+
+    /**
+     * Leave the phase entered last.
+     */
+
+    public void exit() {
+        charge();
+        stack.remove(stack.size() - 1);
+    }
+
+    /**
+     * Leave the phase entered last, if any, and enter the specified one.
+     *
+     * @param phase name of the phase.
+     */
+
+    public void switchTo(String phase) {
+        charge();
+        if (!stack.isEmpty()) {
+            stack.remove(stack.size() - 1);
+        }
+        stack.add(phase);
+    }
+
+    /**
+     * Leave all the phases entered.
+     */
+
+    public void stop() {
+        charge();
+        stack.clear();
+    }
+
+    /**
+     * Return the current thread's CPU time and bytes allocated so far, to be
+     * passed to chargeWork() once the thread has done some work for the unit.
+     *
+     * @return the mark.
+     */
+
+    public static long[] mark() {
+        return measure();
+    }
+
+    /**
+     * Charge the CPU time and bytes allocated by the current thread since
+     * the specified mark to the current phase. This is for work done for the
+     * unit on a thread other than the one compiling it, while that thread
+     * waits for it (and is charged the wall time); several threads may do so
+     * at once.
+     *
+     * @param mark what mark() returned on the current thread.
+     */
+
+    public synchronized void chargeWork(long[] mark) {
+        long[] now = measure();
+        if (!stack.isEmpty()) {
+            long[] measures = measures(stack.get(stack.size() - 1));
+            measures[CPU] += now[CPU] - mark[CPU];
+            measures[ALLOCATED] += now[ALLOCATED] - mark[ALLOCATED];
+        }
+    }
+
+    /**
+     * Add to the specified counter (eg of tokens re-read because the parser
+     * backtracked).
+     *
+     * @param counter name of the counter.
+     * @param n       amount to add.
+     */
+
+    public void count(String counter, long n) {
+        Long count = counters.get(counter);
+        counters.put(counter, count == null ? n : count + n);
+    }
+
+    /**
+     * Raise the specified maximum (eg of how far ahead the parser looked to
+     * make a decision) to the specified value, if it's below.
+     *
+     * @param maximum name of the maximum.
+     * @param n       the value.
+     */
+
+    public void max(String maximum, long n) {
+        Long max = maxima.get(maximum);
+        if (max == null || max < n) {
+            maxima.put(maximum, n);
+        }
+    }
+
+    /**
+     * Measure the heap taken up by the unit's AST. That is done by
+     * collecting the garbage before and after parsing, so it is only
+     * meaningful when nothing else is compiled at the same time.
+     */
+
+    public void measureFootprint() {
+        measuresFootprint = true;
+    }
+
+    /**
+     * Return the number of bytes of heap in use once the garbage has been
+     * collected, or -1 if the footprint isn't being measured. The time this
+     * takes is charged to a phase of its own (footprint).
+     *
+     * @return the number of bytes, or -1.
+     */
+
+    public long heapInUse() {
+        if (!measuresFootprint) {
+            return -1;
+        }
+        enter("footprint");
+        System.gc();
+        long heapInUse = ManagementFactory.getMemoryMXBean()
+                .getHeapMemoryUsage().getUsed();
+        exit();
+        return heapInUse;
+    }
+
+    /**
+     * Charge the measures taken since the last charge to the current phase.
+     */
+
+    private void charge() {
+        long[] now = measure();
+        if (!stack.isEmpty()) {
+            long[] measures = measures(stack.get(stack.size() - 1));
+            for (int i = 0; i < now.length; i++) {
+                measures[i] += now[i] - mark[i];
+            }
+        }
+        mark = now;
+    }
+
+    /**
+     * Return the measures for the specified phase, creating them if needed.
+     *
+     * @param phase name of the phase.
+     * @return the measures.
+     */
+
+    private long[] measures(String phase) {
+        long[] measures = phases.get(phase);
+        if (measures == null) {
+            measures = new long[3];
+            phases.put(phase, measures);
+        }
+        return measures;
+    }
+
+    /**
+     * Add the measures of another CompilationStats to these.
+     *
+     * @param other the statistics to add.
+     */
+
+    public void add(CompilationStats other) {
+        for (String phase : other.phases.keySet()) {
+            long[] measures = measures(phase);
+            long[] otherMeasures = other.phases.get(phase);
+            for (int i = 0; i < measures.length; i++) {
+                measures[i] += otherMeasures[i];
+            }
+        }
+        for (String counter : other.counters.keySet()) {
+            count(counter, other.counters.get(counter));
+        }
+        for (String maximum : other.maxima.keySet()) {
+            max(maximum, other.maxima.get(maximum));
+        }
+    }
+
+    /**
+     * Print the statistics as a table, times in milliseconds and allocation
+     * in kilobytes.
+     *
+     * @param out where to print.
+     */
+
+    public void writeText(PrintStream out) {
+        out.println(name);
+        out.printf("  %-12s %10s %10s %12s\n", "phase", "wall ms", "cpu ms",
+                "alloc KB");
+        long[] total = new long[3];
+        for (String phase : phases.keySet()) {
+            long[] measures = phases.get(phase);
+            writeText(out, phase, measures);
+            for (int i = 0; i < total.length; i++) {
+                total[i] += measures[i];
+            }
+        }
+        writeText(out, "total", total);
+        for (String counter : counters.keySet()) {
+            out.printf("  %-12s %10d\n", counter, counters.get(counter));
+        }
+        for (String maximum : maxima.keySet()) {
+            out.printf("  %-12s %10d\n", maximum, maxima.get(maximum));
+        }
+    }
+
+    /**
+     * Print a row of the table.
+     *
+     * @param out      where to print.
+     * @param phase    name of the phase.
+     * @param measures its measures.
+     */
+
+    private static void writeText(PrintStream out, String phase,
+                                  long[] measures) {
+        out.printf("  %-12s %10.3f %10.3f %12s\n", phase,
+                measures[WALL] / 1e6, measures[CPU] / 1e6,
+                allocationSupported ? String.valueOf(measures[ALLOCATED] / 1024)
+                        : "-");
+    }
+
+    /**
+     * Append the statistics to a JSON document, as an object having the
+     * name, for each phase, its wallNanos, cpuNanos and allocatedBytes (-1
+     * where not measured), the counters and the maxima.
+     *
+     * @param json where to append.
+     */
+
+    public void writeJson(StringBuilder json) {
+        json.append("{\"name\": ").append(quote(name))
+                .append(", \"phases\": {");
+        String separator = "";
+        for (String phase : phases.keySet()) {
+            long[] measures = phases.get(phase);
+            json.append(separator).append(quote(phase))
+                    .append(": {\"wallNanos\": ").append(measures[WALL])
+                    .append(", \"cpuNanos\": ").append(measures[CPU])
+                    .append(", \"allocatedBytes\": ")
+                    .append(allocationSupported ? measures[ALLOCATED] : -1)
+                    .append("}");
+            separator = ", ";
+        }
+        json.append("}, \"counters\": {");
+        separator = "";
+        for (String counter : counters.keySet()) {
+            json.append(separator).append(quote(counter)).append(": ")
+                    .append(counters.get(counter));
+            separator = ", ";
+        }
+        json.append("}, \"maxima\": {");
+        separator = "";
+        for (String maximum : maxima.keySet()) {
+            json.append(separator).append(quote(maximum)).append(": ")
+                    .append(maxima.get(maximum));
+            separator = ", ";
+        }
+        json.append("}}");
+    }
+
+    /**
+     * Return the specified string as a JSON string literal.
+     *
+     * @param s the string.
+     * @return the literal.
+     */
+
+    private static String quote(String s) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Take the current thread's wall time, CPU time and bytes allocated.
+     *
+     * @return the measures.
+     */
+
+    private static long[] measure() {
+        long[] measures = new long[3];
+        measures[WALL] = System.nanoTime();
+        measures[CPU] = threads.getCurrentThreadCpuTime();
+        if (allocationSupported) {
+            measures[ALLOCATED] = ((com.sun.management.ThreadMXBean) threads)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return measures;
+    }
+
+    /**
+     * Return true if the JVM can measure the bytes allocated by a thread,
+     * enabling the measurement if need be; false otherwise.
+     *
+     * @return true or false.
+     */
+
+    private static boolean isAllocationSupported() {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!sunThreads.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        return true;
+    }
+
+}
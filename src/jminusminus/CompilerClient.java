@@ -0,0 +1,139 @@
+package jminusminus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * Thin client of CompilerDaemon. It takes the same arguments as Main, sends
+ * them to the daemon along with the working directory, and prints what the
+ * daemon sends back. Of the compiler it loads only CompilerDaemon, for the
+ * token file and the wire format, unless there is no daemon listening, or the
+ * daemon refuses the request (eg for -t or -p), in which case it falls back
+ * to compiling in-process with Main. The daemon's token,
+ * which the request must carry, is read from CompilerDaemon.tokenFile(); a
+ * daemon whose token can't be read is as good as none.
+ */
+
+public class CompilerClient {
+
+    /**
+     * Entry point.
+     *
+     * @param args command-line arguments; -port &lt;num&gt; selects the
+     *             daemon's port, -v lists the files written, -stop shuts the
+     *             daemon down, and the rest are passed to Main.
+     */
+
+    public static void main(String[] args) {
+        int port = CompilerDaemon.DEFAULT_PORT;
+        boolean verbose = false;
+        boolean stop = false;
+        ArrayList<String> mainArgs = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-port") && (i + 1) < args.length) {
+                try {
+                    port = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Error: bad port " + args[i] + ".");
+                    System.exit(1);
+                }
+            } else if (args[i].equals("-v")) {
+                verbose = true;
+            } else if (args[i].equals(CompilerDaemon.STOP)) {
+                stop = true;
+            } else {
+                mainArgs.add(args[i]);
+            }
+        }
+        if (stop) {
+            mainArgs.clear();
+            mainArgs.add(CompilerDaemon.STOP);
+        }
+        String token = null;
+        try {
+            token = new String(Files.readAllBytes(CompilerDaemon.tokenFile(
+                    port).toPath()), "UTF-8");
+        } catch (IOException e) {
+            // No daemon has been started on the port by this user.
+        }
+        try {
+            if (token != null && request(port, token, mainArgs, verbose)) {
+                return;
+            }
+        } catch (ConnectException e) {
+            // No daemon is listening.
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+        if (stop) {
+            System.err.println("Error: no daemon on port " + port + ".");
+            System.exit(1);
+        }
+        Main.main(mainArgs.toArray(new String[0]));
+        if (Main.errorHasOccurred()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Send the specified arguments to the daemon listening on the specified
+     * port, and print what it sends back.
+     *
+     * @param port    the daemon's port.
+     * @param token   the daemon's token.
+     * @param args    the arguments.
+     * @param verbose whether to list the files written.
+     * @return true if the daemon served the request; false if it refused it.
+     * @throws IOException if the daemon cannot be reached, or an I/O error
+     *                     occurs.
+     */
+
+    private static boolean request(int port, String token,
+                                   ArrayList<String> args, boolean verbose)
+            throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(CompilerDaemon.PROTOCOL_VERSION);
+            out.writeUTF(token);
+            out.writeUTF(System.getProperty("user.dir"));
+            out.writeInt(args.size());
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    socket.getInputStream()));
+            int status = in.readInt();
+            if (status == CompilerDaemon.REFUSED) {
+                return false;
+            }
+            System.out.print(CompilerDaemon.readText(in));
+            System.err.print(CompilerDaemon.readText(in));
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String outputFile = in.readUTF();
+                if (verbose) {
+                    System.out.println(outputFile);
+                }
+            }
+            if (status == CompilerDaemon.ERROR) {
+                System.exit(1);
+            }
+            return true;
+        } finally {
+            socket.close();
+        }
+    }
+
+}
@@ -0,0 +1,399 @@
+package jminusminus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long-lived j-- compiler that serves compile requests from CompilerClient
+ * over a socket bound to the loopback interface. Since the daemon outlives
+ * the requests, the compiler's own classes stay loaded (and JIT compiled),
+ * and so do the Types of the JDK classes that Type resolves by reflection;
+ * each request pays only for compiling its own units.
+ * <p>
+ * A request carries the client's working directory and its command-line
+ * arguments, which are interpreted exactly as Main interprets them, relative
+ * file names being resolved against that directory. The reply carries the
+ * exit status, the text Main would have printed to STDOUT and STDERR, and the
+ * names of the files written. Requests are compiled concurrently, each unit
+ * in a CompilationSession of its own.
+ * <p>
+ * Any process on the machine can connect to the loopback interface, so a
+ * request must carry the daemon's token: a random string the daemon writes,
+ * when it starts, to a file only its user can read (see tokenFile()), and
+ * that CompilerClient reads from there. A request without it, or one whose
+ * working directory is not absolute, or that has too many arguments, is
+ * refused, and so is one that is not sent in time.
+ * <p>
+ * The wire format (all in DataOutputStream encoding) is: a request is
+ * PROTOCOL_VERSION, the token (UTF), the working directory (UTF), the number
+ * of arguments and the arguments (UTF); a reply is the status (OK, ERROR or
+ * REFUSED), the STDOUT and STDERR texts (each as a length-prefixed UTF-8 byte
+ * array), the number of files written and their names (UTF). A request whose
+ * only argument is STOP shuts the daemon down.
+ */
+
+public class CompilerDaemon {
+
+    /**
+     * Port on which the daemon listens by default.
+     */
+    public static final int DEFAULT_PORT = 7425;
+
+    /**
+     * Version of the protocol spoken between client and daemon.
+     */
+    public static final int PROTOCOL_VERSION = 2;
+
+    /**
+     * Most arguments a request may carry.
+     */
+    private static final int MAX_ARGUMENTS = 10000;
+
+    /**
+     * Most characters the arguments of a request may add up to.
+     */
+    private static final int MAX_ARGUMENT_CHARS = 1 << 20;
+
+    /**
+     * Milliseconds a client has to send its request once connected.
+     */
+    private static final int REQUEST_TIMEOUT = 10000;
+
+    /**
+     * Reply status: compiled without errors.
+     */
+    public static final int OK = 0;
+
+    /**
+     * Reply status: compiled with errors.
+     */
+    public static final int ERROR = 1;
+
+    /**
+     * Reply status: request not served; the client should compile in-process.
+     */
+    public static final int REFUSED = 2;
+
+    /**
+     * The argument that asks the daemon to shut down.
+     */
+    public static final String STOP = "-stop";
+
+    /**
+     * The socket on which requests are accepted.
+     */
+    private ServerSocket serverSocket;
+
+    /**
+     * Threads serving the requests.
+     */
+    private ExecutorService workers;
+
+    /**
+     * The token requests must carry.
+     */
+    private byte[] token;
+
+    /**
+     * The file the token is written to.
+     */
+    private File tokenFile;
+
+    /**
+     * Construct a CompilerDaemon listening on the loopback interface, and
+     * write its token to tokenFile(port).
+     *
+     * @param port    port to listen on.
+     * @param threads number of requests that are served at the same time.
+     * @throws IOException if the socket cannot be bound, or the token
+     *                     cannot be written.
+     */
+
+    public CompilerDaemon(int port, int threads) throws IOException {
+        serverSocket = new ServerSocket(port, 50,
+                InetAddress.getLoopbackAddress());
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+        token = hex.toString().getBytes("UTF-8");
+        tokenFile = tokenFile(port);
+        try {
+            writeToken(tokenFile, token);
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+        workers = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Return the file in which the daemon listening on the specified port
+     * keeps its token: under .j-- in the user's home directory, which the
+     * daemon makes readable by the user alone.
+     *
+     * @param port the port.
+     * @return the file.
+     */
+
+    public static File tokenFile(int port) {
+        return new File(new File(System.getProperty("user.home"), ".j--"),
+                "daemon-" + port + ".token");
+    }
+
+    /**
+     * Accept and serve requests until a STOP request arrives.
+     */
+
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                workers.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                // The socket was closed by a STOP request.
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+            }
+        }
+        workers.shutdown();
+        tokenFile.delete();
+    }
+
+    /**
+     * Serve the request arriving on the specified connection.
+     *
+     * @param socket the connection.
+     */
+
+    private void serve(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            socket.setSoTimeout(REQUEST_TIMEOUT);
+            if (in.readInt() != PROTOCOL_VERSION || !MessageDigest.isEqual(
+                    token, in.readUTF().getBytes("UTF-8"))) {
+                reply(out, REFUSED, "", "", new ArrayList<String>());
+                return;
+            }
+            File baseDir = new File(in.readUTF());
+            int n = in.readInt();
+            if (!baseDir.isAbsolute() || n < 0 || n > MAX_ARGUMENTS) {
+                reply(out, REFUSED, "", "", new ArrayList<String>());
+                return;
+            }
+            String[] args = new String[n];
+            int chars = 0;
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readUTF();
+                chars += args[i].length();
+                if (chars > MAX_ARGUMENT_CHARS) {
+                    reply(out, REFUSED, "", "", new ArrayList<String>());
+                    return;
+                }
+            }
+            socket.setSoTimeout(0);
+            if (args.length == 1 && args[0].equals(STOP)) {
+                reply(out, OK, "", "", new ArrayList<String>());
+                serverSocket.close();
+                return;
+            }
+
+            // The debugging options print the tokens and ASTs from deep
+            // within the compiler, to the daemon's own STDOUT, and --watch
+            // never returns; those requests are left to the client.
+            for (String arg : args) {
+                if (arg.equals("-t") || arg.equals("-p") || arg.equals("-pa")
+                        || arg.equals("-a") || arg.equals("--watch")) {
+                    reply(out, REFUSED, "", "", new ArrayList<String>());
+                    return;
+                }
+            }
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            ArrayList<String> outputFiles = new ArrayList<String>();
+            boolean errorHasOccurred;
+            PrintStream err = new PrintStream(stderr, true, "UTF-8");
+            try {
+                errorHasOccurred = Main.compile(args,
+                        new PrintStream(stdout, true, "UTF-8"), err, baseDir,
+                        outputFiles);
+            } catch (RuntimeException e) {
+                e.printStackTrace(err);
+                errorHasOccurred = true;
+            }
+            reply(out, errorHasOccurred ? ERROR : OK,
+                    stdout.toString("UTF-8"), stderr.toString("UTF-8"),
+                    outputFiles);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to do with this connection.
+            }
+        }
+    }
+
+    /**
+     * Write a reply.
+     *
+     * @param out         where to write.
+     * @param status      OK, ERROR or REFUSED.
+     * @param stdout      text printed to STDOUT.
+     * @param stderr      text printed to STDERR.
+     * @param outputFiles names of the files written.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    private static void reply(DataOutputStream out, int status, String stdout,
+                              String stderr, ArrayList<String> outputFiles)
+            throws IOException {
+        out.writeInt(status);
+        writeText(out, stdout);
+        writeText(out, stderr);
+        out.writeInt(outputFiles.size());
+        for (String outputFile : outputFiles) {
+            out.writeUTF(outputFile);
+        }
+        out.flush();
+    }
+
+    /**
+     * Write a text of any length as a length-prefixed UTF-8 byte array.
+     *
+     * @param out  where to write.
+     * @param text the text.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    static void writeText(DataOutputStream out, String text)
+            throws IOException {
+        byte[] bytes = text.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a text written by writeText().
+     *
+     * @param in where to read from.
+     * @return the text.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("bad text length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Write the specified token to the specified file, making the file, and
+     * the directory it is in, readable by the user alone. The token is first
+     * written to a temporary file in that directory (created readable by the
+     * user alone), which is then moved into place.
+     *
+     * @param file  the file.
+     * @param token the token.
+     * @throws IOException if the file cannot be written.
+     */
+
+    private static void writeToken(File file, byte[] token)
+            throws IOException {
+        Path dir = file.getParentFile().toPath();
+        Files.createDirectories(dir);
+        restrict(dir, "rwx------");
+        Path temp = Files.createTempFile(dir, "daemon", ".tmp");
+        try {
+            restrict(temp, "rw-------");
+            Files.write(temp, token);
+            Files.move(temp, file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Set the POSIX permissions of the specified file, where the file system
+     * has them; elsewhere (eg on Windows) the user's home directory is the
+     * user's own already.
+     *
+     * @param path        the file.
+     * @param permissions the permissions (eg rw-------).
+     * @throws IOException if the permissions cannot be set.
+     */
+
+    private static void restrict(Path path, String permissions)
+            throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions
+                    .fromString(permissions));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system.
+        }
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args command-line arguments.
+     */
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-port") && (i + 1) < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-j") && (i + 1) < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                System.out.println("Usage: java jminusminus.CompilerDaemon "
+                        + "<options>\n"
+                        + "where possible options include:\n"
+                        + "  -port <num> Port to listen on (loopback only); "
+                        + "default = " + DEFAULT_PORT + "\n"
+                        + "  -j <num> Requests served at the same time; "
+                        + "default = number of processors");
+                return;
+            }
+        }
+        try {
+            new CompilerDaemon(port, threads).serve();
+        } catch (IOException e) {
+            System.err.println("Error: cannot serve on port " + port + ": "
+                    + e.getMessage());
+        }
+    }
+
+}
@@ -82,7 +82,7 @@ class Context {
 
     public void addEntry(int line, String name, IDefn definition) {
         if (entries.containsKey(name)) {
-            JAST.compilationUnit.reportSemanticError(line, "redefining name: "
+            JAST.compilationUnit().reportSemanticError(line, "redefining name: "
                     + name);
         } else {
             entries.put(name, definition);
@@ -114,7 +114,11 @@ class Context {
 
     public Type lookupType(String name) {
         TypeNameDefn defn = (TypeNameDefn) compilationUnitContext.lookup(name);
-        return defn == null ? null : defn.type();
+        if (defn == null) {
+            return null;
+        }
+        CompilationSession.current().addReferencedType(defn.type());
+        return defn.type();
     }
 
     /**
@@ -0,0 +1,82 @@
+package jminusminus;
+
+/**
+ * An error reported by the compiler: where it was found (if anywhere in
+ * particular), and what it is.
+ */
+
+public class Diagnostic {
+
+    /**
+     * Name of the source file; null if the error is not about a place in the
+     * source.
+     */
+    private String fileName;
+
+    /**
+     * Line in which the error was found; 0 if the error is not about a place
+     * in the source.
+     */
+    private int line;
+
+    /**
+     * Message identifying the error.
+     */
+    private String message;
+
+    /**
+     * Construct a Diagnostic.
+     *
+     * @param fileName name of the source file, or null.
+     * @param line     line in which the error was found, or 0.
+     * @param message  message identifying the error.
+     */
+
+    public Diagnostic(String fileName, int line, String message) {
+        this.fileName = fileName;
+        this.line = line;
+        this.message = message;
+    }
+
+    /**
+     * Return the name of the source file.
+     *
+     * @return the file name, or null.
+     */
+
+    public String fileName() {
+        return fileName;
+    }
+
+    /**
+     * Return the line in which the error was found.
+     *
+     * @return the line, or 0.
+     */
+
+    public int line() {
+        return line;
+    }
+
+    /**
+     * Return the message identifying the error.
+     *
+     * @return the message.
+     */
+
+    public String message() {
+        return message;
+    }
+
+    /**
+     * Return the diagnostic as the compiler prints it.
+     *
+     * @return the diagnostic.
+     */
+
+    public String toString() {
+        return fileName == null ? message : fileName + ":" + line + ": "
+                + message;
+    }
+
+}
@@ -0,0 +1,612 @@
+package jminusminus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import static jminusminus.CLConstants.*;
+
+/**
+ * The on-disk index behind incremental compilation (-incremental). For each
+ * compilation unit compiled without errors, it records a fingerprint of the
+ * source, the types the unit emitted along with a fingerprint of each one's
+ * ABI (its public signature, as found in the class file: modifiers,
+ * superclass, interfaces, and non-private fields and methods), the types the
+ * unit refers to, and the files written for it.
+ * <p>
+ * A unit is recompiled if its source changed, if any of its output files is
+ * gone, or if it was not indexed (eg because it had errors). After each round
+ * of compilation, the units referring to a type whose ABI changed in that
+ * round are recompiled in turn, until no ABI changes; a unit begun after the
+ * change was recorded (eg one compiled later in the same round) was compiled
+ * against the new ABI already, and is not. Since the ABI of a type depends
+ * only on its own declaration, recompiling a unit whose source did not change
+ * never changes an ABI, so there are at most two rounds, and a unit is
+ * compiled in the second only if it was begun before a type it refers to was
+ * recorded in the first.
+ * <p>
+ * The index is written with a DataOutputStream, and is thrown away (so that
+ * everything is recompiled) if the options that affect code generation have
+ * changed since it was written.
+ */
+
+class IncrementalIndex {
+
+    /**
+     * First four bytes of an index file ("J--I").
+     */
+    private static final int MAGIC = 0x4A2D2D49;
+
+    /**
+     * Version of the index file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The index file.
+     */
+    private File file;
+
+    /**
+     * The compilation options.
+     */
+    private CompilationOptions options;
+
+    /**
+     * Maps the absolute path of each indexed unit to its entry.
+     */
+    private LinkedHashMap<String, IndexedUnit> units;
+
+    /**
+     * Maps the absolute path of each unit named on the command line to the
+     * name it was given as.
+     */
+    private HashMap<String, String> names;
+
+    /**
+     * Maps the names of the types whose ABI changed in the current round to
+     * when (by the clock) the change was recorded.
+     */
+    private HashMap<String, Long> changedTypes;
+
+    /**
+     * Maps the absolute path of each unit being compiled to when (by the
+     * clock) it was begun.
+     */
+    private HashMap<String, Long> begun;
+
+    /**
+     * Ticks each time a unit is begun or a change is recorded, so that the
+     * two can be ordered.
+     */
+    private long clock;
+
+    /**
+     * Construct an empty IncrementalIndex.
+     *
+     * @param file    the index file.
+     * @param options the compilation options.
+     */
+
+    private IncrementalIndex(File file, CompilationOptions options) {
+        this.file = file;
+        this.options = options;
+        units = new LinkedHashMap<String, IndexedUnit>();
+        names = new HashMap<String, String>();
+        changedTypes = new HashMap<String, Long>();
+        begun = new HashMap<String, Long>();
+    }
+
+    /**
+     * Load the index from the specified file. A missing or unreadable file,
+     * or one written with other code-generation options, gives an empty
+     * index.
+     *
+     * @param file    the index file; null for an index that is kept in memory
+     *                only.
+     * @param options the compilation options.
+     * @return the index.
+     */
+
+    public static IncrementalIndex load(File file, CompilationOptions options) {
+        IncrementalIndex index = new IncrementalIndex(file, options);
+        if (file == null || !file.exists()) {
+            return index;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION
+                        || !in.readUTF().equals(options.codegenOptions())) {
+                    return index;
+                }
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) {
+                    IndexedUnit unit = IndexedUnit.read(in);
+                    index.units.put(unit.path, unit);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            index.units.clear();
+        }
+        return index;
+    }
+
+    /**
+     * Write the index back to its file. The index is written to a temporary
+     * file first, so that an interrupted write leaves the old index intact.
+     *
+     * @return true if the index was written (or is kept in memory only);
+     * false otherwise.
+     */
+
+    public synchronized boolean save() {
+        if (file == null) {
+            return true;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(options.codegenOptions());
+            out.writeInt(units.size());
+            for (IndexedUnit unit : units.values()) {
+                unit.write(out);
+            }
+            out.close();
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            tmp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Return those of the specified units that must be compiled: units that
+     * are not indexed, whose source changed, or whose output files are gone;
+     * and units referring to types of indexed units whose source no longer
+     * exists.
+     *
+     * @param sourceFiles the source files named on the command line.
+     * @return the source files to compile.
+     */
+
+    public synchronized ArrayList<String> changedUnits(
+            ArrayList<String> sourceFiles) {
+        ArrayList<String> changed = new ArrayList<String>();
+        for (String sourceFile : sourceFiles) {
+            String path = options.file(sourceFile).getAbsolutePath();
+            names.put(path, sourceFile);
+            IndexedUnit unit = units.get(path);
+            if (unit == null || !unit.isUpToDate()) {
+                changed.add(sourceFile);
+            }
+        }
+        for (IndexedUnit unit : new ArrayList<IndexedUnit>(units.values())) {
+            if (!new File(unit.path).exists()) {
+                units.remove(unit.path);
+                clock++;
+                for (String type : unit.types.keySet()) {
+                    changedTypes.put(type, clock);
+                }
+            }
+        }
+        for (String sourceFile : dependentUnits()) {
+            if (!changed.contains(sourceFile)) {
+                changed.add(sourceFile);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Return true if the specified unit is indexed, ie it was compiled
+     * without errors; false otherwise.
+     *
+     * @param sourceFile the source file.
+     * @return true or false.
+     */
+
+    public synchronized boolean contains(String sourceFile) {
+        return units.containsKey(options.file(sourceFile).getAbsolutePath());
+    }
+
+    /**
+     * Note that the specified unit is about to be compiled (or restored from
+     * a BuildCache), so that it is not compiled again for a change recorded
+     * before.
+     *
+     * @param sourceFile the source file.
+     */
+
+    public synchronized void begin(String sourceFile) {
+        begun.put(options.file(sourceFile).getAbsolutePath(), ++clock);
+    }
+
+    /**
+     * Record the outcome of compiling a unit. A unit that had errors is
+     * dropped from the index, so that it is compiled again next time.
+     *
+     * @param sourceFile       the source file.
+     * @param session          the session in which it was compiled.
+     * @param errorHasOccurred whether an error occurred.
+     */
+
+    public synchronized void record(String sourceFile,
+                                    CompilationSession session,
+                                    boolean errorHasOccurred) {
+        String path = options.file(sourceFile).getAbsolutePath();
+        if (errorHasOccurred || session.compilationUnit() == null) {
+            units.remove(path);
+            begun.remove(path);
+            return;
+        }
+        IndexedUnit unit = new IndexedUnit(path, fingerprint(new File(path)));
+        unit.types.putAll(session.compilationUnit().abiFingerprints());
+        for (String type : session.referencedTypes()) {
+            if (!unit.types.containsKey(type)) {
+                unit.referencedTypes.add(type);
+            }
+        }
+        record(unit, session);
+    }
+
+    /**
+     * Record the outcome of a unit whose files were restored from a
+     * BuildCache instead of being compiled.
+     *
+     * @param sourceFile the source file.
+     * @param session    the session in which the files were restored.
+     * @param entry      the cache entry restored.
+     */
+
+    public synchronized void record(String sourceFile,
+                                    CompilationSession session,
+                                    CacheEntry entry) {
+        String path = options.file(sourceFile).getAbsolutePath();
+        IndexedUnit unit = new IndexedUnit(path, fingerprint(new File(path)));
+        unit.types.putAll(entry.types);
+        unit.referencedTypes.addAll(entry.referencedTypes.keySet());
+        record(unit, session);
+    }
+
+    /**
+     * Put the specified entry in the index, replacing the old one, and note
+     * the types whose ABI changed.
+     *
+     * @param unit    the entry.
+     * @param session the session in which the unit's files were written.
+     */
+
+    private void record(IndexedUnit unit, CompilationSession session) {
+        IndexedUnit old = units.remove(unit.path);
+        Long begun = this.begun.remove(unit.path);
+        unit.begun = begun == null ? 0 : begun;
+        Collections.sort(unit.referencedTypes);
+        for (String outputFile : session.outputFiles()) {
+            unit.outputFiles.add(options.file(outputFile).getAbsolutePath());
+        }
+        clock++;
+        for (String type : unit.types.keySet()) {
+            if (old == null || !unit.types.get(type).equals(old.types.get(type))) {
+                changedTypes.put(type, clock);
+            }
+        }
+        if (old != null) {
+            for (String type : old.types.keySet()) {
+                if (!unit.types.containsKey(type)) {
+                    changedTypes.put(type, clock);
+                }
+            }
+        }
+        units.put(unit.path, unit);
+    }
+
+    /**
+     * Return the indexed units that refer to a type whose ABI changed since
+     * the last call, other than those begun after the change was recorded,
+     * and start a new round.
+     *
+     * @return the source files to compile.
+     */
+
+    public synchronized ArrayList<String> dependentUnits() {
+        ArrayList<String> dependents = new ArrayList<String>();
+        if (!changedTypes.isEmpty()) {
+            for (IndexedUnit unit : units.values()) {
+                for (String type : unit.referencedTypes) {
+                    Long changed = changedTypes.get(type);
+                    if (changed != null && changed > unit.begun) {
+                        String name = names.get(unit.path);
+                        dependents.add(name == null ? unit.path : name);
+                        break;
+                    }
+                }
+            }
+        }
+        changedTypes.clear();
+        return dependents;
+    }
+
+    /**
+     * Return the fully qualified name of the class in the specified class
+     * file.
+     *
+     * @param clFile the class file.
+     * @return the class name.
+     */
+
+    static String className(CLFile clFile) {
+        return internalName(clFile, clFile.thisClass).replace('/', '.');
+    }
+
+    /**
+     * Return the internal name of the class at the specified index of the
+     * constant pool of a class file.
+     *
+     * @param clFile the class file.
+     * @param index  index of a CLConstantClassInfo.
+     * @return the internal name.
+     */
+
+    private static String internalName(CLFile clFile, int index) {
+        CLConstantPool cp = clFile.constantPool;
+        int nameIndex = ((CLConstantClassInfo) cp.cpItem(index)).nameIndex;
+        return utf8(clFile, nameIndex);
+    }
+
+    /**
+     * Return the string at the specified index of the constant pool of a
+     * class file.
+     *
+     * @param clFile the class file.
+     * @param index  index of a CLConstantUtf8Info.
+     * @return the string.
+     */
+
+    private static String utf8(CLFile clFile, int index) {
+        return new String(((CLConstantUtf8Info) clFile.constantPool
+                .cpItem(index)).b);
+    }
+
+    /**
+     * Return the fingerprint of the ABI of the class in the specified class
+     * file: everything a unit compiled against the class can depend on.
+     *
+     * @param clFile the class file.
+     * @return the fingerprint.
+     */
+
+    static long abiFingerprint(CLFile clFile) {
+        String[] interfaces = new String[clFile.interfaces.size()];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = internalName(clFile, clFile.interfaces.get(i));
+        }
+        ArrayList<String> members = new ArrayList<String>();
+        ArrayList<CLMemberInfo> infos = new ArrayList<CLMemberInfo>();
+        infos.addAll(clFile.fields);
+        infos.addAll(clFile.methods);
+        for (CLMemberInfo info : infos) {
+            if ((info.accessFlags & ACC_PRIVATE) == 0) {
+                members.add(info.accessFlags + " "
+                        + utf8(clFile, info.nameIndex) + " "
+                        + utf8(clFile, info.descriptorIndex));
+            }
+        }
+        return abiFingerprint(clFile.accessFlags & ~ACC_SUPER,
+                internalName(clFile, clFile.thisClass),
+                clFile.superClass == 0 ? null : internalName(clFile,
+                        clFile.superClass), interfaces, members);
+    }
+
+    /**
+     * Return the fingerprint of the ABI of a class, given its access flags
+     * (less ACC_SUPER), internal name, superclass and interfaces, and its
+     * non-private members, each as its access flags, name and descriptor.
+     *
+     * @param accessFlags the access flags.
+     * @param name        the internal name.
+     * @param superName   internal name of the superclass, or null.
+     * @param interfaces  internal names of the interfaces.
+     * @param members     the members; they are sorted.
+     * @return the fingerprint.
+     */
+
+    static long abiFingerprint(int accessFlags, String name, String superName,
+                               String[] interfaces,
+                               ArrayList<String> members) {
+        StringBuilder abi = new StringBuilder();
+        abi.append(accessFlags).append(' ').append(name);
+        if (superName != null) {
+            abi.append(" extends ").append(superName);
+        }
+        for (String superInterface : interfaces) {
+            abi.append(" implements ").append(superInterface);
+        }
+        Collections.sort(members);
+        for (String member : members) {
+            abi.append('\n').append(member);
+        }
+        return fingerprint(abi.toString().getBytes());
+    }
+
+    /**
+     * Return the fingerprint of the contents of the specified file, or 0 if
+     * it can't be read.
+     *
+     * @param file the file.
+     * @return the fingerprint.
+     */
+
+    static long fingerprint(File file) {
+        try {
+            return fingerprint(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Return a 64-bit fingerprint (the first eight bytes of the SHA-256
+     * digest) of the specified bytes.
+     *
+     * @param bytes the bytes.
+     * @return the fingerprint.
+     */
+
+    static long fingerprint(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            long fingerprint = 0;
+            for (int i = 0; i < 8; i++) {
+                fingerprint = (fingerprint << 8) | (digest[i] & 0xff);
+            }
+            return fingerprint;
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
+
+/**
+ * The entry for a compilation unit in an IncrementalIndex.
+ */
+
+class IndexedUnit {
+
+    /**
+     * Absolute path of the source file.
+     */
+    public String path;
+
+    /**
+     * Fingerprint of the source.
+     */
+    public long sourceFingerprint;
+
+    /**
+     * Maps the names of the types emitted to the fingerprints of their ABIs.
+     */
+    public LinkedHashMap<String, Long> types;
+
+    /**
+     * Names of the types (declared elsewhere) that the unit refers to.
+     */
+    public ArrayList<String> referencedTypes;
+
+    /**
+     * Absolute paths of the files written.
+     */
+    public ArrayList<String> outputFiles;
+
+    /**
+     * When (by the clock of the IncrementalIndex) the unit was last begun in
+     * this process; 0 for an entry read from the index file. It is not
+     * written.
+     */
+    public long begun;
+
+    /**
+     * Construct an IndexedUnit.
+     *
+     * @param path              absolute path of the source file.
+     * @param sourceFingerprint fingerprint of the source.
+     */
+
+    public IndexedUnit(String path, long sourceFingerprint) {
+        this.path = path;
+        this.sourceFingerprint = sourceFingerprint;
+        types = new LinkedHashMap<String, Long>();
+        referencedTypes = new ArrayList<String>();
+        outputFiles = new ArrayList<String>();
+    }
+
+    /**
+     * Return true if the source has not changed since the unit was compiled
+     * and its output files are all there; false otherwise.
+     *
+     * @return true or false.
+     */
+
+    public boolean isUpToDate() {
+        if (IncrementalIndex.fingerprint(new File(path)) != sourceFingerprint) {
+            return false;
+        }
+        for (String outputFile : outputFiles) {
+            if (!new File(outputFile).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the entry.
+     *
+     * @param out where to write.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeUTF(path);
+        out.writeLong(sourceFingerprint);
+        out.writeInt(types.size());
+        for (String type : types.keySet()) {
+            out.writeUTF(type);
+            out.writeLong(types.get(type));
+        }
+        out.writeInt(referencedTypes.size());
+        for (String type : referencedTypes) {
+            out.writeUTF(type);
+        }
+        out.writeInt(outputFiles.size());
+        for (String outputFile : outputFiles) {
+            out.writeUTF(outputFile);
+        }
+    }
+
+    /**
+     * Read an entry written by write().
+     *
+     * @param in where to read from.
+     * @return the entry.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    public static IndexedUnit read(DataInputStream in) throws IOException {
+        IndexedUnit unit = new IndexedUnit(in.readUTF(), in.readLong());
+        for (int n = in.readInt(); n > 0; n--) {
+            unit.types.put(in.readUTF(), in.readLong());
+        }
+        for (int n = in.readInt(); n > 0; n--) {
+            unit.referencedTypes.add(in.readUTF());
+        }
+        for (int n = in.readInt(); n > 0; n--) {
+            unit.outputFiles.add(in.readUTF());
+        }
+        return unit;
+    }
+
+}
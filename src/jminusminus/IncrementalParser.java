@@ -0,0 +1,616 @@
+package jminusminus;
+
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Parses a compilation unit, and reparses it after each edit of its source,
+ * for editors and other programs that keep a unit's AST up to date while it
+ * is being written. An edit that falls within the declarations of a class or
+ * interface body (members, and static and instance blocks) has only those
+ * declarations re-lexed and reparsed; the declarations parsed are spliced
+ * into the body in place of the old ones, and every other subtree of the AST
+ * is kept as it was, its lines shifted if the edit added or removed lines.
+ * Any other edit, or one whose declarations don't reparse cleanly, or one to
+ * a unit that had errors, has the whole unit parsed again.
+ * <p>
+ * The AST is the parser's, and is changed in place by later edits; it must
+ * not be analyzed (analysis rewrites it), so a unit that is to be compiled
+ * is compiled from its source. Diagnostics are recorded, not printed. An
+ * IncrementalParser is not thread-safe.
+ */
+
+public class IncrementalParser {
+
+    /**
+     * The fields of each class of object in an AST that may have a line or
+     * hold something that has one (its int line field, if it has one, first,
+     * or else null), made accessible.
+     */
+    private static final ClassValue<Field[]> LINE_FIELDS = new ClassValue<Field[]>() {
+        protected Field[] computeValue(Class<?> type) {
+            ArrayList<Field> fields = new ArrayList<Field>();
+            fields.add(null);
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    Class<?> fieldType = field.getType();
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (fieldType == int.class && field.getName().equals("line")) {
+                        field.setAccessible(true);
+                        fields.set(0, field);
+                    } else if (JAST.class.isAssignableFrom(fieldType)
+                            || Type.class.isAssignableFrom(fieldType)
+                            || fieldType == AmbiguousName.class
+                            || Collection.class.isAssignableFrom(fieldType)
+                            || fieldType.isInterface()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    /**
+     * The name by which the unit is reported in diagnostics.
+     */
+    private String fileName;
+
+    /**
+     * The source, as of the last edit.
+     */
+    private String source;
+
+    /**
+     * The session in which the unit is parsed.
+     */
+    private CompilationSession session;
+
+    /**
+     * The AST.
+     */
+    private JCompilationUnit compilationUnit;
+
+    /**
+     * The class and interface bodies of the unit, in the order of its type
+     * declarations.
+     */
+    private ArrayList<ParsedBody> bodies;
+
+    /**
+     * Whether an error was found parsing the unit.
+     */
+    private boolean errorHasOccurred;
+
+    /**
+     * Construct an IncrementalParser, and parse the specified source.
+     *
+     * @param fileName the name by which the unit is reported in diagnostics
+     *                 (eg Factorial.java).
+     * @param source   the source text.
+     */
+
+    public IncrementalParser(String fileName, CharSequence source) {
+        this.fileName = fileName;
+        this.source = source.toString();
+        session = new CompilationSession(null, null);
+        parse();
+    }
+
+    /**
+     * Replace the specified part of the source with the specified text, and
+     * bring the AST up to date.
+     *
+     * @param offset position of the part replaced.
+     * @param length length of the part replaced.
+     * @param text   the text replacing it.
+     * @return true if only the declarations the edit fell within were
+     * reparsed; false if the whole unit was.
+     */
+
+    public boolean edit(int offset, int length, CharSequence text) {
+        if (offset < 0 || length < 0 || offset + length > source.length()) {
+            throw new IndexOutOfBoundsException("edit " + offset + "+" + length
+                    + " of " + source.length() + " characters");
+        }
+        String old = source;
+        source = old.substring(0, offset) + text + old.substring(offset
+                + length);
+        if (!errorHasOccurred && reparse(old, offset, length, text.length())) {
+            return true;
+        }
+        parse();
+        return false;
+    }
+
+    /**
+     * Return the source, as of the last edit.
+     *
+     * @return the source.
+     */
+
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Return the AST, its lines brought up to date.
+     *
+     * @return the AST.
+     */
+
+    public JCompilationUnit compilationUnit() {
+        updateLines();
+        return compilationUnit;
+    }
+
+    /**
+     * Has an error been found parsing the unit (as of the last edit)?
+     *
+     * @return true or false.
+     */
+
+    public boolean errorHasOccurred() {
+        return errorHasOccurred;
+    }
+
+    /**
+     * Return the errors found parsing the unit (as of the last edit).
+     *
+     * @return the list of diagnostics.
+     */
+
+    public ArrayList<Diagnostic> diagnostics() {
+        return session.diagnostics();
+    }
+
+    /**
+     * Print the AST to STDOUT, as -p does.
+     */
+
+    public void writeToStdOut() {
+        compilationUnit().writeToStdOut(new PrettyPrinter());
+    }
+
+    /**
+     * Parse the whole unit.
+     */
+
+    private void parse() {
+        session.diagnostics().clear();
+        CompilationSession current = CompilationSession.peek();
+        CompilationSession.setCurrent(session);
+        try {
+            LookaheadScanner scanner = new LookaheadScanner(fileName,
+                    new StringReader(source));
+            Parser parser = new Parser(scanner);
+            bodies = new ArrayList<ParsedBody>();
+            parser.recordBodies(bodies);
+            compilationUnit = parser.compilationUnit();
+            errorHasOccurred = scanner.errorHasOccured()
+                    || parser.errorHasOccurred();
+        } finally {
+            CompilationSession.setCurrent(current);
+        }
+    }
+
+    /**
+     * Reparse the declarations of a body that the specified edit falls
+     * within, and splice them into the AST, if there is such a body and they
+     * reparse without errors.
+     *
+     * @param old        the source before the edit.
+     * @param offset     position of the part replaced.
+     * @param length     length of the part replaced.
+     * @param textLength length of the text replacing it.
+     * @return true if the declarations were reparsed; false otherwise.
+     */
+
+    private boolean reparse(String old, int offset, int length,
+                            int textLength) {
+        // The declarations reparsed run from the last one starting at or
+        // before the edit to the first one ending after it. Each ends in a
+        // ; or } that the edit leaves in place, and starts with a token, so
+        // the rest of the source scans as it did.
+        int b = 0;
+        int first = -1;
+        int last = -1;
+        for (; b < bodies.size(); b++) {
+            ArrayList<ParsedDeclaration> declarations = bodies.get(b)
+                    .declarations;
+            if (!declarations.isEmpty()
+                    && declarations.get(0).start <= offset
+                    && declarations.get(declarations.size() - 1).end > offset
+                    + length) {
+                first = lastStartingAtOrBefore(declarations, offset);
+                last = firstEndingAfter(declarations, offset + length);
+                break;
+            }
+        }
+        if (first < 0) {
+            return false;
+        }
+        ParsedBody body = bodies.get(b);
+        ParsedDeclaration firstDeclaration = body.declarations.get(first);
+        int start = firstDeclaration.start;
+        int end = body.declarations.get(last).end;
+        int delta = textLength - length;
+        ParsedBody reparsed = new ParsedBody(body.isInterface);
+        session.diagnostics().clear();
+        CompilationSession current = CompilationSession.peek();
+        CompilationSession.setCurrent(session);
+        try {
+            LookaheadScanner scanner = new LookaheadScanner(fileName,
+                    new StringReader(source.substring(start, end + delta)));
+            Parser parser = new Parser(scanner);
+            parser.recordBodies(new ArrayList<ParsedBody>());
+            parser.bodyDeclarations(reparsed);
+            if (scanner.errorHasOccured() || parser.errorHasOccurred()) {
+                return false;
+            }
+        } finally {
+            CompilationSession.setCurrent(current);
+        }
+
+        // The declarations reparsed were scanned from position 0 and line 1;
+        // those after them, and the type declarations after the body, have
+        // moved by as many characters and lines as the edit added. The lines
+        // of their nodes are brought up to date only when the AST is next
+        // asked for, so a run of edits walks each subtree at most once.
+        int lineDelta = lineBreaks(source, start, end + delta)
+                - lineBreaks(old, start, end);
+        for (ParsedDeclaration declaration : reparsed.declarations) {
+            declaration.move(start, firstDeclaration.line - 1);
+        }
+        for (int i = last + 1; i < body.declarations.size(); i++) {
+            body.declarations.get(i).move(delta, lineDelta);
+        }
+        for (int i = b + 1; i < bodies.size(); i++) {
+            bodies.get(i).staleLines += lineDelta;
+            for (ParsedDeclaration declaration : bodies.get(i).declarations) {
+                declaration.move(delta, lineDelta);
+            }
+        }
+        body.declarations.subList(first, last + 1).clear();
+        body.declarations.addAll(first, reparsed.declarations);
+        body.rebuild();
+        return true;
+    }
+
+    /**
+     * Bring the lines of the nodes that edits have moved up to date.
+     */
+
+    private void updateLines() {
+        Set<Object> none = Collections.emptySet();
+        for (int i = 0; i < bodies.size(); i++) {
+            ParsedBody body = bodies.get(i);
+            if (body.staleLines != 0) {
+                Set<Object> stops = Collections.newSetFromMap(
+                        new IdentityHashMap<Object, Boolean>());
+                for (ParsedDeclaration declaration : body.declarations) {
+                    stops.add(declaration.node);
+                }
+                shiftLines(compilationUnit.typeDeclarations().get(i),
+                        body.staleLines, stops);
+                body.staleLines = 0;
+            }
+            for (ParsedDeclaration declaration : body.declarations) {
+                if (declaration.staleLines != 0) {
+                    shiftLines(declaration.node, declaration.staleLines, none);
+                    declaration.staleLines = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the index of the last of the specified declarations that starts
+     * at or before the specified position (the first starts at or before it).
+     *
+     * @param declarations the declarations, in source order.
+     * @param position     the position.
+     * @return the index.
+     */
+
+    private static int lastStartingAtOrBefore(
+            ArrayList<ParsedDeclaration> declarations, int position) {
+        int low = 0;
+        int high = declarations.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (declarations.get(mid).start <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Return the index of the first of the specified declarations that ends
+     * after the specified position (the last ends after it).
+     *
+     * @param declarations the declarations, in source order.
+     * @param position     the position.
+     * @return the index.
+     */
+
+    private static int firstEndingAfter(
+            ArrayList<ParsedDeclaration> declarations, int position) {
+        int low = 0;
+        int high = declarations.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (declarations.get(mid).end > position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Return the number of line breaks ("\n", "\r" or "\r\n") in the
+     * specified part of a string.
+     *
+     * @param s    the string.
+     * @param from position of the part.
+     * @param to   position after the part.
+     * @return the number of line breaks.
+     */
+
+    private static int lineBreaks(String s, int from, int to) {
+        int lineBreaks = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r' && (i + 1 == s.length()
+                    || s.charAt(i + 1) != '\n')) {
+                lineBreaks++;
+            }
+        }
+        return lineBreaks;
+    }
+
+    /**
+     * Add the specified number to the line of every AST node, type name and
+     * ambiguous name in the specified subtree, other than in the subtrees
+     * rooted at the specified stops. The subtree is walked without recursion,
+     * each object once: the Parser shares types among declarators, and some
+     * nodes (JForEachStatement) share their children among the nodes they
+     * build.
+     *
+     * @param root  the root of the subtree.
+     * @param delta the number of lines.
+     * @param stops the nodes at which the walk stops.
+     */
+
+    private static void shiftLines(Object root, int delta, Set<Object> stops) {
+        Set<Object> seen = Collections.newSetFromMap(
+                new IdentityHashMap<Object, Boolean>());
+        ArrayDeque<Object> pending = new ArrayDeque<Object>();
+        pending.push(root);
+        try {
+            while (!pending.isEmpty()) {
+                Object node = pending.pop();
+                if (!seen.add(node)) {
+                    continue;
+                }
+                if (node instanceof Collection) {
+                    for (Object element : (Collection<?>) node) {
+                        if (hasLines(element) && !stops.contains(element)) {
+                            pending.push(element);
+                        }
+                    }
+                    continue;
+                }
+                Field[] fields = LINE_FIELDS.get(node.getClass());
+                if (fields[0] != null) {
+                    fields[0].setInt(node, fields[0].getInt(node) + delta);
+                }
+                for (int i = 1; i < fields.length; i++) {
+                    Object value = fields[i].get(node);
+                    if (hasLines(value) && !stops.contains(value)) {
+                        pending.push(value);
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return true if the specified object (a field of an AST node, or an
+     * element of a list in one) is or may hold something that has a line;
+     * false otherwise. Types other than type names are shared, and have none.
+     *
+     * @param value the object, or null.
+     * @return true or false.
+     */
+
+    private static boolean hasLines(Object value) {
+        return value instanceof JAST || value instanceof TypeName
+                || value instanceof ArrayTypeName
+                || value instanceof AmbiguousName
+                || value instanceof Collection;
+    }
+
+}
+
+/**
+ * A class or interface body, as parsed: the lists of its members and blocks
+ * that its AST node holds, and, if the Parser was asked to record them, its
+ * declarations in source order, with their spans.
+ */
+
+class ParsedBody {
+
+    /**
+     * Whether this is an interface body.
+     */
+    public final boolean isInterface;
+
+    /**
+     * The members.
+     */
+    public final ArrayList<JMember> members;
+
+    /**
+     * The static blocks (none in an interface body).
+     */
+    public final ArrayList<JBlock> staticBlocks;
+
+    /**
+     * The instance blocks (none in an interface body).
+     */
+    public final ArrayList<JBlock> instanceBlocks;
+
+    /**
+     * The declarations recorded, in source order.
+     */
+    public final ArrayList<ParsedDeclaration> declarations;
+
+    /**
+     * Number of lines by which the lines of the nodes of the body's type
+     * declaration, other than those of its declarations, are behind.
+     */
+    public int staleLines;
+
+    /**
+     * Construct an empty ParsedBody.
+     *
+     * @param isInterface whether it is an interface body.
+     */
+
+    public ParsedBody(boolean isInterface) {
+        this.isInterface = isInterface;
+        members = new ArrayList<JMember>();
+        staticBlocks = new ArrayList<JBlock>();
+        instanceBlocks = new ArrayList<JBlock>();
+        declarations = new ArrayList<ParsedDeclaration>();
+    }
+
+    /**
+     * Refill the lists of members and blocks from the declarations.
+     */
+
+    public void rebuild() {
+        members.clear();
+        staticBlocks.clear();
+        instanceBlocks.clear();
+        for (ParsedDeclaration declaration : declarations) {
+            switch (declaration.kind) {
+            case ParsedDeclaration.MEMBER:
+                members.add((JMember) declaration.node);
+                break;
+            case ParsedDeclaration.STATIC_BLOCK:
+                staticBlocks.add((JBlock) declaration.node);
+                break;
+            default:
+                instanceBlocks.add((JBlock) declaration.node);
+            }
+        }
+    }
+
+}
+
+/**
+ * A declaration in a class or interface body, with its span in the source.
+ */
+
+class ParsedDeclaration {
+
+    /**
+     * Kind of a member declaration.
+     */
+    public static final int MEMBER = 0;
+
+    /**
+     * Kind of a static block.
+     */
+    public static final int STATIC_BLOCK = 1;
+
+    /**
+     * Kind of an instance block.
+     */
+    public static final int INSTANCE_BLOCK = 2;
+
+    /**
+     * The declaration's AST node (a JBlock for a block).
+     */
+    public final JAST node;
+
+    /**
+     * What kind of declaration it is.
+     */
+    public final int kind;
+
+    /**
+     * Position in the source of its first token.
+     */
+    public int start;
+
+    /**
+     * Position in the source after its last token.
+     */
+    public int end;
+
+    /**
+     * Line of its first token.
+     */
+    public int line;
+
+    /**
+     * Number of lines by which the lines of the declaration's nodes are
+     * behind.
+     */
+    public int staleLines;
+
+    /**
+     * Construct a ParsedDeclaration.
+     *
+     * @param node  the declaration's AST node.
+     * @param kind  what kind of declaration it is.
+     * @param start position in the source of its first token.
+     * @param end   position in the source after its last token.
+     * @param line  line of its first token.
+     */
+
+    public ParsedDeclaration(JAST node, int kind, int start, int end,
+                             int line) {
+        this.node = node;
+        this.kind = kind;
+        this.start = start;
+        this.end = end;
+        this.line = line;
+    }
+
+    /**
+     * Move the declaration by the specified numbers of characters and lines;
+     * the lines of its nodes are now behind by as many more.
+     *
+     * @param delta     the number of characters.
+     * @param lineDelta the number of lines.
+     */
+
+    public void move(int delta, int lineDelta) {
+        start += delta;
+        end += delta;
+        line += lineDelta;
+        staleLines += lineDelta;
+    }
+
+}
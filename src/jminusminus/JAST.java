@@ -8,11 +8,6 @@ package jminusminus;
 
 abstract class JAST {
 
-    /**
-     * Current compilation unit (set in JCompilationUnit()).
-     */
-    public static JCompilationUnit compilationUnit;
-
     /**
      * Line in which the source for the AST was found.
      */
@@ -28,6 +23,17 @@ abstract class JAST {
         this.line = line;
     }
 
+    /**
+     * Return the current compilation unit (set in JCompilationUnit()), that
+     * is, the one being compiled in the current thread's CompilationSession.
+     *
+     * @return the current compilation unit.
+     */
+
+    public static JCompilationUnit compilationUnit() {
+        return CompilationSession.current().compilationUnit();
+    }
+
     /**
      * Return the line in which the source for the AST was found.
      *
@@ -51,7 +51,7 @@ class JArrayExpression
         theArray = (JExpression) theArray.analyze(context);
         indexExpr = (JExpression) indexExpr.analyze(context);
         if (!(theArray.type().isArray())) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "attempt to index a non-array object");
             this.type = Type.ANY;
         } else {
@@ -26,6 +26,27 @@ abstract class JAssignment extends JBinaryExpression {
         super(line, operator, lhs, rhs);
     }
 
+    /**
+     * An assignment analyzes its lhs itself (as an lhs), so it isn't
+     * analyzed by the analyze() of an operation of which it is the lhs.
+     *
+     * @return false.
+     */
+
+    protected boolean isChainLink() {
+        return false;
+    }
+
+    /**
+     * Nor is its code generated by the codegen() of that operation.
+     *
+     * @return false.
+     */
+
+    protected boolean isCodegenChainLink() {
+        return false;
+    }
+
     int numericAsm(int intInstruction) {
         return numericAsm(intInstruction, NOP);
     }
@@ -33,42 +54,42 @@ abstract class JAssignment extends JBinaryExpression {
     int numericAsm(int intInstruction, int doubleInstruction) {
         if (type == Type.INT) return intInstruction;
         if (type == Type.DOUBLE) return doubleInstruction;
-        JAST.compilationUnit.reportSemanticError(line(), "Illegal type " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Illegal type " + type.toString());
         return -1;
     }
 
     int numericAdd() {
         if (type == Type.INT) return IADD;
         if (type == Type.DOUBLE) return DADD;
-        JAST.compilationUnit.reportSemanticError(line(), "Illegal type for adding " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Illegal type for adding " + type.toString());
         return -1;
     }
 
     int numericSub() {
         if (type == Type.INT) return ISUB;
         if (type == Type.DOUBLE) return DSUB;
-        JAST.compilationUnit.reportSemanticError(line(), "Illegal type for subtracting " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Illegal type for subtracting " + type.toString());
         return -1;
     }
 
     int numericMul() {
         if (type == Type.INT) return IMUL;
         if (type == Type.DOUBLE) return DMUL;
-        JAST.compilationUnit.reportSemanticError(line(), "Illegal type for multiplying " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Illegal type for multiplying " + type.toString());
         return -1;
     }
 
     int numericDiv() {
         if (type == Type.INT) return IDIV;
         if (type == Type.DOUBLE) return DDIV;
-        JAST.compilationUnit.reportSemanticError(line(), "Illegal type for dividing " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Illegal type for dividing " + type.toString());
         return -1;
     }
 
     int numericRem() {
         if (type == Type.INT) return IDIV;
         if (type == Type.DOUBLE) return DDIV;
-        JAST.compilationUnit.reportSemanticError(line(), "Illegal type for dividing " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Illegal type for dividing " + type.toString());
         return -1;
     }
 
@@ -80,7 +101,7 @@ abstract class JAssignment extends JBinaryExpression {
                 return t;
             }
         }
-        JAST.compilationUnit.reportSemanticError(line(),
+        JAST.compilationUnit().reportSemanticError(line(),
                 "Invalid lhs type for +=: " + lhs.type());
         return null;
 
@@ -121,7 +142,7 @@ class JAssignOp extends JAssignment {
     public JExpression analyze(Context context) {
 
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
         } else {
             lhs = (JExpression) ((JLhs) lhs).analyzeLhs(context);
@@ -192,7 +213,7 @@ class JPlusAssignOp extends JAssignment {
 
     public JExpression analyze(Context context) {
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -212,7 +233,7 @@ class JPlusAssignOp extends JAssignment {
 //            rhs = (new JStringConcatenationOp(line, lhs, rhs)).analyze(context);
 //            type = Type.STRING;
 //        } else {
-//            JAST.compilationUnit.reportSemanticError(line(),
+//            JAST.compilationUnit().reportSemanticError(line(),
 //                    "Invalid lhs type for +=: " + lhs.type());
 //        }
         return this;
@@ -254,7 +275,7 @@ class JMinusAssignOp extends JAssignment {
     public JExpression analyze(Context context) {
 
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -296,7 +317,7 @@ class JStarAssignOp extends JAssignment {
     public JExpression analyze(Context context) {
         // Make sure that lhs is an actual lhs
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -337,7 +358,7 @@ class JDivideAssignOp extends JAssignment {
 
     public JExpression analyze(Context context) {
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -376,7 +397,7 @@ class JRemainderAssignOp extends JAssignment {
 
     public JExpression analyze(Context context) {
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -414,7 +435,7 @@ class JRShiftAssignOp extends JAssignment {
 
     public JExpression analyze(Context context) {
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -451,7 +472,7 @@ class JRShiftZeroAssignOp extends JAssignment {
 
     public JExpression analyze(Context context) {
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -488,7 +509,7 @@ class JLShiftAssignOp extends JAssignment {
 
     public JExpression analyze(Context context) {
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -525,7 +546,7 @@ class JAndAssignOp extends JAssignment {
 
     public JExpression analyze(Context context) {
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -562,7 +583,7 @@ class JOrAssignOp extends JAssignment {
 
     public JExpression analyze(Context context) {
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -600,7 +621,7 @@ class JXorAssignOp extends JAssignment {
     public JExpression analyze(Context context) {
 
         if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Illegal lhs for assignment");
             return this;
         } else {
@@ -2,11 +2,23 @@
 
 package jminusminus;
 
+import java.util.ArrayList;
+
 import static jminusminus.CLConstants.*;
 
 /**
  * The AST node for a binary expression. A binary expression has an operator and
  * two operands: a lhs and a rhs.
+ * <p>
+ * Binary operations associate to the left, so a chain of them (eg a string
+ * concatenation or a boolean condition thousands of operands long, as
+ * generated sources have) is a tree as deep as the chain is long. Rather than
+ * recursing down the lhs of each operation, which would overflow the stack,
+ * analyze(), codegen() and writeToStdOut() run along the chain in a loop:
+ * they deal with the innermost lhs, and then with the rhs and the operation
+ * itself of each operation in the chain, from the innermost out. Subclasses
+ * define the part that is the operation's own: analyzeOperation() and
+ * codegenOperation().
  */
 
 abstract class JBinaryExpression extends JExpression {
@@ -44,6 +56,109 @@ abstract class JBinaryExpression extends JExpression {
         this.rhs = rhs;
     }
 
+    /**
+     * Analyze the operation, and the operations chained to its lhs (those
+     * for which isChainLink() is true), from the innermost out: the
+     * innermost lhs first, and then the rhs of each operation, and the
+     * operation itself.
+     *
+     * @param context context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        ArrayList<JBinaryExpression> chain = new ArrayList<JBinaryExpression>();
+        JBinaryExpression operation = this;
+        chain.add(operation);
+        while (operation.lhs instanceof JBinaryExpression
+                && ((JBinaryExpression) operation.lhs).isChainLink()) {
+            operation = (JBinaryExpression) operation.lhs;
+            chain.add(operation);
+        }
+        JExpression operand = (JExpression) operation.lhs.analyze(context);
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            operation = chain.get(i);
+            operation.lhs = operand;
+            operation.rhs = (JExpression) operation.rhs.analyze(context);
+            operand = operation.analyzeOperation(context);
+        }
+        return operand;
+    }
+
+    /**
+     * Analyze the operation itself (checking the types of its operands and
+     * determining the result type), its operands having been analyzed.
+     * Operations that override analyze() needn't define this.
+     *
+     * @param context context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    protected JExpression analyzeOperation(Context context) {
+        return this;
+    }
+
+    /**
+     * Is this operation, as the lhs of another, analyzed by the other's
+     * analyze()? It is unless it overrides analyze().
+     *
+     * @return true or false.
+     */
+
+    protected boolean isChainLink() {
+        return true;
+    }
+
+    /**
+     * Generate code for the operation, and for the operations chained to its
+     * lhs (those for which isCodegenChainLink() is true), from the innermost
+     * out: code for the innermost lhs first, and then for the rhs of each
+     * operation, and the operation itself.
+     *
+     * @param output the code emitter (basically an abstraction for producing the
+     *               .class file).
+     */
+
+    public void codegen(CLEmitter output) {
+        ArrayList<JBinaryExpression> chain = new ArrayList<JBinaryExpression>();
+        JBinaryExpression operation = this;
+        chain.add(operation);
+        while (operation.lhs instanceof JBinaryExpression
+                && ((JBinaryExpression) operation.lhs).isCodegenChainLink()) {
+            operation = (JBinaryExpression) operation.lhs;
+            chain.add(operation);
+        }
+        operation.lhs.codegen(output);
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            operation = chain.get(i);
+            operation.rhs.codegen(output);
+            operation.codegenOperation(output);
+        }
+    }
+
+    /**
+     * Generate code for the operation itself, its operands being on the
+     * stack. Operations that override codegen() needn't define this.
+     *
+     * @param output the code emitter (basically an abstraction for producing the
+     *               .class file).
+     */
+
+    protected void codegenOperation(CLEmitter output) {
+        // A dummy -- redefined where necessary.
+    }
+
+    /**
+     * Is this operation, as the lhs of another, generated by the other's
+     * codegen()? It is unless it overrides codegen().
+     *
+     * @return true or false.
+     */
+
+    protected boolean isCodegenChainLink() {
+        return true;
+    }
+
     boolean sidesAreSameType(Type type) {
         return lhs.type() == type && rhs.type() == type;
     }
@@ -51,42 +166,42 @@ abstract class JBinaryExpression extends JExpression {
     int add() {
         if (type == Type.INT) return IADD;
         if (type == Type.DOUBLE) return DADD;
-        JAST.compilationUnit.reportSemanticError(line(), "Invalid type for add " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Invalid type for add " + type.toString());
         return -1;
     }
 
     int sub() {
         if (type == Type.INT) return ISUB;
         if (type == Type.DOUBLE) return DSUB;
-        JAST.compilationUnit.reportSemanticError(line(), "Invalid type for sub " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Invalid type for sub " + type.toString());
         return -1;
     }
 
     int mul() {
         if (type == Type.INT) return IMUL;
         if (type == Type.DOUBLE) return DMUL;
-        JAST.compilationUnit.reportSemanticError(line(), "Invalid type for mul " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Invalid type for mul " + type.toString());
         return -1;
     }
 
     int div() {
         if (type == Type.INT) return IDIV;
         if (type == Type.DOUBLE) return DDIV;
-        JAST.compilationUnit.reportSemanticError(line(), "Invalid type for div " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Invalid type for div " + type.toString());
         return -1;
     }
 
     int rem() {
         if (type == Type.INT) return IREM;
         if (type == Type.DOUBLE) return DREM;
-        JAST.compilationUnit.reportSemanticError(line(), "Invalid type for rem " + type.toString());
+        JAST.compilationUnit().reportSemanticError(line(), "Invalid type for rem " + type.toString());
         return -1;
     }
 
     void sidesMustMatchSameNumerical() {
         Type type = lhs.type();
         if (type != Type.INT && type != Type.DOUBLE)
-            JAST.compilationUnit.reportSemanticError(line(), "lhs is not numerical, but " + type.toString());
+            JAST.compilationUnit().reportSemanticError(line(), "lhs is not numerical, but " + type.toString());
         rhs.type().mustMatchExpected(line(), type);
     }
 
@@ -95,22 +210,33 @@ abstract class JBinaryExpression extends JExpression {
      */
 
     public void writeToStdOut(PrettyPrinter p) {
-        p.printf("<JBinaryExpression line=\"%d\" type=\"%s\" "
-                + "operator=\"%s\">\n", line(), ((type == null) ? "" : type
-                .toString()), Util.escapeSpecialXMLChars(operator));
-        p.indentRight();
-        p.printf("<Lhs>\n");
-        p.indentRight();
-        lhs.writeToStdOut(p);
-        p.indentLeft();
-        p.printf("</Lhs>\n");
-        p.printf("<Rhs>\n");
-        p.indentRight();
-        rhs.writeToStdOut(p);
-        p.indentLeft();
-        p.printf("</Rhs>\n");
-        p.indentLeft();
-        p.printf("</JBinaryExpression>\n");
+        ArrayList<JBinaryExpression> chain = new ArrayList<JBinaryExpression>();
+        JExpression operand = this;
+        while (operand instanceof JBinaryExpression) {
+            JBinaryExpression operation = (JBinaryExpression) operand;
+            chain.add(operation);
+            p.printf("<JBinaryExpression line=\"%d\" type=\"%s\" "
+                    + "operator=\"%s\">\n", operation.line(),
+                    ((operation.type == null) ? "" : operation.type
+                    .toString()), Util.escapeSpecialXMLChars(
+                    operation.operator));
+            p.indentRight();
+            p.printf("<Lhs>\n");
+            p.indentRight();
+            operand = operation.lhs;
+        }
+        operand.writeToStdOut(p);
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            p.indentLeft();
+            p.printf("</Lhs>\n");
+            p.printf("<Rhs>\n");
+            p.indentRight();
+            chain.get(i).rhs.writeToStdOut(p);
+            p.indentLeft();
+            p.printf("</Rhs>\n");
+            p.indentLeft();
+            p.printf("</JBinaryExpression>\n");
+        }
     }
 
 }
@@ -137,18 +263,16 @@ class JPlusOp extends JBinaryExpression {
     }
 
     /**
-     * Analysis involves first analyzing the operands. If this is a string
-     * concatenation, we rewrite the subtree to make that explicit (and analyze
-     * that). Otherwise we check the types of the addition operands and compute
-     * the result type.
+     * The operands having been analyzed, if this is a string concatenation,
+     * we rewrite the subtree to make that explicit (and analyze that).
+     * Otherwise we check the types of the addition operands and compute the
+     * result type.
      *
      * @param context context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
 
-    public JExpression analyze(Context context) {
-        lhs = lhs.analyze(context);
-        rhs = rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         if (lhs.type() == Type.STRING || rhs.type() == Type.STRING) {
             return (new JStringConcatenationOp(line, lhs, rhs))
                     .analyze(context);
@@ -158,7 +282,7 @@ class JPlusOp extends JBinaryExpression {
             type = Type.DOUBLE;
         } else {
             type = Type.ANY;
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Invalid operand types for +");
         }
         return this;
@@ -166,18 +290,15 @@ class JPlusOp extends JBinaryExpression {
 
     /**
      * Any string concatenation has been rewritten as a JStringConcatenationOp
-     * (in analyze()), so code generation here involves simply generating code
-     * for loading the operands onto the stack and then generating the
-     * appropriate add instruction.
+     * (in analyze()), so code generation here involves simply generating the
+     * appropriate add instruction, the operands being on the stack.
      *
      * @param output the code emitter (basically an abstraction for producing the
      *               .class file).
      */
 
-    public void codegen(CLEmitter output) {
+    protected void codegenOperation(CLEmitter output) {
         if (type == Type.INT || type == Type.DOUBLE) {
-            lhs.codegen(output);
-            rhs.codegen(output);
             output.addNoArgInstruction(add());
         }
     }
@@ -205,32 +326,28 @@ class JSubtractOp extends JBinaryExpression {
     }
 
     /**
-     * Analyzing the - operation involves analyzing its operands, checking
-     * types, and determining the result type.
+     * Analyzing the - operation (its operands having been analyzed) involves
+     * checking types, and determining the result type.
      *
      * @param context context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
 
-    public JExpression analyze(Context context) {
-        lhs = lhs.analyze(context);
-        rhs = rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         sidesMustMatchSameNumerical();
         type = lhs.type();
         return this;
     }
 
     /**
-     * Generating code for the - operation involves generating code for the two
-     * operands, and then the subtraction instruction.
+     * Generating code for the - operation (that for its operands having been
+     * generated) involves generating the subtraction instruction.
      *
      * @param output the code emitter (basically an abstraction for producing the
      *               .class file).
      */
 
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(sub());
     }
 
@@ -257,32 +374,28 @@ class JMultiplyOp extends JBinaryExpression {
     }
 
     /**
-     * Analyzing the * operation involves analyzing its operands, checking
-     * types, and determining the result type.
+     * Analyzing the * operation (its operands having been analyzed) involves
+     * checking types, and determining the result type.
      *
      * @param context context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
 
-    public JExpression analyze(Context context) {
-        lhs = lhs.analyze(context);
-        rhs = rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         sidesMustMatchSameNumerical();
         type = lhs.type();
         return this;
     }
 
     /**
-     * Generating code for the * operation involves generating code for the two
-     * operands, and then the multiplication instruction.
+     * Generating code for the * operation (that for its operands having been
+     * generated) involves generating the multiplication instruction.
      *
      * @param output the code emitter (basically an abstraction for producing the
      *               .class file).
      */
 
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(mul());
     }
 
@@ -294,18 +407,14 @@ class JDivideOp extends JBinaryExpression {
     }
 
     @Override
-    public JExpression analyze(Context context) {
-        lhs = lhs.analyze(context);
-        rhs = rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         sidesMustMatchSameNumerical();
         type = lhs.type();
         return this;
     }
 
     @Override
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(div());
     }
 }
@@ -316,18 +425,14 @@ class JRemainderOp extends JBinaryExpression {
     }
 
     @Override
-    public JExpression analyze(Context context) {
-        lhs = lhs.analyze(context);
-        rhs = rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         sidesMustMatchSameNumerical();
         type = lhs.type();
         return this;
     }
 
     @Override
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(rem());
     }
 }
@@ -338,9 +443,7 @@ class JBitwiseAndOp extends JBinaryExpression {
     }
 
     @Override
-    public JExpression analyze(Context context) {
-        lhs = lhs.analyze(context);
-        rhs = rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
@@ -348,9 +451,7 @@ class JBitwiseAndOp extends JBinaryExpression {
     }
 
     @Override
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(IAND);
     }
 }
@@ -361,9 +462,7 @@ class JBitwiseExclusiveOrOp extends JBinaryExpression {
     }
 
     @Override
-    public JExpression analyze(Context context) {
-        lhs = lhs.analyze(context);
-        rhs = rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
@@ -371,9 +470,7 @@ class JBitwiseExclusiveOrOp extends JBinaryExpression {
     }
 
     @Override
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(IXOR);
     }
 }
@@ -384,9 +481,7 @@ class JBitwiseInclusiveOrOp extends JBinaryExpression {
     }
 
     @Override
-    public JExpression analyze(Context context) {
-        lhs = lhs.analyze(context);
-        rhs = rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
@@ -394,9 +489,7 @@ class JBitwiseInclusiveOrOp extends JBinaryExpression {
     }
 
     @Override
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(IOR);
     }
 }
@@ -421,9 +514,7 @@ class JShiftArRightOp extends JBinaryExpression {
     }
 
     @Override
-    public JExpression analyze(Context context) {
-        lhs = (JExpression) lhs.analyze(context);
-        rhs = (JExpression) rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
@@ -431,9 +522,7 @@ class JShiftArRightOp extends JBinaryExpression {
     }
 
     @Override
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(ISHR);
     }
 }
@@ -452,9 +541,7 @@ class JShiftArLeftOp extends JBinaryExpression {
     }
     
     @Override
-    public JExpression analyze(Context context) {
-        lhs = (JExpression) lhs.analyze(context);
-        rhs = (JExpression) rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
@@ -462,9 +549,7 @@ class JShiftArLeftOp extends JBinaryExpression {
     }
 
     @Override
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(ISHL);
     }
 }
@@ -485,9 +570,7 @@ class JShiftLgRightOp extends JBinaryExpression {
     }
 
     @Override
-    public JExpression analyze(Context context) {
-        lhs = (JExpression) lhs.analyze(context);
-        rhs = (JExpression) rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
@@ -495,9 +578,7 @@ class JShiftLgRightOp extends JBinaryExpression {
     }
 
     @Override
-    public void codegen(CLEmitter output) {
-        lhs.codegen(output);
-        rhs.codegen(output);
+    protected void codegenOperation(CLEmitter output) {
         output.addNoArgInstruction(IUSHR);
     }
 }
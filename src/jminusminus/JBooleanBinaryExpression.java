@@ -2,6 +2,8 @@
 
 package jminusminus;
 
+import java.util.ArrayDeque;
+
 import static jminusminus.CLConstants.*;
 
 /**
@@ -9,6 +11,9 @@ import static jminusminus.CLConstants.*;
  * syntax. We take advantage of this to define a common codegen(), which relies
  * on the short-circuiting code generation for control and puts either a 1 or a
  * 0 onto the stack.
+ * <p>
+ * The short-circuiting code for a chain of && and || operations is generated
+ * without recursing down the chain (see branchCodegen()).
  */
 
 abstract class JBooleanBinaryExpression extends JBinaryExpression {
@@ -48,6 +53,67 @@ abstract class JBooleanBinaryExpression extends JBinaryExpression {
         output.addLabel(endIfLabel);
     }
 
+    /**
+     * Its value isn't generated by the codegen() of an operation of which it
+     * is the lhs.
+     *
+     * @return false.
+     */
+
+    protected boolean isCodegenChainLink() {
+        return false;
+    }
+
+    /**
+     * Generate branching code for an expression that may be a tree of && and
+     * || operations, without recursing down the operands of each: pending
+     * work (an operand to generate, or a label to add) is kept on a stack,
+     * and each && or || operation is expanded (expandBranchCodegen()) in the
+     * order in which codegen() would recurse through them, so that the code,
+     * and the labels created, are the same.
+     *
+     * @param expr        the expression.
+     * @param output      the code emitter (basically an abstraction for producing the
+     *                    .class file).
+     * @param targetLabel target for generated branch instruction.
+     * @param onTrue      should we branch on true?
+     */
+
+    static void branchCodegen(JExpression expr, CLEmitter output,
+                              String targetLabel, boolean onTrue) {
+        ArrayDeque<BranchWork> work = new ArrayDeque<BranchWork>();
+        work.push(new BranchWork(expr, targetLabel, onTrue));
+        while (!work.isEmpty()) {
+            BranchWork next = work.pop();
+            if (next.expr == null) {
+                output.addLabel(next.targetLabel);
+            } else if (next.expr instanceof JBooleanBinaryExpression) {
+                ((JBooleanBinaryExpression) next.expr).expandBranchCodegen(
+                        output, next.targetLabel, next.onTrue, work);
+            } else {
+                next.expr.codegen(output, next.targetLabel, next.onTrue);
+            }
+        }
+    }
+
+    /**
+     * Generate the branching code that is the operation's own, pushing the
+     * work left for its operands (in reverse order) onto the stack of
+     * branchCodegen(). All but the && and || operations generate all their
+     * code at once.
+     *
+     * @param output      the code emitter (basically an abstraction for producing the
+     *                    .class file).
+     * @param targetLabel target for generated branch instruction.
+     * @param onTrue      should we branch on true?
+     * @param work        the pending work.
+     */
+
+    void expandBranchCodegen(CLEmitter output, String targetLabel,
+                             boolean onTrue, ArrayDeque<BranchWork> work) {
+        codegen(output, targetLabel, onTrue);
+    }
+
 }
 
 /**
@@ -71,16 +137,14 @@ class JEqualOp extends JBooleanBinaryExpression {
     }
 
     /**
-     * Analyzing an equality expression means analyzing its operands and
-     * checking that the types match.
+     * Analyzing an equality expression means checking that the types of its
+     * (analyzed) operands match.
      *
      * @param context context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
 
-    public JExpression analyze(Context context) {
-        lhs = (JExpression) lhs.analyze(context);
-        rhs = (JExpression) rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchOneOf(line(), Type.INT, Type.DOUBLE);
         lhs.type().mustMatchExpected(line(), rhs.type());
         type = Type.BOOLEAN;
@@ -135,16 +199,14 @@ class JNEqualOp extends JBooleanBinaryExpression {
     }
 
     /**
-     * Analyzing an equality expression means analyzing its operands and
-     * checking that the types match.
+     * Analyzing an equality expression means checking that the types of its
+     * (analyzed) operands match.
      *
      * @param context context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
 
-    public JExpression analyze(Context context) {
-        lhs = (JExpression) lhs.analyze(context);
-        rhs = (JExpression) rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchOneOf(line(), Type.INT, Type.DOUBLE);
         lhs.type().mustMatchExpected(line(), rhs.type());
         type = Type.BOOLEAN;
@@ -202,16 +264,14 @@ class JLogicalAndOp extends JBooleanBinaryExpression {
     }
 
     /**
-     * Analyzing a logical AND expression involves analyzing its operands and
-     * insuring they are boolean; the result type is of course boolean.
+     * Analyzing a logical AND expression involves insuring its (analyzed)
+     * operands are boolean; the result type is of course boolean.
      *
      * @param context context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
 
-    public JExpression analyze(Context context) {
-        lhs = (JExpression) lhs.analyze(context);
-        rhs = (JExpression) rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchExpected(line(), Type.BOOLEAN);
         rhs.type().mustMatchExpected(line(), Type.BOOLEAN);
         type = Type.BOOLEAN;
@@ -229,14 +289,30 @@ class JLogicalAndOp extends JBooleanBinaryExpression {
      */
 
     public void codegen(CLEmitter output, String targetLabel, boolean onTrue) {
+        branchCodegen(this, output, targetLabel, onTrue);
+    }
+
+    /**
+     * Create the label needed, and leave the branching code for the operands
+     * to branchCodegen().
+     *
+     * @param output      the code emitter (basically an abstraction for producing the
+     *                    .class file).
+     * @param targetLabel target for generated branch instruction.
+     * @param onTrue      should we branch on true?
+     * @param work        the pending work.
+     */
+
+    void expandBranchCodegen(CLEmitter output, String targetLabel,
+                             boolean onTrue, ArrayDeque<BranchWork> work) {
         if (onTrue) {
             String falseLabel = output.createLabel();
-            lhs.codegen(output, falseLabel, false);
-            rhs.codegen(output, targetLabel, true);
-            output.addLabel(falseLabel);
+            work.push(new BranchWork(null, falseLabel, false));
+            work.push(new BranchWork(rhs, targetLabel, true));
+            work.push(new BranchWork(lhs, falseLabel, false));
         } else {
-            lhs.codegen(output, targetLabel, false);
-            rhs.codegen(output, targetLabel, false);
+            work.push(new BranchWork(rhs, targetLabel, false));
+            work.push(new BranchWork(lhs, targetLabel, false));
         }
     }
 
@@ -252,9 +328,7 @@ class JLogicalOrOp extends JBooleanBinaryExpression {
         super(line, "||", lhs, rhs);
     }
 
-    public JExpression analyze(Context context) {
-        lhs = (JExpression) lhs.analyze(context);
-        rhs = (JExpression) rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchExpected(line(), Type.BOOLEAN);
         rhs.type().mustMatchExpected(line(), Type.BOOLEAN);
         type = Type.BOOLEAN;
@@ -262,19 +336,62 @@ class JLogicalOrOp extends JBooleanBinaryExpression {
     }
 
     public void codegen(CLEmitter output, String targetLabel, boolean onTrue) {
+        branchCodegen(this, output, targetLabel, onTrue);
+    }
+
+    void expandBranchCodegen(CLEmitter output, String targetLabel,
+                             boolean onTrue, ArrayDeque<BranchWork> work) {
         if (onTrue) {
             String falseLabel = output.createLabel();
-            lhs.codegen(output, targetLabel, true); // Jump into scope // Short circuiting
-            rhs.codegen(output, falseLabel, false); // If false, then jump over scope
-            output.addLabel(falseLabel);
+            work.push(new BranchWork(null, falseLabel, false));
+            work.push(new BranchWork(rhs, falseLabel, false)); // If false, then jump over scope
+            work.push(new BranchWork(lhs, targetLabel, true)); // Jump into scope // Short circuiting
         } else {
             String trueLabel = output.createLabel();
-            lhs.codegen(output, trueLabel, true);
-            rhs.codegen(output, trueLabel, true);
-            output.addLabel(targetLabel);
-            output.addLabel(trueLabel);
+            work.push(new BranchWork(null, trueLabel, false));
+            work.push(new BranchWork(null, targetLabel, false));
+            work.push(new BranchWork(rhs, trueLabel, true));
+            work.push(new BranchWork(lhs, trueLabel, true));
         }
+    }
+
+}
+
+/**
+ * Work pending in JBooleanBinaryExpression.branchCodegen(): branching code to
+ * generate for an operand, or a label to add.
+ */
+
+class BranchWork {
 
+    /**
+     * The operand; null if the work is adding the label.
+     */
+    public JExpression expr;
+
+    /**
+     * Target for the branch instruction generated, or the label to add.
+     */
+    public String targetLabel;
+
+    /**
+     * Should we branch on true?
+     */
+    public boolean onTrue;
+
+    /**
+     * Construct a BranchWork.
+     *
+     * @param expr        the operand, or null to add the label.
+     * @param targetLabel target for the branch instruction generated, or the
+     *                    label to add.
+     * @param onTrue      should we branch on true?
+     */
+
+    public BranchWork(JExpression expr, String targetLabel, boolean onTrue) {
+        this.expr = expr;
+        this.targetLabel = targetLabel;
+        this.onTrue = onTrue;
     }
 
-}
\ No newline at end of file
+}
@@ -26,7 +26,7 @@ class JCastOp extends JExpression {
     /**
      * The conversions table.
      */
-    private static Conversions conversions;
+    private static final Conversions conversions = new Conversions();
 
     /**
      * The converter to use for this cast.
@@ -46,7 +46,6 @@ class JCastOp extends JExpression {
         super(line);
         this.cast = cast;
         this.expr = expr;
-        conversions = new Conversions();
     }
 
     /**
@@ -69,7 +68,7 @@ class JCastOp extends JExpression {
             converter = new NarrowReference(cast);
         } else if ((converter = conversions.get(expr.type(), cast)) != null) {
         } else {
-            JAST.compilationUnit.reportSemanticError(line, "Cannot cast a "
+            JAST.compilationUnit().reportSemanticError(line, "Cannot cast a "
                     + expr.type().toString() + " to a " + cast.toString());
         }
         return this;
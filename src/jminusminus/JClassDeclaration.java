@@ -135,8 +135,8 @@ class JClassDeclaration extends JAST implements JTypeDecl {
 
     public void declareThisType(Context context) {
 
-        String qualifiedName = JAST.compilationUnit.packageName().equals("") ? name
-                : JAST.compilationUnit.packageName().replace(".", "/") + "/" + name;
+        String qualifiedName = JAST.compilationUnit().packageName().equals("") ? name
+                : JAST.compilationUnit().packageName().replace(".", "/") + "/" + name;
 
         CLEmitter partial = new CLEmitter(false);
         partial.addClass(mods, qualifiedName, Type.OBJECT.jvmName(), null,
@@ -177,7 +177,7 @@ class JClassDeclaration extends JAST implements JTypeDecl {
         // violated, so we can't defer these checks to analyze()
         thisType.checkAccess(line, superType, resolvedInterfaces);
         if (superType.isFinal()) {
-            JAST.compilationUnit.reportSemanticError(line,
+            JAST.compilationUnit().reportSemanticError(line,
                     "Cannot extend a final type: %s", superType.toString());
         }
 
@@ -192,8 +192,8 @@ class JClassDeclaration extends JAST implements JTypeDecl {
             }
         }
         // Add the class header to the partial class
-        String qualifiedName = JAST.compilationUnit.packageName().equals("") ? name
-                : JAST.compilationUnit.packageName().replace(".", "/") + "/" + name;
+        String qualifiedName = JAST.compilationUnit().packageName().equals("") ? name
+                : JAST.compilationUnit().packageName().replace(".", "/") + "/" + name;
         partial.addClass(mods, qualifiedName, superType.jvmName(), interfaceNames, false);
 
         // Pre analyze all members of this class
@@ -203,7 +203,7 @@ class JClassDeclaration extends JAST implements JTypeDecl {
         // Get the Class rep for the (partial) class and make it
         // the representation for this type
         Type id = this.context.lookupType(name);
-        if (id != null && !JAST.compilationUnit.errorHasOccurred()) {
+        if (id != null && !JAST.compilationUnit().errorHasOccurred()) {
             id.setClassRep(partial.toClass());
         }
     }
@@ -229,7 +229,7 @@ class JClassDeclaration extends JAST implements JTypeDecl {
             for (Method method : abstractMethods) {
                 methods.append("\n").append(method);
             }
-            JAST.compilationUnit.reportSemanticError(line,
+            JAST.compilationUnit().reportSemanticError(line,
                     "Class %s must be declared abstract since it defines "
                             + "the following abstract methods: %s", name, methods);
         }
@@ -246,8 +246,8 @@ class JClassDeclaration extends JAST implements JTypeDecl {
 
     public void codegen(CLEmitter output) {
         // The class header
-        String qualifiedName = JAST.compilationUnit.packageName().equals("") ? name
-                : JAST.compilationUnit.packageName().replace(".", "/") + "/" + name;
+        String qualifiedName = JAST.compilationUnit().packageName().equals("") ? name
+                : JAST.compilationUnit().packageName().replace(".", "/") + "/" + name;
         output.addClass(mods, qualifiedName, superType.jvmName(), new ArrayList<>(interfaces.stream().map(Type::jvmName).collect(Collectors.toList())), false);
 
         this.classBody.codegen(output);
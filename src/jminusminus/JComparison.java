@@ -26,16 +26,14 @@ abstract class JComparison extends JBooleanBinaryExpression {
     }
 
     /**
-     * The analysis of a comparison operation consists of analyzing its two
-     * operands, and making sure they both have the same numeric type.
+     * The analysis of a comparison operation (its two operands having been
+     * analyzed) consists of making sure they both have the same numeric type.
      *
      * @param context context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
 
-    public JExpression analyze(Context context) {
-        lhs = (JExpression) lhs.analyze(context);
-        rhs = (JExpression) rhs.analyze(context);
+    protected JExpression analyzeOperation(Context context) {
         lhs.type().mustMatchOneOf(line(), Type.INT, Type.DOUBLE);
         rhs.type().mustMatchExpected(line(), lhs.type());
         type = Type.BOOLEAN;
@@ -3,6 +3,8 @@
 package jminusminus;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * The abstract syntax tree (AST) node representing a compilation unit, and so
@@ -56,7 +58,7 @@ class JCompilationUnit extends JAST {
     private ArrayList<TypeName> imports;
 
     /**
-     * List of type declarations.
+     * List of type declarations; null where stream() let go of one.
      */
     private ArrayList<JAST> typeDeclarations;
 
@@ -66,6 +68,12 @@ class JCompilationUnit extends JAST {
      */
     private ArrayList<CLFile> clFiles;
 
+    /**
+     * ABI fingerprints of the classes that stream() wrote and let go of,
+     * keyed by class name.
+     */
+    private LinkedHashMap<String, Long> streamedTypes;
+
     /**
      * For imports and type declarations.
      */
@@ -76,6 +84,13 @@ class JCompilationUnit extends JAST {
      */
     private boolean isInError;
 
+    /**
+     * Least number of type declarations for which code is generated in
+     * parallel (given more than one processor); below it, the cost of handing
+     * them to other threads exceeds what is gained.
+     */
+    private static final int PARALLEL_CODEGEN_THRESHOLD = 8;
+
     /**
      * Construct an AST node for a compilation unit given a file name, class
      * directory, line number, package name, list of imports, and type
@@ -96,7 +111,18 @@ class JCompilationUnit extends JAST {
         this.imports = imports;
         this.typeDeclarations = typeDeclarations;
         clFiles = new ArrayList<CLFile>();
-        compilationUnit = this;
+        streamedTypes = new LinkedHashMap<String, Long>();
+        CompilationSession.current().setCompilationUnit(this);
+    }
+
+    /**
+     * Return the type declarations.
+     *
+     * @return the type declarations.
+     */
+
+    public ArrayList<JAST> typeDeclarations() {
+        return typeDeclarations;
     }
 
     /**
@@ -130,9 +156,8 @@ class JCompilationUnit extends JAST {
     public void reportSemanticError(int line, String message,
                                     Object... arguments) {
         isInError = true;
-        System.err.printf("%s:%d: ", fileName, line);
-        System.err.printf(message, arguments);
-        System.err.println();
+        CompilationSession.current().report(new Diagnostic(fileName, line,
+                String.format(message, arguments)));
     }
 
     /**
@@ -152,10 +177,10 @@ class JCompilationUnit extends JAST {
         // Declare any imported types
         for (TypeName imported : imports) {
             try {
-                Class<?> classRep = Class.forName(imported.toString());
-                context.addType(imported.line(), Type.typeFor(classRep));
+                context.addType(imported.line(),
+                        Type.typeForName(imported.toString()));
             } catch (Exception e) {
-                JAST.compilationUnit.reportSemanticError(imported.line(),
+                JAST.compilationUnit().reportSemanticError(imported.line(),
                         "Unable to find %s", imported.toString());
             }
         }
@@ -198,10 +223,51 @@ class JCompilationUnit extends JAST {
      */
 
     public void codegen(CLEmitter output) {
-        for (JAST typeDeclaration : typeDeclarations) {
-            typeDeclaration.codegen(output);
-            output.write();
-            clFiles.add(output.clFile());
+        if (typeDeclarations.size() < PARALLEL_CODEGEN_THRESHOLD
+                || Runtime.getRuntime().availableProcessors() < 2) {
+            for (JAST typeDeclaration : typeDeclarations) {
+                typeDeclaration.codegen(output);
+                output.write();
+                clFiles.add(output.clFile());
+            }
+            return;
+        }
+
+        // Once analysis is done, the type declarations are independent of
+        // one another: each one's code is generated on an emitter of its
+        // own, by the fork-join pool the current thread is in (if compiling
+        // units in parallel) or the common pool. The classes are then
+        // written, and collected, in declaration order. The CPU time and
+        // allocation of the pool's threads are charged to the session's
+        // statistics; those of this thread, which may run some of the tasks
+        // itself, are charged anyway.
+        final CompilationSession session = CompilationSession.current();
+        final Thread compilingThread = Thread.currentThread();
+        ArrayList<CLEmitter> emitters = new ArrayList<CLEmitter>();
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for (final JAST typeDeclaration : typeDeclarations) {
+            final CLEmitter emitter = output.fork();
+            emitters.add(emitter);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                CompilationSession previous = CompilationSession.peek();
+                CompilationSession.setCurrent(session);
+                CompilationStats stats = session.stats();
+                long[] mark = stats == null || Thread.currentThread()
+                        == compilingThread ? null : CompilationStats.mark();
+                try {
+                    typeDeclaration.codegen(emitter);
+                } finally {
+                    if (mark != null) {
+                        stats.chargeWork(mark);
+                    }
+                    CompilationSession.setCurrent(previous);
+                }
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        for (CLEmitter emitter : emitters) {
+            emitter.write();
+            clFiles.add(emitter.clFile());
         }
     }
 
@@ -216,6 +282,66 @@ class JCompilationUnit extends JAST {
         return clFiles;
     }
 
+    /**
+     * Analyze the type declarations, and generate and write their code, one
+     * type at a time, letting go of each one's AST and CLFile once it is
+     * written (and, given an NEmitter, converted to SPIM). The heap taken up
+     * by a large unit is then bounded by its largest type rather than by the
+     * whole unit: the types see one another only through the headers
+     * declared by preAnalyze(), so analyzing one doesn't need the others'
+     * bodies.
+     * <p>
+     * Once an error is found, the remaining types are still analyzed, so that
+     * their errors are reported, but no more code is written; Main.stream()
+     * discards what was written before the error.
+     *
+     * @param output   the code emitter.
+     * @param nEmitter the (open) SPIM emitter; null for JVM code only.
+     */
+
+    public void stream(CLEmitter output, NEmitter nEmitter) {
+        CompilationSession session = CompilationSession.current();
+        for (int i = 0; i < typeDeclarations.size(); i++) {
+            JAST typeDeclaration = typeDeclarations.get(i);
+            typeDeclarations.set(i, null);
+            session.phase("analyze");
+            typeDeclaration.analyze(context);
+            if (isInError || output.errorHasOccurred()) {
+                continue;
+            }
+            session.phase("codegen");
+            typeDeclaration.codegen(output);
+            output.write();
+            CLFile clFile = output.clFile();
+            streamedTypes.put(IncrementalIndex.className(clFile),
+                    IncrementalIndex.abiFingerprint(clFile));
+            if (nEmitter != null) {
+                session.phase("spim");
+                nEmitter.add(clFile);
+                session.phase("spimWrite");
+                nEmitter.flush();
+            }
+        }
+    }
+
+    /**
+     * Return the ABI fingerprints (see IncrementalIndex) of the classes
+     * generated for this compilation unit, keyed by class name, in
+     * declaration order.
+     *
+     * @return the fingerprints.
+     */
+
+    public LinkedHashMap<String, Long> abiFingerprints() {
+        LinkedHashMap<String, Long> fingerprints = new LinkedHashMap<String, Long>(
+                streamedTypes);
+        for (CLFile clFile : clFiles) {
+            fingerprints.put(IncrementalIndex.className(clFile),
+                    IncrementalIndex.abiFingerprint(clFile));
+        }
+        return fingerprints;
+    }
+
     /**
      * @inheritDoc
      */
@@ -39,7 +39,7 @@ public class JExceptionStatement extends JStatement {
         this.context = new LocalContext(context);
 
         if(catchParameters.size() != catchBlocks.size()){
-            JAST.compilationUnit.reportSemanticError(line, "Mismatch in size of catch parameters and catch blocks");
+            JAST.compilationUnit().reportSemanticError(line, "Mismatch in size of catch parameters and catch blocks");
         }
 
         tryBlock = tryBlock.analyze(this.context);
@@ -83,7 +83,7 @@ public class JExceptionStatement extends JStatement {
         catchBlocks.addAll(resolvedBlocks);
 
         if(catchBlocks.size() == 0 && finalBlock == null){
-            JAST.compilationUnit.reportSemanticError(line, "A try statement must have minimum 1 catch or final block");
+            JAST.compilationUnit().reportSemanticError(line, "A try statement must have minimum 1 catch or final block");
         }
         if(finalBlock != null){
             finalBlock = finalBlock.analyze(this.context);
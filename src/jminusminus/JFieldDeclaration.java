@@ -64,7 +64,7 @@ class JFieldDeclaration extends JAST implements JMember {
     public void preAnalyze(Context context, CLEmitter partial) {
         // Fields may not be declared abstract.
         if (mods.contains("abstract")) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Field cannot be declared abstract");
         }
 
@@ -79,7 +79,7 @@ class JFieldSelection extends JExpression implements JLhs {
                     target = expr;
                 else {
                     // Can't even happen syntactically
-                    JAST.compilationUnit.reportSemanticError(line(),
+                    JAST.compilationUnit().reportSemanticError(line(),
                             "Badly formed suffix");
                 }
             }
@@ -94,7 +94,7 @@ class JFieldSelection extends JExpression implements JLhs {
             // Other than that, targetType has to be a
             // ReferenceType
             if (targetType.isPrimitive()) {
-                JAST.compilationUnit.reportSemanticError(line(),
+                JAST.compilationUnit().reportSemanticError(line(),
                         "Target of a field selection must "
                                 + "be a defined type");
                 type = Type.ANY;
@@ -102,7 +102,7 @@ class JFieldSelection extends JExpression implements JLhs {
             }
             field = targetType.fieldFor(fieldName);
             if (field == null) {
-                JAST.compilationUnit.reportSemanticError(line(),
+                JAST.compilationUnit().reportSemanticError(line(),
                         "Cannot find a field: " + fieldName);
                 type = Type.ANY;
             } else {
@@ -113,7 +113,7 @@ class JFieldSelection extends JExpression implements JLhs {
                 if (!field.isStatic()) {
                     if (target instanceof JVariable
                             && ((JVariable) target).iDefn() instanceof TypeNameDefn) {
-                        JAST.compilationUnit
+                        JAST.compilationUnit()
                                 .reportSemanticError(
                                         line(),
                                         "Non-static field "
@@ -138,7 +138,7 @@ class JFieldSelection extends JExpression implements JLhs {
     public JExpression analyzeLhs(Context context) {
         JExpression result = analyze(context);
         if (field.isFinal()) {
-            JAST.compilationUnit.reportSemanticError(line, "The field "
+            JAST.compilationUnit().reportSemanticError(line, "The field "
                     + fieldName + " in type " + target.type.toString()
                     + " is declared final.");
         }
@@ -37,11 +37,11 @@ public class JInterfaceDeclaration extends JAST implements JTypeDecl {
         superInterfaces.clear();
         superInterfaces.addAll(resolvedInterfaces);
 
-        Type.checkInterfaceAccess(line,thisType().classRep(),superInterfaces);
+        Type.checkInterfaceAccess(line,thisType(),superInterfaces);
 
         CLEmitter clEmitter = new CLEmitter(false);
-        String qualifiedName = JAST.compilationUnit.packageName().equals("") ? name
-                : JAST.compilationUnit.packageName().replace(".", "/") + "/" + name;
+        String qualifiedName = JAST.compilationUnit().packageName().equals("") ? name
+                : JAST.compilationUnit().packageName().replace(".", "/") + "/" + name;
 
 
         ArrayList<String> interfaceNames = superInterfaces.stream().map(Type::jvmName).collect(Collectors.toCollection(ArrayList::new));
@@ -49,7 +49,7 @@ public class JInterfaceDeclaration extends JAST implements JTypeDecl {
 
         for(JMember member : members) {
             if(!(member instanceof JMethodDeclaration || member instanceof JFieldDeclaration)) {
-                JAST.compilationUnit.reportSemanticError(line(),
+                JAST.compilationUnit().reportSemanticError(line(),
                         "Member %s is not a valid interface member", member.toString());
             }
 
@@ -60,7 +60,7 @@ public class JInterfaceDeclaration extends JAST implements JTypeDecl {
         // the
         // representation for this type
         Type id = this.context.lookupType(name);
-        if (id != null && !JAST.compilationUnit.errorHasOccurred()) {
+        if (id != null && !JAST.compilationUnit().errorHasOccurred()) {
             id.setClassRep(clEmitter.toClass());
         }
     }
@@ -79,7 +79,7 @@ public class JInterfaceDeclaration extends JAST implements JTypeDecl {
                 if (fieldDecl.mods().contains("static")) {
                     staticFieldInitializations.add(fieldDecl);
                 } else {
-                    JAST.compilationUnit.reportSemanticError(line(), 
+                    JAST.compilationUnit().reportSemanticError(line(), 
                     "Field declaration is not a static member, interfaces may only have static field declarations", member.toString());
                 }
             }
@@ -90,7 +90,7 @@ public class JInterfaceDeclaration extends JAST implements JTypeDecl {
 
     @Override
     public void codegen(CLEmitter output) {
-        String packageName = JAST.compilationUnit.packageName();
+        String packageName = JAST.compilationUnit().packageName();
         String qualifiedName = packageName.equals("") ? name : packageName.replace(".", "/") + "/" + name;
         ArrayList<String> superInterfaceNames = superInterfaces.stream().map(Type::jvmName).collect(Collectors.toCollection(ArrayList::new));
 
@@ -140,7 +140,7 @@ public class JInterfaceDeclaration extends JAST implements JTypeDecl {
 
     @Override
     public void declareThisType(Context context) {
-        String packageName = JAST.compilationUnit.packageName();
+        String packageName = JAST.compilationUnit().packageName();
 
         String qualifiedName = packageName.equals("") ? name : packageName.replace(".", "/") + "/" + name;
         CLEmitter partial = new CLEmitter(false);
@@ -101,7 +101,6 @@ class JMethodDeclaration
         if (this.exceptions == null) {
             this.exceptions = new ArrayList<Type>();
         }
-        this.resolvedExceptions = new ArrayList<Type>();
     }
 
     /**
@@ -119,6 +118,7 @@ class JMethodDeclaration
         }
 
         // Resolve types of the exceptions
+        resolvedExceptions = new ArrayList<Type>(exceptions.size());
         for (Type type : exceptions) {
             resolvedExceptions.add(type.resolve(context));
         }
@@ -128,16 +128,16 @@ class JMethodDeclaration
 
         // Check proper local use of abstract
         if (isAbstract && body != null) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "abstract method cannot have a body");
         } else if (body == null && !isAbstract) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "Method with null body must be abstract");
         } else if (isAbstract && isPrivate) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "private method cannot be declared abstract");
         } else if (isAbstract && isStatic) {
-            JAST.compilationUnit.reportSemanticError(line(),
+            JAST.compilationUnit().reportSemanticError(line(),
                     "static method cannot be declared abstract");
         }
 
@@ -185,7 +185,7 @@ class JMethodDeclaration
         if (body != null) {
             body = body.analyze(this.context);
             if (returnType != Type.VOID && !methodContext.methodHasReturn()) {
-                JAST.compilationUnit.reportSemanticError(line(),
+                JAST.compilationUnit().reportSemanticError(line(),
                         "Non-void method must have a return statement");
             }
 
@@ -196,7 +196,7 @@ class JMethodDeclaration
                     Type exceptionType = s.getExpression().type.resolve(context);
                     boolean matched = this.resolvedExceptions.stream().anyMatch(exceptionType::matchesOrInheritFrom);
                     if(!matched) {
-                        JAST.compilationUnit.reportSemanticError(line, "Exception is not handled: %s", exceptionType.jvmName());
+                        JAST.compilationUnit().reportSemanticError(line, "Exception is not handled: %s", exceptionType.jvmName());
                     }
 
                 }
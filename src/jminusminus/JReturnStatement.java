@@ -58,7 +58,7 @@ class JReturnStatement
         if (methodContext.methodReturnType() == Type.CONSTRUCTOR) {
             if (expr != null) {
                 // Can't return a value from a constructor
-                JAST.compilationUnit.reportSemanticError(line(),
+                JAST.compilationUnit().reportSemanticError(line(),
                         "cannot return a value from a constructor");
             }
         } else {
@@ -68,7 +68,7 @@ class JReturnStatement
             if (expr != null) {
                 if (returnType == Type.VOID) {
                     // Can't return a value from void method
-                    JAST.compilationUnit.reportSemanticError(line(),
+                    JAST.compilationUnit().reportSemanticError(line(),
                             "cannot return a value from a void method");
                 } else {
                     // There's a (non-void) return expression.
@@ -81,7 +81,7 @@ class JReturnStatement
             } else {
                 // The method better have void as return type
                 if (returnType != Type.VOID) {
-                    JAST.compilationUnit.reportSemanticError(line(),
+                    JAST.compilationUnit().reportSemanticError(line(),
                             "missing return value");
                 }
             }
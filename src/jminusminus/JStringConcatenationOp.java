@@ -2,6 +2,8 @@
 
 package jminusminus;
 
+import java.util.ArrayList;
+
 import static jminusminus.CLConstants.*;
 
 /**
@@ -41,6 +43,28 @@ class JStringConcatenationOp extends JBinaryExpression {
         return this;
     }
 
+    /**
+     * Its operands are analyzed in JPlusOp, not by the analyze() of an
+     * operation of which it is the lhs.
+     *
+     * @return false.
+     */
+
+    protected boolean isChainLink() {
+        return false;
+    }
+
+    /**
+     * Its code is generated by codegen() and nestedCodegen() below, not by
+     * the codegen() of an operation of which it is the lhs.
+     *
+     * @return false.
+     */
+
+    protected boolean isCodegenChainLink() {
+        return false;
+    }
+
     /**
      * Code generation generates code for creating a StringBuilder atop the
      * runtime stack, appending the operands (which might contain nested
@@ -69,33 +93,46 @@ class JStringConcatenationOp extends JBinaryExpression {
     /**
      * Like a codegen() but we needn't (and shouldn't) create a StringBuilder
      * nor convert the result to a String, as that will be done in a parent.
+     * The lhs of a long concatenation is a long chain of concatenations, so
+     * we append the operands of the chain in a loop, innermost first, rather
+     * than recursing down it.
      *
      * @param output the code emitter (basically an abstraction for producing the
      *               .class file).
      */
 
     void nestedCodegen(CLEmitter output) {
-        // Lhs
-        if (lhs instanceof JStringConcatenationOp) {
-            // This appends lhs
-            ((JStringConcatenationOp) lhs).nestedCodegen(output);
-        } else {
-            lhs.codegen(output);
-            output.addMemberAccessInstruction(INVOKEVIRTUAL,
-                    "java/lang/StringBuilder", "append", "("
-                            + lhs.type().argumentTypeForAppend()
-                            + ")Ljava/lang/StringBuilder;");
+        ArrayList<JStringConcatenationOp> chain =
+                new ArrayList<JStringConcatenationOp>();
+        JStringConcatenationOp operation = this;
+        chain.add(operation);
+        while (operation.lhs instanceof JStringConcatenationOp) {
+            operation = (JStringConcatenationOp) operation.lhs;
+            chain.add(operation);
+        }
+        append(output, operation.lhs);
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            append(output, chain.get(i).rhs);
         }
+    }
+
+    /**
+     * Generate code appending an operand to the StringBuilder atop the stack.
+     *
+     * @param output  the code emitter (basically an abstraction for producing the
+     *                .class file).
+     * @param operand the operand.
+     */
 
-        // Rhs
-        if (rhs instanceof JStringConcatenationOp) {
-            // This appends rhs
-            ((JStringConcatenationOp) rhs).nestedCodegen(output);
+    private static void append(CLEmitter output, JExpression operand) {
+        if (operand instanceof JStringConcatenationOp) {
+            // This appends the operand's operands
+            ((JStringConcatenationOp) operand).nestedCodegen(output);
         } else {
-            rhs.codegen(output);
+            operand.codegen(output);
             output.addMemberAccessInstruction(INVOKEVIRTUAL,
                     "java/lang/StringBuilder", "append", "("
-                            + rhs.type().argumentTypeForAppend()
+                            + operand.type().argumentTypeForAppend()
                             + ")Ljava/lang/StringBuilder;");
         }
     }
@@ -40,10 +40,10 @@ public class JTernaryExpression extends JExpression {
         ifFalse = ifFalse.analyze(context);
 
         if (condition.type() != Type.BOOLEAN)
-            JAST.compilationUnit.reportSemanticError(line(), "Ternary condition must evaluate to bool, evaluated to " + condition.type());
+            JAST.compilationUnit().reportSemanticError(line(), "Ternary condition must evaluate to bool, evaluated to " + condition.type());
 
         if (ifTrue.type() != ifFalse.type())
-            JAST.compilationUnit.reportSemanticError(line(), "Ternary cases must evaluate to same type, evaluated to " + ifTrue.type() + " and " + ifFalse.type());
+            JAST.compilationUnit().reportSemanticError(line(), "Ternary cases must evaluate to same type, evaluated to " + ifTrue.type() + " and " + ifFalse.type());
 
         type = ifTrue.type();
 
@@ -75,7 +75,7 @@ class JPositiveOp extends JUnaryExpression {
 
     @Override
     public void codegen(CLEmitter output) {
-        //JAST.compilationUnit.reportSemanticError(0, "%s", arg.getClass());
+        //JAST.compilationUnit().reportSemanticError(0, "%s", arg.getClass());
         arg.codegen(output);
 
     }
@@ -228,7 +228,7 @@ class JPostDecrementOp extends JUnaryExpression {
 
     public JExpression analyze(Context context) {
         if (!(arg instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line,
+            JAST.compilationUnit().reportSemanticError(line,
                     "Operand to expr-- must have an LValue.");
             type = Type.ANY;
         } else {
@@ -305,7 +305,7 @@ class JPostIncrementOp extends JUnaryExpression {
 
     public JExpression analyze(Context context) {
         if (!(arg instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line,
+            JAST.compilationUnit().reportSemanticError(line,
                     "Operand to expr++ must have an LValue.");
             type = Type.ANY;
         } else {
@@ -376,7 +376,7 @@ class JPreIncrementOp extends JUnaryExpression {
 
     public JExpression analyze(Context context) {
         if (!(arg instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line,
+            JAST.compilationUnit().reportSemanticError(line,
                     "Operand to ++expr must have an LValue.");
             type = Type.ANY;
         } else {
@@ -444,7 +444,7 @@ class JPreDecrementOp extends JUnaryExpression {
 
     public JExpression analyze(Context context) {
         if (!(arg instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line,
+            JAST.compilationUnit().reportSemanticError(line,
                     "Operand to --expr must have an LValue.");
             type = Type.ANY;
         } else {
@@ -29,7 +29,7 @@ class JVariableDeclaration extends JStatement {
     private ArrayList<JVariableDeclarator> decls;
 
     /**
-     * Variable initializers.
+     * Variable initializations, rewritten as assignments by analyze().
      */
     private ArrayList<JStatement> initializations;
 
@@ -48,7 +48,6 @@ class JVariableDeclaration extends JStatement {
         super(line);
         this.mods = mods;
         this.decls = decls;
-        initializations = new ArrayList<JStatement>();
     }
 
     /**
@@ -70,6 +69,7 @@ class JVariableDeclaration extends JStatement {
      */
 
     public JStatement analyze(Context context) {
+        initializations = new ArrayList<JStatement>();
         for (JVariableDeclarator decl : decls) {
             // Local variables are declared here (fields are
             // declared
@@ -82,7 +82,7 @@ class JVariableDeclaration extends JStatement {
             IDefn previousDefn = context.lookup(decl.name());
             if (previousDefn != null
                     && previousDefn instanceof LocalVariableDefn) {
-                JAST.compilationUnit.reportSemanticError(decl.line(),
+                JAST.compilationUnit().reportSemanticError(decl.line(),
                         "The name " + decl.name()
                                 + " overshadows another local variable.");
             }
@@ -0,0 +1,254 @@
+package jminusminus;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A jar file into which the classes of all the units compiled by one
+ * invocation of Main are streamed (-jar), instead of being written as loose
+ * class files. Each CLFile is serialized straight into the jar's deflater,
+ * which writes through a FileChannel.
+ * <p>
+ * The jar is the same from one build to the next: its entries are in the
+ * order the units were named, and within a unit, in declaration order, and all
+ * have the same time (1980-02-01 00:00, in local time, as the zip format
+ * records it). Units compiled in parallel may finish out of order; the
+ * classes of a unit whose turn has not come yet are held (as CLFiles) until
+ * the units before it are done. The classes of a unit streamed a type at a
+ * time (-stream) are held until the unit is done, so that they can be
+ * discarded if it turns out to have errors.
+ */
+
+class JarOutput {
+
+    /**
+     * Time of every entry.
+     */
+    private static final long ENTRY_TIME = new GregorianCalendar(1980,
+            GregorianCalendar.FEBRUARY, 1).getTimeInMillis();
+
+    /**
+     * The manifest.
+     */
+    private static final String MANIFEST = "Manifest-Version: 1.0\r\n"
+            + "Created-By: j--\r\n\r\n";
+
+    /**
+     * The jar being written.
+     */
+    private ZipOutputStream zip;
+
+    /**
+     * Stream through which class files are written into the current entry.
+     */
+    private CLOutputStream out;
+
+    /**
+     * Names of the entries written so far.
+     */
+    private HashSet<String> names;
+
+    /**
+     * The unit whose classes are being written.
+     */
+    private int next;
+
+    /**
+     * Maps units after the next one to their classes (by internal name),
+     * held until the unit's turn comes.
+     */
+    private TreeMap<Integer, LinkedHashMap<String, CLFile>> pending;
+
+    /**
+     * The first error met writing the classes of a unit other than the one
+     * whose turn it was; reported by close().
+     */
+    private IOException deferredError;
+
+    /**
+     * Units after the next one that are done.
+     */
+    private HashSet<Integer> done;
+
+    /**
+     * Units whose classes are held until they are done, even in their turn.
+     */
+    private HashSet<Integer> held;
+
+    /**
+     * Construct a JarOutput writing to the specified file.
+     *
+     * @param file the jar file.
+     * @throws IOException if the file cannot be opened.
+     */
+
+    public JarOutput(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        zip = new ZipOutputStream(Channels.newOutputStream(channel));
+        out = new CLOutputStream(new BufferedOutputStream(zip));
+        names = new HashSet<String>();
+        pending = new TreeMap<Integer, LinkedHashMap<String, CLFile>>();
+        done = new HashSet<Integer>();
+        held = new HashSet<Integer>();
+        putNextEntry(JarFile.MANIFEST_NAME);
+        out.write(MANIFEST.getBytes("UTF-8"));
+    }
+
+    /**
+     * Write a class of the specified unit into the jar, or hold it until the
+     * unit's turn comes.
+     *
+     * @param unit   position of the unit on the command line.
+     * @param name   internal name of the class (eg "pass/Series").
+     * @param clFile the class.
+     * @throws IOException if an entry of that name was already written, or
+     *                     an I/O error occurs.
+     */
+
+    public synchronized void write(int unit, String name, CLFile clFile)
+            throws IOException {
+        if (unit == next && !held.contains(unit)) {
+            write(name, clFile);
+        } else {
+            if (!pending.containsKey(unit)) {
+                pending.put(unit, new LinkedHashMap<String, CLFile>());
+            }
+            if (pending.get(unit).put(name, clFile) != null) {
+                throw new IOException("duplicate entry " + name + ".class");
+            }
+        }
+    }
+
+    /**
+     * Note that the specified unit is done, and write the classes held for
+     * the units whose turn comes. An error doing so is not the specified
+     * unit's; it is reported by close().
+     *
+     * @param unit position of the unit on the command line.
+     */
+
+    public synchronized void unitDone(int unit) {
+        done.add(unit);
+        held.remove(unit);
+        while (done.remove(next)) {
+            writePending(next);
+            next++;
+            if (!held.contains(next)) {
+                writePending(next);
+            }
+        }
+    }
+
+    /**
+     * Hold the classes of the specified unit until it is done, even in its
+     * turn.
+     *
+     * @param unit position of the unit on the command line.
+     */
+
+    public synchronized void hold(int unit) {
+        held.add(unit);
+    }
+
+    /**
+     * Forget the classes held for the specified unit (which had errors).
+     *
+     * @param unit position of the unit on the command line.
+     */
+
+    public synchronized void discard(int unit) {
+        pending.remove(unit);
+    }
+
+    /**
+     * Write whatever is still held, and close the jar.
+     *
+     * @throws IOException if an I/O error occurs, now or while writing held
+     *                     classes earlier.
+     */
+
+    public synchronized void close() throws IOException {
+        try {
+            if (deferredError != null) {
+                throw deferredError;
+            }
+            for (LinkedHashMap<String, CLFile> classes : pending.values()) {
+                for (String name : classes.keySet()) {
+                    write(name, classes.get(name));
+                }
+            }
+            pending.clear();
+            out.flush();
+        } finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * Write the classes held for the specified unit, if any. An error doing
+     * so is reported by close().
+     *
+     * @param unit position of the unit on the command line.
+     */
+
+    private void writePending(int unit) {
+        LinkedHashMap<String, CLFile> classes = pending.remove(unit);
+        if (classes != null) {
+            try {
+                for (String name : classes.keySet()) {
+                    write(name, classes.get(name));
+                }
+            } catch (IOException e) {
+                if (deferredError == null) {
+                    deferredError = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a class into an entry of its own.
+     *
+     * @param name   internal name of the class.
+     * @param clFile the class.
+     * @throws IOException if an entry of that name was already written, or
+     *                     an I/O error occurs.
+     */
+
+    private void write(String name, CLFile clFile) throws IOException {
+        putNextEntry(name + ".class");
+        clFile.write(out);
+    }
+
+    /**
+     * End the current entry, if any, and start one of the specified name.
+     *
+     * @param name name of the entry.
+     * @throws IOException if an entry of that name was already written, or
+     *                     an I/O error occurs.
+     */
+
+    private void putNextEntry(String name) throws IOException {
+        if (!names.add(name)) {
+            throw new IOException("duplicate entry " + name);
+        }
+        out.flush();
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        zip.putNextEntry(entry);
+    }
+
+}
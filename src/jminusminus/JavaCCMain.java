@@ -51,6 +51,7 @@ public class JavaCCMain {
         boolean spimOutput = false;
         String registerAllocation = "";
         errorHasOccurred = false;
+        CompilationSession.setCurrent(new CompilationSession());
         for (int i = 0; i < args.length; i++) {
             if (args[i].equals("javaccj--")) {
                 caller = "javaccj--";
@@ -72,10 +73,8 @@ public class JavaCCMain {
                     return;
                 }
             } else if (args[i].endsWith("-r") && (i + 1) < args.length) {
-                NPhysicalRegister.MAX_COUNT = Math.min(18, Integer
-                        .parseInt(args[++i]));
-                NPhysicalRegister.MAX_COUNT = Math.max(1,
-                        NPhysicalRegister.MAX_COUNT);
+                CompilationSession.current().setMaxRegisterCount(Math.max(1,
+                        Math.min(18, Integer.parseInt(args[++i]))));
             } else {
                 printUsage(caller);
                 return;
@@ -133,7 +132,7 @@ public class JavaCCMain {
 
         // Do pre-analysis
         ast.preAnalyze();
-        errorHasOccurred |= JAST.compilationUnit.errorHasOccurred();
+        errorHasOccurred |= JAST.compilationUnit().errorHasOccurred();
         if (debugOption.equals("-pa")) {
             ast.writeToStdOut(new PrettyPrinter());
             return;
@@ -144,7 +143,7 @@ public class JavaCCMain {
 
         // Do analysis
         ast.analyze(null);
-        errorHasOccurred |= JAST.compilationUnit.errorHasOccurred();
+        errorHasOccurred |= JAST.compilationUnit().errorHasOccurred();
         if (debugOption.equals("-a")) {
             ast.writeToStdOut(new PrettyPrinter());
             return;
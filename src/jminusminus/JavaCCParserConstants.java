@@ -0,0 +1,237 @@
+/* Generated By:JavaCC: Do not edit this line. JavaCCParserConstants.java */
+package jminusminus;
+
+public interface JavaCCParserConstants {
+
+  int EOF = 0;
+  int SINGLE_LINE_COMMENT = 6;
+  int MULTI_LINE_COMMENT = 7;
+  int ABSTRACT = 8;
+  int BOOLEAN = 9;
+  int BREAK = 10;
+  int BYTE = 11;
+  int CASE = 12;
+  int CATCH = 13;
+  int CHAR = 14;
+  int CLASS = 15;
+  int CONST = 16;
+  int CONTINUE = 17;
+  int DEFAULTT = 18;
+  int DO = 19;
+  int DOUBLE = 20;
+  int ELSE = 21;
+  int EXTENDS = 22;
+  int FALSE = 23;
+  int FINAL = 24;
+  int FINALLY = 25;
+  int FLOAT = 26;
+  int FOR = 27;
+  int GOTO = 28;
+  int IF = 29;
+  int IMPLEMENTS = 30;
+  int IMPORT = 31;
+  int INTERFACE = 32;
+  int INSTANCEOF = 33;
+  int INT = 34;
+  int LONG = 35;
+  int NATIVE = 36;
+  int NEW = 37;
+  int NULL = 38;
+  int PACKAGE = 39;
+  int PRIVATE = 40;
+  int PROTECTED = 41;
+  int PUBLIC = 42;
+  int RETURN = 43;
+  int SHORT = 44;
+  int STATIC = 45;
+  int STRICTFP = 46;
+  int SUPER = 47;
+  int SWITCH = 48;
+  int SYNCHRONIZED = 49;
+  int THIS = 50;
+  int THROW = 51;
+  int THROWS = 52;
+  int TRANSIENT = 53;
+  int TRUE = 54;
+  int TRY = 55;
+  int VOID = 56;
+  int VOLATILE = 57;
+  int WHILE = 58;
+  int BITWISE_AND = 59;
+  int BITWISE_OR = 60;
+  int BITWISE_XOR = 61;
+  int BITWISE_COMPLEMENT = 62;
+  int PLUS = 63;
+  int ASSIGN = 64;
+  int DEC = 65;
+  int EQUAL = 66;
+  int NEQUAL = 67;
+  int GT = 68;
+  int LT = 69;
+  int INC = 70;
+  int LAND = 71;
+  int LOR = 72;
+  int LE = 73;
+  int GE = 74;
+  int LNOT = 75;
+  int MINUS = 76;
+  int DIVIDE = 77;
+  int REMAINDER = 78;
+  int STAR = 79;
+  int LSHIFT = 80;
+  int RSHIFT = 81;
+  int RSHIFT_ZERO = 82;
+  int PLUS_ASSIGN = 83;
+  int MINUS_ASSIGN = 84;
+  int STAR_ASSIGN = 85;
+  int DIVIDE_ASSIGN = 86;
+  int REMAINDER_ASSIGN = 87;
+  int RSHIFT_ASSIGN = 88;
+  int RSHIFT_ZERO_ASSIGN = 89;
+  int LSHIFT_ASSIGN = 90;
+  int AND_ASSIGN = 91;
+  int OR_ASSIGN = 92;
+  int XOR_ASSIGN = 93;
+  int LPAREN = 94;
+  int RPAREN = 95;
+  int LCURLY = 96;
+  int RCURLY = 97;
+  int LBRACK = 98;
+  int RBRACK = 99;
+  int SEMI = 100;
+  int COMMA = 101;
+  int DOT = 102;
+  int QUESTION_MARK = 103;
+  int COLON = 104;
+  int IDENTIFIER = 105;
+  int LETTER = 106;
+  int DIGIT = 107;
+  int NON_ZERO_DIGIT = 108;
+  int DOUBLE_LITERAL = 109;
+  int INT_LITERAL = 110;
+  int CHAR_LITERAL = 111;
+  int STRING_LITERAL = 112;
+  int ESC = 113;
+  int ERROR = 114;
+
+  int DEFAULT = 0;
+
+  String[] tokenImage = {
+    "<EOF>",
+    "\" \"",
+    "\"\\t\"",
+    "\"\\n\"",
+    "\"\\r\"",
+    "\"\\f\"",
+    "<SINGLE_LINE_COMMENT>",
+    "<MULTI_LINE_COMMENT>",
+    "\"abstract\"",
+    "\"boolean\"",
+    "\"break\"",
+    "\"byte\"",
+    "\"case\"",
+    "\"catch\"",
+    "\"char\"",
+    "\"class\"",
+    "\"const\"",
+    "\"continue\"",
+    "\"default\"",
+    "\"do\"",
+    "\"double\"",
+    "\"else\"",
+    "\"extends\"",
+    "\"false\"",
+    "\"final\"",
+    "\"finally\"",
+    "\"float\"",
+    "\"for\"",
+    "\"goto\"",
+    "\"if\"",
+    "\"implements\"",
+    "\"import\"",
+    "\"interface\"",
+    "\"instanceof\"",
+    "\"int\"",
+    "\"long\"",
+    "\"native\"",
+    "\"new\"",
+    "\"null\"",
+    "\"package\"",
+    "\"private\"",
+    "\"protected\"",
+    "\"public\"",
+    "\"return\"",
+    "\"short\"",
+    "\"static\"",
+    "\"strictfp\"",
+    "\"super\"",
+    "\"switch\"",
+    "\"synchronized\"",
+    "\"this\"",
+    "\"throw\"",
+    "\"throws\"",
+    "\"transient\"",
+    "\"true\"",
+    "\"try\"",
+    "\"void\"",
+    "\"volatile\"",
+    "\"while\"",
+    "\"&\"",
+    "\"|\"",
+    "\"^\"",
+    "\"~\"",
+    "\"+\"",
+    "\"=\"",
+    "\"--\"",
+    "\"==\"",
+    "\"!=\"",
+    "\">\"",
+    "\"<\"",
+    "\"++\"",
+    "\"&&\"",
+    "\"||\"",
+    "\"<=\"",
+    "\">=\"",
+    "\"!\"",
+    "\"-\"",
+    "\"/\"",
+    "\"%\"",
+    "\"*\"",
+    "\"<<\"",
+    "\">>\"",
+    "\">>>\"",
+    "\"+=\"",
+    "\"-=\"",
+    "\"*=\"",
+    "\"/=\"",
+    "\"%=\"",
+    "\">>=\"",
+    "\">>>=\"",
+    "\"<<=\"",
+    "\"&=\"",
+    "\"|=\"",
+    "\"^=\"",
+    "\"(\"",
+    "\")\"",
+    "\"{\"",
+    "\"}\"",
+    "\"[\"",
+    "\"]\"",
+    "\";\"",
+    "\",\"",
+    "\".\"",
+    "\"?\"",
+    "\":\"",
+    "<IDENTIFIER>",
+    "<LETTER>",
+    "<DIGIT>",
+    "<NON_ZERO_DIGIT>",
+    "<DOUBLE_LITERAL>",
+    "<INT_LITERAL>",
+    "<CHAR_LITERAL>",
+    "<STRING_LITERAL>",
+    "<ESC>",
+    "<ERROR>",
+  };
+
+}
@@ -0,0 +1,1319 @@
+/* Generated By:JavaCC: Do not edit this line. JavaCCParserTokenManager.java */
+package jminusminus;
+import java.util.ArrayList;
+
+public class JavaCCParserTokenManager implements JavaCCParserConstants
+{
+  public  java.io.PrintStream debugStream = System.out;
+  public  void setDebugStream(java.io.PrintStream ds) { debugStream = ds; }
+private final int jjStopStringLiteralDfa_0(int pos, long active0, long active1)
+{
+   switch (pos)
+   {
+      case 0:
+         if ((active0 & 0x7ffffffffffff00L) != 0L)
+         {
+            jjmatchedKind = 105;
+            return 1;
+         }
+         if ((active1 & 0x4000000000L) != 0L)
+            return 3;
+         if ((active1 & 0x402000L) != 0L)
+            return 16;
+         return -1;
+      case 1:
+         if ((active0 & 0x7ffffffdfe7ff00L) != 0L)
+         {
+            if (jjmatchedPos != 1)
+            {
+               jjmatchedKind = 105;
+               jjmatchedPos = 1;
+            }
+            return 1;
+         }
+         if ((active0 & 0x20180000L) != 0L)
+            return 1;
+         return -1;
+      case 2:
+         if ((active0 & 0x77fffdad7f7ff00L) != 0L)
+         {
+            if (jjmatchedPos != 2)
+            {
+               jjmatchedKind = 105;
+               jjmatchedPos = 2;
+            }
+            return 1;
+         }
+         if ((active0 & 0x80002508000000L) != 0L)
+            return 1;
+         return -1;
+      case 3:
+         if ((active0 & 0x144004810205800L) != 0L)
+            return 1;
+         if ((active0 & 0x63bff93c7d7a700L) != 0L)
+         {
+            jjmatchedKind = 105;
+            jjmatchedPos = 3;
+            return 1;
+         }
+         return -1;
+      case 4:
+         if ((active0 & 0x41890000781a400L) != 0L)
+            return 1;
+         if ((active0 & 0x2236f93c0560300L) != 0L)
+         {
+            if (jjmatchedPos != 4)
+            {
+               jjmatchedKind = 105;
+               jjmatchedPos = 4;
+            }
+            return 1;
+         }
+         return -1;
+      case 5:
+         if ((active0 & 0x112c1080100000L) != 0L)
+            return 1;
+         if ((active0 & 0x222438342460300L) != 0L)
+         {
+            jjmatchedKind = 105;
+            jjmatchedPos = 5;
+            return 1;
+         }
+         return -1;
+      case 6:
+         if ((active0 & 0x18002440200L) != 0L)
+            return 1;
+         if ((active0 & 0x222420340020100L) != 0L)
+         {
+            jjmatchedKind = 105;
+            jjmatchedPos = 6;
+            return 1;
+         }
+         return -1;
+      case 7:
+         if ((active0 & 0x200400000020100L) != 0L)
+            return 1;
+         if ((active0 & 0x22020340000000L) != 0L)
+         {
+            jjmatchedKind = 105;
+            jjmatchedPos = 7;
+            return 1;
+         }
+         return -1;
+      case 8:
+         if ((active0 & 0x20020100000000L) != 0L)
+            return 1;
+         if ((active0 & 0x2000240000000L) != 0L)
+         {
+            jjmatchedKind = 105;
+            jjmatchedPos = 8;
+            return 1;
+         }
+         return -1;
+      case 9:
+         if ((active0 & 0x240000000L) != 0L)
+            return 1;
+         if ((active0 & 0x2000000000000L) != 0L)
+         {
+            jjmatchedKind = 105;
+            jjmatchedPos = 9;
+            return 1;
+         }
+         return -1;
+      case 10:
+         if ((active0 & 0x2000000000000L) != 0L)
+         {
+            jjmatchedKind = 105;
+            jjmatchedPos = 10;
+            return 1;
+         }
+         return -1;
+      default :
+         return -1;
+   }
+}
+private final int jjStartNfa_0(int pos, long active0, long active1)
+{
+   return jjMoveNfa_0(jjStopStringLiteralDfa_0(pos, active0, active1), pos + 1);
+}
+private final int jjStopAtPos(int pos, int kind)
+{
+   jjmatchedKind = kind;
+   jjmatchedPos = pos;
+   return pos + 1;
+}
+private final int jjStartNfaWithStates_0(int pos, int kind, int state)
+{
+   jjmatchedKind = kind;
+   jjmatchedPos = pos;
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) { return pos + 1; }
+   return jjMoveNfa_0(state, pos + 1);
+}
+private final int jjMoveStringLiteralDfa0_0()
+{
+   switch(curChar)
+   {
+      case 33:
+         jjmatchedKind = 75;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x8L);
+      case 37:
+         jjmatchedKind = 78;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x800000L);
+      case 38:
+         jjmatchedKind = 59;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x8000080L);
+      case 40:
+         return jjStopAtPos(0, 94);
+      case 41:
+         return jjStopAtPos(0, 95);
+      case 42:
+         jjmatchedKind = 79;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x200000L);
+      case 43:
+         jjmatchedKind = 63;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x80040L);
+      case 44:
+         return jjStopAtPos(0, 101);
+      case 45:
+         jjmatchedKind = 76;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x100002L);
+      case 46:
+         return jjStartNfaWithStates_0(0, 102, 3);
+      case 47:
+         jjmatchedKind = 77;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x400000L);
+      case 58:
+         return jjStopAtPos(0, 104);
+      case 59:
+         return jjStopAtPos(0, 100);
+      case 60:
+         jjmatchedKind = 69;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x4010200L);
+      case 61:
+         jjmatchedKind = 64;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x4L);
+      case 62:
+         jjmatchedKind = 68;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x3060400L);
+      case 63:
+         return jjStopAtPos(0, 103);
+      case 91:
+         return jjStopAtPos(0, 98);
+      case 93:
+         return jjStopAtPos(0, 99);
+      case 94:
+         jjmatchedKind = 61;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x20000000L);
+      case 97:
+         return jjMoveStringLiteralDfa1_0(0x100L, 0x0L);
+      case 98:
+         return jjMoveStringLiteralDfa1_0(0xe00L, 0x0L);
+      case 99:
+         return jjMoveStringLiteralDfa1_0(0x3f000L, 0x0L);
+      case 100:
+         return jjMoveStringLiteralDfa1_0(0x1c0000L, 0x0L);
+      case 101:
+         return jjMoveStringLiteralDfa1_0(0x600000L, 0x0L);
+      case 102:
+         return jjMoveStringLiteralDfa1_0(0xf800000L, 0x0L);
+      case 103:
+         return jjMoveStringLiteralDfa1_0(0x10000000L, 0x0L);
+      case 105:
+         return jjMoveStringLiteralDfa1_0(0x7e0000000L, 0x0L);
+      case 108:
+         return jjMoveStringLiteralDfa1_0(0x800000000L, 0x0L);
+      case 110:
+         return jjMoveStringLiteralDfa1_0(0x7000000000L, 0x0L);
+      case 112:
+         return jjMoveStringLiteralDfa1_0(0x78000000000L, 0x0L);
+      case 114:
+         return jjMoveStringLiteralDfa1_0(0x80000000000L, 0x0L);
+      case 115:
+         return jjMoveStringLiteralDfa1_0(0x3f00000000000L, 0x0L);
+      case 116:
+         return jjMoveStringLiteralDfa1_0(0xfc000000000000L, 0x0L);
+      case 118:
+         return jjMoveStringLiteralDfa1_0(0x300000000000000L, 0x0L);
+      case 119:
+         return jjMoveStringLiteralDfa1_0(0x400000000000000L, 0x0L);
+      case 123:
+         return jjStopAtPos(0, 96);
+      case 124:
+         jjmatchedKind = 60;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x10000100L);
+      case 125:
+         return jjStopAtPos(0, 97);
+      case 126:
+         return jjStopAtPos(0, 62);
+      default :
+         return jjMoveNfa_0(0, 0);
+   }
+}
+private final int jjMoveStringLiteralDfa1_0(long active0, long active1)
+{
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(0, active0, active1);
+      return 1;
+   }
+   switch(curChar)
+   {
+      case 38:
+         if ((active1 & 0x80L) != 0L)
+            return jjStopAtPos(1, 71);
+         break;
+      case 43:
+         if ((active1 & 0x40L) != 0L)
+            return jjStopAtPos(1, 70);
+         break;
+      case 45:
+         if ((active1 & 0x2L) != 0L)
+            return jjStopAtPos(1, 65);
+         break;
+      case 60:
+         if ((active1 & 0x10000L) != 0L)
+         {
+            jjmatchedKind = 80;
+            jjmatchedPos = 1;
+         }
+         return jjMoveStringLiteralDfa2_0(active0, 0L, active1, 0x4000000L);
+      case 61:
+         if ((active1 & 0x4L) != 0L)
+            return jjStopAtPos(1, 66);
+         else if ((active1 & 0x8L) != 0L)
+            return jjStopAtPos(1, 67);
+         else if ((active1 & 0x200L) != 0L)
+            return jjStopAtPos(1, 73);
+         else if ((active1 & 0x400L) != 0L)
+            return jjStopAtPos(1, 74);
+         else if ((active1 & 0x80000L) != 0L)
+            return jjStopAtPos(1, 83);
+         else if ((active1 & 0x100000L) != 0L)
+            return jjStopAtPos(1, 84);
+         else if ((active1 & 0x200000L) != 0L)
+            return jjStopAtPos(1, 85);
+         else if ((active1 & 0x400000L) != 0L)
+            return jjStopAtPos(1, 86);
+         else if ((active1 & 0x800000L) != 0L)
+            return jjStopAtPos(1, 87);
+         else if ((active1 & 0x8000000L) != 0L)
+            return jjStopAtPos(1, 91);
+         else if ((active1 & 0x10000000L) != 0L)
+            return jjStopAtPos(1, 92);
+         else if ((active1 & 0x20000000L) != 0L)
+            return jjStopAtPos(1, 93);
+         break;
+      case 62:
+         if ((active1 & 0x20000L) != 0L)
+         {
+            jjmatchedKind = 81;
+            jjmatchedPos = 1;
+         }
+         return jjMoveStringLiteralDfa2_0(active0, 0L, active1, 0x3040000L);
+      case 97:
+         return jjMoveStringLiteralDfa2_0(active0, 0x9000803000L, active1, 0L);
+      case 98:
+         return jjMoveStringLiteralDfa2_0(active0, 0x100L, active1, 0L);
+      case 101:
+         return jjMoveStringLiteralDfa2_0(active0, 0x82000040000L, active1, 0L);
+      case 102:
+         if ((active0 & 0x20000000L) != 0L)
+            return jjStartNfaWithStates_0(1, 29, 1);
+         break;
+      case 104:
+         return jjMoveStringLiteralDfa2_0(active0, 0x41c100000004000L, active1, 0L);
+      case 105:
+         return jjMoveStringLiteralDfa2_0(active0, 0x3000000L, active1, 0L);
+      case 108:
+         return jjMoveStringLiteralDfa2_0(active0, 0x4208000L, active1, 0L);
+      case 109:
+         return jjMoveStringLiteralDfa2_0(active0, 0xc0000000L, active1, 0L);
+      case 110:
+         return jjMoveStringLiteralDfa2_0(active0, 0x700000000L, active1, 0L);
+      case 111:
+         if ((active0 & 0x80000L) != 0L)
+         {
+            jjmatchedKind = 19;
+            jjmatchedPos = 1;
+         }
+         return jjMoveStringLiteralDfa2_0(active0, 0x300000818130200L, active1, 0L);
+      case 114:
+         return jjMoveStringLiteralDfa2_0(active0, 0xe0030000000400L, active1, 0L);
+      case 116:
+         return jjMoveStringLiteralDfa2_0(active0, 0x600000000000L, active1, 0L);
+      case 117:
+         return jjMoveStringLiteralDfa2_0(active0, 0x844000000000L, active1, 0L);
+      case 119:
+         return jjMoveStringLiteralDfa2_0(active0, 0x1000000000000L, active1, 0L);
+      case 120:
+         return jjMoveStringLiteralDfa2_0(active0, 0x400000L, active1, 0L);
+      case 121:
+         return jjMoveStringLiteralDfa2_0(active0, 0x2000000000800L, active1, 0L);
+      case 124:
+         if ((active1 & 0x100L) != 0L)
+            return jjStopAtPos(1, 72);
+         break;
+      default :
+         break;
+   }
+   return jjStartNfa_0(0, active0, active1);
+}
+private final int jjMoveStringLiteralDfa2_0(long old0, long active0, long old1, long active1)
+{
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjStartNfa_0(0, old0, old1); 
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(1, active0, active1);
+      return 2;
+   }
+   switch(curChar)
+   {
+      case 61:
+         if ((active1 & 0x1000000L) != 0L)
+            return jjStopAtPos(2, 88);
+         else if ((active1 & 0x4000000L) != 0L)
+            return jjStopAtPos(2, 90);
+         break;
+      case 62:
+         if ((active1 & 0x40000L) != 0L)
+         {
+            jjmatchedKind = 82;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0L, active1, 0x2000000L);
+      case 97:
+         return jjMoveStringLiteralDfa3_0(active0, 0x2020000000c000L, active1, 0L);
+      case 98:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000000000L, active1, 0L);
+      case 99:
+         return jjMoveStringLiteralDfa3_0(active0, 0x8000000000L, active1, 0L);
+      case 101:
+         return jjMoveStringLiteralDfa3_0(active0, 0x400L, active1, 0L);
+      case 102:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000L, active1, 0L);
+      case 105:
+         return jjMoveStringLiteralDfa3_0(active0, 0x505010000000000L, active1, 0L);
+      case 108:
+         return jjMoveStringLiteralDfa3_0(active0, 0x200004000800000L, active1, 0L);
+      case 110:
+         return jjMoveStringLiteralDfa3_0(active0, 0x2000803030000L, active1, 0L);
+      case 111:
+         return jjMoveStringLiteralDfa3_0(active0, 0x120004000200L, active1, 0L);
+      case 112:
+         return jjMoveStringLiteralDfa3_0(active0, 0x8000c0000000L, active1, 0L);
+      case 114:
+         if ((active0 & 0x8000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 27, 1);
+         return jjMoveStringLiteralDfa3_0(active0, 0x18400000000000L, active1, 0L);
+      case 115:
+         return jjMoveStringLiteralDfa3_0(active0, 0x200201100L, active1, 0L);
+      case 116:
+         if ((active0 & 0x400000000L) != 0L)
+         {
+            jjmatchedKind = 34;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x81110402800L, active1, 0L);
+      case 117:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000000100000L, active1, 0L);
+      case 119:
+         if ((active0 & 0x2000000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 37, 1);
+         break;
+      case 121:
+         if ((active0 & 0x80000000000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 55, 1);
+         break;
+      default :
+         break;
+   }
+   return jjStartNfa_0(1, active0, active1);
+}
+private final int jjMoveStringLiteralDfa3_0(long old0, long active0, long old1, long active1)
+{
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjStartNfa_0(1, old0, old1); 
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(2, active0, active1);
+      return 3;
+   }
+   switch(curChar)
+   {
+      case 61:
+         if ((active1 & 0x2000000L) != 0L)
+            return jjStopAtPos(3, 89);
+         break;
+      case 97:
+         return jjMoveStringLiteralDfa4_0(active0, 0x200000007040400L, active1, 0L);
+      case 98:
+         return jjMoveStringLiteralDfa4_0(active0, 0x100000L, active1, 0L);
+      case 99:
+         return jjMoveStringLiteralDfa4_0(active0, 0x2000000002000L, active1, 0L);
+      case 100:
+         if ((active0 & 0x100000000000000L) != 0L)
+            return jjStartNfaWithStates_0(3, 56, 1);
+         break;
+      case 101:
+         if ((active0 & 0x800L) != 0L)
+            return jjStartNfaWithStates_0(3, 11, 1);
+         else if ((active0 & 0x1000L) != 0L)
+            return jjStartNfaWithStates_0(3, 12, 1);
+         else if ((active0 & 0x200000L) != 0L)
+            return jjStartNfaWithStates_0(3, 21, 1);
+         else if ((active0 & 0x40000000000000L) != 0L)
+            return jjStartNfaWithStates_0(3, 54, 1);
+         return jjMoveStringLiteralDfa4_0(active0, 0x800100400000L, active1, 0L);
+      case 103:
+         if ((active0 & 0x800000000L) != 0L)
+            return jjStartNfaWithStates_0(3, 35, 1);
+         break;
+      case 105:
+         return jjMoveStringLiteralDfa4_0(active0, 0x401000000000L, active1, 0L);
+      case 107:
+         return jjMoveStringLiteralDfa4_0(active0, 0x8000000000L, active1, 0L);
+      case 108:
+         if ((active0 & 0x4000000000L) != 0L)
+            return jjStartNfaWithStates_0(3, 38, 1);
+         return jjMoveStringLiteralDfa4_0(active0, 0x400040040000200L, active1, 0L);
+      case 110:
+         return jjMoveStringLiteralDfa4_0(active0, 0x20000000000000L, active1, 0L);
+      case 111:
+         if ((active0 & 0x10000000L) != 0L)
+            return jjStartNfaWithStates_0(3, 28, 1);
+         return jjMoveStringLiteralDfa4_0(active0, 0x18000080000000L, active1, 0L);
+      case 114:
+         if ((active0 & 0x4000L) != 0L)
+            return jjStartNfaWithStates_0(3, 14, 1);
+         return jjMoveStringLiteralDfa4_0(active0, 0x100000000000L, active1, 0L);
+      case 115:
+         if ((active0 & 0x4000000000000L) != 0L)
+            return jjStartNfaWithStates_0(3, 50, 1);
+         return jjMoveStringLiteralDfa4_0(active0, 0x818000L, active1, 0L);
+      case 116:
+         return jjMoveStringLiteralDfa4_0(active0, 0x1220200020100L, active1, 0L);
+      case 117:
+         return jjMoveStringLiteralDfa4_0(active0, 0x80000000000L, active1, 0L);
+      case 118:
+         return jjMoveStringLiteralDfa4_0(active0, 0x10000000000L, active1, 0L);
+      default :
+         break;
+   }
+   return jjStartNfa_0(2, active0, active1);
+}
+private final int jjMoveStringLiteralDfa4_0(long old0, long active0, long old1, long active1)
+{
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjStartNfa_0(2, old0, old1); 
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(3, active0, 0L);
+      return 4;
+   }
+   switch(curChar)
+   {
+      case 97:
+         return jjMoveStringLiteralDfa5_0(active0, 0x18200000000L);
+      case 99:
+         return jjMoveStringLiteralDfa5_0(active0, 0x1400000000000L);
+      case 101:
+         if ((active0 & 0x800000L) != 0L)
+            return jjStartNfaWithStates_0(4, 23, 1);
+         else if ((active0 & 0x400000000000000L) != 0L)
+            return jjStartNfaWithStates_0(4, 58, 1);
+         return jjMoveStringLiteralDfa5_0(active0, 0x20040000200L);
+      case 104:
+         if ((active0 & 0x2000L) != 0L)
+            return jjStartNfaWithStates_0(4, 13, 1);
+         return jjMoveStringLiteralDfa5_0(active0, 0x2000000000000L);
+      case 105:
+         return jjMoveStringLiteralDfa5_0(active0, 0x240000020000L);
+      case 107:
+         if ((active0 & 0x400L) != 0L)
+            return jjStartNfaWithStates_0(4, 10, 1);
+         break;
+      case 108:
+         if ((active0 & 0x1000000L) != 0L)
+         {
+            jjmatchedKind = 24;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x2100000L);
+      case 110:
+         return jjMoveStringLiteralDfa5_0(active0, 0x400000L);
+      case 114:
+         if ((active0 & 0x800000000000L) != 0L)
+            return jjStartNfaWithStates_0(4, 47, 1);
+         return jjMoveStringLiteralDfa5_0(active0, 0x80180000100L);
+      case 115:
+         if ((active0 & 0x8000L) != 0L)
+            return jjStartNfaWithStates_0(4, 15, 1);
+         return jjMoveStringLiteralDfa5_0(active0, 0x20000000000000L);
+      case 116:
+         if ((active0 & 0x10000L) != 0L)
+            return jjStartNfaWithStates_0(4, 16, 1);
+         else if ((active0 & 0x4000000L) != 0L)
+            return jjStartNfaWithStates_0(4, 26, 1);
+         else if ((active0 & 0x100000000000L) != 0L)
+            return jjStartNfaWithStates_0(4, 44, 1);
+         return jjMoveStringLiteralDfa5_0(active0, 0x200000000000000L);
+      case 117:
+         return jjMoveStringLiteralDfa5_0(active0, 0x40000L);
+      case 118:
+         return jjMoveStringLiteralDfa5_0(active0, 0x1000000000L);
+      case 119:
+         if ((active0 & 0x8000000000000L) != 0L)
+         {
+            jjmatchedKind = 51;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x10000000000000L);
+      default :
+         break;
+   }
+   return jjStartNfa_0(3, active0, 0L);
+}
+private final int jjMoveStringLiteralDfa5_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjStartNfa_0(3, old0, 0L);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(4, active0, 0L);
+      return 5;
+   }
+   switch(curChar)
+   {
+      case 97:
+         return jjMoveStringLiteralDfa6_0(active0, 0x300L);
+      case 99:
+         if ((active0 & 0x40000000000L) != 0L)
+            return jjStartNfaWithStates_0(5, 42, 1);
+         else if ((active0 & 0x200000000000L) != 0L)
+            return jjStartNfaWithStates_0(5, 45, 1);
+         return jjMoveStringLiteralDfa6_0(active0, 0x20000000000L);
+      case 100:
+         return jjMoveStringLiteralDfa6_0(active0, 0x400000L);
+      case 101:
+         if ((active0 & 0x100000L) != 0L)
+            return jjStartNfaWithStates_0(5, 20, 1);
+         else if ((active0 & 0x1000000000L) != 0L)
+            return jjStartNfaWithStates_0(5, 36, 1);
+         break;
+      case 102:
+         return jjMoveStringLiteralDfa6_0(active0, 0x100000000L);
+      case 103:
+         return jjMoveStringLiteralDfa6_0(active0, 0x8000000000L);
+      case 104:
+         if ((active0 & 0x1000000000000L) != 0L)
+            return jjStartNfaWithStates_0(5, 48, 1);
+         break;
+      case 105:
+         return jjMoveStringLiteralDfa6_0(active0, 0x220000000000000L);
+      case 108:
+         return jjMoveStringLiteralDfa6_0(active0, 0x2040000L);
+      case 109:
+         return jjMoveStringLiteralDfa6_0(active0, 0x40000000L);
+      case 110:
+         if ((active0 & 0x80000000000L) != 0L)
+            return jjStartNfaWithStates_0(5, 43, 1);
+         return jjMoveStringLiteralDfa6_0(active0, 0x200020000L);
+      case 114:
+         return jjMoveStringLiteralDfa6_0(active0, 0x2000000000000L);
+      case 115:
+         if ((active0 & 0x10000000000000L) != 0L)
+            return jjStartNfaWithStates_0(5, 52, 1);
+         break;
+      case 116:
+         if ((active0 & 0x80000000L) != 0L)
+            return jjStartNfaWithStates_0(5, 31, 1);
+         return jjMoveStringLiteralDfa6_0(active0, 0x410000000000L);
+      default :
+         break;
+   }
+   return jjStartNfa_0(4, active0, 0L);
+}
+private final int jjMoveStringLiteralDfa6_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjStartNfa_0(4, old0, 0L);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(5, active0, 0L);
+      return 6;
+   }
+   switch(curChar)
+   {
+      case 97:
+         return jjMoveStringLiteralDfa7_0(active0, 0x100000000L);
+      case 99:
+         return jjMoveStringLiteralDfa7_0(active0, 0x200000100L);
+      case 101:
+         if ((active0 & 0x8000000000L) != 0L)
+            return jjStartNfaWithStates_0(6, 39, 1);
+         else if ((active0 & 0x10000000000L) != 0L)
+            return jjStartNfaWithStates_0(6, 40, 1);
+         return jjMoveStringLiteralDfa7_0(active0, 0x20000040000000L);
+      case 102:
+         return jjMoveStringLiteralDfa7_0(active0, 0x400000000000L);
+      case 108:
+         return jjMoveStringLiteralDfa7_0(active0, 0x200000000000000L);
+      case 110:
+         if ((active0 & 0x200L) != 0L)
+            return jjStartNfaWithStates_0(6, 9, 1);
+         break;
+      case 111:
+         return jjMoveStringLiteralDfa7_0(active0, 0x2000000000000L);
+      case 115:
+         if ((active0 & 0x400000L) != 0L)
+            return jjStartNfaWithStates_0(6, 22, 1);
+         break;
+      case 116:
+         if ((active0 & 0x40000L) != 0L)
+            return jjStartNfaWithStates_0(6, 18, 1);
+         return jjMoveStringLiteralDfa7_0(active0, 0x20000000000L);
+      case 117:
+         return jjMoveStringLiteralDfa7_0(active0, 0x20000L);
+      case 121:
+         if ((active0 & 0x2000000L) != 0L)
+            return jjStartNfaWithStates_0(6, 25, 1);
+         break;
+      default :
+         break;
+   }
+   return jjStartNfa_0(5, active0, 0L);
+}
+private final int jjMoveStringLiteralDfa7_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjStartNfa_0(5, old0, 0L);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(6, active0, 0L);
+      return 7;
+   }
+   switch(curChar)
+   {
+      case 99:
+         return jjMoveStringLiteralDfa8_0(active0, 0x100000000L);
+      case 101:
+         if ((active0 & 0x20000L) != 0L)
+            return jjStartNfaWithStates_0(7, 17, 1);
+         else if ((active0 & 0x200000000000000L) != 0L)
+            return jjStartNfaWithStates_0(7, 57, 1);
+         return jjMoveStringLiteralDfa8_0(active0, 0x20200000000L);
+      case 110:
+         return jjMoveStringLiteralDfa8_0(active0, 0x22000040000000L);
+      case 112:
+         if ((active0 & 0x400000000000L) != 0L)
+            return jjStartNfaWithStates_0(7, 46, 1);
+         break;
+      case 116:
+         if ((active0 & 0x100L) != 0L)
+            return jjStartNfaWithStates_0(7, 8, 1);
+         break;
+      default :
+         break;
+   }
+   return jjStartNfa_0(6, active0, 0L);
+}
+private final int jjMoveStringLiteralDfa8_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjStartNfa_0(6, old0, 0L);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(7, active0, 0L);
+      return 8;
+   }
+   switch(curChar)
+   {
+      case 100:
+         if ((active0 & 0x20000000000L) != 0L)
+            return jjStartNfaWithStates_0(8, 41, 1);
+         break;
+      case 101:
+         if ((active0 & 0x100000000L) != 0L)
+            return jjStartNfaWithStates_0(8, 32, 1);
+         break;
+      case 105:
+         return jjMoveStringLiteralDfa9_0(active0, 0x2000000000000L);
+      case 111:
+         return jjMoveStringLiteralDfa9_0(active0, 0x200000000L);
+      case 116:
+         if ((active0 & 0x20000000000000L) != 0L)
+            return jjStartNfaWithStates_0(8, 53, 1);
+         return jjMoveStringLiteralDfa9_0(active0, 0x40000000L);
+      default :
+         break;
+   }
+   return jjStartNfa_0(7, active0, 0L);
+}
+private final int jjMoveStringLiteralDfa9_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjStartNfa_0(7, old0, 0L);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(8, active0, 0L);
+      return 9;
+   }
+   switch(curChar)
+   {
+      case 102:
+         if ((active0 & 0x200000000L) != 0L)
+            return jjStartNfaWithStates_0(9, 33, 1);
+         break;
+      case 115:
+         if ((active0 & 0x40000000L) != 0L)
+            return jjStartNfaWithStates_0(9, 30, 1);
+         break;
+      case 122:
+         return jjMoveStringLiteralDfa10_0(active0, 0x2000000000000L);
+      default :
+         break;
+   }
+   return jjStartNfa_0(8, active0, 0L);
+}
+private final int jjMoveStringLiteralDfa10_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjStartNfa_0(8, old0, 0L);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(9, active0, 0L);
+      return 10;
+   }
+   switch(curChar)
+   {
+      case 101:
+         return jjMoveStringLiteralDfa11_0(active0, 0x2000000000000L);
+      default :
+         break;
+   }
+   return jjStartNfa_0(9, active0, 0L);
+}
+private final int jjMoveStringLiteralDfa11_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjStartNfa_0(9, old0, 0L);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+      jjStopStringLiteralDfa_0(10, active0, 0L);
+      return 11;
+   }
+   switch(curChar)
+   {
+      case 100:
+         if ((active0 & 0x2000000000000L) != 0L)
+            return jjStartNfaWithStates_0(11, 49, 1);
+         break;
+      default :
+         break;
+   }
+   return jjStartNfa_0(10, active0, 0L);
+}
+private final void jjCheckNAdd(int state)
+{
+   if (jjrounds[state] != jjround)
+   {
+      jjstateSet[jjnewStateCnt++] = state;
+      jjrounds[state] = jjround;
+   }
+}
+private final void jjAddStates(int start, int end)
+{
+   do {
+      jjstateSet[jjnewStateCnt++] = jjnextStates[start];
+   } while (start++ != end);
+}
+private final void jjCheckNAddTwoStates(int state1, int state2)
+{
+   jjCheckNAdd(state1);
+   jjCheckNAdd(state2);
+}
+private final void jjCheckNAddStates(int start, int end)
+{
+   do {
+      jjCheckNAdd(jjnextStates[start]);
+   } while (start++ != end);
+}
+private final void jjCheckNAddStates(int start)
+{
+   jjCheckNAdd(jjnextStates[start]);
+   jjCheckNAdd(jjnextStates[start + 1]);
+}
+static final long[] jjbitVec0 = {
+   0x0L, 0x0L, 0xffffffffffffffffL, 0xffffffffffffffffL
+};
+private final int jjMoveNfa_0(int startState, int curPos)
+{
+   int[] nextStates;
+   int startsAt = 0;
+   jjnewStateCnt = 34;
+   int i = 1;
+   jjstateSet[0] = startState;
+   int j, kind = 0x7fffffff;
+   for (;;)
+   {
+      if (++jjround == 0x7fffffff)
+         ReInitRounds();
+      if (curChar < 64)
+      {
+         long l = 1L << curChar;
+         MatchLoop: do
+         {
+            switch(jjstateSet[--i])
+            {
+               case 16:
+                  if (curChar == 42)
+                     jjCheckNAddStates(0, 2);
+                  else if (curChar == 47)
+                     jjCheckNAddStates(3, 5);
+                  break;
+               case 0:
+                  if ((0x3fe000000000000L & l) != 0L)
+                  {
+                     if (kind > 110)
+                        kind = 110;
+                     jjCheckNAddStates(6, 8);
+                  }
+                  else if (curChar == 48)
+                  {
+                     if (kind > 110)
+                        kind = 110;
+                     jjCheckNAdd(29);
+                  }
+                  else if (curChar == 47)
+                     jjAddStates(9, 10);
+                  else if (curChar == 34)
+                     jjCheckNAddStates(11, 13);
+                  else if (curChar == 39)
+                     jjAddStates(14, 15);
+                  else if (curChar == 46)
+                     jjCheckNAdd(3);
+                  else if (curChar == 36)
+                  {
+                     if (kind > 105)
+                        kind = 105;
+                     jjCheckNAdd(1);
+                  }
+                  break;
+               case 1:
+                  if ((0x3ff001000000000L & l) == 0L)
+                     break;
+                  if (kind > 105)
+                     kind = 105;
+                  jjCheckNAdd(1);
+                  break;
+               case 2:
+                  if (curChar == 46)
+                     jjCheckNAdd(3);
+                  break;
+               case 3:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 109)
+                     kind = 109;
+                  jjCheckNAddTwoStates(3, 4);
+                  break;
+               case 5:
+                  if (curChar == 39)
+                     jjAddStates(14, 15);
+                  break;
+               case 7:
+                  if ((0x8400000000L & l) != 0L)
+                     jjCheckNAdd(8);
+                  break;
+               case 8:
+                  if (curChar == 39 && kind > 111)
+                     kind = 111;
+                  break;
+               case 9:
+                  if ((0xffffff7fffffdbffL & l) != 0L)
+                     jjCheckNAdd(8);
+                  break;
+               case 10:
+                  if (curChar == 34)
+                     jjCheckNAddStates(11, 13);
+                  break;
+               case 12:
+                  if ((0x8400000000L & l) != 0L)
+                     jjCheckNAddStates(11, 13);
+                  break;
+               case 13:
+                  if ((0xfffffffbffffdbffL & l) != 0L)
+                     jjCheckNAddStates(11, 13);
+                  break;
+               case 14:
+                  if (curChar == 34 && kind > 112)
+                     kind = 112;
+                  break;
+               case 15:
+                  if (curChar == 47)
+                     jjAddStates(9, 10);
+                  break;
+               case 17:
+                  if ((0xffffffffffffdbffL & l) != 0L)
+                     jjCheckNAddStates(3, 5);
+                  break;
+               case 18:
+                  if ((0x2400L & l) != 0L && kind > 6)
+                     kind = 6;
+                  break;
+               case 19:
+                  if (curChar == 10 && kind > 6)
+                     kind = 6;
+                  break;
+               case 20:
+                  if (curChar == 13)
+                     jjstateSet[jjnewStateCnt++] = 19;
+                  break;
+               case 21:
+                  if (curChar == 42)
+                     jjCheckNAddStates(0, 2);
+                  break;
+               case 22:
+                  if ((0xffff7fffffffffffL & l) != 0L)
+                     jjCheckNAddStates(16, 18);
+                  break;
+               case 23:
+                  if ((0xfffffbffffffffffL & l) != 0L)
+                     jjCheckNAdd(24);
+                  break;
+               case 24:
+                  if (curChar == 47)
+                     jjCheckNAddStates(16, 18);
+                  break;
+               case 25:
+                  if (curChar == 47 && kind > 7)
+                     kind = 7;
+                  break;
+               case 26:
+                  if (curChar == 42)
+                     jjstateSet[jjnewStateCnt++] = 25;
+                  break;
+               case 27:
+                  if ((0xfffffbffffffffffL & l) != 0L)
+                     jjCheckNAddStates(19, 22);
+                  break;
+               case 28:
+                  if (curChar != 48)
+                     break;
+                  if (kind > 110)
+                     kind = 110;
+                  jjCheckNAdd(29);
+                  break;
+               case 29:
+                  if (curChar != 46)
+                     break;
+                  if (kind > 109)
+                     kind = 109;
+                  jjCheckNAddTwoStates(30, 4);
+                  break;
+               case 30:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 109)
+                     kind = 109;
+                  jjCheckNAddTwoStates(30, 4);
+                  break;
+               case 31:
+                  if ((0x3fe000000000000L & l) == 0L)
+                     break;
+                  if (kind > 110)
+                     kind = 110;
+                  jjCheckNAddStates(6, 8);
+                  break;
+               case 32:
+                  if ((0x3ff000000000000L & l) != 0L)
+                     jjCheckNAddTwoStates(32, 29);
+                  break;
+               case 33:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 110)
+                     kind = 110;
+                  jjCheckNAdd(33);
+                  break;
+               default : break;
+            }
+         } while(i != startsAt);
+      }
+      else if (curChar < 128)
+      {
+         long l = 1L << (curChar & 077);
+         MatchLoop: do
+         {
+            switch(jjstateSet[--i])
+            {
+               case 0:
+               case 1:
+                  if ((0x7fffffe87fffffeL & l) == 0L)
+                     break;
+                  if (kind > 105)
+                     kind = 105;
+                  jjCheckNAdd(1);
+                  break;
+               case 4:
+                  if ((0x1000000010L & l) != 0L && kind > 109)
+                     kind = 109;
+                  break;
+               case 6:
+                  if (curChar == 92)
+                     jjstateSet[jjnewStateCnt++] = 7;
+                  break;
+               case 7:
+                  if ((0x14404410000000L & l) != 0L)
+                     jjCheckNAdd(8);
+                  break;
+               case 9:
+                  if ((0xffffffffefffffffL & l) != 0L)
+                     jjCheckNAdd(8);
+                  break;
+               case 11:
+                  if (curChar == 92)
+                     jjstateSet[jjnewStateCnt++] = 12;
+                  break;
+               case 12:
+                  if ((0x14404410000000L & l) != 0L)
+                     jjCheckNAddStates(11, 13);
+                  break;
+               case 13:
+                  if ((0xffffffffefffffffL & l) != 0L)
+                     jjCheckNAddStates(11, 13);
+                  break;
+               case 17:
+                  jjAddStates(3, 5);
+                  break;
+               case 22:
+                  jjCheckNAddStates(16, 18);
+                  break;
+               case 23:
+                  jjCheckNAdd(24);
+                  break;
+               case 27:
+                  jjCheckNAddStates(19, 22);
+                  break;
+               default : break;
+            }
+         } while(i != startsAt);
+      }
+      else
+      {
+         int i2 = (curChar & 0xff) >> 6;
+         long l2 = 1L << (curChar & 077);
+         MatchLoop: do
+         {
+            switch(jjstateSet[--i])
+            {
+               case 9:
+                  if ((jjbitVec0[i2] & l2) != 0L)
+                     jjstateSet[jjnewStateCnt++] = 8;
+                  break;
+               case 13:
+                  if ((jjbitVec0[i2] & l2) != 0L)
+                     jjAddStates(11, 13);
+                  break;
+               case 17:
+                  if ((jjbitVec0[i2] & l2) != 0L)
+                     jjAddStates(3, 5);
+                  break;
+               case 22:
+                  if ((jjbitVec0[i2] & l2) != 0L)
+                     jjCheckNAddStates(16, 18);
+                  break;
+               case 23:
+                  if ((jjbitVec0[i2] & l2) != 0L)
+                     jjCheckNAdd(24);
+                  break;
+               case 27:
+                  if ((jjbitVec0[i2] & l2) != 0L)
+                     jjCheckNAddStates(19, 22);
+                  break;
+               default : break;
+            }
+         } while(i != startsAt);
+      }
+      if (kind != 0x7fffffff)
+      {
+         jjmatchedKind = kind;
+         jjmatchedPos = curPos;
+         kind = 0x7fffffff;
+      }
+      ++curPos;
+      if ((i = jjnewStateCnt) == (startsAt = 34 - (jjnewStateCnt = startsAt)))
+         return curPos;
+      try { curChar = input_stream.readChar(); }
+      catch(java.io.IOException e) { return curPos; }
+   }
+}
+static final int[] jjnextStates = {
+   22, 26, 27, 17, 18, 20, 32, 29, 33, 16, 21, 11, 13, 14, 6, 9, 
+   22, 23, 26, 22, 24, 26, 27, 
+};
+public static final String[] jjstrLiteralImages = {
+"", null, null, null, null, null, null, null, 
+"\141\142\163\164\162\141\143\164", "\142\157\157\154\145\141\156", "\142\162\145\141\153", "\142\171\164\145", 
+"\143\141\163\145", "\143\141\164\143\150", "\143\150\141\162", "\143\154\141\163\163", 
+"\143\157\156\163\164", "\143\157\156\164\151\156\165\145", "\144\145\146\141\165\154\164", 
+"\144\157", "\144\157\165\142\154\145", "\145\154\163\145", 
+"\145\170\164\145\156\144\163", "\146\141\154\163\145", "\146\151\156\141\154", 
+"\146\151\156\141\154\154\171", "\146\154\157\141\164", "\146\157\162", "\147\157\164\157", "\151\146", 
+"\151\155\160\154\145\155\145\156\164\163", "\151\155\160\157\162\164", "\151\156\164\145\162\146\141\143\145", 
+"\151\156\163\164\141\156\143\145\157\146", "\151\156\164", "\154\157\156\147", "\156\141\164\151\166\145", 
+"\156\145\167", "\156\165\154\154", "\160\141\143\153\141\147\145", 
+"\160\162\151\166\141\164\145", "\160\162\157\164\145\143\164\145\144", "\160\165\142\154\151\143", 
+"\162\145\164\165\162\156", "\163\150\157\162\164", "\163\164\141\164\151\143", 
+"\163\164\162\151\143\164\146\160", "\163\165\160\145\162", "\163\167\151\164\143\150", 
+"\163\171\156\143\150\162\157\156\151\172\145\144", "\164\150\151\163", "\164\150\162\157\167", "\164\150\162\157\167\163", 
+"\164\162\141\156\163\151\145\156\164", "\164\162\165\145", "\164\162\171", "\166\157\151\144", 
+"\166\157\154\141\164\151\154\145", "\167\150\151\154\145", "\46", "\174", "\136", "\176", "\53", "\75", "\55\55", 
+"\75\75", "\41\75", "\76", "\74", "\53\53", "\46\46", "\174\174", "\74\75", "\76\75", 
+"\41", "\55", "\57", "\45", "\52", "\74\74", "\76\76", "\76\76\76", "\53\75", 
+"\55\75", "\52\75", "\57\75", "\45\75", "\76\76\75", "\76\76\76\75", "\74\74\75", 
+"\46\75", "\174\75", "\136\75", "\50", "\51", "\173", "\175", "\133", "\135", "\73", 
+"\54", "\56", "\77", "\72", null, null, null, null, null, null, null, null, null, 
+null, };
+public static final String[] lexStateNames = {
+   "DEFAULT", 
+};
+static final long[] jjtoToken = {
+   0xffffffffffffff01L, 0x5e3ffffffffffL, 
+};
+static final long[] jjtoSkip = {
+   0xfeL, 0x0L, 
+};
+protected SimpleCharStream input_stream;
+private final int[] jjrounds = new int[34];
+private final int[] jjstateSet = new int[68];
+protected char curChar;
+public JavaCCParserTokenManager(SimpleCharStream stream){
+   if (SimpleCharStream.staticFlag)
+      throw new Error("ERROR: Cannot use a static CharStream class with a non-static lexical analyzer.");
+   input_stream = stream;
+}
+public JavaCCParserTokenManager(SimpleCharStream stream, int lexState){
+   this(stream);
+   SwitchTo(lexState);
+}
+public void ReInit(SimpleCharStream stream)
+{
+   jjmatchedPos = jjnewStateCnt = 0;
+   curLexState = defaultLexState;
+   input_stream = stream;
+   ReInitRounds();
+}
+private final void ReInitRounds()
+{
+   int i;
+   jjround = 0x80000001;
+   for (i = 34; i-- > 0;)
+      jjrounds[i] = 0x80000000;
+}
+public void ReInit(SimpleCharStream stream, int lexState)
+{
+   ReInit(stream);
+   SwitchTo(lexState);
+}
+public void SwitchTo(int lexState)
+{
+   if (lexState >= 1 || lexState < 0)
+      throw new TokenMgrError("Error: Ignoring invalid lexical state : " + lexState + ". State unchanged.", TokenMgrError.INVALID_LEXICAL_STATE);
+   else
+      curLexState = lexState;
+}
+
+protected Token jjFillToken()
+{
+   Token t = Token.newToken(jjmatchedKind);
+   t.kind = jjmatchedKind;
+   String im = jjstrLiteralImages[jjmatchedKind];
+   t.image = (im == null) ? input_stream.GetImage() : im;
+   t.beginLine = input_stream.getBeginLine();
+   t.beginColumn = input_stream.getBeginColumn();
+   t.endLine = input_stream.getEndLine();
+   t.endColumn = input_stream.getEndColumn();
+   return t;
+}
+
+int curLexState = 0;
+int defaultLexState = 0;
+int jjnewStateCnt;
+int jjround;
+int jjmatchedPos;
+int jjmatchedKind;
+
+public Token getNextToken() 
+{
+  int kind;
+  Token specialToken = null;
+  Token matchedToken;
+  int curPos = 0;
+
+  EOFLoop :
+  for (;;)
+  {   
+   try   
+   {     
+      curChar = input_stream.BeginToken();
+   }     
+   catch(java.io.IOException e)
+   {        
+      jjmatchedKind = 0;
+      matchedToken = jjFillToken();
+      return matchedToken;
+   }
+
+   try { input_stream.backup(0);
+      while (curChar <= 32 && (0x100003600L & (1L << curChar)) != 0L)
+         curChar = input_stream.BeginToken();
+   }
+   catch (java.io.IOException e1) { continue EOFLoop; }
+   jjmatchedKind = 0x7fffffff;
+   jjmatchedPos = 0;
+   curPos = jjMoveStringLiteralDfa0_0();
+   if (jjmatchedPos == 0 && jjmatchedKind > 114)
+   {
+      jjmatchedKind = 114;
+   }
+   if (jjmatchedKind != 0x7fffffff)
+   {
+      if (jjmatchedPos + 1 < curPos)
+         input_stream.backup(curPos - jjmatchedPos - 1);
+      if ((jjtoToken[jjmatchedKind >> 6] & (1L << (jjmatchedKind & 077))) != 0L)
+      {
+         matchedToken = jjFillToken();
+         return matchedToken;
+      }
+      else
+      {
+         continue EOFLoop;
+      }
+   }
+   int error_line = input_stream.getEndLine();
+   int error_column = input_stream.getEndColumn();
+   String error_after = null;
+   boolean EOFSeen = false;
+   try { input_stream.readChar(); input_stream.backup(1); }
+   catch (java.io.IOException e1) {
+      EOFSeen = true;
+      error_after = curPos <= 1 ? "" : input_stream.GetImage();
+      if (curChar == '\n' || curChar == '\r') {
+         error_line++;
+         error_column = 0;
+      }
+      else
+         error_column++;
+   }
+   if (!EOFSeen) {
+      input_stream.backup(1);
+      error_after = curPos <= 1 ? "" : input_stream.GetImage();
+   }
+   throw new TokenMgrError(EOFSeen, curLexState, error_line, error_column, error_after, curChar, TokenMgrError.LEXICAL_ERROR);
+  }
+}
+
+}
@@ -3,51 +3,132 @@
 package jminusminus;
 
 import java.io.FileNotFoundException;
-import java.util.Stack;
-import java.util.Vector;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
  * A lexical analyzer for j-- that interfaces with the hand-written parser
  * (Parser.java). It provides a backtracking mechanism, and makes use of the
  * underlying hand-written Scanner.
+ * <p>
+ * Tokens are kept packed, in parallel arrays of their kinds, positions,
+ * lengths, lines and images (the images of keywords and operators are those
+ * of their kinds, and those of identifiers are interned in Names), so that
+ * scanning a token allocates nothing. A TokenInfo is made only when one is
+ * asked for, for a diagnostic or for -t.
+ * <p>
+ * The arrays are a ring buffer: token number i is at i modulo their length.
+ * The parser decides what to parse by looking at the kinds of the next few
+ * tokens (kind(k)), which scans them into the buffer, ahead of the current
+ * token. Recording a position saves the number of the current token, and
+ * returning to it restores that number, so backtracking copies nothing. A
+ * token is overwritten once it is behind both the previous token and the
+ * outermost position recorded, since it can no longer be returned to; the
+ * buffer grows only if a lookahead spans more tokens than it holds.
+ * <p>
+ * With pipeline(), the tokens are scanned ahead, by a lexer thread of its
+ * own, into a TokenPipe, and taken from there instead of from the Scanner.
  */
 
 class LookaheadScanner {
 
+    /**
+     * The kinds of token, by ordinal.
+     */
+    private static final TokenKind[] KINDS = TokenKind.values();
+
     /**
      * The underlying hand-written scanner.
      */
     private Scanner scanner;
 
     /**
-     * Backtracking queue.
+     * The pipe from which tokens are taken, if they are scanned on a lexer
+     * thread of their own; null if they are scanned on this one.
      */
-    private Vector<TokenInfo> backtrackingQueue;
+    private TokenPipe pipe;
 
     /**
-     * Token queue.
+     * Whether a scanner error has been reported for the tokens taken from
+     * the pipe.
      */
-    private Vector<TokenInfo> nextQueue;
+    private boolean isInError;
 
     /**
-     * Stack of token queues for nested lookahead.
+     * Per-phase statistics for the unit being scanned; null unless they were
+     * asked for.
      */
-    private Stack<Vector<TokenInfo>> queueStack;
+    private CompilationStats stats;
 
     /**
-     * Whether we are looking ahead.
+     * Length of the buffer, less one (the length is a power of two).
      */
-    public boolean isLookingAhead;
+    private int mask;
 
     /**
-     * Previous token.
+     * Kinds (ordinals) of the tokens scanned.
      */
-    private TokenInfo previousToken;
+    private int[] kinds;
 
     /**
-     * Current token.
+     * Positions in the source of the tokens scanned.
      */
-    private TokenInfo token;
+    private int[] starts;
+
+    /**
+     * Lengths in the source of the tokens scanned.
+     */
+    private int[] lengths;
+
+    /**
+     * Lines of the tokens scanned.
+     */
+    private int[] lines;
+
+    /**
+     * Images of the tokens scanned; null where the image is the token's text
+     * in the source.
+     */
+    private String[] images;
+
+    /**
+     * Number of tokens scanned.
+     */
+    private int count;
+
+    /**
+     * Number of the current token; -1 before the first.
+     */
+    private int current;
+
+    /**
+     * Number of the furthest token that has been the current one; those up
+     * to it that are current again are being re-read after backtracking.
+     */
+    private int furthest;
+
+    /**
+     * Numbers of the current token at the positions recorded (and not yet
+     * returned to), innermost last.
+     */
+    private int[] marks;
+
+    /**
+     * Number of positions recorded.
+     */
+    private int markCount;
+
+    /**
+     * Whether the end of the input has been scanned.
+     */
+    private boolean isAtEnd;
+
+    /**
+     * Whether we are looking ahead.
+     */
+    public boolean isLookingAhead;
 
     /**
      * Construct a LookaheadScanner from a file name.
@@ -57,11 +138,78 @@ class LookaheadScanner {
      */
 
     public LookaheadScanner(String fileName) throws FileNotFoundException {
-        scanner = new Scanner(fileName);
-        backtrackingQueue = new Vector<TokenInfo>();
-        nextQueue = new Vector<TokenInfo>();
-        queueStack = new Stack<Vector<TokenInfo>>();
+        this(new Scanner(fileName));
+    }
+
+    /**
+     * Construct a LookaheadScanner that reads the source from the specified
+     * reader.
+     *
+     * @param fileName the name by which the source is reported.
+     * @param reader   the source.
+     */
+
+    public LookaheadScanner(String fileName, Reader reader) {
+        this(new Scanner(fileName, reader));
+    }
+
+    /**
+     * Construct a LookaheadScanner that scans the specified source bytes.
+     *
+     * @param fileName the name by which the source is reported.
+     * @param bytes    the source bytes, from the buffer's position to its
+     *                 limit.
+     * @param charset  the charset in which the source is encoded.
+     */
+
+    public LookaheadScanner(String fileName, ByteBuffer bytes,
+                            Charset charset) {
+        this(new Scanner(fileName, bytes, charset));
+    }
+
+    /**
+     * Construct a LookaheadScanner over the specified scanner.
+     *
+     * @param scanner the underlying scanner.
+     */
+
+    private LookaheadScanner(Scanner scanner) {
+        this.scanner = scanner;
+        stats = CompilationSession.current().stats();
+        mask = 255;
+        kinds = new int[mask + 1];
+        starts = new int[mask + 1];
+        lengths = new int[mask + 1];
+        lines = new int[mask + 1];
+        images = new String[mask + 1];
+        current = -1;
+        furthest = -1;
+        marks = new int[16];
         isLookingAhead = false;
+        if (stats != null) {
+            stats.count("rereadTokens", 0);
+        }
+    }
+
+    /**
+     * Have the tokens scanned from now on by a lexer thread of their own,
+     * ahead of the parser. Nothing must have been scanned yet.
+     */
+
+    public void pipeline() {
+        isInError = scanner.errorHasOccurred();
+        pipe = new TokenPipe(scanner);
+    }
+
+    /**
+     * Stop the lexer thread, if there is one; no more tokens will be asked
+     * for.
+     */
+
+    public void close() {
+        if (pipe != null) {
+            pipe.close();
+        }
     }
 
     /**
@@ -69,70 +217,262 @@ class LookaheadScanner {
      */
 
     public void next() {
-        previousToken = token;
-        if (backtrackingQueue.size() == 0) {
-            token = scanner.getNextToken();
+        current++;
+        if (current <= furthest) {
+            if (stats != null) {
+                stats.count("rereadTokens", 1);
+            }
         } else {
-            token = backtrackingQueue.remove(0);
+            furthest = current;
         }
-        if (isLookingAhead) {
-            nextQueue.add(token);
+        if (current == count) {
+            scan();
         }
     }
 
     /**
      * Record the current position in the input, so that we can start looking
-     * ahead in the input (and later return to this position). We'll queue up
-     * the current and subsequent tokens until returnToPosition() is invoked.
-     * These recordPosition's can be nested.
+     * ahead in the input (and later return to this position). These
+     * recordPosition's can be nested.
      */
 
     public void recordPosition() {
+        if (markCount == marks.length) {
+            marks = Arrays.copyOf(marks, markCount * 2);
+        }
+        marks[markCount++] = current;
         isLookingAhead = true;
-        queueStack.push(nextQueue);
-        nextQueue = new Vector<TokenInfo>();
-        nextQueue.add(previousToken);
-        nextQueue.add(token);
     }
 
     /**
      * Return to the previously recorded position in the input stream of tokens.
-     * If this is a nested lookahead, then return to the previous token queue.
      */
 
     public void returnToPosition() {
-        while (backtrackingQueue.size() > 0) {
-            nextQueue.add(backtrackingQueue.remove(0));
+        current = marks[--markCount];
+        isLookingAhead = markCount > 0;
+    }
+
+    /**
+     * Return the kind of the current token.
+     *
+     * @return the kind.
+     */
+
+    public TokenKind kind() {
+        return KINDS[kinds[current & mask]];
+    }
+
+    /**
+     * Return the kind of the token the specified number of tokens after the
+     * current one, scanning up to it if need be.
+     *
+     * @param k how far ahead the token is; 0 for the current token.
+     * @return the kind.
+     */
+
+    public TokenKind kind(int k) {
+        while (current + k >= count) {
+            scan();
+        }
+        if (stats != null) {
+            stats.max("maxLookahead", k);
         }
-        backtrackingQueue = nextQueue;
-        nextQueue = queueStack.pop();
-        isLookingAhead = !(queueStack.empty());
+        return KINDS[kinds[(current + k) & mask]];
+    }
+
+    /**
+     * Return the line of the current token.
+     *
+     * @return the line.
+     */
+
+    public int line() {
+        return lines[current & mask];
+    }
+
+    /**
+     * Return the position in the source of the current token.
+     *
+     * @return the position.
+     */
+
+    public int start() {
+        return starts[current & mask];
+    }
+
+    /**
+     * Return the position in the source just after the previous token.
+     *
+     * @return the position.
+     */
+
+    public int previousEnd() {
+        int i = (current - 1) & mask;
+        return starts[i] + lengths[i];
+    }
+
+    /**
+     * Return the image of the current token.
+     *
+     * @return the image.
+     */
+
+    public String image() {
+        return image(current);
+    }
+
+    /**
+     * Return the image of the previous token. We use this in the parser to
+     * get at a token's semantic info (for example an identifier's name),
+     * after we've scanned it.
+     *
+     * @return the image.
+     */
 
-        // Restore previous and current tokens
-        previousToken = backtrackingQueue.remove(0);
-        token = backtrackingQueue.remove(0);
+    public String previousImage() {
+        return image(current - 1);
     }
 
     /**
-     * The currently scanned token.
+     * The currently scanned token, made on demand.
      *
      * @return the current token.
      */
 
     public TokenInfo token() {
-        return token;
+        return token(current);
     }
 
     /**
-     * The previously scanned token. We use this in the parser to get at a
-     * token's semantic info (for example an identifier's name), after we've
-     * scanned it.
+     * The previously scanned token, made on demand.
      *
-     * @return the previous token.
+     * @return the previous token, or null if there is none.
      */
 
     public TokenInfo previousToken() {
-        return previousToken;
+        return token(current - 1);
+    }
+
+    /**
+     * Scan the next token from the input, and append it to the tokens.
+     */
+
+    private void scan() {
+        if (stats != null) {
+            stats.enter("scan");
+        }
+        int oldest = Math.max((markCount > 0 ? marks[0] : current) - 1, 0);
+        if (count - oldest > mask) {
+            grow(oldest);
+        }
+        int i = count & mask;
+        if (pipe == null) {
+            kinds[i] = scanner.scan().ordinal();
+            starts[i] = scanner.tokenStart();
+            lengths[i] = scanner.tokenLength();
+            lines[i] = scanner.tokenLine();
+            images[i] = scanner.tokenImage();
+        } else if (isAtEnd) {
+            // The lexer thread stops at the end of the input, which is
+            // scanned again and again from then on.
+            int last = (count - 1) & mask;
+            kinds[i] = kinds[last];
+            starts[i] = starts[last];
+            lengths[i] = lengths[last];
+            lines[i] = lines[last];
+            images[i] = images[last];
+        } else {
+            take(i);
+        }
+        count++;
+        if (stats != null) {
+            if (kinds[i] == TokenKind.EOF.ordinal() && !isAtEnd) {
+                // The end of the input is on the line after the last.
+                stats.count("sourceLines", lines[i] - 1);
+            }
+            stats.exit();
+        }
+        isAtEnd = kinds[i] == TokenKind.EOF.ordinal();
+    }
+
+    /**
+     * Take the next token from the pipe into the specified place in the
+     * buffer, and report the diagnostics the lexer thread found scanning it.
+     *
+     * @param i index in the buffer.
+     */
+
+    private void take(int i) {
+        int j = pipe.take();
+        kinds[i] = pipe.kind(j);
+        starts[i] = pipe.start(j);
+        lengths[i] = pipe.length(j);
+        lines[i] = pipe.line(j);
+        images[i] = pipe.image(j);
+        Diagnostic[] diagnostics = pipe.diagnostics(j);
+        pipe.release();
+        if (diagnostics != null) {
+            CompilationSession session = CompilationSession.current();
+            for (Diagnostic diagnostic : diagnostics) {
+                session.report(diagnostic);
+            }
+            isInError = true;
+        }
+    }
+
+    /**
+     * Double the length of the buffer, keeping the tokens from the specified
+     * one on.
+     *
+     * @param oldest number of the oldest token kept.
+     */
+
+    private void grow(int oldest) {
+        int newMask = mask * 2 + 1;
+        int[] newKinds = new int[newMask + 1];
+        int[] newStarts = new int[newMask + 1];
+        int[] newLengths = new int[newMask + 1];
+        int[] newLines = new int[newMask + 1];
+        String[] newImages = new String[newMask + 1];
+        for (int i = oldest; i < count; i++) {
+            newKinds[i & newMask] = kinds[i & mask];
+            newStarts[i & newMask] = starts[i & mask];
+            newLengths[i & newMask] = lengths[i & mask];
+            newLines[i & newMask] = lines[i & mask];
+            newImages[i & newMask] = images[i & mask];
+        }
+        mask = newMask;
+        kinds = newKinds;
+        starts = newStarts;
+        lengths = newLengths;
+        lines = newLines;
+        images = newImages;
+    }
+
+    /**
+     * Return the image of the specified token.
+     *
+     * @param i number of the token.
+     * @return the image.
+     */
+
+    private String image(int i) {
+        int j = i & mask;
+        return images[j] != null ? images[j] : scanner.slice(starts[j],
+                starts[j] + lengths[j]);
+    }
+
+    /**
+     * Return the specified token as a TokenInfo.
+     *
+     * @param i number of the token.
+     * @return the token, or null if the number is -1.
+     */
+
+    private TokenInfo token(int i) {
+        return i < 0 ? null : new TokenInfo(KINDS[kinds[i & mask]], image(i),
+                lines[i & mask]);
     }
 
     /**
@@ -142,7 +482,7 @@ class LookaheadScanner {
      */
 
     public boolean errorHasOccured() {
-        return scanner.errorHasOccurred();
+        return pipe == null ? scanner.errorHasOccurred() : isInError;
     }
 
     /**
@@ -2,8 +2,18 @@
 
 package jminusminus;
 
-import java.io.FileInputStream;
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static jminusminus.TokenKind.EOF;
 
@@ -32,6 +42,19 @@ import static jminusminus.TokenKind.EOF;
  * Again, codegen() recursively descends the tree, down to its leaves,
  * generating JVM code for producing a .class or .s (SPIM) file for each defined
  * type (class).
+ * <p>
+ * Any number of source files may be named on the command line (or listed in
+ * an @argfile); they are compiled in the same process, either one after the
+ * other or (with -j) in parallel, each in a CompilationSession of its own.
+ * With -incremental, only the units that changed since the last build, and
+ * those depending on types whose signatures changed, are compiled (see
+ * IncrementalIndex). With -stream, the types of a unit are analyzed, and
+ * their code generated and written, one at a time, each one's AST and code
+ * being let go of once written (see JCompilationUnit.stream()). With
+ * -pipeline, each unit is scanned on a lexer thread of its own, ahead of the
+ * parser (see TokenPipe).
+ * The same driver serves compile requests in CompilerDaemon, with its output
+ * redirected to the client.
  */
 
 public class Main {
@@ -46,55 +69,539 @@ public class Main {
      */
 
     public static void main(String[] args) {
+        errorHasOccurred = compile(args, System.out, System.err, null, null);
+    }
+
+    /**
+     * Compile as directed by the specified command-line arguments.
+     *
+     * @param args        the command-line arguments.
+     * @param out         stream to which usage is printed.
+     * @param err         stream to which diagnostics are printed.
+     * @param baseDir     directory against which relative file names are
+     *                    resolved; null for the working directory.
+     * @param outputFiles if not null, the names of the files written are
+     *                    added to it.
+     * @return true if an error occurred; false otherwise.
+     */
+
+    static boolean compile(String[] args, PrintStream out, PrintStream err,
+                           File baseDir, ArrayList<String> outputFiles) {
         String caller = "java jminusminus.Main";
-        String sourceFile = "";
-        String debugOption = "";
-        String outputDir = ".";
-        boolean spimOutput = false;
-        String registerAllocation = "";
-        errorHasOccurred = false;
+        ArrayList<String> sourceFiles = new ArrayList<String>();
+        CompilationOptions options = new CompilationOptions();
+        options.err = err;
+        options.baseDir = baseDir;
+        options.outputFiles = outputFiles;
+        String indexFile = null;
+        String statsFile = null;
+        String cacheDir = null;
+        String watchDir = null;
+        String jarFile = null;
         for (int i = 0; i < args.length; i++) {
             if (args[i].equals("j--")) {
                 caller = "j--";
             } else if (args[i].endsWith(".java")) {
-                sourceFile = args[i];
+                sourceFiles.add(args[i]);
+            } else if (args[i].startsWith("@") && args[i].length() > 1) {
+                if (!readArgFile(args[i].substring(1), sourceFiles, err,
+                        baseDir)) {
+                    return true;
+                }
             } else if (args[i].equals("-t") || args[i].equals("-p")
                     || args[i].equals("-pa") || args[i].equals("-a")) {
-                debugOption = args[i];
+                options.debugOption = args[i];
             } else if (args[i].endsWith("-d") && (i + 1) < args.length) {
-                outputDir = args[++i];
+                options.outputDir = args[++i];
             } else if (args[i].endsWith("-s") && (i + 1) < args.length) {
-                spimOutput = true;
-                registerAllocation = args[++i];
-                if (!registerAllocation.equals("naive")
-                        && !registerAllocation.equals("linear")
-                        && !registerAllocation.equals("graph")
-                        || registerAllocation.equals("")) {
-                    printUsage(caller);
-                    return;
+                options.spimOutput = true;
+                options.registerAllocation = args[++i];
+                if (!options.registerAllocation.equals("naive")
+                        && !options.registerAllocation.equals("linear")
+                        && !options.registerAllocation.equals("graph")
+                        || options.registerAllocation.equals("")) {
+                    printUsage(caller, out);
+                    return false;
                 }
             } else if (args[i].endsWith("-r") && (i + 1) < args.length) {
-                NPhysicalRegister.MAX_COUNT = Math.min(18, Integer
-                        .parseInt(args[++i]));
-                NPhysicalRegister.MAX_COUNT = Math.max(1,
-                        NPhysicalRegister.MAX_COUNT);
+                int maxRegisterCount = Math.min(18, Integer.parseInt(args[++i]));
+                options.maxRegisterCount = Math.max(1, maxRegisterCount);
+            } else if (args[i].equals("-j") && (i + 1) < args.length) {
+                options.threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if (args[i].equals("-incremental") && (i + 1) < args.length) {
+                indexFile = args[++i];
+            } else if (args[i].equals("-cache") && (i + 1) < args.length) {
+                cacheDir = args[++i];
+            } else if (args[i].equals("-jar") && (i + 1) < args.length) {
+                jarFile = args[++i];
+            } else if (args[i].equals("--watch") && (i + 1) < args.length) {
+                watchDir = args[++i];
+            } else if (args[i].equals("-pipeline")) {
+                options.pipeline = true;
+            } else if (args[i].equals("-stream")) {
+                options.stream = true;
+            } else if (args[i].equals("-stats")) {
+                options.stats = new ArrayList<CompilationStats>();
+            } else if (args[i].equals("-stats-json") && (i + 1) < args.length) {
+                options.stats = new ArrayList<CompilationStats>();
+                statsFile = args[++i];
             } else {
-                printUsage(caller);
-                return;
+                printUsage(caller, out);
+                return false;
+            }
+        }
+        if (sourceFiles.isEmpty() && watchDir == null || watchDir != null
+                && !options.debugOption.equals("")) {
+            printUsage(caller, out);
+            return false;
+        }
+
+        // A jar holds the classes of exactly the units named, compiled from
+        // scratch, so it doesn't go with SPIM output or with the modes that
+        // skip units.
+        if (jarFile != null && (options.spimOutput || indexFile != null
+                || watchDir != null || cacheDir != null)) {
+            printUsage(caller, out);
+            return false;
+        }
+
+        if (cacheDir != null && options.debugOption.equals("")) {
+            options.cache = new BuildCache(options.file(cacheDir), options);
+        }
+
+        if (jarFile != null && options.debugOption.equals("")) {
+            try {
+                options.jar = new JarOutput(options.file(jarFile));
+            } catch (IOException e) {
+                err.println("Error: cannot write file " + jarFile + ".");
+                return true;
+            }
+        }
+
+        // Compile the units in this process, so that the imported (JDK)
+        // types resolved by one unit are already in Type's tables when the
+        // next one asks for them.
+        boolean errorHasOccurred = false;
+        if (watchDir != null) {
+            IncrementalIndex index = IncrementalIndex.load(indexFile == null
+                    ? null : options.file(indexFile), options);
+            return watch(watchDir, sourceFiles, options, index, indexFile,
+                    statsFile, out);
+        } else if (indexFile == null || !options.debugOption.equals("")) {
+            errorHasOccurred |= compile(sourceFiles, options, null);
+            if (options.jar != null) {
+                try {
+                    options.jar.close();
+                    if (outputFiles != null) {
+                        outputFiles.add(jarFile);
+                    }
+                } catch (IOException e) {
+                    err.println("Error: cannot write file " + jarFile + ": "
+                            + e.getMessage());
+                    errorHasOccurred = true;
+                }
+            }
+        } else {
+            IncrementalIndex index = IncrementalIndex.load(
+                    options.file(indexFile), options);
+            errorHasOccurred |= compile(sourceFiles, options, index, null);
+            if (!index.save()) {
+                err.println("Error: cannot write file " + indexFile + ".");
+                errorHasOccurred = true;
+            }
+        }
+        if (options.stats != null) {
+            errorHasOccurred |= !writeStats(sourceFiles, options, statsFile,
+                    out);
+        }
+        return errorHasOccurred;
+    }
+
+    /**
+     * Compile the units in the watched tree (and those named on the command
+     * line), then, each time source files are saved, the units that changed
+     * and those that depend on them, until the thread is interrupted. The
+     * compiler stays loaded, and warm, in between.
+     *
+     * @param watchDir    root of the watched tree.
+     * @param sourceFiles source files named on the command line.
+     * @param options     the compilation options.
+     * @param index       the index of the units compiled.
+     * @param indexFile   name of the index file; null if the index is kept in
+     *                    memory only.
+     * @param statsFile   if not null, the file to which statistics are
+     *                    written as JSON after each compilation.
+     * @param out         stream to which progress is printed.
+     * @return true if an error occurred; false otherwise.
+     */
+
+    private static boolean watch(String watchDir,
+                                 ArrayList<String> sourceFiles,
+                                 CompilationOptions options,
+                                 IncrementalIndex index, String indexFile,
+                                 String statsFile, PrintStream out) {
+        SourceWatcher watcher;
+        ArrayList<String> units = new ArrayList<String>(sourceFiles);
+        try {
+            watcher = new SourceWatcher(options.file(watchDir), watchDir);
+            for (String sourceFile : watcher.sourceFiles()) {
+                if (!units.contains(sourceFile)) {
+                    units.add(sourceFile);
+                }
+            }
+        } catch (IOException e) {
+            options.err.println("Error: cannot watch " + watchDir + ".");
+            return true;
+        }
+        boolean errorHasOccurred = false;
+        while (true) {
+            long start = System.nanoTime();
+            ArrayList<String> compiled = new ArrayList<String>();
+            errorHasOccurred = compile(units, options, index, compiled);
+            if (!index.save()) {
+                options.err.println("Error: cannot write file " + indexFile
+                        + ".");
+                errorHasOccurred = true;
+            }
+            if (!compiled.isEmpty()) {
+                out.printf("[watch] %d unit(s) compiled in %d ms%s\n",
+                        compiled.size(), (System.nanoTime() - start) / 1000000,
+                        errorHasOccurred ? ", with errors" : "");
+            }
+            if (options.stats != null) {
+                writeStats(compiled, options, statsFile, out);
+                options.stats.clear();
+            }
+            try {
+                units = watcher.awaitChanges();
+            } catch (InterruptedException e) {
+                return errorHasOccurred;
+            }
+
+            // Units that had errors are tried again, since what they depend
+            // on may have been fixed.
+            for (String sourceFile : compiled) {
+                if (!index.contains(sourceFile) && !units.contains(sourceFile)
+                        && options.file(sourceFile).exists()) {
+                    units.add(sourceFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compile those of the specified units that changed since they were last
+     * indexed, then, round by round, the units that depend on types whose
+     * ABI the previous round changed.
+     *
+     * @param sourceFiles the source files.
+     * @param options     the compilation options.
+     * @param index       the index of the units compiled.
+     * @param compiled    if not null, the units compiled are added to it.
+     * @return true if an error occurred while compiling any of the units;
+     * false otherwise.
+     */
+
+    private static boolean compile(ArrayList<String> sourceFiles,
+                                   CompilationOptions options,
+                                   IncrementalIndex index,
+                                   ArrayList<String> compiled) {
+        boolean errorHasOccurred = false;
+        ArrayList<String> units = index.changedUnits(sourceFiles);
+        while (!units.isEmpty()) {
+            errorHasOccurred |= compile(units, options, index);
+            for (String sourceFile : units) {
+                if (compiled != null && !compiled.contains(sourceFile)) {
+                    compiled.add(sourceFile);
+                }
+            }
+            units = index.dependentUnits();
+        }
+        return errorHasOccurred;
+    }
+
+    /**
+     * Report the statistics gathered, sorted in the order the units were
+     * named: units compiled in parallel finish in any order.
+     *
+     * @param order     the source files, in order.
+     * @param options   the compilation options.
+     * @param statsFile the JSON file; null for a table.
+     * @param out       stream to which the table is printed.
+     * @return true if the statistics were reported; false otherwise.
+     */
+
+    private static boolean writeStats(final ArrayList<String> order,
+                                      CompilationOptions options,
+                                      String statsFile, PrintStream out) {
+        Collections.sort(options.stats, (a, b) -> Integer.compare(
+                order.indexOf(a.name()), order.indexOf(b.name())));
+        return writeStats(options.stats, statsFile, out, options.err,
+                options.baseDir);
+    }
+
+    /**
+     * Report the statistics gathered for each unit, and their sum: as a table
+     * printed to the specified stream, or as a JSON document written to the
+     * specified file.
+     *
+     * @param stats     the statistics for each unit.
+     * @param statsFile the JSON file; null for a table.
+     * @param out       stream to which the table is printed.
+     * @param err       stream to which errors are printed.
+     * @param baseDir   directory against which a relative file name is
+     *                  resolved; null for the working directory.
+     * @return true if the statistics were reported; false otherwise.
+     */
+
+    private static boolean writeStats(ArrayList<CompilationStats> stats,
+                                      String statsFile, PrintStream out,
+                                      PrintStream err, File baseDir) {
+        CompilationStats total = new CompilationStats("Total (" + stats.size()
+                + " units)");
+        for (CompilationStats unitStats : stats) {
+            total.add(unitStats);
+        }
+        if (statsFile == null) {
+            for (CompilationStats unitStats : stats) {
+                unitStats.writeText(out);
+            }
+            total.writeText(out);
+            return true;
+        }
+        StringBuilder json = new StringBuilder("{\"units\": [");
+        for (int i = 0; i < stats.size(); i++) {
+            json.append(i == 0 ? "\n  " : ",\n  ");
+            stats.get(i).writeJson(json);
+        }
+        json.append("\n],\n\"total\": ");
+        total.writeJson(json);
+        json.append("}\n");
+        File file = new File(statsFile);
+        if (baseDir != null && !file.isAbsolute()) {
+            file = new File(baseDir, statsFile);
+        }
+        try {
+            PrintWriter writer = new PrintWriter(file, "UTF-8");
+            writer.print(json);
+            writer.close();
+        } catch (IOException e) {
+            err.println("Error: cannot write file " + statsFile + ".");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compile the specified units, in parallel if more than one thread is
+     * allowed.
+     *
+     * @param sourceFiles the source files.
+     * @param options     the compilation options.
+     * @param index       if not null, the index in which the outcome of
+     *                    compiling each unit is recorded.
+     * @return true if an error occurred while compiling any of the units;
+     * false otherwise.
+     */
+
+    private static boolean compile(ArrayList<String> sourceFiles,
+                                   CompilationOptions options,
+                                   IncrementalIndex index) {
+        // The debugging options print to STDOUT, so their units are always
+        // compiled one after the other.
+        boolean errorHasOccurred = false;
+        if (options.threads > 1 && sourceFiles.size() > 1
+                && options.debugOption.equals("")) {
+            errorHasOccurred |= compileInParallel(sourceFiles, options, index);
+        } else {
+            for (int unit = 0; unit < sourceFiles.size(); unit++) {
+                errorHasOccurred |= compile(sourceFiles.get(unit), unit,
+                        options, index);
+            }
+        }
+        return errorHasOccurred;
+    }
+
+    /**
+     * Compile independent compilation units in parallel, on a fork-join pool
+     * having as many threads as the options allow.
+     *
+     * @param sourceFiles the source files.
+     * @param options     the compilation options.
+     * @param index       if not null, the index in which the outcome of
+     *                    compiling each unit is recorded.
+     * @return true if an error occurred while compiling any of the units;
+     * false otherwise.
+     */
+
+    private static boolean compileInParallel(ArrayList<String> sourceFiles,
+                                             final CompilationOptions options,
+                                             final IncrementalIndex index) {
+        ForkJoinPool pool = new ForkJoinPool(options.threads);
+        ArrayList<ForkJoinTask<Boolean>> tasks = new ArrayList<ForkJoinTask<Boolean>>();
+        for (int i = 0; i < sourceFiles.size(); i++) {
+            final String sourceFile = sourceFiles.get(i);
+            final int unit = i;
+            tasks.add(pool.submit(() -> compile(sourceFile, unit, options,
+                    index)));
+        }
+        boolean errorHasOccurred = false;
+        for (ForkJoinTask<Boolean> task : tasks) {
+            errorHasOccurred |= task.join();
+        }
+        pool.shutdown();
+        return errorHasOccurred;
+    }
+
+    /**
+     * Compile a single compilation unit, in a CompilationSession of its own
+     * that is bound to the current thread for the duration. If the options
+     * name a BuildCache, the unit's files are restored from it when it has
+     * them, and stored in it otherwise. If the options name a JarOutput, the
+     * unit's classes are streamed into it.
+     *
+     * @param sourceFile the source file.
+     * @param unit       position of the unit among those compiled.
+     * @param options    the compilation options.
+     * @param index      if not null, the index in which the outcome is
+     *                   recorded.
+     * @return true if an error occurred while compiling the unit; false
+     * otherwise.
+     */
+
+    private static boolean compile(String sourceFile, int unit,
+                                   CompilationOptions options,
+                                   IncrementalIndex index) {
+        CompilationSession session = options.newSession();
+        if (options.stats != null) {
+            session.setStats(new CompilationStats(sourceFile));
+            if (options.threads == 1) {
+                session.stats().measureFootprint();
+            }
+        }
+        if (options.jar != null) {
+            session.setJar(options.jar, unit);
+            if (options.stream) {
+                options.jar.hold(unit);
             }
         }
-        if (sourceFile.equals("")) {
-            printUsage(caller);
-            return;
+        if (index != null) {
+            index.begin(sourceFile);
+        }
+        CompilationSession.setCurrent(session);
+        boolean errorHasOccurred = true;
+        String key = null;
+        CacheEntry entry = null;
+        try {
+            if (options.cache != null) {
+                session.phase("cache");
+                try {
+                    key = options.cache.key(sourceFile, Files.readAllBytes(
+                            session.file(sourceFile).toPath()));
+                    entry = options.cache.restore(key);
+                } catch (IOException e) {
+                    // Compiling it reports the error.
+                }
+            }
+            if (entry == null) {
+                errorHasOccurred = compile(sourceFile, options.debugOption,
+                        options.outputDir, options.spimOutput,
+                        options.registerAllocation, options.stream,
+                        options.pipeline);
+                if (key != null && !errorHasOccurred) {
+                    session.phase("cache");
+                    options.cache.store(key);
+                }
+            } else {
+                errorHasOccurred = false;
+            }
+            return errorHasOccurred;
+        } finally {
+            if (options.jar != null) {
+                if (errorHasOccurred) {
+                    options.jar.discard(unit);
+                }
+                options.jar.unitDone(unit);
+            }
+            CompilationSession.setCurrent(null);
+            if (options.stats != null) {
+                session.stats().stop();
+                synchronized (options.stats) {
+                    options.stats.add(session.stats());
+                }
+            }
+            if (options.outputFiles != null) {
+                synchronized (options.outputFiles) {
+                    options.outputFiles.addAll(session.outputFiles());
+                }
+            }
+            if (index != null && entry != null) {
+                index.record(sourceFile, session, entry);
+            } else if (index != null) {
+                index.record(sourceFile, session, errorHasOccurred);
+            }
+            session.close();
         }
+    }
 
+    /**
+     * Compile a single compilation unit in the current CompilationSession.
+     *
+     * @param sourceFile         the source file.
+     * @param debugOption        one of -t, -p, -pa, -a, or "".
+     * @param outputDir          where to place output files.
+     * @param spimOutput         whether to generate SPIM code.
+     * @param registerAllocation register allocation scheme for SPIM code.
+     * @param stream             whether to analyze, generate and write one
+     *                           type at a time.
+     * @param pipeline           whether to scan on a lexer thread of its own.
+     * @return true if an error occurred while compiling the unit; false
+     * otherwise.
+     */
+
+    private static boolean compile(String sourceFile, String debugOption,
+                                   String outputDir, boolean spimOutput,
+                                   String registerAllocation, boolean stream,
+                                   boolean pipeline) {
+        CompilationSession session = CompilationSession.current();
         LookaheadScanner scanner = null;
+        session.phase("scan");
         try {
             scanner = new LookaheadScanner(sourceFile);
         } catch (FileNotFoundException e) {
-            System.err.println("Error: file " + sourceFile + " not found.");
-            return;
+            session.report(new Diagnostic(null, 0, "Error: file " + sourceFile
+                    + " not found."));
+            return true;
+        }
+        if (pipeline) {
+            scanner.pipeline();
         }
+        return compile(scanner, sourceFile, debugOption, outputDir,
+                spimOutput, registerAllocation, stream);
+    }
+
+    /**
+     * Compile the compilation unit read by the specified scanner, in the
+     * current CompilationSession.
+     *
+     * @param scanner            the scanner.
+     * @param sourceFile         the source file.
+     * @param debugOption        one of -t, -p, -pa, -a, or "".
+     * @param outputDir          where to place output files.
+     * @param spimOutput         whether to generate SPIM code.
+     * @param registerAllocation register allocation scheme for SPIM code.
+     * @param stream             whether to analyze, generate and write one
+     *                           type at a time.
+     * @return true if an error occurred while compiling the unit; false
+     * otherwise.
+     */
+
+    static boolean compile(LookaheadScanner scanner, String sourceFile,
+                           String debugOption, String outputDir,
+                           boolean spimOutput, String registerAllocation,
+                           boolean stream) {
+        boolean errorHasOccurred = false;
+        CompilationSession session = CompilationSession.current();
 
         if (debugOption.equals("-t")) {
             // Just tokenize input and print the tokens to STDOUT
@@ -106,62 +613,218 @@ public class Main {
                         .tokenRep(), token.image());
             } while (token.kind() != EOF);
             errorHasOccurred |= scanner.errorHasOccured();
-            return;
+            return errorHasOccurred;
         }
 
         // Parse input
+        session.phase("parse");
+        CompilationStats stats = session.stats();
+        long heapInUse = stats == null ? -1 : stats.heapInUse();
         Parser parser = new Parser(scanner);
-        JCompilationUnit ast = parser.compilationUnit();
+        JCompilationUnit ast;
+        try {
+            ast = parser.compilationUnit();
+        } finally {
+            scanner.close();
+        }
         errorHasOccurred |= parser.errorHasOccurred();
+        if (heapInUse >= 0) {
+            stats.count("astBytes", stats.heapInUse() - heapInUse);
+        }
         if (debugOption.equals("-p")) {
             ast.writeToStdOut(new PrettyPrinter());
-            return;
+            return errorHasOccurred;
         }
         if (errorHasOccurred) {
-            return;
+            return errorHasOccurred;
         }
 
         // Do pre-analysis
+        session.phase("preAnalyze");
         ast.preAnalyze();
-        errorHasOccurred |= JAST.compilationUnit.errorHasOccurred();
+        errorHasOccurred |= JAST.compilationUnit().errorHasOccurred();
         if (debugOption.equals("-pa")) {
             ast.writeToStdOut(new PrettyPrinter());
-            return;
+            return errorHasOccurred;
         }
         if (errorHasOccurred) {
-            return;
+            return errorHasOccurred;
+        }
+        if (stream && debugOption.equals("")) {
+            return stream(ast, sourceFile, outputDir, spimOutput,
+                    registerAllocation);
         }
 
         // Do analysis
+        session.phase("analyze");
         ast.analyze(null);
-        errorHasOccurred |= JAST.compilationUnit.errorHasOccurred();
+        errorHasOccurred |= JAST.compilationUnit().errorHasOccurred();
         if (debugOption.equals("-a")) {
             ast.writeToStdOut(new PrettyPrinter());
-            return;
+            return errorHasOccurred;
         }
         if (errorHasOccurred) {
-            return;
+            return errorHasOccurred;
         }
 
         // Generate JVM code
+        session.phase("codegen");
         CLEmitter clEmitter = new CLEmitter(!spimOutput);
         clEmitter.destinationDir(outputDir);
         ast.codegen(clEmitter);
         errorHasOccurred |= clEmitter.errorHasOccurred();
         if (errorHasOccurred) {
-            return;
+            return errorHasOccurred;
         }
 
         // If SPIM output was asked for, convert the in-memory
         // JVM instructions to SPIM using the specified register
-        // allocation scheme.
+        // allocation scheme. The SPIM back end numbers blocks and
+        // instructions in static counters (see NControlFlowGraph), so only
+        // one unit at a time may use it.
         if (spimOutput) {
-            NEmitter nEmitter = new NEmitter(sourceFile, ast.clFiles(),
-                    registerAllocation);
-            nEmitter.destinationDir(outputDir);
-            nEmitter.write();
-            errorHasOccurred |= nEmitter.errorHasOccurred();
+            synchronized (NEmitter.class) {
+                session.phase("spim");
+                NEmitter nEmitter = new NEmitter(sourceFile, ast.clFiles(),
+                        registerAllocation);
+                nEmitter.destinationDir(outputDir);
+                session.phase("spimWrite");
+                nEmitter.write();
+                errorHasOccurred |= nEmitter.errorHasOccurred();
+            }
+        }
+        return errorHasOccurred;
+    }
+
+    /**
+     * Analyze the (pre-analyzed) compilation unit, and generate and write
+     * its code, one type at a time (see JCompilationUnit.stream()), in the
+     * current CompilationSession. For SPIM code, the whole unit is streamed
+     * while holding the SPIM back end's lock, since its classes are written
+     * into one file.
+     * <p>
+     * As when the unit is compiled whole, nothing is written for it if an
+     * error is found: the files are written into a directory of their own,
+     * within the output directory, and moved into place only once the whole
+     * unit is done without errors, or else deleted. Classes streamed into a
+     * jar are held by the jar until then.
+     *
+     * @param ast                the compilation unit.
+     * @param sourceFile         the source file.
+     * @param outputDir          where to place output files.
+     * @param spimOutput         whether to generate SPIM code.
+     * @param registerAllocation register allocation scheme for SPIM code.
+     * @return true if an error occurred while compiling the unit; false
+     * otherwise.
+     */
+
+    private static boolean stream(JCompilationUnit ast, String sourceFile,
+                                  String outputDir, boolean spimOutput,
+                                  String registerAllocation) {
+        CompilationSession session = CompilationSession.current();
+        String stagingDir;
+        try {
+            File dir = session.file(outputDir);
+            dir.mkdirs();
+            stagingDir = Files.createTempDirectory(dir.toPath(), ".stream")
+                    .toString();
+        } catch (IOException e) {
+            session.report(new Diagnostic(null, 0, "Error: cannot write to "
+                    + "directory " + outputDir + "."));
+            return true;
+        }
+        int written = session.outputFiles().size();
+        boolean errorHasOccurred;
+        CLEmitter clEmitter = new CLEmitter(!spimOutput);
+        clEmitter.destinationDir(stagingDir);
+        if (!spimOutput) {
+            ast.stream(clEmitter, null);
+            errorHasOccurred = ast.errorHasOccurred()
+                    || clEmitter.errorHasOccurred();
+        } else {
+            synchronized (NEmitter.class) {
+                NEmitter nEmitter = new NEmitter(sourceFile,
+                        registerAllocation);
+                nEmitter.destinationDir(stagingDir);
+                nEmitter.open();
+                ast.stream(clEmitter, nEmitter);
+                nEmitter.close();
+                errorHasOccurred = ast.errorHasOccurred()
+                        || clEmitter.errorHasOccurred()
+                        || nEmitter.errorHasOccurred();
+            }
+        }
+        if (!errorHasOccurred) {
+            try {
+                session.moveOutputFiles(written, stagingDir, outputDir);
+            } catch (IOException e) {
+                session.report(new Diagnostic(null, 0, "Error: cannot move "
+                        + "files into directory " + outputDir + ": "
+                        + e.getMessage()));
+                errorHasOccurred = true;
+            }
+        }
+        if (errorHasOccurred) {
+            session.discardOutputFiles(written);
+        }
+        deleteTree(new File(stagingDir));
+        return errorHasOccurred;
+    }
+
+    /**
+     * Delete the specified file or directory, and everything in it.
+     *
+     * @param file the file or directory.
+     */
+
+    private static void deleteTree(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                deleteTree(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Add the source files listed in an argument file (separated by white
+     * space) to the given list.
+     *
+     * @param argFile     name of the argument file.
+     * @param sourceFiles the list of source files.
+     * @param err         stream to which errors are printed.
+     * @param baseDir     directory against which a relative name is
+     *                    resolved; null for the working directory.
+     * @return true if the argument file could be read; false otherwise.
+     */
+
+    private static boolean readArgFile(String argFile,
+                                       ArrayList<String> sourceFiles,
+                                       PrintStream err, File baseDir) {
+        try {
+            File file = new File(argFile);
+            if (baseDir != null && !file.isAbsolute()) {
+                file = new File(baseDir, argFile);
+            }
+            BufferedReader in = new BufferedReader(new FileReader(file));
+            String line;
+            while ((line = in.readLine()) != null) {
+                for (String name : line.trim().split("\\s+")) {
+                    if (!name.equals("")) {
+                        sourceFiles.add(name);
+                    }
+                }
+            }
+            in.close();
+        } catch (FileNotFoundException e) {
+            err.println("Error: file " + argFile + " not found.");
+            return false;
+        } catch (IOException e) {
+            err.println("Error: cannot read file " + argFile + ".");
+            return false;
         }
+        return true;
     }
 
     /**
@@ -175,15 +838,16 @@ public class Main {
     }
 
     /**
-     * Print command usage to STDOUT.
+     * Print command usage.
      *
      * @param caller denotes how this class is invoked.
+     * @param out    stream to which the usage is printed.
      */
 
-    private static void printUsage(String caller) {
+    private static void printUsage(String caller, PrintStream out) {
         String usage = "Usage: "
                 + caller
-                + " <options> <source file>\n"
+                + " <options> <source files>\n"
                 + "where possible options include:\n"
                 + "  -t Only tokenize input and print tokens to STDOUT\n"
                 + "  -p Only parse input and print AST to STDOUT\n"
@@ -193,8 +857,25 @@ public class Main {
                 + "and print AST to STDOUT\n"
                 + "  -s <naive|linear|graph> Generate SPIM code\n"
                 + "  -r <num> Max. physical registers (1-18) available for allocation; default = 8\n"
-                + "  -d <dir> Specify where to place output files; default = .";
-        System.out.println(usage);
+                + "  -d <dir> Specify where to place output files; default = .\n"
+                + "  -j <num> Compile up to <num> source files in parallel; default = 1\n"
+                + "  -jar <file> Write the class files into the jar <file>, not into -d\n"
+                + "  -incremental <file> Recompile only the units that changed, or that\n"
+                + "     depend on types that changed, since <file> was written\n"
+                + "  --watch <dir> Compile the source files under <dir>, then recompile\n"
+                + "     those saved, and those that depend on them, until interrupted\n"
+                + "  -cache <dir> Reuse the files written for identical units, kept in <dir>\n"
+                + "  -pipeline Scan on a thread of its own, ahead of the parser\n"
+                + "  -stream Analyze, generate and write one type at a time, letting\n"
+                + "     go of each one's AST and code once written\n"
+                + "  -stats Print wall time, CPU time and allocation per phase, the\n"
+                + "     source lines, the heap taken up by the AST (with -j 1), the\n"
+                + "     tokens re-read because the parser backtracked, and how far\n"
+                + "     ahead it looked; codegen includes the CPU time and\n"
+                + "     allocation of the threads generating code in parallel\n"
+                + "  -stats-json <file> Write those statistics to <file> as JSON\n"
+                + "  @<file> Read the names of source files from <file>";
+        out.println(usage);
     }
 
 }
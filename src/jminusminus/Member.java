@@ -6,10 +6,46 @@ package jminusminus;
  * A wrapper for members (eg Fields, Methods, Constructors) in the Java API.
  * Members are used in message expressions, field selections, and new object
  * construction operations.
+ * <p>
+ * A member is known by its name, modifiers and descriptor, as a class file
+ * (or, for a partial class, reflection) declares it. The types its descriptor
+ * names are found only when they are asked for. A member of a JDK class is
+ * shared by all the sessions, so it keeps the types it finds only if they are
+ * too.
  */
 
 abstract class Member {
 
+    /**
+     * The member's (simple) name.
+     */
+    private String name;
+
+    /**
+     * The type in which the member was declared.
+     */
+    private Type declaringType;
+
+    /**
+     * The member's modifiers (as in java.lang.reflect.Modifier, whose bits
+     * are the access flags of a class file).
+     */
+    private int modifiers;
+
+    /**
+     * Construct a Member.
+     *
+     * @param name          the member's name.
+     * @param declaringType the type in which the member was declared.
+     * @param modifiers     the member's modifiers.
+     */
+
+    protected Member(String name, Type declaringType, int modifiers) {
+        this.name = name;
+        this.declaringType = declaringType;
+        this.modifiers = modifiers;
+    }
+
     /**
      * Return the member's (simple) name.
      *
@@ -17,7 +53,7 @@ abstract class Member {
      */
 
     public String name() {
-        return member().getName();
+        return name;
     }
 
     /**
@@ -27,7 +63,7 @@ abstract class Member {
      */
 
     public Type declaringType() {
-        return Type.typeFor(member().getDeclaringClass());
+        return declaringType;
     }
 
     /**
@@ -37,7 +73,7 @@ abstract class Member {
      */
 
     public boolean isStatic() {
-        return java.lang.reflect.Modifier.isStatic(member().getModifiers());
+        return java.lang.reflect.Modifier.isStatic(modifiers);
     }
 
     /**
@@ -47,7 +83,7 @@ abstract class Member {
      */
 
     public boolean isPublic() {
-        return java.lang.reflect.Modifier.isPublic(member().getModifiers());
+        return java.lang.reflect.Modifier.isPublic(modifiers);
     }
 
     /**
@@ -57,7 +93,7 @@ abstract class Member {
      */
 
     public boolean isProtected() {
-        return java.lang.reflect.Modifier.isProtected(member().getModifiers());
+        return java.lang.reflect.Modifier.isProtected(modifiers);
     }
 
     /**
@@ -67,7 +103,7 @@ abstract class Member {
      */
 
     public boolean isPrivate() {
-        return java.lang.reflect.Modifier.isPrivate(member().getModifiers());
+        return java.lang.reflect.Modifier.isPrivate(modifiers);
     }
 
     /**
@@ -77,7 +113,7 @@ abstract class Member {
      */
 
     public boolean isAbstract() {
-        return java.lang.reflect.Modifier.isAbstract(member().getModifiers());
+        return java.lang.reflect.Modifier.isAbstract(modifiers);
     }
 
     /**
@@ -90,16 +126,21 @@ abstract class Member {
      */
 
     public boolean isFinal() {
-        return java.lang.reflect.Modifier.isFinal(member().getModifiers());
+        return java.lang.reflect.Modifier.isFinal(modifiers);
     }
 
     /**
-     * Return the member's internal representation.
+     * Return true if this member may keep the specified type, found for one
+     * of its descriptors; false otherwise. A member of a type shared by all
+     * the sessions keeps only types that are shared too.
      *
-     * @return the internal representation.
+     * @param type the type.
+     * @return true or false.
      */
 
-    protected abstract java.lang.reflect.Member member();
+    protected boolean mayKeep(Type type) {
+        return type.isShared() || !declaringType.isShared();
+    }
 
 }
 
@@ -111,18 +152,42 @@ abstract class Member {
 class Method extends Member {
 
     /**
-     * Internal representation of this method.
+     * The JVM descriptor of this method.
      */
-    private java.lang.reflect.Method method;
+    private String descriptor;
 
     /**
-     * Construct a Method is constructed from its internal representation.
+     * Descriptors of the parameter types.
+     */
+    private String[] parameterDescriptors;
+
+    /**
+     * The parameter types, once they are found; null before.
+     */
+    private volatile Type[] parameterTypes;
+
+    /**
+     * The return type, once it is found; null before.
+     */
+    private volatile Type returnType;
+
+    /**
+     * Construct a Method given its name, declaring type, modifiers and
+     * descriptor.
      *
-     * @param method a Java method in the relection API.
+     * @param name                 the method's name.
+     * @param declaringType        the type in which the method was declared.
+     * @param modifiers            the method's modifiers.
+     * @param descriptor           the method's JVM descriptor.
+     * @param parameterDescriptors descriptors of the parameter types (see
+     *                             Type.parameterDescriptors()).
      */
 
-    public Method(java.lang.reflect.Method method) {
-        this.method = method;
+    public Method(String name, Type declaringType, int modifiers,
+                  String descriptor, String[] parameterDescriptors) {
+        super(name, declaringType, modifiers);
+        this.descriptor = descriptor;
+        this.parameterDescriptors = parameterDescriptors;
     }
 
     /**
@@ -132,11 +197,6 @@ class Method extends Member {
      */
 
     public String toDescriptor() {
-        String descriptor = "(";
-        for (Class paramType : method.getParameterTypes()) {
-            descriptor += Type.typeFor(paramType).toDescriptor();
-        }
-        descriptor += ")" + Type.typeFor(method.getReturnType()).toDescriptor();
         return descriptor;
     }
 
@@ -148,13 +208,46 @@ class Method extends Member {
 
     public String toString() {
         String str = name() + "(";
-        for (Class paramType : method.getParameterTypes()) {
-            str += Type.typeFor(paramType).toString();
+        for (Type paramType : parameterTypes()) {
+            str += paramType.toString();
         }
         str += ")";
         return str;
     }
 
+    /**
+     * Return the descriptors of the method's parameter types. The array must
+     * not be changed.
+     *
+     * @return the parameter descriptors.
+     */
+
+    public String[] parameterDescriptors() {
+        return parameterDescriptors;
+    }
+
+    /**
+     * Return the method's parameter types. The array must not be changed.
+     *
+     * @return the parameter types.
+     */
+
+    public Type[] parameterTypes() {
+        Type[] types = parameterTypes;
+        if (types == null) {
+            types = new Type[parameterDescriptors.length];
+            boolean isKept = true;
+            for (int i = 0; i < types.length; i++) {
+                types[i] = Type.typeForDescriptor(parameterDescriptors[i]);
+                isKept &= mayKeep(types[i]);
+            }
+            if (isKept) {
+                parameterTypes = types;
+            }
+        }
+        return types;
+    }
+
     /**
      * Return the method's return type.
      *
@@ -162,7 +255,15 @@ class Method extends Member {
      */
 
     public Type returnType() {
-        return Type.typeFor(method.getReturnType());
+        Type type = returnType;
+        if (type == null) {
+            type = Type.typeForDescriptor(descriptor.substring(descriptor
+                    .indexOf(')') + 1));
+            if (mayKeep(type)) {
+                returnType = type;
+            }
+        }
+        return type;
     }
 
     /**
@@ -173,18 +274,8 @@ class Method extends Member {
      */
 
     public boolean equals(Method that) {
-        return Type.argTypesMatch(this.method.getParameterTypes(), that.method
-                .getParameterTypes());
-    }
-
-    /**
-     * Return the member's internal representation.
-     *
-     * @return the internal representation.
-     */
-
-    protected java.lang.reflect.Member member() {
-        return method;
+        return Type.argTypesMatch(this.parameterDescriptors,
+                that.parameterDescriptors);
     }
 
 }
@@ -196,18 +287,29 @@ class Method extends Member {
 class Field extends Member {
 
     /**
-     * Internal representation of this field.
+     * The JVM descriptor of this field's type.
      */
-    private java.lang.reflect.Field field;
+    private String descriptor;
 
     /**
-     * Construct a Field is constructed from its internal representation.
+     * The field's type, once it is found; null before.
+     */
+    private volatile Type type;
+
+    /**
+     * Construct a Field given its name, declaring type, modifiers and
+     * descriptor.
      *
-     * @param field a Java field in the relection API.
+     * @param name          the field's name.
+     * @param declaringType the type in which the field was declared.
+     * @param modifiers     the field's modifiers.
+     * @param descriptor    the JVM descriptor of the field's type.
      */
 
-    public Field(java.lang.reflect.Field field) {
-        this.field = field;
+    public Field(String name, Type declaringType, int modifiers,
+                 String descriptor) {
+        super(name, declaringType, modifiers);
+        this.descriptor = descriptor;
     }
 
     /**
@@ -217,15 +319,14 @@ class Field extends Member {
      */
 
     public Type type() {
-        return Type.typeFor(field.getType());
-    }
-
-    /**
-     * @inheritDoc
-     */
-
-    protected java.lang.reflect.Member member() {
-        return field;
+        Type type = this.type;
+        if (type == null) {
+            type = Type.typeForDescriptor(descriptor);
+            if (mayKeep(type)) {
+                this.type = type;
+            }
+        }
+        return type;
     }
 
 }
@@ -237,18 +338,32 @@ class Field extends Member {
 class Constructor extends Member {
 
     /**
-     * Internal representation of this constructor.
+     * The JVM descriptor of this constructor.
+     */
+    private String descriptor;
+
+    /**
+     * Descriptors of the parameter types.
      */
-    java.lang.reflect.Constructor constructor;
+    private String[] parameterDescriptors;
 
     /**
-     * Construct a Constructor from its internal representation.
+     * Construct a Constructor given its declaring type, modifiers and
+     * descriptor.
      *
-     * @param constructor a Java constructor in the relection API.
+     * @param declaringType        the type in which the constructor was
+     *                             declared.
+     * @param modifiers            the constructor's modifiers.
+     * @param descriptor           the constructor's JVM descriptor.
+     * @param parameterDescriptors descriptors of the parameter types (see
+     *                             Type.parameterDescriptors()).
      */
 
-    public Constructor(java.lang.reflect.Constructor constructor) {
-        this.constructor = constructor;
+    public Constructor(Type declaringType, int modifiers, String descriptor,
+                       String[] parameterDescriptors) {
+        super(declaringType.toString(), declaringType, modifiers);
+        this.descriptor = descriptor;
+        this.parameterDescriptors = parameterDescriptors;
     }
 
     /**
@@ -258,30 +373,18 @@ class Constructor extends Member {
      */
 
     public String toDescriptor() {
-        String descriptor = "(";
-        for (Class paramType : constructor.getParameterTypes()) {
-            descriptor += Type.typeFor(paramType).toDescriptor();
-        }
-        descriptor += ")V";
         return descriptor;
     }
 
     /**
-     * Return the type declaring this constructor.
+     * Return the descriptors of the constructor's parameter types. The array
+     * must not be changed.
      *
-     * @return the declaring type.
-     */
-
-    public Type declaringType() {
-        return Type.typeFor(constructor.getDeclaringClass());
-    }
-
-    /**
-     * @inheritDoc
+     * @return the parameter descriptors.
      */
 
-    protected java.lang.reflect.Member member() {
-        return constructor;
+    public String[] parameterDescriptors() {
+        return parameterDescriptors;
     }
 
 }
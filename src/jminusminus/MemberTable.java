@@ -0,0 +1,443 @@
+package jminusminus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static jminusminus.CLConstants.*;
+
+/**
+ * The members of a type, read once rather than on every lookup, and the
+ * methods, constructors and fields that lookups in the type (and its
+ * superclasses) have found, so that each is looked for only once. The members
+ * of a JDK or class path class are read from its class file (see ClassSymbol);
+ * those of a partial class, from reflection. Synthetic members (eg bridge
+ * methods), which javac does not let Java code name either, are left out.
+ * <p>
+ * Each Type has one table, made the first time it is asked for; a Type whose
+ * partial class is replaced (by a more complete one, in pre-analysis) gets a
+ * new table. Lookups are keyed by the identity of the argument types, which
+ * are unique. The tables of shared types (see Type.isShared()) are shared by
+ * all the CompilationSessions, though, so what is found in them for arguments
+ * of types particular to a session is not kept, lest they hold on to the
+ * session's types.
+ */
+
+class MemberTable {
+
+    /**
+     * What a lookup keeps when it finds nothing.
+     */
+    private static final Object NOTHING = new Object();
+
+    /**
+     * The type.
+     */
+    private Type type;
+
+    /**
+     * The declared methods.
+     */
+    private Method[] methods;
+
+    /**
+     * Maps method names to the indices of the declared methods of that name,
+     * in order.
+     */
+    private HashMap<String, int[]> methodsByName;
+
+    /**
+     * The declared constructors.
+     */
+    private Constructor[] constructors;
+
+    /**
+     * Maps names to the first declared field of that name.
+     */
+    private HashMap<String, Field> fields;
+
+    /**
+     * Methods found by exact argument types, by key; NOTHING where none was
+     * found.
+     */
+    private ConcurrentHashMap<MemberKey, Object> exactMethods;
+
+    /**
+     * Methods found by argument types that inherit from the parameter types,
+     * by key; NOTHING where none was found.
+     */
+    private ConcurrentHashMap<MemberKey, Object> inheritedMethods;
+
+    /**
+     * Constructors found, by key; NOTHING where none was found.
+     */
+    private ConcurrentHashMap<MemberKey, Object> foundConstructors;
+
+    /**
+     * Fields found in the type or its superclasses, by name; NOTHING where
+     * none was found.
+     */
+    private ConcurrentHashMap<String, Object> foundFields;
+
+    /**
+     * Construct the table of the specified type.
+     *
+     * @param type the type.
+     */
+
+    public MemberTable(Type type) {
+        this.type = type;
+        ArrayList<Method> methods = new ArrayList<Method>();
+        ArrayList<Constructor> constructors = new ArrayList<Constructor>();
+        fields = new HashMap<String, Field>();
+        Class<?> cls = type.classRep();
+        ClassSymbol symbol = type.classSymbol();
+        if (cls != null) {
+            for (java.lang.reflect.Method method : cls.getDeclaredMethods()) {
+                String[] parameters = descriptorsFor(method
+                        .getParameterTypes());
+                methods.add(new Method(method.getName(), type, method
+                        .getModifiers(), methodDescriptor(parameters, Type
+                        .descriptorFor(method.getReturnType())), parameters));
+            }
+            for (java.lang.reflect.Constructor<?> constructor : cls
+                    .getDeclaredConstructors()) {
+                String[] parameters = descriptorsFor(constructor
+                        .getParameterTypes());
+                constructors.add(new Constructor(type, constructor
+                        .getModifiers(), methodDescriptor(parameters, "V"),
+                        parameters));
+            }
+            for (java.lang.reflect.Field field : cls.getDeclaredFields()) {
+                if (!fields.containsKey(field.getName())) {
+                    fields.put(field.getName(), new Field(field.getName(),
+                            type, field.getModifiers(), Type
+                            .descriptorFor(field.getType())));
+                }
+            }
+        } else if (symbol != null) {
+            for (MemberSymbol method : symbol.methods()) {
+                String name = method.name();
+                String descriptor = method.descriptor();
+                String[] parameters = Type.parameterDescriptors(descriptor);
+                if ((method.accessFlags() & ACC_SYNTHETIC) != 0
+                        || parameters == null || name.equals("<clinit>")) {
+                    continue;
+                }
+                if (name.equals("<init>")) {
+                    constructors.add(new Constructor(type, method
+                            .accessFlags(), descriptor, parameters));
+                } else {
+                    methods.add(new Method(name, type, method.accessFlags(),
+                            descriptor, parameters));
+                }
+            }
+            for (MemberSymbol field : symbol.fields()) {
+                String name = field.name();
+                if ((field.accessFlags() & ACC_SYNTHETIC) == 0
+                        && Type.isFieldDescriptor(field.descriptor())
+                        && !fields.containsKey(name)) {
+                    fields.put(name, new Field(name, type, field
+                            .accessFlags(), field.descriptor()));
+                }
+            }
+        }
+        this.methods = methods.toArray(new Method[methods.size()]);
+        this.constructors = constructors.toArray(
+                new Constructor[constructors.size()]);
+        HashMap<String, ArrayList<Integer>> byName = new HashMap<String, ArrayList<Integer>>();
+        for (int i = 0; i < this.methods.length; i++) {
+            ArrayList<Integer> indices = byName.get(this.methods[i].name());
+            if (indices == null) {
+                indices = new ArrayList<Integer>(1);
+                byName.put(this.methods[i].name(), indices);
+            }
+            indices.add(i);
+        }
+        methodsByName = new HashMap<String, int[]>();
+        for (String name : byName.keySet()) {
+            ArrayList<Integer> indices = byName.get(name);
+            int[] array = new int[indices.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = indices.get(i);
+            }
+            methodsByName.put(name, array);
+        }
+        exactMethods = new ConcurrentHashMap<MemberKey, Object>();
+        inheritedMethods = new ConcurrentHashMap<MemberKey, Object>();
+        foundConstructors = new ConcurrentHashMap<MemberKey, Object>();
+        foundFields = new ConcurrentHashMap<String, Object>();
+    }
+
+    /**
+     * Return the declared methods. The array must not be changed.
+     *
+     * @return the methods.
+     */
+
+    public Method[] methods() {
+        return methods;
+    }
+
+    /**
+     * Return the first method, in this type or else in its nearest
+     * superclass having one, with the specified name and parameters whose
+     * types have the same descriptors as the specified argument types.
+     *
+     * @param name the method name.
+     * @param args the argument types.
+     * @return the method, or null.
+     */
+
+    public Method exactMethod(String name, Type[] args) {
+        return method(name, args, false);
+    }
+
+    /**
+     * Return the first method, in this type or else in its nearest
+     * superclass having one, with the specified name and parameters whose
+     * types the specified argument types match or inherit from.
+     *
+     * @param name the method name.
+     * @param args the argument types.
+     * @return the method, or null.
+     */
+
+    public Method inheritedMethod(String name, Type[] args) {
+        return method(name, args, true);
+    }
+
+    /**
+     * Return the declared constructor with parameters whose types have the
+     * same descriptors as the specified argument types.
+     *
+     * @param args the argument types.
+     * @return the constructor, or null.
+     */
+
+    public Constructor constructor(Type[] args) {
+        MemberKey key = new MemberKey(null, args);
+        Object found = foundConstructors.get(key);
+        if (found == null) {
+            String[] descriptors = Type.descriptorsFor(args);
+            for (Constructor constructor : constructors) {
+                if (Type.argTypesMatch(descriptors, constructor
+                        .parameterDescriptors())) {
+                    found = constructor;
+                    break;
+                }
+            }
+            found = keep(foundConstructors, key, found);
+        }
+        return found == NOTHING ? null : (Constructor) found;
+    }
+
+    /**
+     * Return the field with the specified name, in this type or else in its
+     * nearest superclass having one.
+     *
+     * @param name the field name.
+     * @return the field, or null.
+     */
+
+    public Field field(String name) {
+        Object found = foundFields.get(name);
+        if (found == null) {
+            for (Type t = type; t != null && found == null; t = t
+                    .superClass()) {
+                found = t.memberTable().fields.get(name);
+            }
+            found = found == null ? NOTHING : found;
+            foundFields.put(name, found);
+        }
+        return found == NOTHING ? null : (Field) found;
+    }
+
+    /**
+     * Look for a method in this type and its superclasses, or return the one
+     * found before.
+     *
+     * @param name        the method name.
+     * @param args        the argument types.
+     * @param isInherited whether argument types may inherit from parameter
+     *                    types, rather than have the same descriptors.
+     * @return the method, or null.
+     */
+
+    private Method method(String name, Type[] args, boolean isInherited) {
+        ConcurrentHashMap<MemberKey, Object> found = isInherited
+                ? inheritedMethods : exactMethods;
+        MemberKey key = new MemberKey(name, args);
+        Object method = found.get(key);
+        if (method == null) {
+            String[] descriptors = Type.descriptorsFor(args);
+            for (Type t = type; t != null && method == null; t = t
+                    .superClass()) {
+                method = t.memberTable().declaredMethod(name, args,
+                        descriptors, isInherited);
+            }
+            method = keep(found, key, method);
+        }
+        return method == NOTHING ? null : (Method) method;
+    }
+
+    /**
+     * Return the first declared method with the specified name, arity and
+     * matching parameter types.
+     *
+     * @param name        the method name.
+     * @param args        the argument types.
+     * @param descriptors the descriptors of the argument types.
+     * @param isInherited whether argument types may inherit from parameter
+     *                    types, rather than have the same descriptors.
+     * @return the method, or null.
+     */
+
+    private Method declaredMethod(String name, Type[] args,
+                                  String[] descriptors, boolean isInherited) {
+        int[] indices = methodsByName.get(name);
+        if (indices == null) {
+            return null;
+        }
+        for (int i : indices) {
+            Method method = methods[i];
+            if (method.parameterDescriptors().length == args.length
+                    && (isInherited ? Type.argTypesMatchOrInheritFrom(args,
+                    method.parameterTypes()) : Type.argTypesMatch(
+                    descriptors, method.parameterDescriptors()))) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keep what a lookup by the specified key found, unless this table is
+     * shared and the key names a type particular to a session.
+     *
+     * @param found  the lookups.
+     * @param key    the key.
+     * @param member the member found, or null.
+     * @return the member, or NOTHING if it is null.
+     */
+
+    private Object keep(ConcurrentHashMap<MemberKey, Object> found,
+                        MemberKey key, Object member) {
+        member = member == null ? NOTHING : member;
+        if (!type.isShared() || key.isShared()) {
+            found.put(key, member);
+        }
+        return member;
+    }
+
+    /**
+     * Return the descriptors of the specified classes.
+     *
+     * @param classes the classes.
+     * @return their descriptors.
+     */
+
+    private static String[] descriptorsFor(Class<?>[] classes) {
+        String[] descriptors = new String[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            descriptors[i] = Type.descriptorFor(classes[i]);
+        }
+        return descriptors;
+    }
+
+    /**
+     * Return the descriptor of a method given those of its parameter types
+     * and its return type.
+     *
+     * @param parameters descriptors of the parameter types.
+     * @param returnType descriptor of the return type.
+     * @return the method descriptor.
+     */
+
+    private static String methodDescriptor(String[] parameters,
+                                           String returnType) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (String parameter : parameters) {
+            descriptor.append(parameter);
+        }
+        return descriptor.append(")").append(returnType).toString();
+    }
+
+}
+
+/**
+ * The name and argument types of a lookup in a MemberTable. Argument types
+ * are compared by identity.
+ */
+
+class MemberKey {
+
+    /**
+     * The name; null for a constructor.
+     */
+    private String name;
+
+    /**
+     * The argument types.
+     */
+    private Type[] args;
+
+    /**
+     * The hash code.
+     */
+    private int hash;
+
+    /**
+     * Construct a MemberKey.
+     *
+     * @param name the name; null for a constructor.
+     * @param args the argument types.
+     */
+
+    public MemberKey(String name, Type[] args) {
+        this.name = name;
+        this.args = args;
+        hash = (name == null ? 0 : name.hashCode()) * 31 + Arrays.hashCode(
+                args);
+    }
+
+    /**
+     * Return true if the argument types are all shared by all the sessions
+     * (see Type.isShared()); false otherwise.
+     *
+     * @return true or false.
+     */
+
+    public boolean isShared() {
+        for (Type arg : args) {
+            if (!arg.isShared()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public boolean equals(Object that) {
+        if (!(that instanceof MemberKey)) {
+            return false;
+        }
+        MemberKey key = (MemberKey) that;
+        return hash == key.hash && (name == null ? key.name == null
+                : name.equals(key.name)) && Arrays.equals(args,
+                key.args);
+    }
+
+}
@@ -0,0 +1,98 @@
+package jminusminus;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+
+/**
+ * Programmatic entry point to the compiler, for programs that embed j--. A
+ * compilation unit is compiled from source text in memory to class files in
+ * memory, and the errors are returned as Diagnostics rather than printed;
+ * nothing is read from or written to the file system, other than the class
+ * files of the JDK (and of any other classes the unit imports) on the class
+ * path.
+ * <p>
+ * Each call compiles in a CompilationSession of its own, so any number of
+ * threads may compile at the same time.
+ */
+
+public class MemoryCompiler {
+
+    /**
+     * Compile a compilation unit.
+     *
+     * @param fileName the name by which the unit is reported in diagnostics
+     *                 (eg Factorial.java).
+     * @param source   the source text.
+     * @return the class files and diagnostics.
+     */
+
+    public static CompilationResult compile(String fileName,
+                                            CharSequence source) {
+        return compile(fileName, new StringReader(source.toString()));
+    }
+
+    /**
+     * Compile a compilation unit whose source is encoded in UTF-8. The
+     * buffer's position is left unchanged.
+     *
+     * @param fileName the name by which the unit is reported in diagnostics.
+     * @param source   the source bytes, from the buffer's position to its
+     *                 limit.
+     * @return the class files and diagnostics.
+     */
+
+    public static CompilationResult compile(String fileName, ByteBuffer source) {
+        return compile(fileName, source.duplicate(), null);
+    }
+
+    /**
+     * Compile a compilation unit read from the specified reader.
+     *
+     * @param fileName the name by which the unit is reported in diagnostics.
+     * @param source   the source.
+     * @return the class files and diagnostics.
+     */
+
+    public static CompilationResult compile(String fileName, Reader source) {
+        return compile(fileName, null, source);
+    }
+
+    /**
+     * Compile a compilation unit whose source is the specified UTF-8 bytes
+     * or, if there are none, is read from the specified reader.
+     *
+     * @param fileName the name by which the unit is reported in diagnostics.
+     * @param bytes    the source bytes, or null.
+     * @param reader   the source, if there are no bytes.
+     * @return the class files and diagnostics.
+     */
+
+    private static CompilationResult compile(String fileName, ByteBuffer bytes,
+                                             Reader reader) {
+        CompilationSession session = new CompilationSession(null, null);
+        LinkedHashMap<String, byte[]> classFiles = new LinkedHashMap<String, byte[]>();
+        session.setClassFiles(classFiles);
+        CompilationSession.setCurrent(session);
+        boolean errorHasOccurred;
+        try {
+            LookaheadScanner scanner = bytes == null ? new LookaheadScanner(
+                    fileName, reader) : new LookaheadScanner(fileName, bytes,
+                    StandardCharsets.UTF_8);
+            errorHasOccurred = Main.compile(scanner, fileName, "", ".", false,
+                    "", false);
+        } catch (RuntimeException e) {
+            session.report(new Diagnostic(null, 0, "Internal compiler error: "
+                    + e));
+            errorHasOccurred = true;
+        } finally {
+            CompilationSession.setCurrent(null);
+            session.close();
+        }
+        return new CompilationResult(errorHasOccurred, classFiles,
+                session.diagnostics());
+    }
+
+}
@@ -11,8 +11,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 /**
  * A class for generating native SPIM code.
@@ -27,15 +26,33 @@ public class NEmitter {
 
     /**
      * Map of maps, one per class in the compilation unit. Each one of them maps
-     * methods in a class to their control flow graph.
+     * methods in a class to their control flow graph. Both keep the order of
+     * the class file, so that the SPIM code written is the same from one run
+     * to the next.
      */
-    private HashMap<CLFile, HashMap<CLMethodInfo, NControlFlowGraph>> classes;
+    private LinkedHashMap<CLFile, LinkedHashMap<CLMethodInfo, NControlFlowGraph>> classes;
 
     /**
      * Destination directory for the native SPIM code.
      */
     private String destDir;
 
+    /**
+     * Register allocation scheme (naive, linear, or graph).
+     */
+    private String ra;
+
+    /**
+     * The SPIM file being written, between open() and close(); null
+     * otherwise.
+     */
+    private PrintWriter out;
+
+    /**
+     * Name of the SPIM file being written.
+     */
+    private String outFile;
+
     /**
      * Whether an error occurred while creating/writing SPIM code.
      */
@@ -50,8 +67,8 @@ public class NEmitter {
      */
 
     private void reportEmitterError(String message, Object... args) {
-        System.err.printf(message, args);
-        System.err.println();
+        CompilationSession.current().report(new Diagnostic(null, 0,
+                String.format(message, args)));
         errorHasOccurred = true;
     }
 
@@ -124,98 +141,135 @@ public class NEmitter {
      */
 
     public NEmitter(String sourceFile, ArrayList<CLFile> clFiles, String ra) {
-        this.sourceFile = sourceFile.substring(sourceFile
-                .lastIndexOf(File.separator) + 1);
-        classes = new HashMap<CLFile, HashMap<CLMethodInfo, NControlFlowGraph>>();
+        this(sourceFile, ra);
         for (CLFile clFile : clFiles) {
-            CLConstantPool cp = clFile.constantPool;
-            HashMap<CLMethodInfo, NControlFlowGraph> methods = new HashMap<CLMethodInfo, NControlFlowGraph>();
-            for (int i = 0; i < clFile.methodsCount; i++) {
-                CLMethodInfo m = clFile.methods.get(i);
-
-                // Build a control flow graph (cfg) for this method.
-                // Each block in the cfg, at the end of this step,
-                // has the JVM bytecode translated into tuple
-                // representation.
-                NControlFlowGraph cfg = new NControlFlowGraph(cp, m);
-
-                // Write the tuples in cfg to STDOUT.
-                PrettyPrinter p = new PrettyPrinter();
-                p.printf("%s %s\n", cfg.name, cfg.desc);
-                cfg.writeTuplesToStdOut(p);
-
-                // Identify blocks in cfg that are loop heads and
-                // loop tails. Also, compute number of backward
-                // branches to blocks.
-                cfg.detectLoops(cfg.basicBlocks.get(0), null);
-
-                // Remove unreachable blocks from cfg.
-                cfg.removeUnreachableBlocks();
-
-                // Compute the dominator of each block in the cfg.
-                cfg.computeDominators(cfg.basicBlocks.get(0), null);
-
-                // Convert the tuples in each block in the cfg to
-                // high-level (HIR) instructions.
-                cfg.tuplesToHir();
-
-                // Eliminate redundant phi functions, i.e., replace
-                // phi functions of the form x = (y, x, x, ..., x)
-                // with y.
-                cfg.eliminateRedundantPhiFunctions();
-
-                // Perform optimizations on the high-level
-                // instructions.
-                cfg.optimize();
-
-                // Write the HIR instructions in cfg to STDOUT.
-                cfg.writeHirToStdOut(p);
-
-                // Convert the HIR instructions in each block in the
-                // cfg to low-level (LIR) instructions.
-                cfg.hirToLir();
-
-                // Resolve phi functions;
-                cfg.resolvePhiFunctions();
-
-                // Compute block order.
-                cfg.orderBlocks();
-
-                // Assign new ids to LIR instructions.
-                cfg.renumberLirInstructions();
-
-                // Write the LIR instructions in cfg to STDOUT.
-                cfg.writeLirToStdOut(p);
-
-                // Save the cfg for the method in a map keyed in by
-                // the CLMethodInfo object for the method.
-                methods.put(m, cfg);
-
-                // Perform register allocation.
-                NRegisterAllocator regAllocator;
-                if (ra.equals("naive")) {
-                    regAllocator = new NNaiveRegisterAllocator(cfg);
-                } else if (ra.equals("linear")) {
-                    regAllocator = new NLinearRegisterAllocator(cfg);
-                } else {
-                    regAllocator = new NGraphRegisterAllocator(cfg);
-                }
-                regAllocator.allocation();
+            add(clFile);
+        }
+    }
 
-                // Write the intervals in cfg to STDOUT.
-                cfg.writeIntervalsToStdOut(p);
+    /**
+     * Construct an NEmitter instance to which classes are added one at a
+     * time, with add().
+     *
+     * @param sourceFile the source j-- program file name.
+     * @param ra         register allocation scheme (naive, linear, or graph).
+     */
 
-                // Replace references to virtual registers in LIR
-                // instructions with references to physical registers.
-                cfg.allocatePhysicalRegisters();
+    public NEmitter(String sourceFile, String ra) {
+        this.sourceFile = sourceFile.substring(sourceFile
+                .lastIndexOf(File.separator) + 1);
+        this.ra = ra;
+        classes = new LinkedHashMap<CLFile, LinkedHashMap<CLMethodInfo, NControlFlowGraph>>();
+    }
 
-                // Write the LIR instructions in cfg to STDOUT.
-                cfg.writeLirToStdOut(p);
+    /**
+     * Build the control flow graphs of the methods of the specified class,
+     * and allocate their registers, ready for writing.
+     *
+     * @param clFile the class.
+     */
+
+    public void add(CLFile clFile) {
+        CompilationSession session = CompilationSession.current();
+        CLConstantPool cp = clFile.constantPool;
+        LinkedHashMap<CLMethodInfo, NControlFlowGraph> methods = new LinkedHashMap<CLMethodInfo, NControlFlowGraph>();
+        for (int i = 0; i < clFile.methodsCount; i++) {
+            CLMethodInfo m = clFile.methods.get(i);
+
+            // Build a control flow graph (cfg) for this method.
+            // Each block in the cfg, at the end of this step,
+            // has the JVM bytecode translated into tuple
+            // representation.
+            session.enterPhase("cfg");
+            NControlFlowGraph cfg = new NControlFlowGraph(cp, m);
+            session.exitPhase();
+
+            // Write the tuples in cfg to STDOUT.
+            PrettyPrinter p = new PrettyPrinter();
+            p.printf("%s %s\n", cfg.name, cfg.desc);
+            cfg.writeTuplesToStdOut(p);
+
+            // Identify blocks in cfg that are loop heads and
+            // loop tails. Also, compute number of backward
+            // branches to blocks.
+            session.enterPhase("cfg");
+            cfg.detectLoops(cfg.basicBlocks.get(0), null);
+
+            // Remove unreachable blocks from cfg.
+            cfg.removeUnreachableBlocks();
+
+            // Compute the dominator of each block in the cfg.
+            cfg.computeDominators(cfg.basicBlocks.get(0), null);
+            session.exitPhase();
+
+            // Convert the tuples in each block in the cfg to
+            // high-level (HIR) instructions.
+            session.enterPhase("hir");
+            cfg.tuplesToHir();
+
+            // Eliminate redundant phi functions, i.e., replace
+            // phi functions of the form x = (y, x, x, ..., x)
+            // with y.
+            cfg.eliminateRedundantPhiFunctions();
+
+            // Perform optimizations on the high-level
+            // instructions.
+            cfg.optimize();
+            session.exitPhase();
+
+            // Write the HIR instructions in cfg to STDOUT.
+            cfg.writeHirToStdOut(p);
+
+            // Convert the HIR instructions in each block in the
+            // cfg to low-level (LIR) instructions.
+            session.enterPhase("lir");
+            cfg.hirToLir();
+
+            // Resolve phi functions;
+            cfg.resolvePhiFunctions();
+
+            // Compute block order.
+            cfg.orderBlocks();
+
+            // Assign new ids to LIR instructions.
+            cfg.renumberLirInstructions();
+            session.exitPhase();
+
+            // Write the LIR instructions in cfg to STDOUT.
+            cfg.writeLirToStdOut(p);
+
+            // Save the cfg for the method in a map keyed in by
+            // the CLMethodInfo object for the method.
+            methods.put(m, cfg);
+
+            // Perform register allocation.
+            session.enterPhase("regalloc");
+            NRegisterAllocator regAllocator;
+            if (ra.equals("naive")) {
+                regAllocator = new NNaiveRegisterAllocator(cfg);
+            } else if (ra.equals("linear")) {
+                regAllocator = new NLinearRegisterAllocator(cfg);
+            } else {
+                regAllocator = new NGraphRegisterAllocator(cfg);
             }
+            regAllocator.allocation();
+            session.exitPhase();
 
-            // Store the cfgs for the methods in this class in a map.
-            classes.put(clFile, methods);
+            // Write the intervals in cfg to STDOUT.
+            cfg.writeIntervalsToStdOut(p);
+
+            // Replace references to virtual registers in LIR
+            // instructions with references to physical registers.
+            session.enterPhase("regalloc");
+            cfg.allocatePhysicalRegisters();
+            session.exitPhase();
+
+            // Write the LIR instructions in cfg to STDOUT.
+            cfg.writeLirToStdOut(p);
         }
+
+        // Store the cfgs for the methods in this class in a map.
+        classes.put(clFile, methods);
     }
 
     /**
@@ -244,70 +298,106 @@ public class NEmitter {
      */
 
     public void write() {
-        String file = "";
+        open();
+        flush();
+        close();
+    }
+
+    /**
+     * Create the SPIM file, and write its header.
+     */
+
+    public void open() {
+        CompilationSession session = CompilationSession.current();
+        outFile = destDir + File.separator + sourceFile.replace(".java", ".s");
         try {
-            file = destDir + File.separator + sourceFile.replace(".java", ".s");
-            PrintWriter out = new PrintWriter(file);
+            out = new PrintWriter(session.file(outFile));
 
             // Header.
-            out.printf("# %s\n", file);
-            out.printf("# Source file: %s\n", sourceFile);
-            out.printf("# Compiled: %s\n\n", Calendar.getInstance().getTime()
-                    .toString());
-
-            // Translate classes and their methods to SPIM.
-            for (CLFile clFile : classes.keySet()) {
-                HashMap<CLMethodInfo, NControlFlowGraph> aClass = classes
-                        .get(clFile);
-                CLConstantPool cp = clFile.constantPool;
-                int nameIndex = ((CLConstantClassInfo) cp
-                        .cpItem(clFile.thisClass)).nameIndex;
-                String className = new String(((CLConstantUtf8Info) cp
-                        .cpItem(nameIndex)).b);
-                for (CLMethodInfo m : aClass.keySet()) {
-                    NControlFlowGraph cfg = aClass.get(m);
-                    String methodName = cfg.name;
-                    String methodDesc = cfg.desc;
-                    if (methodName.equals("<init>")) {
-                        continue;
-                    }
-                    out.printf(".text\n\n");
-                    if (methodName.equals("main")
-                            && methodDesc.equals("([Ljava/lang/String;)V")) {
-                        out.printf("%s:\n", methodName);
-                        cfg.labelPrefix = methodName;
-                    } else {
-                        out.printf("%s.%s:\n", className, methodName);
-                        cfg.labelPrefix = className + "." + methodName;
-                    }
+            out.printf("# %s\n", outFile);
+            out.printf("# Source file: %s\n\n", sourceFile);
+        } catch (FileNotFoundException e) {
+            reportEmitterError("File %s not found", outFile);
+        }
+    }
 
-                    // Setup stack frame for this method
-                    pushStackFrame(cfg, out);
+    /**
+     * Write the code of the classes added since the file was opened, or
+     * since the last flush(), and let go of their control flow graphs.
+     */
 
-                    for (NBasicBlock block : cfg.basicBlocks) {
-                        out.printf("%s.%d:\n", cfg.labelPrefix, block.id);
-                        for (NLIRInstruction lir : block.lir) {
-                            lir.toSpim(out);
-                        }
-                        out.printf("\n");
-                    }
+    public void flush() {
+        if (out == null) {
+            classes.clear();
+            return;
+        }
+
+        // Translate classes and their methods to SPIM.
+        for (CLFile clFile : classes.keySet()) {
+            LinkedHashMap<CLMethodInfo, NControlFlowGraph> aClass = classes
+                    .get(clFile);
+            CLConstantPool cp = clFile.constantPool;
+            int nameIndex = ((CLConstantClassInfo) cp
+                    .cpItem(clFile.thisClass)).nameIndex;
+            String className = new String(((CLConstantUtf8Info) cp
+                    .cpItem(nameIndex)).b);
+            for (CLMethodInfo m : aClass.keySet()) {
+                NControlFlowGraph cfg = aClass.get(m);
+                String methodName = cfg.name;
+                String methodDesc = cfg.desc;
+                if (methodName.equals("<init>")) {
+                    continue;
+                }
+                out.printf(".text\n\n");
+                if (methodName.equals("main")
+                        && methodDesc.equals("([Ljava/lang/String;)V")) {
+                    out.printf("%s:\n", methodName);
+                    cfg.labelPrefix = methodName;
+                } else {
+                    out.printf("%s.%s:\n", className, methodName);
+                    cfg.labelPrefix = className + "." + methodName;
+                }
 
-                    // Pop the stack frame for this method.
-                    popStackFrame(cfg, out);
+                // Setup stack frame for this method
+                pushStackFrame(cfg, out);
 
-                    // Data segment for this cfg storing string
-                    // literals.
-                    if (cfg.data.size() > 0) {
-                        out.printf(".data\n\n");
-                        for (String line : cfg.data) {
-                            out.printf(line);
-                        }
+                for (NBasicBlock block : cfg.basicBlocks) {
+                    out.printf("%s.%d:\n", cfg.labelPrefix, block.id);
+                    for (NLIRInstruction lir : block.lir) {
+                        lir.toSpim(out);
                     }
+                    out.printf("\n");
+                }
+
+                // Pop the stack frame for this method.
+                popStackFrame(cfg, out);
 
-                    out.printf("\n\n");
+                // Data segment for this cfg storing string
+                // literals.
+                if (cfg.data.size() > 0) {
+                    out.printf(".data\n\n");
+                    for (String line : cfg.data) {
+                        out.printf(line);
+                    }
                 }
+
+                out.printf("\n\n");
             }
+        }
+        classes.clear();
+    }
 
+    /**
+     * Write the SPIM runtime at the end of the file, and close it.
+     */
+
+    public void close() {
+        if (out == null) {
+            return;
+        }
+        CompilationSession session = CompilationSession.current();
+        String file = outFile;
+        try {
             // Emit SPIM runtime code; just SPIM.s for now.
             String[] libs = {"SPIM.s"};
             out.printf("# SPIM Runtime\n\n");
@@ -323,6 +413,7 @@ public class NEmitter {
             }
 
             out.close();
+            session.addOutputFile(outFile);
         } catch (FileNotFoundException e) {
             reportEmitterError("File %s not found", file);
         } catch (IOException e) {
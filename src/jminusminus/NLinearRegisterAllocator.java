@@ -37,11 +37,11 @@ public class NLinearRegisterAllocator extends NRegisterAllocator {
 
         // Instantiate usePositions and freePos to be the size of
         // the physical registers used.
-        freePos = new int[NPhysicalRegister.MAX_COUNT];
-        usePos = new int[NPhysicalRegister.MAX_COUNT];
-        blockPos = new int[NPhysicalRegister.MAX_COUNT];
+        freePos = new int[NPhysicalRegister.maxCount()];
+        usePos = new int[NPhysicalRegister.maxCount()];
+        blockPos = new int[NPhysicalRegister.maxCount()];
         regIntervals = new ArrayList<ArrayList<NInterval>>();
-        for (int i = 0; i < NPhysicalRegister.MAX_COUNT; i++) {
+        for (int i = 0; i < NPhysicalRegister.maxCount(); i++) {
             regIntervals.add(new ArrayList<NInterval>());
         }
     }
@@ -177,7 +177,7 @@ public class NLinearRegisterAllocator extends NRegisterAllocator {
         }
 
         // The physical registers available are in NPhysicalRegister.getInfo
-        // static array. This is indexed from 0 to NPhysicalRegister.MAX_COUNT
+        // static array. This is indexed from 0 to NPhysicalRegister.maxCount()
         int reg = this.getBestFreeReg();
         if (freePos[reg] == 0)
             return false;
@@ -204,7 +204,7 @@ public class NLinearRegisterAllocator extends NRegisterAllocator {
      */
 
     private void initFreePositions() {
-        for (int i = 0; i < NPhysicalRegister.MAX_COUNT; i++) {
+        for (int i = 0; i < NPhysicalRegister.maxCount(); i++) {
             freePos[i] = Integer.MAX_VALUE;
         }
     }
@@ -217,7 +217,7 @@ public class NLinearRegisterAllocator extends NRegisterAllocator {
 
     private int getBestFreeReg() {
         int freeRegNumber = 0;
-        for (int i = 0; i < NPhysicalRegister.MAX_COUNT; i++) {
+        for (int i = 0; i < NPhysicalRegister.maxCount(); i++) {
             if (freePos[i] > freePos[freeRegNumber])
                 freeRegNumber = i;
         }
@@ -278,7 +278,7 @@ public class NLinearRegisterAllocator extends NRegisterAllocator {
      */
 
     private void initUseAndBlockPositions() {
-        for (int i = 0; i < NPhysicalRegister.MAX_COUNT; i++) {
+        for (int i = 0; i < NPhysicalRegister.maxCount(); i++) {
             usePos[i] = Integer.MAX_VALUE;
             blockPos[i] = Integer.MAX_VALUE;
         }
@@ -292,7 +292,7 @@ public class NLinearRegisterAllocator extends NRegisterAllocator {
 
     private int getBestBlockedReg() {
         int usableRegNumber = 0;
-        for (int i = 0; i < NPhysicalRegister.MAX_COUNT; i++) {
+        for (int i = 0; i < NPhysicalRegister.maxCount(); i++) {
             if (usePos[i] > usePos[usableRegNumber])
                 usableRegNumber = i;
         }
@@ -104,9 +104,15 @@ class NVirtualRegister extends NRegister {
 class NPhysicalRegister extends NRegister {
 
     /**
-     * Maximum number of physical registers used for allocation, starting at T0.
+     * Return the maximum number of physical registers used for allocation,
+     * starting at T0. This is an option of the current CompilationSession.
+     *
+     * @return the maximum number of registers.
      */
-    public static int MAX_COUNT = 8;
+
+    public static int maxCount() {
+        return CompilationSession.current().maxRegisterCount();
+    }
 
     // Constants identifying the physical registers. These
     // can be used as indices into the static regInfo array
@@ -0,0 +1,227 @@
+package jminusminus;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The compiler-wide table of names. The scanner interns every identifier it
+ * scans, straight from the source buffer, so all the occurrences of a name,
+ * in all the units compiled by this JVM, are one String: it is made once,
+ * and hashed once (String caches its hash). The maps keyed by names, such as
+ * Context's entries and CLConstantPool's index of Utf8 items, then find them
+ * by identity, without comparing characters.
+ * <p>
+ * The table is split into segments, each with a lock of its own, so that
+ * units compiled in parallel seldom wait for one another. Names are never
+ * removed; there are only as many as there are distinct identifiers.
+ */
+
+class Names {
+
+    /**
+     * Number of segments (a power of two).
+     */
+    private static final int SEGMENTS = 32;
+
+    /**
+     * The segments; a name is in the segment picked by the low bits of its
+     * hash.
+     */
+    private static final NameSegment[] segments = new NameSegment[SEGMENTS];
+
+    static {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new NameSegment();
+        }
+    }
+
+    /**
+     * Return the name that is the specified part of a char buffer.
+     *
+     * @param chars  the buffer.
+     * @param offset offset of the name in the buffer.
+     * @param length length of the name.
+     * @return the (unique) name.
+     */
+
+    public static String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return segment(hash).intern(chars, null, null, offset, length, hash);
+    }
+
+    /**
+     * Return the name that is the specified part of a buffer of ASCII bytes.
+     *
+     * @param bytes  the buffer.
+     * @param offset offset of the name in the buffer.
+     * @param length length of the name.
+     * @return the (unique) name.
+     */
+
+    public static String intern(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return segment(hash).intern(null, bytes, null, offset, length, hash);
+    }
+
+    /**
+     * Return the name equal to the specified string.
+     *
+     * @param name the string.
+     * @return the (unique) name.
+     */
+
+    public static String intern(String name) {
+        int hash = name.hashCode();
+        return segment(hash).intern(null, null, name, 0, name.length(),
+                hash);
+    }
+
+    /**
+     * Return the number of names in the table.
+     *
+     * @return the number of names.
+     */
+
+    public static int size() {
+        int size = 0;
+        for (NameSegment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Return the segment for names having the specified hash.
+     *
+     * @param hash the hash.
+     * @return the segment.
+     */
+
+    private static NameSegment segment(int hash) {
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+}
+
+/**
+ * A segment of the table of names: an open-addressed hash table of Strings,
+ * probed linearly.
+ */
+
+class NameSegment {
+
+    /**
+     * The slots; null where empty. At most half of them are used.
+     */
+    private String[] names;
+
+    /**
+     * Number of names in the segment.
+     */
+    private int size;
+
+    /**
+     * Construct an empty NameSegment.
+     */
+
+    public NameSegment() {
+        names = new String[64];
+    }
+
+    /**
+     * Return the name that is the specified part of a char buffer, a byte
+     * buffer or a string (whichever is not null), adding it if it isn't
+     * there yet.
+     *
+     * @param chars  the char buffer, or null.
+     * @param bytes  the (ASCII) byte buffer, or null.
+     * @param string the string, or null.
+     * @param offset offset of the name.
+     * @param length length of the name.
+     * @param hash   hash of the name, as String computes it.
+     * @return the (unique) name.
+     */
+
+    public synchronized String intern(char[] chars, byte[] bytes,
+                                      String string, int offset, int length,
+                                      int hash) {
+        int mask = names.length - 1;
+        int i = (hash >>> 5) & mask;
+        for (String name = names[i]; name != null; name = names[i]) {
+            if (name.hashCode() == hash && name.length() == length
+                    && matches(name, chars, bytes, string, offset)) {
+                return name;
+            }
+            i = (i + 1) & mask;
+        }
+        String name = string != null ? string : chars != null ? new String(
+                chars, offset, length) : new String(bytes, offset, length,
+                StandardCharsets.ISO_8859_1);
+        names[i] = name;
+        if (++size > names.length / 2) {
+            grow();
+        }
+        return name;
+    }
+
+    /**
+     * Return the number of names in the segment.
+     *
+     * @return the number of names.
+     */
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Return true if the specified name has the same characters as the part
+     * of a buffer or string of the same length; false otherwise.
+     *
+     * @param name   the name.
+     * @param chars  the char buffer, or null.
+     * @param bytes  the byte buffer, or null.
+     * @param string the string, or null.
+     * @param offset offset of the part.
+     * @return true or false.
+     */
+
+    private static boolean matches(String name, char[] chars, byte[] bytes,
+                                   String string, int offset) {
+        if (string != null) {
+            return name.equals(string);
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != (chars != null ? chars[offset + i]
+                    : (char) bytes[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Double the number of slots.
+     */
+
+    private void grow() {
+        String[] old = names;
+        names = new String[old.length * 2];
+        int mask = names.length - 1;
+        for (String name : old) {
+            if (name != null) {
+                int i = (name.hashCode() >>> 5) & mask;
+                while (names[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                names[i] = name;
+            }
+        }
+    }
+
+}
@@ -13,10 +13,69 @@ import static jminusminus.TokenKind.*;
  * LookaheadScanner), parses a Java compilation unit (program file), taking
  * tokens from the LookaheadScanner, and produces an abstract syntax tree (AST)
  * for it.
+ * <p>
+ * The AST holds on to the lists of statements, arguments, parameters and so
+ * on that the parser builds, for as long as the unit is being compiled, so
+ * each is trimmed to its size once it is complete.
  */
 
 public class Parser {
 
+    /**
+     * Precedence of a token that isn't a binary operator.
+     */
+    private static final int NONE = 0;
+
+    /**
+     * Precedence of LOR.
+     */
+    private static final int LOGICAL_OR = 1;
+
+    /**
+     * Precedence of LAND.
+     */
+    private static final int LOGICAL_AND = 2;
+
+    /**
+     * Precedence of OR.
+     */
+    private static final int INCLUSIVE_OR = 3;
+
+    /**
+     * Precedence of XOR.
+     */
+    private static final int EXCLUSIVE_OR = 4;
+
+    /**
+     * Precedence of AND.
+     */
+    private static final int BITWISE_AND = 5;
+
+    /**
+     * Precedence of EQUAL and NEQUAL.
+     */
+    private static final int EQUALITY = 6;
+
+    /**
+     * Precedence of GT, GE, LT, LE and INSTANCEOF.
+     */
+    private static final int RELATIONAL = 7;
+
+    /**
+     * Precedence of LSHIFT, RSHIFT and RSHIFT_ZERO.
+     */
+    private static final int SHIFT = 8;
+
+    /**
+     * Precedence of PLUS and MINUS.
+     */
+    private static final int ADDITIVE = 9;
+
+    /**
+     * Precedence of STAR, DIVIDE and REMAINDER.
+     */
+    private static final int MULTIPLICATIVE = 10;
+
     /**
      * The lexical analyzer with which tokens are scanned.
      */
@@ -32,6 +91,12 @@ public class Parser {
      */
     private boolean isRecovered;
 
+    /**
+     * If not null, the class and interface bodies parsed are added to it,
+     * with the spans of their declarations.
+     */
+    private ArrayList<ParsedBody> parsedBodies;
+
     /**
      * Construct a parser from the given lexical analyzer.
      *
@@ -55,6 +120,17 @@ public class Parser {
         return isInError;
     }
 
+    /**
+     * Record the class and interface bodies parsed from now on, with the
+     * spans of their declarations, in the specified list.
+     *
+     * @param parsedBodies the list.
+     */
+
+    public void recordBodies(ArrayList<ParsedBody> parsedBodies) {
+        this.parsedBodies = parsedBodies;
+    }
+
     // ////////////////////////////////////////////////
     // Parsing Support ///////////////////////////////
     // ////////////////////////////////////////////////
@@ -67,7 +143,7 @@ public class Parser {
      */
 
     private boolean see(TokenKind sought) {
-        return (sought == scanner.token().kind());
+        return (sought == scanner.kind());
     }
 
     /**
@@ -102,13 +178,13 @@ public class Parser {
      */
 
     private void mustBe(TokenKind sought) {
-        if (scanner.token().kind() == sought) {
+        if (scanner.kind() == sought) {
             scanner.next();
             isRecovered = true;
         } else if (isRecovered) {
             isRecovered = false;
-            reportParserError("%s found where %s sought", scanner.token()
-                    .image(), sought.image());
+            reportParserError("%s found where %s sought", scanner.image(),
+                    sought.image());
         } else {
             // Do not report the (possibly spurious) error,
             // but rather attempt to recover by forcing a match.
@@ -148,10 +224,8 @@ public class Parser {
     private void reportParserError(String message, Object... args) {
         isInError = true;
         isRecovered = false;
-        System.err
-                .printf("%s:%d: ", scanner.fileName(), scanner.token().line());
-        System.err.printf(message, args);
-        System.err.println();
+        CompilationSession.current().report(new Diagnostic(scanner.fileName(),
+                scanner.line(), String.format(message, args)));
     }
 
     // ////////////////////////////////////////////////
@@ -159,25 +233,21 @@ public class Parser {
     // ////////////////////////////////////////////////
 
     /**
-     * Are we looking at a for-each loop? Look ahead to find
-     * out.
+     * Are we looking at a for-each loop? ie.
+     *
+     * <pre>
+     *   type IDENTIFIER COLON ...
+     * </pre>
+     * <p>
+     * Look ahead to find out.
      *
      * @return true iff we're looking at a for-each loop; false otherwise.
      */
 
     private boolean seeForEachLoop() {
-        scanner.recordPosition();
-        if (seeBasicType() || seeReferenceType()) {
-            type();
-            if (have(IDENTIFIER)) {
-                if (see(COLON)) {
-                    scanner.returnToPosition();
-                    return true;
-                }
-            }
-        }
-        scanner.returnToPosition();
-        return false;
+        int k = typeEnd(0);
+        return k > 0 && scanner.kind(k) == IDENTIFIER
+                && scanner.kind(k + 1) == COLON;
     }
 
     /**
@@ -188,10 +258,7 @@ public class Parser {
      */
 
     private boolean seeIdentLParen() {
-        scanner.recordPosition();
-        boolean result = have(IDENTIFIER) && see(LPAREN);
-        scanner.returnToPosition();
-        return result;
+        return see(IDENTIFIER) && scanner.kind(1) == LPAREN;
     }
 
     /**
@@ -201,10 +268,7 @@ public class Parser {
      * @return true iff we're looking at STATIC LCURLY; false otherwise.
      */
     private boolean seeStaticLCurly() {
-        scanner.recordPosition();
-        boolean result = have(STATIC) && see(LCURLY);
-        scanner.returnToPosition();
-        return result;
+        return see(STATIC) && scanner.kind(1) == LCURLY;
     }
 
     /**
@@ -220,40 +284,19 @@ public class Parser {
      */
 
     private boolean seeCast() {
-        scanner.recordPosition();
-        if (!have(LPAREN)) {
-            scanner.returnToPosition();
+        if (!see(LPAREN)) {
             return false;
         }
-        if (seeBasicType()) {
-            scanner.returnToPosition();
+        if (isBasicType(scanner.kind(1))) {
             return true;
         }
-        if (!see(IDENTIFIER)) {
-            scanner.returnToPosition();
+        // A qualified identifier is ok
+        int k = qualifiedIdentifierEnd(1);
+        if (k < 0) {
             return false;
-        } else {
-            scanner.next(); // Scan the IDENTIFIER
-            // A qualified identifier is ok
-            while (have(DOT)) {
-                if (!have(IDENTIFIER)) {
-                    scanner.returnToPosition();
-                    return false;
-                }
-            }
         }
-        while (have(LBRACK)) {
-            if (!have(RBRACK)) {
-                scanner.returnToPosition();
-                return false;
-            }
-        }
-        if (!have(RPAREN)) {
-            scanner.returnToPosition();
-            return false;
-        }
-        scanner.returnToPosition();
-        return true;
+        k = dimsEnd(k);
+        return k > 0 && scanner.kind(k) == RPAREN;
     }
 
     /**
@@ -270,39 +313,15 @@ public class Parser {
      */
 
     private boolean seeLocalVariableDeclaration() {
-        scanner.recordPosition();
-        if (have(IDENTIFIER)) {
-            // A qualified identifier is ok
-            while (have(DOT)) {
-                if (!have(IDENTIFIER)) {
-                    scanner.returnToPosition();
-                    return false;
-                }
-            }
-        } else if (seeBasicType()) {
-            scanner.next();
-        } else {
-            scanner.returnToPosition();
+        int k = isBasicType(scanner.kind()) ? 1 : qualifiedIdentifierEnd(0);
+        if (k < 0) {
             return false;
         }
-        while (have(LBRACK)) {
-            if (!have(RBRACK)) {
-                scanner.returnToPosition();
-                return false;
-            }
-        }
-        if (!have(IDENTIFIER)) {
-            scanner.returnToPosition();
+        k = dimsEnd(k);
+        if (k < 0 || scanner.kind(k) != IDENTIFIER) {
             return false;
         }
-        while (have(LBRACK)) {
-            if (!have(RBRACK)) {
-                scanner.returnToPosition();
-                return false;
-            }
-        }
-        scanner.returnToPosition();
-        return true;
+        return dimsEnd(k + 1) > 0;
     }
 
     /**
@@ -316,11 +335,7 @@ public class Parser {
      */
 
     private boolean seeBasicType() {
-        if (see(BOOLEAN) || see(CHAR) || see(INT) || see(DOUBLE)) {
-            return true;
-        } else {
-            return false;
-        }
+        return isBasicType(scanner.kind());
     }
 
     /**
@@ -335,19 +350,8 @@ public class Parser {
      */
 
     private boolean seeReferenceType() {
-        if (see(IDENTIFIER)) {
-            return true;
-        } else {
-            scanner.recordPosition();
-            if (have(BOOLEAN) || have(CHAR) || have(INT) || have(DOUBLE)) {
-                if (have(LBRACK) && see(RBRACK)) {
-                    scanner.returnToPosition();
-                    return true;
-                }
-            }
-            scanner.returnToPosition();
-        }
-        return false;
+        return see(IDENTIFIER) || seeBasicType()
+                && scanner.kind(1) == LBRACK && scanner.kind(2) == RBRACK;
     }
 
     /**
@@ -357,10 +361,82 @@ public class Parser {
      */
 
     private boolean seeDims() {
-        scanner.recordPosition();
-        boolean result = have(LBRACK) && see(RBRACK);
-        scanner.returnToPosition();
-        return result;
+        return see(LBRACK) && scanner.kind(1) == RBRACK;
+    }
+
+    /**
+     * Is this token a basic type?
+     *
+     * @param kind the kind of token.
+     * @return true iff it is BOOLEAN, CHAR, INT or DOUBLE; false otherwise.
+     */
+
+    private static boolean isBasicType(TokenKind kind) {
+        return kind == BOOLEAN || kind == CHAR || kind == INT
+                || kind == DOUBLE;
+    }
+
+    /**
+     * Look past a type that starts k tokens ahead, as type() would parse it.
+     *
+     * @param k where the type starts, in tokens after the current one.
+     * @return where the type ends (the token after it), or -1 if there is no
+     * type there.
+     */
+
+    private int typeEnd(int k) {
+        if (isBasicType(scanner.kind(k))) {
+            k++;
+        } else {
+            k = qualifiedIdentifierEnd(k);
+        }
+        while (k > 0 && scanner.kind(k) == LBRACK
+                && scanner.kind(k + 1) == RBRACK) {
+            k += 2;
+        }
+        return k;
+    }
+
+    /**
+     * Look past a qualified identifier that starts k tokens ahead.
+     *
+     * <pre>
+     *   qualifiedIdentifier ::= IDENTIFIER {DOT IDENTIFIER}
+     * </pre>
+     *
+     * @param k where the identifier starts, in tokens after the current one.
+     * @return where it ends (the token after it), or -1 if there is none
+     * there, or a DOT in it isn't followed by an IDENTIFIER.
+     */
+
+    private int qualifiedIdentifierEnd(int k) {
+        if (scanner.kind(k) != IDENTIFIER) {
+            return -1;
+        }
+        for (k++; scanner.kind(k) == DOT; k += 2) {
+            if (scanner.kind(k + 1) != IDENTIFIER) {
+                return -1;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Look past the (possibly empty) {LBRACK RBRACK} that starts k tokens
+     * ahead.
+     *
+     * @param k where the pairs start, in tokens after the current one.
+     * @return where they end (the token after them), or -1 if a LBRACK in
+     * them isn't followed by a RBRACK.
+     */
+
+    private int dimsEnd(int k) {
+        for (; scanner.kind(k) == LBRACK; k += 2) {
+            if (scanner.kind(k + 1) != RBRACK) {
+                return -1;
+            }
+        }
+        return k;
     }
 
     // ////////////////////////////////////////////////
@@ -382,7 +458,7 @@ public class Parser {
      */
 
     public JCompilationUnit compilationUnit() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         TypeName packageName = null; // Default
         if (have(PACKAGE)) {
             packageName = qualifiedIdentifier();
@@ -416,12 +492,13 @@ public class Parser {
      */
 
     private TypeName qualifiedIdentifier() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         mustBe(IDENTIFIER);
-        String qualifiedIdentifier = scanner.previousToken().image();
+        String qualifiedIdentifier = scanner.previousImage();
         while (have(DOT)) {
             mustBe(IDENTIFIER);
-            qualifiedIdentifier += "." + scanner.previousToken().image();
+            qualifiedIdentifier = Names.intern(qualifiedIdentifier + "."
+                    + scanner.previousImage());
         }
         return new TypeName(line, qualifiedIdentifier);
     }
@@ -509,6 +586,7 @@ public class Parser {
             } else {
                 more = false;
             }
+        mods.trimToSize();
         return mods;
     }
 
@@ -530,10 +608,10 @@ public class Parser {
      */
 
     private JClassDeclaration classDeclaration(ArrayList<String> mods) {
-        int line = scanner.token().line();
+        int line = scanner.line();
         mustBe(CLASS);
         mustBe(IDENTIFIER);
-        String name = scanner.previousToken().image();
+        String name = scanner.previousImage();
         Type superClass;
         ArrayList<Type> interfaces = new ArrayList<>();
         if (have(EXTENDS)) {
@@ -563,10 +641,10 @@ public class Parser {
      * @return an AST for the interfaceDeclaration
      */
     private JInterfaceDeclaration interfaceDeclaration(ArrayList<String> mods) {
-        int line = scanner.token().line();
+        int line = scanner.line();
         mustBe(INTERFACE);
         mustBe(IDENTIFIER);
-        String name = scanner.previousToken().image();
+        String name = scanner.previousImage();
         ArrayList<Type> interfaces = new ArrayList<>();
         if (have(EXTENDS)) {
             interfaces.add(qualifiedIdentifier());
@@ -591,31 +669,54 @@ public class Parser {
      */
 
     private JClassBody classBody(int classDeclarationLine) {
-        ArrayList<JMember> members = new ArrayList<JMember>();
-        ArrayList<JBlock> staticBlocks = new ArrayList<JBlock>();
-        ArrayList<JBlock> instanceBlocks = new ArrayList<JBlock>();
+        ParsedBody body = new ParsedBody(false);
         mustBe(LCURLY);
         while (!see(RCURLY) && !see(EOF)) {
-            if (see(LCURLY)) {
-                int line = scanner.token().line();
-                JBlock body = block();
-                instanceBlocks.add(body);
-                // members.add(new JInitializationBlockDeclaration(line, "instance block" + line, body));
-            } else if (seeStaticLCurly()) {
-                mustBe(STATIC);
-                int line = scanner.token().line();
-                JBlock body = block();
-                staticBlocks.add(body);
-                //ArrayList<String> mods = new ArrayList<>();
-                // mods.add("static");
-                // members.add(new JInitializationBlockDeclaration(line, mods, "static block " + line, body));
-
-            } else {
-                members.add(memberDecl(modifiers()));
-            }
+            classBodyDeclaration(body);
         }
         mustBe(RCURLY);
-        return new JClassBody(classDeclarationLine, staticBlocks, instanceBlocks, members);
+        if (parsedBodies != null) {
+            parsedBodies.add(body);
+        }
+        return new JClassBody(classDeclarationLine, body.staticBlocks,
+                body.instanceBlocks, body.members);
+    }
+
+    /**
+     * Parse a declaration in a class body (a member, or a static or instance
+     * block), adding it to the body.
+     *
+     * <pre>
+     *   classBodyDeclaration ::= modifiers memberDecl | [STATIC] block
+     * </pre>
+     *
+     * @param body the body.
+     */
+
+    private void classBodyDeclaration(ParsedBody body) {
+        int start = scanner.start();
+        int line = scanner.line();
+        if (see(LCURLY)) {
+            JBlock block = block();
+            body.instanceBlocks.add(block);
+            // members.add(new JInitializationBlockDeclaration(line, "instance block" + line, block));
+            recordDeclaration(body, block, ParsedDeclaration.INSTANCE_BLOCK,
+                    start, line);
+        } else if (seeStaticLCurly()) {
+            mustBe(STATIC);
+            JBlock block = block();
+            body.staticBlocks.add(block);
+            //ArrayList<String> mods = new ArrayList<>();
+            // mods.add("static");
+            // members.add(new JInitializationBlockDeclaration(line, mods, "static block " + line, block));
+            recordDeclaration(body, block, ParsedDeclaration.STATIC_BLOCK,
+                    start, line);
+        } else {
+            JMember member = memberDecl(modifiers());
+            body.members.add(member);
+            recordDeclaration(body, (JAST) member, ParsedDeclaration.MEMBER,
+                    start, line);
+        }
     }
 
     /**
@@ -629,13 +730,70 @@ public class Parser {
      * @return methods founds
      */
     private ArrayList<JMember> interfaceBody() {
-        ArrayList<JMember> members = new ArrayList<>();
+        ParsedBody body = new ParsedBody(true);
         mustBe(LCURLY);
         while (!see(RCURLY) && !see(EOF)) {
-            members.add(interfaceMemberDecl(modifiers()));
+            interfaceBodyDeclaration(body);
         }
         mustBe(RCURLY);
-        return members;
+        if (parsedBodies != null) {
+            parsedBodies.add(body);
+        }
+        return body.members;
+    }
+
+    /**
+     * Parse a declaration in an interface body, adding it to the body.
+     *
+     * @param body the body.
+     */
+
+    private void interfaceBodyDeclaration(ParsedBody body) {
+        int start = scanner.start();
+        int line = scanner.line();
+        JMember member = interfaceMemberDecl(modifiers());
+        body.members.add(member);
+        recordDeclaration(body, (JAST) member, ParsedDeclaration.MEMBER, start,
+                line);
+    }
+
+    /**
+     * Parse the declarations of a class or interface body, without its
+     * braces, up to the end of the input, adding them to the specified body.
+     * This is how an IncrementalParser reparses the declarations an edit
+     * touches.
+     *
+     * @param body the body.
+     */
+
+    public void bodyDeclarations(ParsedBody body) {
+        while (!see(RCURLY) && !see(EOF)) {
+            if (body.isInterface) {
+                interfaceBodyDeclaration(body);
+            } else {
+                classBodyDeclaration(body);
+            }
+        }
+        mustBe(EOF);
+    }
+
+    /**
+     * If the bodies parsed are being recorded, record the declaration just
+     * parsed in the specified body, with its span in the source.
+     *
+     * @param body        the body.
+     * @param declaration the declaration.
+     * @param kind        what kind of declaration it is.
+     * @param start       position in the source of its first token.
+     * @param line        line of its first token.
+     */
+
+    private void recordDeclaration(ParsedBody body, JAST declaration,
+                                   int kind, int start, int line) {
+        if (parsedBodies != null) {
+            body.declarations.add(new ParsedDeclaration(declaration, kind,
+                    start, scanner.previousEnd(), line));
+        }
     }
 
     /**
@@ -656,12 +814,12 @@ public class Parser {
      */
 
     private JMember memberDecl(ArrayList<String> mods) {
-        int line = scanner.token().line();
+        int line = scanner.line();
         JMember memberDecl = null;
         if (seeIdentLParen()) {
             // A constructor
             mustBe(IDENTIFIER);
-            String name = scanner.previousToken().image();
+            String name = scanner.previousImage();
             ArrayList<JFormalParameter> params = formalParameters();
             ArrayList<Type> exceptions = null;
             if (see(THROWS)) {
@@ -676,7 +834,7 @@ public class Parser {
                 // void method
                 type = Type.VOID;
                 mustBe(IDENTIFIER);
-                String name = scanner.previousToken().image();
+                String name = scanner.previousImage();
                 ArrayList<JFormalParameter> params = formalParameters();
                 ArrayList<Type> exceptions = null;
                 if (see(THROWS)) {
@@ -689,7 +847,7 @@ public class Parser {
                 if (seeIdentLParen()) {
                     // Non void method
                     mustBe(IDENTIFIER);
-                    String name = scanner.previousToken().image();
+                    String name = scanner.previousImage();
                     ArrayList<JFormalParameter> params = formalParameters();
                     ArrayList<Type> exceptions = null;
                     if (see(THROWS)) {
@@ -728,7 +886,7 @@ public class Parser {
             mods.add("public");
         }
 
-        int line = scanner.token().line();
+        int line = scanner.line();
         JMember interfaceMemberDecl = null;
         Type type = null;
         if (have(VOID)) {
@@ -739,7 +897,7 @@ public class Parser {
             // void method
             type = Type.VOID;
             mustBe(IDENTIFIER);
-            String name = scanner.previousToken().image();
+            String name = scanner.previousImage();
             ArrayList<JFormalParameter> params = formalParameters();
             ArrayList<Type> exceptions = null;
             if (see(THROWS)) {
@@ -756,7 +914,7 @@ public class Parser {
                 }
                 // Non void method
                 mustBe(IDENTIFIER);
-                String name = scanner.previousToken().image();
+                String name = scanner.previousImage();
                 ArrayList<JFormalParameter> params = formalParameters();
                 ArrayList<Type> exceptions = null;
                 if (see(THROWS)) {
@@ -801,13 +959,14 @@ public class Parser {
      */
 
     private JBlock block() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         ArrayList<JStatement> statements = new ArrayList<JStatement>();
         mustBe(LCURLY);
         while (!see(RCURLY) && !see(EOF)) {
             statements.add(blockStatement());
         }
         mustBe(RCURLY);
+        statements.trimToSize();
         return new JBlock(line, statements);
     }
 
@@ -849,7 +1008,7 @@ public class Parser {
      */
 
     private JStatement statement() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         if (see(LCURLY)) {
             return block();
         } else if (have(IF)) {
@@ -925,7 +1084,7 @@ public class Parser {
                 mustBe(CATCH);
                 catchParamslist.add(catchParameters());
                 mustBe(IDENTIFIER);
-                catchVariables.add(scanner.previousToken().image());
+                catchVariables.add(scanner.previousImage());
                 mustBe(RPAREN);
                 catchBlocks.add(block());
             }
@@ -991,6 +1150,7 @@ public class Parser {
             parameters.add(formalParameter());
         } while (have(COMMA));
         mustBe(RPAREN);
+        parameters.trimToSize();
         return parameters;
     }
 
@@ -1005,10 +1165,10 @@ public class Parser {
      */
 
     private JFormalParameter formalParameter() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         Type type = type();
         mustBe(IDENTIFIER);
-        String name = scanner.previousToken().image();
+        String name = scanner.previousImage();
         return new JFormalParameter(line, name, type);
     }
 
@@ -1044,6 +1204,7 @@ public class Parser {
         do {
             statements.add(statementExpression());
         } while (have(COMMA));
+        statements.trimToSize();
         return statements;
     }
 
@@ -1060,7 +1221,7 @@ public class Parser {
      */
 
     private JVariableDeclaration localVariableDeclarationStatement() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         ArrayList<String> mods = new ArrayList<String>();
         ArrayList<JVariableDeclarator> vdecls = variableDeclarators(type());
         mustBe(SEMI);
@@ -1084,6 +1245,7 @@ public class Parser {
         do {
             variableDeclarators.add(variableDeclarator(type));
         } while (have(COMMA));
+        variableDeclarators.trimToSize();
         return variableDeclarators;
     }
 
@@ -1100,9 +1262,9 @@ public class Parser {
      */
 
     private JVariableDeclarator variableDeclarator(Type type) {
-        int line = scanner.token().line();
+        int line = scanner.line();
         mustBe(IDENTIFIER);
-        String name = scanner.previousToken().image();
+        String name = scanner.previousImage();
         JExpression initial = have(ASSIGN) ? variableInitializer(type) : null;
         return new JVariableDeclarator(line, name, type, initial);
     }
@@ -1141,7 +1303,7 @@ public class Parser {
      */
 
     private JArrayInitializer arrayInitializer(Type type) {
-        int line = scanner.token().line();
+        int line = scanner.line();
         ArrayList<JExpression> initials = new ArrayList<JExpression>();
         mustBe(LCURLY);
         if (have(RCURLY)) {
@@ -1153,6 +1315,7 @@ public class Parser {
                     .componentType()));
         }
         mustBe(RCURLY);
+        initials.trimToSize();
         return new JArrayInitializer(line, type, initials);
     }
 
@@ -1176,6 +1339,7 @@ public class Parser {
             args.add(expression());
         } while (have(COMMA));
         mustBe(RPAREN);
+        args.trimToSize();
         return args;
     }
 
@@ -1217,8 +1381,7 @@ public class Parser {
         } else if (have(INT)) {
             return Type.INT;
         } else {
-            reportParserError("Type sought where %s found", scanner.token()
-                    .image());
+            reportParserError("Type sought where %s found", scanner.image());
             return Type.ANY;
         }
     }
@@ -1264,7 +1427,7 @@ public class Parser {
      */
 
     private JStatement statementExpression() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         JExpression expr = expression();
         if (expr instanceof JAssignment
                 || expr instanceof JPreIncrementOp
@@ -1315,7 +1478,7 @@ public class Parser {
      */
 
     private JExpression assignmentExpression() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         JExpression lhs = ternaryExpression();
         if (have(ASSIGN)) {
             return new JAssignOp(line, lhs, assignmentExpression());
@@ -1358,15 +1521,15 @@ public class Parser {
      */
 
     private JExpression ternaryExpression() {
-        int line = scanner.token().line();
-        JExpression condition = conditionalOrExpression();
+        int line = scanner.line();
+        JExpression condition = binaryExpression(LOGICAL_OR);
         if (have(QUESTION_MARK)) {
             JExpression ifTrue = assignmentExpression();
             if (have(COLON)) {
                 JExpression ifFalse = ternaryExpression();
                 return new JTernaryExpression(line, condition, ifTrue, ifFalse);
             } else {
-                reportParserError(": sought where %s found", scanner.token().image());
+                reportParserError(": sought where %s found", scanner.image());
             }
         }
 
@@ -1374,273 +1537,166 @@ public class Parser {
     }
 
     /**
-     * Parse a conditional-or expression.
+     * Parse a binary expression: one whose operators (if any) are at the
+     * specified level of precedence or above. The levels, from lowest to
+     * highest, are
      *
      * <pre>
      *   conditionalOrExpression ::= conditionalAndExpression // level 11
      *                                  {LOR conditionalAndExpression}
-     * </pre>
-     *
-     * @return an AST for a conditionalExpression.
-     */
-
-    private JExpression conditionalOrExpression() {
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = conditionalAndExpression();
-        while (more) {
-            if (have(LOR)) {
-                lhs = new JLogicalOrOp(line, lhs, conditionalAndExpression());
-            } else {
-                more = false;
-            }
-        }
-        return lhs;
-    }
-
-    /**
-     * Parse a conditional-and expression.
-     *
-     * <pre>
-     *   conditionalAndExpression ::= equalityExpression // level 10
-     *                                  {LAND equalityExpression}
-     * </pre>
-     *
-     * @return an AST for a conditionalExpression.
-     */
-
-    private JExpression conditionalAndExpression() {
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = inclusiveOrExpression();
-        while (more) {
-            if (have(LAND)) {
-                lhs = new JLogicalAndOp(line, lhs, inclusiveOrExpression());
-            } else {
-                more = false;
-            }
-        }
-        return lhs;
-    }
-
-    /**
-     * Parse a an inclusive-or expression.
-     *
-     * <pre>
+     *   conditionalAndExpression ::= inclusiveOrExpression // level 10
+     *                                  {LAND inclusiveOrExpression}
      *   inclusiveOrExpression ::= exclusiveOrExpression // level 9
      *                                  {OR exclusiveOrExpression}
-     * </pre>
-     *
-     * @return an AST for an inclusiveOrExpression
-     */
-
-    private JExpression inclusiveOrExpression() {
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = exclusiveOrExpression();
-        while (more) {
-            if (have(OR)) {
-                lhs = new JBitwiseInclusiveOrOp(line, lhs, exclusiveOrExpression());
-            } else {
-                more = false;
-            }
-        }
-        return lhs;
-    }
-
-    /**
-     * Parse a an exclusive-or expression.
-     *
-     * <pre>
      *   exclusiveOrExpression ::= andExpression // level 8
      *                                  {XOR andExpression}
-     * </pre>
-     *
-     * @return an AST for an exclusiveOrExpression
-     */
-
-    private JExpression exclusiveOrExpression() {
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = andExpression();
-        while (more) {
-            if (have(XOR)) {
-                lhs = new JBitwiseExclusiveOrOp(line, lhs, andExpression());
-            } else {
-                more = false;
-            }
-        }
-        return lhs;
-    }
-
-    /**
-     * Parse a and expression.
-     *
-     * <pre>
      *   andExpression ::= equalityExpression // level 7
      *                                  {AND equalityExpression}
-     * </pre>
-     *
-     * @return an AST for an andExpression
-     */
-
-    private JExpression andExpression() {
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = equalityExpression();
-        while (more) {
-            if (have(AND)) {
-                lhs = new JBitwiseAndOp(line, lhs, equalityExpression());
-            } else {
-                more = false;
-            }
-        }
-        return lhs;
-    }
-
-    /**
-     * Parse an equality expression.
-     *
-     * <pre>
      *   equalityExpression ::= relationalExpression  // level 6
      *                            {(EQUAL | NEQUAL) relationalExpression}
-     * </pre>
-     *
-     * @return an AST for an equalityExpression.
-     */
-
-    private JExpression equalityExpression() {
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = relationalExpression();
-        while (more) {
-            if (have(EQUAL)) {
-                lhs = new JEqualOp(line, lhs, relationalExpression());
-            } else if (have(NEQUAL)) {
-                lhs = new JNEqualOp(line, lhs, relationalExpression());
-            } else {
-                more = false;
-            }
-        }
-        return lhs;
-    }
-
-    /**
-     * Parse a relational expression.
-     *
-     * <pre>
      *   relationalExpression ::= shiftExpression  // level 5
      *                              [(GT | GE | LT | LE) shiftExpression
      *                              | INSTANCEOF referenceType]
-     * </pre>
-     *
-     * @return an AST for a relationalExpression.
-     */
-
-    private JExpression relationalExpression() {
-        int line = scanner.token().line();
-        JExpression lhs = shiftExpression();
-        if (have(GT)) {
-            return new JGreaterThanOp(line, lhs, shiftExpression());
-        } else if (have(GE)) {
-            return new JGreaterEqualOp(line, lhs, shiftExpression());
-        } else if (have(LT)) {
-            return new JLessThanOp(line, lhs, shiftExpression());
-        } else if (have(LE)) {
-            return new JLessEqualOp(line, lhs, shiftExpression());
-        } else if (have(INSTANCEOF)) {
-            return new JInstanceOfOp(line, lhs, referenceType());
-        } else {
-            return lhs;
-        }
-    }
-
-    /**
-     * Parse a shift expression.
-     *
-     * <pre>
      *   shiftExpression ::= additiveExpression // level 4
      *                            {( << | >> | >>>) additiveExpression }
+     *   additiveExpression ::= multiplicativeExpression // level 3
+     *                            {(PLUS | MINUS) multiplicativeExpression}
+     *   multiplicativeExpression ::= unaryExpression  // level 2
+     *                                  {(STAR | DIVIDE | REMAINDER) unaryExpression}
      * </pre>
+     * <p>
+     * Rather than descending through a method per level for every operand,
+     * we parse by precedence climbing: an operand, then, as long as the next
+     * operator is at the specified level or above, that operator and its
+     * right operand, which is an expression whose operators are all above
+     * the operator's level (so that operators of a level associate to the
+     * left). As the grammar has it, a relational operator's operands have no
+     * relational operators; and the tree (and the line of each node) is the
+     * one the grammar gives.
      *
-     * @return an AST for an shiftExpression.
+     * @param minPrecedence the lowest precedence allowed (see precedence()).
+     * @return an AST for a binary expression.
      */
 
-    private JExpression shiftExpression() {
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = additiveExpression();
-        while (more) {
-            if (have(LSHIFT)) {
-                lhs = new JShiftArLeftOp(line, lhs, additiveExpression());
-            } else if (have(RSHIFT)) {
-                lhs = new JShiftArRightOp(line, lhs, additiveExpression());
-            } else if (have(RSHIFT_ZERO)) {
-                lhs = new JShiftLgRightOp(line, lhs, additiveExpression());
+    private JExpression binaryExpression(int minPrecedence) {
+        int line = scanner.line();
+        JExpression lhs = unaryExpression();
+        int maxPrecedence = MULTIPLICATIVE;
+        int precedence = precedence(scanner.kind());
+        while (precedence >= minPrecedence && precedence <= maxPrecedence) {
+            TokenKind operator = scanner.kind();
+            scanner.next();
+            if (operator == INSTANCEOF) {
+                lhs = new JInstanceOfOp(line, lhs, referenceType());
             } else {
-                more = false;
+                lhs = binaryOp(line, operator, lhs,
+                        binaryExpression(precedence + 1));
             }
+            maxPrecedence = precedence == RELATIONAL ? precedence - 1
+                    : precedence;
+            precedence = precedence(scanner.kind());
         }
         return lhs;
     }
 
     /**
-     * Parse an additive expression.
-     *
-     * <pre>
-     *   additiveExpression ::= multiplicativeExpression // level 3
-     *                            {(PLUS | MINUS) multiplicativeExpression}
-     * </pre>
-     *
-     * @return an AST for an additiveExpression.
-     */
-
-    private JExpression additiveExpression() {
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = multiplicativeExpression();
-        while (more) {
-            if (have(MINUS)) {
-                lhs = new JSubtractOp(line, lhs, multiplicativeExpression());
-            } else if (have(PLUS)) {
-                lhs = new JPlusOp(line, lhs, multiplicativeExpression());
-            } else {
-                more = false;
-            }
+     * Return the precedence of a binary operator (one of the constants
+     * LOGICAL_OR through MULTIPLICATIVE, the higher the tighter), or NONE if
+     * the token isn't a binary operator.
+     *
+     * @param kind the kind of token.
+     * @return its precedence.
+     */
+
+    private static int precedence(TokenKind kind) {
+        switch (kind) {
+            case LOR:
+                return LOGICAL_OR;
+            case LAND:
+                return LOGICAL_AND;
+            case OR:
+                return INCLUSIVE_OR;
+            case XOR:
+                return EXCLUSIVE_OR;
+            case AND:
+                return BITWISE_AND;
+            case EQUAL:
+            case NEQUAL:
+                return EQUALITY;
+            case GT:
+            case GE:
+            case LT:
+            case LE:
+            case INSTANCEOF:
+                return RELATIONAL;
+            case LSHIFT:
+            case RSHIFT:
+            case RSHIFT_ZERO:
+                return SHIFT;
+            case PLUS:
+            case MINUS:
+                return ADDITIVE;
+            case STAR:
+            case DIVIDE:
+            case REMAINDER:
+                return MULTIPLICATIVE;
+            default:
+                return NONE;
         }
-        return lhs;
     }
 
     /**
-     * Parse a multiplicative expression.
-     *
-     * <pre>
-     *   multiplicativeExpression ::= unaryExpression  // level 2
-     *                                  {(STAR | DIVIDE | REMAINDER) unaryExpression}
-     * </pre>
-     *
-     * @return an AST for a multiplicativeExpression.
-     */
-
-    private JExpression multiplicativeExpression() {
-
-        int line = scanner.token().line();
-        boolean more = true;
-        JExpression lhs = unaryExpression();
-        while (more) {
-            if (have(STAR)) {
-                lhs = new JMultiplyOp(line, lhs, unaryExpression());
-            } else if (have(DIVIDE)) {
-                lhs = new JDivideOp(line, lhs, unaryExpression());
-            } else if (have(REMAINDER)) {
-                lhs = new JRemainderOp(line, lhs, unaryExpression());
-            } else {
-                more = false;
-            }
+     * Return an AST for a binary operation.
+     *
+     * @param line     line in which the operation starts.
+     * @param operator the operator (other than INSTANCEOF).
+     * @param lhs      the left operand.
+     * @param rhs      the right operand.
+     * @return an AST for the operation.
+     */
+
+    private static JExpression binaryOp(int line, TokenKind operator,
+                                        JExpression lhs, JExpression rhs) {
+        switch (operator) {
+            case LOR:
+                return new JLogicalOrOp(line, lhs, rhs);
+            case LAND:
+                return new JLogicalAndOp(line, lhs, rhs);
+            case OR:
+                return new JBitwiseInclusiveOrOp(line, lhs, rhs);
+            case XOR:
+                return new JBitwiseExclusiveOrOp(line, lhs, rhs);
+            case AND:
+                return new JBitwiseAndOp(line, lhs, rhs);
+            case EQUAL:
+                return new JEqualOp(line, lhs, rhs);
+            case NEQUAL:
+                return new JNEqualOp(line, lhs, rhs);
+            case GT:
+                return new JGreaterThanOp(line, lhs, rhs);
+            case GE:
+                return new JGreaterEqualOp(line, lhs, rhs);
+            case LT:
+                return new JLessThanOp(line, lhs, rhs);
+            case LE:
+                return new JLessEqualOp(line, lhs, rhs);
+            case LSHIFT:
+                return new JShiftArLeftOp(line, lhs, rhs);
+            case RSHIFT:
+                return new JShiftArRightOp(line, lhs, rhs);
+            case RSHIFT_ZERO:
+                return new JShiftLgRightOp(line, lhs, rhs);
+            case PLUS:
+                return new JPlusOp(line, lhs, rhs);
+            case MINUS:
+                return new JSubtractOp(line, lhs, rhs);
+            case STAR:
+                return new JMultiplyOp(line, lhs, rhs);
+            case DIVIDE:
+                return new JDivideOp(line, lhs, rhs);
+            default:
+                return new JRemainderOp(line, lhs, rhs);
         }
-        return lhs;
-
-
     }
 
     /**
@@ -1658,7 +1714,7 @@ public class Parser {
      */
 
     private JExpression unaryExpression() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         if (have(PLUS)) {
             return new JPositiveOp(line, unaryExpression());
         } else if (have(MINUS)) {
@@ -1690,7 +1746,7 @@ public class Parser {
      */
 
     private JExpression simpleUnaryExpression() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         if (have(LNOT)) {
             return new JLogicalNotOp(line, unaryExpression());
         } else if (have(BITWISE_COMPLEMENT)) {
@@ -1719,7 +1775,7 @@ public class Parser {
      */
 
     private JExpression postfixExpression() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         JExpression primaryExpr = primary();
         while (see(DOT) || see(LBRACK)) {
             primaryExpr = selector(primaryExpr);
@@ -1748,11 +1804,11 @@ public class Parser {
      */
 
     private JExpression selector(JExpression target) {
-        int line = scanner.token().line();
+        int line = scanner.line();
         if (have(DOT)) {
             // Target . selector
             mustBe(IDENTIFIER);
-            String name = scanner.previousToken().image();
+            String name = scanner.previousImage();
             if (see(LPAREN)) {
                 ArrayList<JExpression> args = arguments();
                 return new JMessageExpression(line, target, name, args);
@@ -1785,7 +1841,7 @@ public class Parser {
      */
 
     private JExpression primary() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         if (see(LPAREN)) {
             return parExpression();
         } else if (have(THIS)) {
@@ -1799,7 +1855,7 @@ public class Parser {
                 return new JSuperConstruction(line, arguments());
             } else {
                 mustBe(IDENTIFIER);
-                String name = scanner.previousToken().image();
+                String name = scanner.previousImage();
                 JExpression newTarget = new JSuper(line);
                 if (see(LPAREN)) {
                     return new JMessageExpression(line, newTarget, null, name,
@@ -1844,7 +1900,7 @@ public class Parser {
      */
 
     private JExpression creator() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         Type type = seeBasicType() ? basicType() : qualifiedIdentifier();
         if (see(LPAREN)) {
             ArrayList<JExpression> args = arguments();
@@ -1860,8 +1916,7 @@ public class Parser {
             } else
                 return newArrayDeclarator(line, type);
         } else {
-            reportParserError("( or [ sought where %s found", scanner.token()
-                    .image());
+            reportParserError("( or [ sought where %s found", scanner.image());
             return new JWildExpression(line);
         }
     }
@@ -1916,15 +1971,15 @@ public class Parser {
      */
 
     private JExpression literal() {
-        int line = scanner.token().line();
+        int line = scanner.line();
         if (have(INT_LITERAL)) {
-            return new JLiteralInt(line, scanner.previousToken().image());
+            return new JLiteralInt(line, scanner.previousImage());
         } else if (have(DOUBLE_LITERAL)) {
-            return new JLiteralDouble(line, scanner.previousToken().image());
+            return new JLiteralDouble(line, scanner.previousImage());
         } else if (have(CHAR_LITERAL)) {
-            return new JLiteralChar(line, scanner.previousToken().image());
+            return new JLiteralChar(line, scanner.previousImage());
         } else if (have(STRING_LITERAL)) {
-            return new JLiteralString(line, scanner.previousToken().image());
+            return new JLiteralString(line, scanner.previousImage());
         } else if (have(TRUE)) {
             return new JLiteralTrue(line);
         } else if (have(FALSE)) {
@@ -1932,8 +1987,7 @@ public class Parser {
         } else if (have(NULL)) {
             return new JLiteralNull(line);
         } else {
-            reportParserError("Literal sought where %s found", scanner.token()
-                    .image());
+            reportParserError("Literal sought where %s found", scanner.image());
             return new JWildExpression(line);
         }
     }
@@ -1943,11 +1997,11 @@ public class Parser {
     // private void trace( String message )
     // {
     // System.err.println( "["
-    // + scanner.token().line()
+    // + scanner.line()
     // + ": "
     // + message
     // + ", looking at a: "
     // + scanner.token().tokenRep()
-    // + " = " + scanner.token().image() + "]" );
+    // + " = " + scanner.image() + "]" );
     // }
 }
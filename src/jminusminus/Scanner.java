@@ -2,17 +2,31 @@
 
 package jminusminus;
 
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.LineNumberReader;
-import java.util.Hashtable;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import static jminusminus.TokenKind.*;
 
 /**
  * A lexical analyzer for j--, that has no backtracking mechanism.
  * <p>
+ * The whole of the source is read into a buffer up front, and scanned by
+ * index; identifier and literal images are sliced from the buffer, rather
+ * than built up a character at a time, and identifiers are interned in
+ * Names. Source bytes are scanned as they are, without being decoded, for as
+ * long as they are plain ASCII (as they almost always are); the first byte
+ * that isn't has the rest of the source decoded into characters, and
+ * scanning carries on from those.
+ * <p>
  * When you add a new token to the scanner, you must also add an entry in the
  * TokenKind enum in TokenInfo.java specifying the kind and image of the new
  * token.
@@ -23,17 +37,57 @@ class Scanner {
     /**
      * End of file character.
      */
-    public final static char EOFCH = CharReader.EOFCH;
+    public final static char EOFCH = (char) -1;
+
+    /**
+     * Keywords in j--: those TokenKinds whose images are words, indexed by
+     * length and then by first letter.
+     */
+    private static final TokenKind[][][] keywords = keywords();
+
+    /**
+     * Images of the int literals 0 to 255, which are shared by all the
+     * literals of those values rather than each having its own.
+     */
+    private static final String[] SMALL_INTS = smallInts();
+
+    /**
+     * Source bytes, while they are being scanned undecoded; null once they
+     * have been decoded into the source buffer.
+     */
+    private byte[] sourceBytes;
+
+    /**
+     * Charset of the source bytes.
+     */
+    private Charset charset;
+
+    /**
+     * Source characters; the whole of the source, read up front. Unused
+     * while the source bytes are being scanned.
+     */
+    private char[] source;
+
+    /**
+     * Number of characters (or bytes) in the source buffer.
+     */
+    private int sourceLength;
 
     /**
-     * Keywords in j--.
+     * Position in the source buffer of the character after ch.
      */
-    private Hashtable<String, TokenKind> reserved;
+    private int pos;
 
     /**
-     * Source characters.
+     * Position in the source buffer of ch (sourceLength at the end of file).
      */
-    private CharReader input;
+    private int chPos;
+
+    /**
+     * Line number of the character after ch: one more than the number of new
+     * lines scanned so far.
+     */
+    private int inputLine;
 
     /**
      * Next unscanned character.
@@ -45,6 +99,12 @@ class Scanner {
      */
     private boolean isInError;
 
+    /**
+     * If not null, diagnostics are added here rather than reported to the
+     * current CompilationSession.
+     */
+    private ArrayList<Diagnostic> diagnostics;
+
     /**
      * Source file name.
      */
@@ -55,6 +115,27 @@ class Scanner {
      */
     private int line;
 
+    /**
+     * Position in the source of the token scanned last.
+     */
+    private int tokenStart;
+
+    /**
+     * Length in the source of the token scanned last.
+     */
+    private int tokenLength;
+
+    /**
+     * Line of the token scanned last.
+     */
+    private int tokenLine;
+
+    /**
+     * Image of the token scanned last, or null if that is its text in the
+     * source.
+     */
+    private String tokenImage;
+
     /**
      * Construct a Scanner object.
      *
@@ -63,64 +144,64 @@ class Scanner {
      */
 
     public Scanner(String fileName) throws FileNotFoundException {
-        this.input = new CharReader(fileName);
+        this(fileName, readFully(new FileInputStream(CompilationSession
+                .current().file(fileName))), Charset.defaultCharset(), null);
+    }
+
+    /**
+     * Construct a Scanner object that scans the specified source bytes.
+     *
+     * @param fileName the name by which the source is reported.
+     * @param bytes    the source bytes, from the buffer's position to its
+     *                 limit; the buffer must not change while it is being
+     *                 scanned.
+     * @param charset  the charset in which the source is encoded.
+     */
+
+    public Scanner(String fileName, ByteBuffer bytes, Charset charset) {
+        this(fileName, bytes, charset, null);
+    }
+
+    /**
+     * Construct a Scanner object that reads the source from the specified
+     * reader.
+     *
+     * @param fileName the name by which the source is reported.
+     * @param reader   the source.
+     */
+
+    public Scanner(String fileName, Reader reader) {
+        this(fileName, null, null, reader);
+    }
+
+    /**
+     * Construct a Scanner object that scans the specified bytes or, if
+     * there are none, the whole of the source read from the specified reader.
+     *
+     * @param fileName the name by which the source is reported.
+     * @param bytes    the source bytes, or null if they couldn't be read or
+     *                 there is a reader.
+     * @param charset  the charset in which the source bytes are encoded.
+     * @param reader   the source, or null.
+     */
+
+    private Scanner(String fileName, ByteBuffer bytes, Charset charset,
+                    Reader reader) {
         this.fileName = fileName;
         isInError = false;
-
-        // Keywords in j--
-        reserved = new Hashtable<String, TokenKind>();
-        reserved.put(ABSTRACT.image(), ABSTRACT);
-        reserved.put(BOOLEAN.image(), BOOLEAN);
-        reserved.put(BREAK.image(), BREAK);
-        reserved.put(BYTE.image(), BYTE);
-        reserved.put(CASE.image(), CASE);
-        reserved.put(CATCH.image(), CATCH);
-        reserved.put(CHAR.image(), CHAR);
-        reserved.put(CLASS.image(), CLASS);
-        reserved.put(CONST.image(), CONST);
-        reserved.put(CONTINUE.image(), CONTINUE);
-        reserved.put(DEFAULT.image(), DEFAULT);
-        reserved.put(DO.image(), DO);
-        reserved.put(DOUBLE.image(), DOUBLE);
-        reserved.put(ELSE.image(), ELSE);
-        reserved.put(EXTENDS.image(), EXTENDS);
-        reserved.put(FALSE.image(), FALSE);
-        reserved.put(FINAL.image(), FINAL);
-        reserved.put(FINALLY.image(), FINALLY);
-        reserved.put(FLOAT.image(), FLOAT);
-        reserved.put(FOR.image(), FOR);
-        reserved.put(GOTO.image(), GOTO);
-        reserved.put(IF.image(), IF);
-        reserved.put(IMPLEMENTS.image(), IMPLEMENTS);
-        reserved.put(IMPORT.image(), IMPORT);
-        reserved.put(INSTANCEOF.image(), INSTANCEOF);
-        reserved.put(DOUBLE.image(), DOUBLE);
-        reserved.put(INT.image(), INT);
-        reserved.put(INTERFACE.image(), INTERFACE);
-        reserved.put(LONG.image(), LONG);
-        reserved.put(NATIVE.image(), NATIVE);
-        reserved.put(NEW.image(), NEW);
-        reserved.put(NULL.image(), NULL);
-        reserved.put(PACKAGE.image(), PACKAGE);
-        reserved.put(PRIVATE.image(), PRIVATE);
-        reserved.put(PROTECTED.image(), PROTECTED);
-        reserved.put(PUBLIC.image(), PUBLIC);
-        reserved.put(RETURN.image(), RETURN);
-        reserved.put(SHORT.image(), SHORT);
-        reserved.put(STATIC.image(), STATIC);
-        reserved.put(STRICTFP.image(), STRICTFP);
-        reserved.put(SUPER.image(), SUPER);
-        reserved.put(SWITCH.image(), SWITCH);
-        reserved.put(SYNCHRONIZED.image(), SYNCHRONIZED);
-        reserved.put(THIS.image(), THIS);
-        reserved.put(THROW.image(), THROW);
-        reserved.put(THROWS.image(), THROWS);
-        reserved.put(TRANSIENT.image(), TRANSIENT);
-        reserved.put(TRUE.image(), TRUE);
-        reserved.put(TRY.image(), TRY);
-        reserved.put(VOID.image(), VOID);
-        reserved.put(VOLATILE.image(), VOLATILE);
-        reserved.put(WHILE.image(), WHILE);
+        source = new char[0];
+        if (bytes != null) {
+            setSource(bytes, charset);
+        } else if (reader != null) {
+            try {
+                readSource(reader);
+            } catch (IOException e) {
+                reportScannerError("Unable to read characters from input");
+            }
+        } else {
+            reportScannerError("Unable to read characters from input");
+        }
+        inputLine = 1;
 
         // Prime the pump.
         nextCh();
@@ -133,16 +214,33 @@ class Scanner {
      */
 
     public TokenInfo getNextToken() {
+        TokenKind kind = scan();
+        return new TokenInfo(kind, tokenImage != null ? tokenImage
+                : slice(tokenStart, tokenStart + tokenLength), tokenLine);
+    }
+
+    /**
+     * Scan the next token from input, without allocating anything for it
+     * (other than the image of a char, string or double literal), and
+     * return its kind. Its position, line and image are then given by
+     * tokenStart(), tokenLength(), tokenLine() and tokenImage().
+     *
+     * @return the kind of the token scanned.
+     */
+
+    public TokenKind scan() {
         StringBuffer buffer;
+        int start;
         boolean moreWhiteSpace = true;
         while (moreWhiteSpace) {
             while (isWhitespace(ch)) {
                 nextCh();
             }
+            tokenStart = chPos;
             if (ch == '/') {
                 nextCh();
                 if (ch == '/') {
-                    // CharReader maps all new lines to '\n'
+                    // nextCh() maps all new lines to '\n'
                     while (ch != '\n' && ch != EOFCH) {
                         nextCh();
                     }
@@ -165,172 +263,172 @@ class Scanner {
                     nextCh();
                 } else if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(DIVIDE_ASSIGN, line);
+                    return token(DIVIDE_ASSIGN);
                 } else {
-                    return new TokenInfo(DIVIDE, line);
+                    return token(DIVIDE);
                 }
             }else {
                 moreWhiteSpace = false;
             }
         }
-        line = input.line();
+        line = inputLine;
         switch (ch) {
             case '(':
                 nextCh();
-                return new TokenInfo(LPAREN, line);
+                return token(LPAREN);
             case ')':
                 nextCh();
-                return new TokenInfo(RPAREN, line);
+                return token(RPAREN);
             case '{':
                 nextCh();
-                return new TokenInfo(LCURLY, line);
+                return token(LCURLY);
             case '}':
                 nextCh();
-                return new TokenInfo(RCURLY, line);
+                return token(RCURLY);
             case '[':
                 nextCh();
-                return new TokenInfo(LBRACK, line);
+                return token(LBRACK);
             case ']':
                 nextCh();
-                return new TokenInfo(RBRACK, line);
+                return token(RBRACK);
             case ':':
                 nextCh();
-                return new TokenInfo(COLON, line);
+                return token(COLON);
             case ';':
                 nextCh();
-                return new TokenInfo(SEMI, line);
+                return token(SEMI);
             case ',':
                 nextCh();
-                return new TokenInfo(COMMA, line);
+                return token(COMMA);
             case '=':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(EQUAL, line);
+                    return token(EQUAL);
                 } else {
-                    return new TokenInfo(ASSIGN, line);
+                    return token(ASSIGN);
                 }
             case '!':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(NEQUAL, line);
+                    return token(NEQUAL);
                 } else {
-                    return new TokenInfo(LNOT, line);
+                    return token(LNOT);
                 }
             case '~':
                 nextCh();
-                return new TokenInfo(BITWISE_COMPLEMENT, line);
+                return token(BITWISE_COMPLEMENT);
             case '?':
                 nextCh();
-                return new TokenInfo(QUESTION_MARK, line);
+                return token(QUESTION_MARK);
             case '*':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(STAR_ASSIGN, line);
+                    return token(STAR_ASSIGN);
                 } else {
-                    return new TokenInfo(STAR, line);
+                    return token(STAR);
                 }
             case '%':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(REMAINDER_ASSIGN, line);
+                    return token(REMAINDER_ASSIGN);
                 } else {
-                    return new TokenInfo(REMAINDER, line);
+                    return token(REMAINDER);
                 }
             case '+':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(PLUS_ASSIGN, line);
+                    return token(PLUS_ASSIGN);
                 } else if (ch == '+') {
                     nextCh();
-                    return new TokenInfo(INC, line);
+                    return token(INC);
                 } else {
-                    return new TokenInfo(PLUS, line);
+                    return token(PLUS);
                 }
             case '-':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(MINUS_ASSIGN, line);
+                    return token(MINUS_ASSIGN);
                 } else if (ch == '-') {
                     nextCh();
-                    return new TokenInfo(DEC, line);
+                    return token(DEC);
                 } else {
-                    return new TokenInfo(MINUS, line);
+                    return token(MINUS);
                 }
             case '&':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(AND_ASSIGN, line);
+                    return token(AND_ASSIGN);
                 } else if (ch == '&') {
                     nextCh();
-                    return new TokenInfo(LAND, line);
+                    return token(LAND);
                 } else {
-                    return new TokenInfo(AND, line);
+                    return token(AND);
                 }
             case '|':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(OR_ASSIGN, line);
+                    return token(OR_ASSIGN);
                 } else if (ch == '|') {
                     nextCh();
-                    return new TokenInfo(LOR, line);
+                    return token(LOR);
                 } else {
-                    return new TokenInfo(OR, line);
+                    return token(OR);
                 }
             case '^':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(XOR_ASSIGN, line);
+                    return token(XOR_ASSIGN);
                 } else {
-                    return new TokenInfo(XOR, line);
+                    return token(XOR);
                 }
             case '>':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(GE, line);
+                    return token(GE);
                 } else if (ch == '>') {
                     nextCh();
                     if (ch == '=') {
                         nextCh();
-                        return new TokenInfo(RSHIFT_ASSIGN, line);
+                        return token(RSHIFT_ASSIGN);
                     } else if (ch == '>') {
                         nextCh();
                         if (ch == '=') {
                             nextCh();
-                            return new TokenInfo(RSHIFT_ZERO_ASSIGN, line);
+                            return token(RSHIFT_ZERO_ASSIGN);
                         }
-                        return new TokenInfo(RSHIFT_ZERO, line);
+                        return token(RSHIFT_ZERO);
                     } else {
-                        return new TokenInfo(RSHIFT, line);
+                        return token(RSHIFT);
                     }
                 } else {
-                    return new TokenInfo(GT, line);
+                    return token(GT);
                 }
 
             case '<':
                 nextCh();
                 if (ch == '=') {
                     nextCh();
-                    return new TokenInfo(LE, line);
+                    return token(LE);
                 } else if (ch == '<') {
                     nextCh();
                     if (ch == '=') {
                         nextCh();
-                        return new TokenInfo(LSHIFT_ASSIGN, line);
+                        return token(LSHIFT_ASSIGN);
                     } else {
-                        return new TokenInfo(LSHIFT, line);
+                        return token(LSHIFT);
                     }
                 } else {
-                    return new TokenInfo(LT, line);
+                    return token(LT);
                 }
             case '\'':
                 buffer = new StringBuffer();
@@ -346,7 +444,7 @@ class Scanner {
                 if (ch == '\'') {
                     buffer.append('\'');
                     nextCh();
-                    return new TokenInfo(CHAR_LITERAL, buffer.toString(), line);
+                    return token(CHAR_LITERAL, buffer.toString());
                 } else {
                     // Expected a ' ; report error and try to
                     // recover.
@@ -355,7 +453,7 @@ class Scanner {
                     while (ch != '\'' && ch != ';' && ch != '\n') {
                         nextCh();
                     }
-                    return new TokenInfo(CHAR_LITERAL, buffer.toString(), line);
+                    return token(CHAR_LITERAL, buffer.toString());
                 }
             case '"':
                 buffer = new StringBuffer();
@@ -379,19 +477,19 @@ class Scanner {
                     nextCh();
                     buffer.append("\"");
                 }
-                return new TokenInfo(STRING_LITERAL, buffer.toString(), line);
+                return token(STRING_LITERAL, buffer.toString());
             case '.':
                 nextCh();
                 if (isDigit(ch))
                     return findDouble("", Character.toString(ch));
-                return new TokenInfo(DOT, line);
+                return token(DOT);
             case EOFCH:
-                return new TokenInfo(EOF, line);
+                return token(EOF);
             case '0':
                 // Handle only simple decimal integers for now.
                 nextCh();
                 if (ch == '.') return findDouble("0");
-                return new TokenInfo(INT_LITERAL, "0", line);
+                return token(INT_LITERAL, "0");
             case '1':
             case '2':
             case '3':
@@ -401,34 +499,214 @@ class Scanner {
             case '7':
             case '8':
             case '9':
-                buffer = new StringBuffer();
+                start = chPos;
+                int value = 0;
                 while (isDigit(ch)) {
-                    buffer.append(ch);
+                    if (value < SMALL_INTS.length) {
+                        value = value * 10 + ch - '0';
+                    }
                     nextCh();
                 }
-                if (ch == '.') return findDouble(buffer.toString());
-                return new TokenInfo(INT_LITERAL, buffer.toString(), line);
+                if (ch == '.') {
+                    return findDouble(slice(start, chPos));
+                }
+                // A small one's image is shared; any other's is sliced from
+                // the source only if asked for.
+                return token(INT_LITERAL, value < SMALL_INTS.length
+                        ? SMALL_INTS[value] : null);
             default:
                 if (isIdentifierStart(ch)) {
-                    buffer = new StringBuffer();
+                    start = chPos;
                     while (isIdentifierPart(ch)) {
-                        buffer.append(ch);
                         nextCh();
                     }
-                    String identifier = buffer.toString();
-                    if (reserved.containsKey(identifier)) {
-                        return new TokenInfo(reserved.get(identifier), line);
+                    TokenKind keyword = keyword(start, chPos);
+                    if (keyword != null) {
+                        return token(keyword);
+                    } else if (sourceBytes == null) {
+                        return token(IDENTIFIER, Names.intern(source, start,
+                                chPos - start));
                     } else {
-                        return new TokenInfo(IDENTIFIER, identifier, line);
+                        return token(IDENTIFIER, Names.intern(sourceBytes,
+                                start, chPos - start));
                     }
                 } else {
                     reportScannerError("Unidentified input token: '%c'", ch);
                     nextCh();
-                    return getNextToken();
+                    return scan();
                 }
         }
     }
 
+    /**
+     * Record the token just scanned (ending before ch), whose image is that
+     * of its kind.
+     *
+     * @param kind the kind of the token.
+     * @return the kind.
+     */
+
+    private TokenKind token(TokenKind kind) {
+        return token(kind, kind.image());
+    }
+
+    /**
+     * Record the token just scanned (ending before ch).
+     *
+     * @param kind  the kind of the token.
+     * @param image its image, or null if that is its text in the source.
+     * @return the kind.
+     */
+
+    private TokenKind token(TokenKind kind, String image) {
+        tokenLength = chPos - tokenStart;
+        tokenLine = line;
+        tokenImage = image;
+        return kind;
+    }
+
+    /**
+     * Return the position in the source of the token scanned last.
+     *
+     * @return the position.
+     */
+
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Return the length in the source of the token scanned last.
+     *
+     * @return the length.
+     */
+
+    public int tokenLength() {
+        return tokenLength;
+    }
+
+    /**
+     * Return the line of the token scanned last.
+     *
+     * @return the line.
+     */
+
+    public int tokenLine() {
+        return tokenLine;
+    }
+
+    /**
+     * Return the image of the token scanned last, or null if that is its text
+     * in the source (which slice() returns).
+     *
+     * @return the image, or null.
+     */
+
+    public String tokenImage() {
+        return tokenImage;
+    }
+
+    /**
+     * Return the keyword that is the specified part of the source, or null if
+     * it is not a keyword. Nothing is allocated.
+     *
+     * @param start position of its first character.
+     * @param end   position after its last character.
+     * @return the keyword, or null.
+     */
+
+    private TokenKind keyword(int start, int end) {
+        int length = end - start;
+        char first = sourceBytes == null ? source[start]
+                : (char) sourceBytes[start];
+        if (length >= keywords.length || first < 'a' || first > 'z') {
+            return null;
+        }
+        TokenKind[] candidates = keywords[length][first - 'a'];
+        if (candidates == null) {
+            return null;
+        }
+        for (TokenKind candidate : candidates) {
+            String image = candidate.image();
+            int i = 1;
+            if (sourceBytes == null) {
+                while (i < length && image.charAt(i) == source[start + i]) {
+                    i++;
+                }
+            } else {
+                while (i < length
+                        && image.charAt(i) == sourceBytes[start + i]) {
+                    i++;
+                }
+            }
+            if (i == length) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the keywords table: the TokenKinds whose images are (lowercase)
+     * words, indexed by length and then by first letter.
+     *
+     * @return the table.
+     */
+
+    private static TokenKind[][][] keywords() {
+        int maxLength = 0;
+        for (TokenKind kind : TokenKind.values()) {
+            if (isKeyword(kind)) {
+                maxLength = Math.max(maxLength, kind.image().length());
+            }
+        }
+        TokenKind[][][] keywords = new TokenKind[maxLength + 1][26][];
+        for (TokenKind kind : TokenKind.values()) {
+            if (isKeyword(kind)) {
+                String image = kind.image();
+                TokenKind[] candidates = keywords[image.length()][image
+                        .charAt(0) - 'a'];
+                candidates = candidates == null ? new TokenKind[1] : Arrays
+                        .copyOf(candidates, candidates.length + 1);
+                candidates[candidates.length - 1] = kind;
+                keywords[image.length()][image.charAt(0) - 'a'] = candidates;
+            }
+        }
+        return keywords;
+    }
+
+    /**
+     * Return the images of the int literals 0 to 255.
+     *
+     * @return the images, indexed by value.
+     */
+
+    private static String[] smallInts() {
+        String[] images = new String[256];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = String.valueOf(i);
+        }
+        return images;
+    }
+
+    /**
+     * Return true if the specified kind of token is a keyword, ie if its
+     * image is a (lowercase) word; false otherwise.
+     *
+     * @param kind the kind of token.
+     * @return true or false.
+     */
+
+    private static boolean isKeyword(TokenKind kind) {
+        String image = kind.image();
+        for (int i = 0; i < image.length(); i++) {
+            if (image.charAt(i) < 'a' || image.charAt(i) > 'z') {
+                return false;
+            }
+        }
+        return !image.isEmpty();
+    }
+
     /**
      * Scan and return an escaped character.
      *
@@ -470,28 +748,189 @@ class Scanner {
 
     /**
      * Advance ch to the next character from input, and update the line number.
+     * All new lines ("\n", "\r" and "\r\n") are mapped to '\n'.
      */
 
     private void nextCh() {
-        line = input.line();
+        line = inputLine;
+        chPos = pos;
+        if (pos == sourceLength) {
+            if (ch != EOFCH && ch != '\n') {
+                // The end of file ends an unterminated last line.
+                inputLine++;
+            }
+            ch = EOFCH;
+            return;
+        }
+        if (sourceBytes == null) {
+            ch = source[pos++];
+        } else if (isAscii(sourceBytes[pos])) {
+            ch = (char) sourceBytes[pos++];
+        } else {
+            decodeSource();
+            ch = source[pos++];
+        }
+        if (ch == '\n') {
+            inputLine++;
+        } else if (ch == '\r') {
+            if (pos < sourceLength && (sourceBytes == null ? source[pos]
+                    : (char) sourceBytes[pos]) == '\n') {
+                pos++;
+            }
+            ch = '\n';
+            inputLine++;
+        }
+    }
+
+    /**
+     * Return true if the specified source byte is scanned as it is: a
+     * printable ASCII character or ASCII white space; false otherwise (in
+     * which case it, and the rest of the source, must be decoded).
+     *
+     * @param b the byte.
+     * @return true or false.
+     */
+
+    private static boolean isAscii(byte b) {
+        return b >= ' ' && b < 0x7f || b == '\n' || b == '\t' || b == '\r'
+                || b == '\f';
+    }
+
+    /**
+     * Return true if the specified charset decodes the bytes for which
+     * isAscii() is true to the same ASCII characters; false otherwise.
+     *
+     * @param charset the charset.
+     * @return true or false.
+     */
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        byte[] ascii = new byte[0x7f - ' ' + 4];
+        for (int i = 0; i < ascii.length - 4; i++) {
+            ascii[i] = (byte) (' ' + i);
+        }
+        ascii[ascii.length - 4] = '\n';
+        ascii[ascii.length - 3] = '\t';
+        ascii[ascii.length - 2] = '\r';
+        ascii[ascii.length - 1] = '\f';
+        return new String(ascii, charset).equals(new String(ascii,
+                StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Set the source to the specified bytes; they are scanned undecoded if
+     * the charset allows.
+     *
+     * @param bytes   the source bytes, from the buffer's position to its
+     *                limit.
+     * @param charset the charset in which they are encoded.
+     */
+
+    private void setSource(ByteBuffer bytes, Charset charset) {
+        if (bytes.hasArray() && bytes.arrayOffset() + bytes.position() == 0) {
+            sourceBytes = bytes.array();
+        } else {
+            sourceBytes = new byte[bytes.remaining()];
+            bytes.duplicate().get(sourceBytes);
+        }
+        sourceLength = bytes.remaining();
+        this.charset = charset;
+        if (!isAsciiCompatible(charset)) {
+            decodeSource();
+        }
+    }
+
+    /**
+     * Decode the source bytes into the source buffer, and scan that from now
+     * on. The bytes scanned so far, all ASCII, decode to as many characters,
+     * so positions in the source stay the same.
+     */
+
+    private void decodeSource() {
+        CharBuffer chars = charset.decode(ByteBuffer.wrap(sourceBytes, 0,
+                sourceLength));
+        source = chars.array();
+        sourceLength = chars.limit();
+        sourceBytes = null;
+    }
+
+    /**
+     * Return the specified part of the source as a string.
+     *
+     * @param start position of its first character.
+     * @param end   position after its last character.
+     * @return the string.
+     */
+
+    public String slice(int start, int end) {
+        return sourceBytes == null ? new String(source, start, end - start)
+                : new String(sourceBytes, start, end - start,
+                StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Return the whole of the specified file, closing it, or null if it
+     * can't be read.
+     *
+     * @param file the file.
+     * @return the file's bytes, or null.
+     */
+
+    private static ByteBuffer readFully(FileInputStream file) {
         try {
-            ch = input.nextChar();
-        } catch (Exception e) {
-            reportScannerError("Unable to read characters from input");
+            try {
+                FileChannel channel = file.getChannel();
+                ByteBuffer bytes = ByteBuffer.allocate((int) channel.size());
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes) < 0) {
+                        break;
+                    }
+                }
+                bytes.flip();
+                return bytes;
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the whole of the specified reader into the source buffer.
+     *
+     * @param reader the reader.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    private void readSource(Reader reader) throws IOException {
+        try {
+            source = new char[8192];
+            sourceLength = 0;
+            int count;
+            while ((count = reader.read(source, sourceLength,
+                    source.length - sourceLength)) >= 0) {
+                sourceLength += count;
+                if (sourceLength == source.length) {
+                    source = Arrays.copyOf(source, source.length * 2);
+                }
+            }
+        } finally {
+            reader.close();
         }
     }
 
     /**
      * Assumes the previous char was a dot, finds the remaining decimal part of a number
      */
-    private TokenInfo findDouble(String intPart) {
+    private TokenKind findDouble(String intPart) {
         return findDouble(intPart, "");
     }
 
     /**
      * Continues from a random spot and find all digits, formats it in decimal form
      */
-    private TokenInfo findDouble(String intPart, String doublePart) {
+    private TokenKind findDouble(String intPart, String doublePart) {
         StringBuilder sb = new StringBuilder(doublePart);
         nextCh();
         while (isDigit(ch)) {
@@ -504,7 +943,7 @@ class Scanner {
         }
         if (sb.length() == 0 && intPart.length() == 0)
             reportScannerError("Double requires more than just a dot");
-        return new TokenInfo(DOUBLE_LITERAL, intPart + "." + sb.toString(), line);
+        return token(DOUBLE_LITERAL, intPart + "." + sb.toString());
     }
 
     /**
@@ -518,9 +957,13 @@ class Scanner {
 
     private void reportScannerError(String message, Object... args) {
         isInError = true;
-        System.err.printf("%s:%d: ", fileName, line);
-        System.err.printf(message, args);
-        System.err.println();
+        Diagnostic diagnostic = new Diagnostic(fileName, line, String.format(
+                message, args));
+        if (diagnostics != null) {
+            diagnostics.add(diagnostic);
+        } else {
+            CompilationSession.current().report(diagnostic);
+        }
     }
 
     /**
@@ -545,7 +988,7 @@ class Scanner {
         switch (c) {
             case ' ':
             case '\t':
-            case '\n': // CharReader maps all new lines to '\n'
+            case '\n': // nextCh() maps all new lines to '\n'
             case '\f':
                 return true;
         }
@@ -596,83 +1039,16 @@ class Scanner {
         return fileName;
     }
 
-}
-
-/**
- * A buffered character reader. Abstracts out differences between platforms,
- * mapping all new lines to '\n'. Also, keeps track of line numbers where the
- * first line is numbered 1.
- */
-
-class CharReader {
-
-    /**
-     * A representation of the end of file as a character.
-     */
-    public final static char EOFCH = (char) -1;
-
-    /**
-     * The underlying reader records line numbers.
-     */
-    private LineNumberReader lineNumberReader;
-
     /**
-     * Name of the file that is being read.
-     */
-    private String fileName;
-
-    /**
-     * Construct a CharReader from a file name.
-     *
-     * @param fileName the name of the input file.
-     * @throws FileNotFoundException if the file is not found.
-     */
-
-    public CharReader(String fileName) throws FileNotFoundException {
-        lineNumberReader = new LineNumberReader(new FileReader(fileName));
-        this.fileName = fileName;
-    }
-
-    /**
-     * Scan the next character.
-     *
-     * @return the character scanned.
-     * @throws IOException if an I/O error occurs.
-     */
-
-    public char nextChar() throws IOException {
-        return (char) lineNumberReader.read();
-    }
-
-    /**
-     * The current line number in the source file, starting at 1.
+     * From now on, add the diagnostics found to the specified list, rather
+     * than report them to the current CompilationSession (eg when scanning
+     * on a thread of its own; see TokenPipe).
      *
-     * @return the current line number.
-     */
-
-    public int line() {
-        // LineNumberReader counts lines from 0.
-        return lineNumberReader.getLineNumber() + 1;
-    }
-
-    /**
-     * Return the file name.
-     *
-     * @return the file name.
-     */
-
-    public String fileName() {
-        return fileName;
-    }
-
-    /**
-     * Close the file.
-     *
-     * @throws IOException if an I/O error occurs.
+     * @param diagnostics the list.
      */
 
-    public void close() throws IOException {
-        lineNumberReader.close();
+    public void reportTo(ArrayList<Diagnostic> diagnostics) {
+        this.diagnostics = diagnostics;
     }
 
 }
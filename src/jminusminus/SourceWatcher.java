@@ -0,0 +1,210 @@
+package jminusminus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a source tree for changes to j-- source files (--watch), using the
+ * platform's WatchService. Editors save a file in bursts of events (a
+ * truncate and a write, or a write to a temporary file and a rename), so
+ * events are gathered until the tree has been quiet for QUIET_MILLIS, and
+ * handed over as one batch.
+ */
+
+class SourceWatcher {
+
+    /**
+     * How long the tree must be quiet, in milliseconds, for a burst of
+     * events to be over.
+     */
+    public static final long QUIET_MILLIS = 20;
+
+    /**
+     * The watch service.
+     */
+    private WatchService watchService;
+
+    /**
+     * Root of the source tree.
+     */
+    private Path root;
+
+    /**
+     * Name of the root, as given on the command line.
+     */
+    private String rootName;
+
+    /**
+     * Maps the key of each directory watched to the directory.
+     */
+    private HashMap<WatchKey, Path> dirs;
+
+    /**
+     * Construct a SourceWatcher, and start watching every directory of the
+     * tree.
+     *
+     * @param root     root of the source tree.
+     * @param rootName name of the root, as given on the command line.
+     * @throws IOException if the tree cannot be watched.
+     */
+
+    public SourceWatcher(File root, String rootName) throws IOException {
+        this.root = root.toPath();
+        this.rootName = rootName;
+        watchService = this.root.getFileSystem().newWatchService();
+        dirs = new HashMap<WatchKey, Path>();
+        register(this.root);
+    }
+
+    /**
+     * Return the names of the source files in the tree, sorted.
+     *
+     * @return the source files.
+     * @throws IOException if the tree cannot be read.
+     */
+
+    public ArrayList<String> sourceFiles() throws IOException {
+        return sourceFiles(root);
+    }
+
+    /**
+     * Wait for source files to be created, changed or deleted, and return
+     * the names of those (still) there, in the order they were touched. The
+     * list is empty if source files were only deleted.
+     *
+     * @return the source files touched.
+     * @throws InterruptedException if the thread is interrupted while
+     *                              waiting.
+     */
+
+    public ArrayList<String> awaitChanges() throws InterruptedException {
+        LinkedHashSet<String> changed = new LinkedHashSet<String>();
+        boolean touched = false;
+        while (!touched) {
+            WatchKey key = watchService.take();
+            while (key != null) {
+                Path dir = dirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || dir == null) {
+                        // Events were lost; look at everything.
+                        touched = true;
+                        changed.addAll(sourceFilesOrNone(root));
+                        continue;
+                    }
+                    Path path = dir.resolve((Path) event.context());
+                    if (event.kind() == ENTRY_CREATE
+                            && Files.isDirectory(path)) {
+                        // A new directory (eg one moved in) may already
+                        // hold source files.
+                        try {
+                            register(path);
+                        } catch (IOException e) {
+                            // Gone already.
+                        }
+                        ArrayList<String> added = sourceFilesOrNone(path);
+                        touched |= !added.isEmpty();
+                        changed.addAll(added);
+                    } else if (path.toString().endsWith(".java")) {
+                        touched = true;
+                        if (Files.isRegularFile(path)) {
+                            changed.add(name(path));
+                        }
+                    }
+                }
+                if (!key.reset()) {
+                    dirs.remove(key);
+                }
+                key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return new ArrayList<String>(changed);
+    }
+
+    /**
+     * Watch the specified directory and those under it.
+     *
+     * @param dir the directory.
+     * @throws IOException if a directory cannot be watched.
+     */
+
+    private void register(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            public FileVisitResult preVisitDirectory(Path subDir,
+                                                     BasicFileAttributes attrs)
+                    throws IOException {
+                dirs.put(subDir.register(watchService, ENTRY_CREATE,
+                        ENTRY_MODIFY, ENTRY_DELETE), subDir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Return the names of the source files in the specified directory and
+     * those under it, sorted.
+     *
+     * @param dir the directory.
+     * @return the source files.
+     * @throws IOException if a directory cannot be read.
+     */
+
+    private ArrayList<String> sourceFiles(Path dir) throws IOException {
+        final ArrayList<String> sourceFiles = new ArrayList<String>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            public FileVisitResult visitFile(Path file,
+                                             BasicFileAttributes attrs) {
+                if (file.toString().endsWith(".java") && attrs.isRegularFile()) {
+                    sourceFiles.add(name(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(sourceFiles);
+        return sourceFiles;
+    }
+
+    /**
+     * Return the names of the source files in the specified directory and
+     * those under it, or none if the directory can't be read (eg because it
+     * is already gone).
+     *
+     * @param dir the directory.
+     * @return the source files.
+     */
+
+    private ArrayList<String> sourceFilesOrNone(Path dir) {
+        try {
+            return sourceFiles(dir);
+        } catch (IOException e) {
+            return new ArrayList<String>();
+        }
+    }
+
+    /**
+     * Return the name of the specified file, relative to the root as given on
+     * the command line.
+     *
+     * @param file the file.
+     * @return the name.
+     */
+
+    private String name(Path file) {
+        return new File(rootName, root.relativize(file).toString()).getPath();
+    }
+
+}
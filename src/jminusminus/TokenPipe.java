@@ -0,0 +1,394 @@
+package jminusminus;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free queue of tokens, filled by a lexer thread of its own
+ * that runs a Scanner, and emptied by the LookaheadScanner the parser reads
+ * from (-pipeline). It has exactly one producer and one consumer, so each
+ * side owns one index: the producer writes tokens into the ring and then
+ * publishes how far it got (a volatile write), and the consumer reads them
+ * up to there and publishes how far it got in turn. Indices are published a
+ * batch of tokens at a time, rather than after each token, and a side parks
+ * only when the other has nothing for it, having published its own index
+ * first.
+ * <p>
+ * The diagnostics the Scanner finds on the lexer thread (which has no
+ * CompilationSession) are kept with the token being scanned, and reported to
+ * the unit's CompilationSession when the LookaheadScanner takes that token,
+ * so they come out in the same order as when scanning on the parser's
+ * thread. Images that are the token's text in the source are sliced on the
+ * lexer thread too, since the Scanner may switch from its source bytes to
+ * decoded characters at any time.
+ * <p>
+ * Scanning overlaps parsing only while the lexer thread has a processor of
+ * its own; otherwise the two threads take turns, and handing the tokens over
+ * adds to the work. The pipeline is therefore used only when asked for.
+ */
+
+class TokenPipe implements Runnable {
+
+    /**
+     * Number of tokens the ring holds (a power of two).
+     */
+    private static final int CAPACITY = 4096;
+
+    /**
+     * Number of tokens produced, or consumed, between publications of a
+     * side's index.
+     */
+    private static final int BATCH = 64;
+
+    /**
+     * Number of times a side looks for tokens (or room) again, yielding in
+     * between, before it parks.
+     */
+    private static final int SPINS = 16;
+
+    /**
+     * The scanner, run by the lexer thread.
+     */
+    private Scanner scanner;
+
+    /**
+     * The diagnostics found by the scanner on the lexer thread.
+     */
+    private ArrayList<Diagnostic> reported;
+
+    /**
+     * Kinds (ordinals) of the tokens in the ring.
+     */
+    private int[] kinds;
+
+    /**
+     * Positions in the source of the tokens in the ring.
+     */
+    private int[] starts;
+
+    /**
+     * Lengths in the source of the tokens in the ring.
+     */
+    private int[] lengths;
+
+    /**
+     * Lines of the tokens in the ring.
+     */
+    private int[] lines;
+
+    /**
+     * Images of the tokens in the ring.
+     */
+    private String[] images;
+
+    /**
+     * Diagnostics reported while scanning the tokens in the ring; null for a
+     * token that had none.
+     */
+    private Diagnostic[][] diagnostics;
+
+    /**
+     * Number of tokens produced and published.
+     */
+    private volatile int tail;
+
+    /**
+     * Number of tokens consumed and published.
+     */
+    private volatile int head;
+
+    /**
+     * Number of tokens produced (the producer's own view of tail).
+     */
+    private int produced;
+
+    /**
+     * Number of tokens consumed (the consumer's own view of head).
+     */
+    private int consumed;
+
+    /**
+     * The consumer's last reading of tail.
+     */
+    private int available;
+
+    /**
+     * The producer's last reading of head.
+     */
+    private int freed;
+
+    /**
+     * The lexer thread.
+     */
+    private Thread producer;
+
+    /**
+     * The thread that takes tokens, while it is parked; null otherwise.
+     */
+    private volatile Thread parkedConsumer;
+
+    /**
+     * Whether the lexer thread is parked, waiting for room.
+     */
+    private volatile boolean isProducerParked;
+
+    /**
+     * Whether the consumer is done with the pipe.
+     */
+    private volatile boolean isClosed;
+
+    /**
+     * Whether the lexer thread has stopped, having scanned the end of the
+     * input or failed.
+     */
+    private volatile boolean isDone;
+
+    /**
+     * What made the lexer thread fail; null if it didn't.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Construct a TokenPipe over the specified scanner, and start its lexer
+     * thread.
+     *
+     * @param scanner the scanner, which no other thread may use from now on.
+     */
+
+    public TokenPipe(Scanner scanner) {
+        this.scanner = scanner;
+        reported = new ArrayList<Diagnostic>();
+        scanner.reportTo(reported);
+        kinds = new int[CAPACITY];
+        starts = new int[CAPACITY];
+        lengths = new int[CAPACITY];
+        lines = new int[CAPACITY];
+        images = new String[CAPACITY];
+        diagnostics = new Diagnostic[CAPACITY][];
+        producer = new Thread(this, "j-- lexer " + scanner.fileName());
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * Scan the input, up to its end, into the ring.
+     */
+
+    public void run() {
+        int reportedCount = 0;
+        try {
+            boolean isAtEnd = false;
+            while (!isAtEnd && !isClosed) {
+                if (produced - freed == CAPACITY && !awaitRoom()) {
+                    break;
+                }
+                int i = produced & (CAPACITY - 1);
+                kinds[i] = scanner.scan().ordinal();
+                starts[i] = scanner.tokenStart();
+                lengths[i] = scanner.tokenLength();
+                lines[i] = scanner.tokenLine();
+                String image = scanner.tokenImage();
+                images[i] = image != null ? image : scanner.slice(starts[i],
+                        starts[i] + lengths[i]);
+                if (reported.size() > reportedCount) {
+                    diagnostics[i] = reported.subList(reportedCount,
+                            reported.size()).toArray(new Diagnostic[0]);
+                    reportedCount = reported.size();
+                } else {
+                    diagnostics[i] = null;
+                }
+                produced++;
+                isAtEnd = kinds[i] == TokenKind.EOF.ordinal();
+                if (isAtEnd || produced % BATCH == 0) {
+                    publishTail();
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            isDone = true;
+            publishTail();
+        }
+    }
+
+    /**
+     * Wait for the next token, and return where it is in the ring; it stays
+     * there until release() is called.
+     *
+     * @return index of the token in the ring.
+     * @throws IllegalStateException if the lexer thread failed.
+     */
+
+    public int take() {
+        if (consumed == available) {
+            awaitTokens();
+        }
+        return consumed & (CAPACITY - 1);
+    }
+
+    /**
+     * Let go of the token returned by take().
+     */
+
+    public void release() {
+        consumed++;
+        if (consumed % BATCH == 0) {
+            publishHead();
+        }
+    }
+
+    /**
+     * Return the kind (ordinal) of the token at the specified index.
+     *
+     * @param i index in the ring.
+     * @return the kind.
+     */
+
+    public int kind(int i) {
+        return kinds[i];
+    }
+
+    /**
+     * Return the position in the source of the token at the specified index.
+     *
+     * @param i index in the ring.
+     * @return the position.
+     */
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    /**
+     * Return the length in the source of the token at the specified index.
+     *
+     * @param i index in the ring.
+     * @return the length.
+     */
+
+    public int length(int i) {
+        return lengths[i];
+    }
+
+    /**
+     * Return the line of the token at the specified index.
+     *
+     * @param i index in the ring.
+     * @return the line.
+     */
+
+    public int line(int i) {
+        return lines[i];
+    }
+
+    /**
+     * Return the image of the token at the specified index.
+     *
+     * @param i index in the ring.
+     * @return the image.
+     */
+
+    public String image(int i) {
+        return images[i];
+    }
+
+    /**
+     * Return the diagnostics reported while scanning the token at the
+     * specified index.
+     *
+     * @param i index in the ring.
+     * @return the diagnostics, or null if there were none.
+     */
+
+    public Diagnostic[] diagnostics(int i) {
+        return diagnostics[i];
+    }
+
+    /**
+     * Stop the lexer thread, if it hasn't stopped yet; the consumer is done.
+     */
+
+    public void close() {
+        isClosed = true;
+        if (isProducerParked) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * Publish the number of tokens produced, waking the consumer if it is
+     * parked.
+     */
+
+    private void publishTail() {
+        tail = produced;
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Publish the number of tokens consumed, waking the lexer thread if it
+     * is parked.
+     */
+
+    private void publishHead() {
+        head = consumed;
+        if (isProducerParked) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * Wait until the lexer thread has published tokens not yet consumed.
+     *
+     * @throws IllegalStateException if the lexer thread failed.
+     */
+
+    private void awaitTokens() {
+        publishHead();
+        for (int spins = 0; (available = tail) == consumed; spins++) {
+            if (isDone && (available = tail) == consumed) {
+                throw new IllegalStateException("lexer thread failed",
+                        failure);
+            }
+            if (spins < SPINS) {
+                Thread.yield();
+            } else {
+                parkedConsumer = Thread.currentThread();
+                if (tail == consumed && !isDone) {
+                    LockSupport.park(this);
+                }
+                parkedConsumer = null;
+            }
+        }
+    }
+
+    /**
+     * Wait until the consumer has published room in the ring.
+     *
+     * @return true if there is room; false if the consumer is done with the
+     * pipe.
+     */
+
+    private boolean awaitRoom() {
+        publishTail();
+        for (int spins = 0; produced - (freed = head) == CAPACITY; spins++) {
+            if (isClosed) {
+                return false;
+            }
+            if (spins < SPINS) {
+                Thread.yield();
+            } else {
+                isProducerParked = true;
+                if (produced - head == CAPACITY && !isClosed) {
+                    LockSupport.park(this);
+                }
+                isProducerParked = false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -2,16 +2,18 @@
 
 package jminusminus;
 
-import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Hashtable;
 
 /**
- * For representing j-- types. All types are represented underneath (in the
- * classRep field) by Java objects of type Class. These ojects represent types
- * in Java, so this should ease our interfacing with existing Java classes.
+ * For representing j-- types. A type is known by its JVM descriptor. The
+ * classes and interfaces of the JDK and of the class path are represented by
+ * the ClassSymbols read from their class files, so they are never loaded into
+ * the compiler; only the (partial) classes created for the types declared in
+ * the compilation unit are represented (in the classRep field) by Java objects
+ * of type Class, which reflection is asked about.
  * <p>
  * Class types (reference types that are represented by the identifiers
  * introduced in class declarations) are represented using TypeName. So for now,
@@ -20,17 +22,69 @@ import java.util.Hashtable;
  * <p>
  * IdentifierTypes must be "resolved" at some point, so that all Types having
  * the same name refer to the same Type object. resolve() does this.
+ * <p>
+ * Methods, constructors and fields are looked up in the type's MemberTable,
+ * which reads the type's members once and keeps what lookups in it find.
  */
 
 class Type {
 
     /**
-     * The Type's internal (Java) representation. *
+     * The partial class representing the type, if it is declared in the
+     * compilation unit; null otherwise.
      */
     private Class<?> classRep;
 
     /**
-     * Maps type names to their Type representations.
+     * The class file of the type, if it is a JDK or class path class or
+     * interface; null otherwise.
+     */
+    private ClassSymbol symbol;
+
+    /**
+     * The type's JVM descriptor (null for a TypeName or ArrayTypeName, which
+     * work theirs out).
+     */
+    private String descriptor;
+
+    /**
+     * The type of the elements, if this is an array type; null otherwise.
+     */
+    private Type componentType;
+
+    /**
+     * Whether this is a primitive type (or void).
+     */
+    private boolean isPrimitive;
+
+    /**
+     * Whether the type is shared by all the sessions (see isShared()).
+     */
+    private boolean isShared;
+
+    /**
+     * The superclass of a class read from its class file, once it is found;
+     * null before.
+     */
+    private volatile Type superClass;
+
+    /**
+     * The Java denotation of a class type, once it is worked out; null
+     * before.
+     */
+    private String name;
+
+    /**
+     * The type's members; null until they are first looked for.
+     */
+    private MemberTable memberTable;
+
+    /**
+     * Maps type descriptors to their Type representations. Only the Types of
+     * primitive types, of JDK classes, and of arrays of these are kept here;
+     * those of the partial classes created for a compilation unit, and of
+     * classes compiled from other units, are kept in the unit's
+     * CompilationSession.
      */
     private static Hashtable<String, Type> types = new Hashtable<String, Type>();
 
@@ -102,43 +156,47 @@ class Type {
     /**
      * The null void.
      */
-    public final static Type NULLTYPE = new Type(java.lang.Object.class);
+    public final static Type NULLTYPE = copyOf(OBJECT);
 
     /**
      * A type marker indicating a constructor (having no return type).
      */
-    public final static Type CONSTRUCTOR = new Type(null);
+    public final static Type CONSTRUCTOR = new Type("V", true);
 
     /**
      * A type for indicating a static code block
      */
-    public final static Type STATIC_BLOCK = new Type(null);
+    public final static Type STATIC_BLOCK = new Type("V", true);
 
     /**
      * A type for indicating an instance code block
      */
-    public static final Type INSTANCE_BLOCK = new Type(null);
+    public static final Type INSTANCE_BLOCK = new Type("V", true);
 
     /**
      * The "any" type (denotes wild expressions).
      */
-    public final static Type ANY = new Type(null);
+    public final static Type ANY = new Type("V", true);
 
     /**
      * The throwable type
      */
-    public final static Type THROWABLE = new Type(java.lang.Throwable.class);
+    public final static Type THROWABLE = copyOf(typeFor(
+            java.lang.Throwable.class));
 
     /**
-     * Construct a Type representation for a type from its Java (Class)
-     * representation. Use typeFor() -- that maps types having like classReps to
-     * like Types.
+     * Construct a Type representation for a type given its descriptor. Use
+     * typeFor(), typeForName() or typeForDescriptor() -- they map like
+     * descriptors to like Types. A Type constructed here is a marker (eg
+     * ANY) until its representation is set.
      *
-     * @param classRep the Java representation.
+     * @param descriptor the type's JVM descriptor.
+     * @param isShared   whether the type is shared by all the sessions.
      */
 
-    private Type(Class<?> classRep) {
-        this.classRep = classRep;
+    private Type(String descriptor, boolean isShared) {
+        this.descriptor = descriptor;
+        this.isShared = isShared;
     }
 
     /**
@@ -149,31 +207,191 @@ class Type {
         super();
     }
 
+    /**
+     * Return a Type having the same representation as the specified one, but
+     * a different identity.
+     *
+     * @param type the type.
+     * @return the copy.
+     */
+
+    private static Type copyOf(Type type) {
+        Type copy = new Type(type.descriptor, type.isShared);
+        copy.classRep = type.classRep;
+        copy.symbol = type.symbol;
+        copy.componentType = type.componentType;
+        copy.isPrimitive = type.isPrimitive;
+        return copy;
+    }
+
     /**
      * Construct a Type representation for a type from its (Java) Class
      * representation. Make sure there is a unique Type for each unique type.
+     * Only a partial class is represented by its Class; any other class is
+     * represented by its class file, found by its name.
      *
      * @param classRep the Java representation.
      */
 
     public static Type typeFor(Class<?> classRep) {
-        if (types.get(descriptorFor(classRep)) == null) {
-            types.put(descriptorFor(classRep), new Type(classRep));
+        if (classRep == null) {
+            return VOID;
+        }
+        if (classRep.isPrimitive()) {
+            return typeForDescriptor(descriptorFor(classRep));
+        }
+        if (classRep.isArray()) {
+            return arrayTypeFor(typeFor(classRep.getComponentType()));
+        }
+        if (classRep.getClassLoader() instanceof ByteClassLoader) {
+            Type type = new Type(descriptorFor(classRep), false);
+            type.classRep = classRep;
+            return keep(CompilationSession.current().types(), type);
+        }
+        try {
+            return typeForName(classRep.getName());
+        } catch (ClassNotFoundException e) {
+            throw new NoClassDefFoundError(classRep.getName());
+        }
+    }
+
+    /**
+     * Return the Type for the class having the specified fully qualified name.
+     * A JDK class is read from its class file only the first time it is asked
+     * for; any other class is read through the current CompilationSession, so
+     * that each unit sees the class files as they are when it is compiled. A
+     * class that is not a partial class nor a JDK class was compiled from
+     * another unit, and is recorded as referenced by the current one, however
+     * it was reached.
+     *
+     * @param name fully qualified name of the class.
+     * @return the Type for the class.
+     * @throws ClassNotFoundException if the class cannot be found.
+     */
+
+    public static Type typeForName(String name) throws ClassNotFoundException {
+        String descriptor = "L" + name.replace('.', '/') + ";";
+        Type type = types.get(descriptor);
+        if (type != null) {
+            return type;
+        }
+        CompilationSession session = CompilationSession.peek();
+        type = session == null ? null : session.types().get(descriptor);
+        if (type == null) {
+            ClassSymbol symbol = CompilationSession.jdkClassSymbolForName(name);
+            if (symbol != null) {
+                type = new Type(descriptor, true);
+                type.symbol = symbol;
+                return keep(types, type);
+            }
+            session = CompilationSession.current();
+            symbol = session.classSymbolForName(name);
+            if (symbol == null) {
+                throw new ClassNotFoundException(name);
+            }
+            type = new Type(descriptor, false);
+            type.symbol = symbol;
+            type = keep(session.types(), type);
+        }
+        if (type.classRep == null) {
+            session.addReferencedType(type);
+        }
+        return type;
+    }
+
+    /**
+     * Return the Type having the specified JVM descriptor (eg I, or
+     * [Ljava/lang/String;). A class that cannot be found is taken to be
+     * Type.ANY.
+     *
+     * @param descriptor a well-formed descriptor.
+     * @return the Type.
+     */
+
+    public static Type typeForDescriptor(String descriptor) {
+        switch (descriptor.charAt(0)) {
+        case '[':
+            return arrayTypeFor(typeForDescriptor(descriptor.substring(1)));
+        case 'L':
+            try {
+                return typeForName(descriptor.substring(1,
+                        descriptor.length() - 1).replace('/', '.'));
+            } catch (ClassNotFoundException e) {
+                return ANY;
+            }
+        default:
+            Type type = types.get(descriptor);
+            if (type == null) {
+                type = new Type(descriptor, true);
+                type.isPrimitive = true;
+                type = keep(types, type);
+            }
+            return type;
+        }
+    }
+
+    /**
+     * Return the Type of arrays having elements of the specified type.
+     *
+     * @param componentType the type of the elements.
+     * @return the array type.
+     */
+
+    public static Type arrayTypeFor(Type componentType) {
+        String descriptor = "[" + componentType.toDescriptor();
+        Hashtable<String, Type> types = componentType.isShared() ? Type.types
+                : CompilationSession.current().types();
+        Type type = types.get(descriptor);
+        if (type == null) {
+            type = new Type(descriptor, componentType.isShared());
+            type.componentType = componentType;
+            type = keep(types, type);
+        }
+        return type;
+    }
+
+    /**
+     * Keep the specified type in the specified map, unless another thread has
+     * kept one with the same descriptor first.
+     *
+     * @param types the map, from descriptors to types.
+     * @param type  the type.
+     * @return the type kept.
+     */
+
+    private static Type keep(Hashtable<String, Type> types, Type type) {
+        synchronized (types) {
+            Type kept = types.get(type.descriptor);
+            if (kept == null) {
+                kept = type;
+                types.put(type.descriptor, type);
+            }
+            return kept;
         }
-        return types.get(descriptorFor(classRep));
     }
 
     /**
      * Return the class representation for a type, appropriate for dealing with
-     * the Java reflection API.
+     * the Java reflection API. Only a type declared in the compilation unit
+     * has one.
      *
-     * @return the Class representation for this type.
+     * @return the (partial) Class representation for this type, or null.
      */
 
     public Class<?> classRep() {
         return classRep;
     }
 
+    /**
+     * Return the class file of a JDK or class path class or interface.
+     *
+     * @return the ClassSymbol, or null if this type has none.
+     */
+
+    ClassSymbol classSymbol() {
+        return symbol;
+    }
+
     /**
      * This setter is used by JCompilationUnit.preAnalyze() to set the classRep
      * to the specified partial class, computed during pre-analysis.
@@ -181,8 +399,36 @@ class Type {
      * @param classRep the partial class.
      */
 
-    public void setClassRep(Class<?> classRep) {
+    public synchronized void setClassRep(Class<?> classRep) {
         this.classRep = classRep;
+        memberTable = null;
+    }
+
+    /**
+     * Is this type shared by all the sessions? The primitive types, the JDK's
+     * classes and interfaces, arrays of these, and the markers (eg ANY) are;
+     * the types declared in a compilation unit, those of the class path, and
+     * arrays of these, belong to a session.
+     *
+     * @return true or false.
+     */
+
+    public boolean isShared() {
+        return isShared;
+    }
+
+    /**
+     * Return the type's MemberTable, making it the first time it is asked
+     * for (or the first time since the type's partial class was replaced).
+     *
+     * @return the member table.
+     */
+
+    synchronized MemberTable memberTable() {
+        if (memberTable == null) {
+            memberTable = new MemberTable(this);
+        }
+        return memberTable;
     }
 
     /**
@@ -203,17 +449,17 @@ class Type {
      */
 
     public boolean isArray() {
-        return classRep.isArray();
+        return componentType != null;
     }
 
     /**
      * An array type's component type. Meaningful only for array types.
      *
-     * @return the component type.
+     * @return the component type (void for a type that is not an array).
      */
 
     public Type componentType() {
-        return typeFor(classRep.getComponentType());
+        return componentType == null ? VOID : componentType;
     }
 
     /**
@@ -224,8 +470,24 @@ class Type {
      */
 
     public Type superClass() {
-        return classRep == null || classRep.getSuperclass() == null ? null
-                : typeFor(classRep.getSuperclass());
+        if (classRep != null) {
+            return classRep.getSuperclass() == null ? null
+                    : typeFor(classRep.getSuperclass());
+        }
+        if (componentType != null) {
+            return OBJECT;
+        }
+        if (symbol == null || isInterface() || symbol.superName() == null) {
+            return null;
+        }
+        Type superClass = this.superClass;
+        if (superClass == null) {
+            superClass = typeForInternalName(symbol.superName());
+            if (superClass != null && (superClass.isShared() || !isShared)) {
+                this.superClass = superClass;
+            }
+        }
+        return superClass;
     }
 
     /**
@@ -236,18 +498,41 @@ class Type {
      */
 
     public ArrayList<Type> interfaces() {
-        if (classRep == null) {
-            return new ArrayList<Type>();
-        }
         ArrayList<Type> types = new ArrayList<>();
-        Class<?>[] interfaces = classRep.getInterfaces();
-
-        for (Class<?> iface : interfaces) {
-            types.add(typeFor(iface));
+        if (classRep != null) {
+            for (Class<?> iface : classRep.getInterfaces()) {
+                types.add(typeFor(iface));
+            }
+        } else if (componentType != null) {
+            types.add(typeFor(Cloneable.class));
+            types.add(typeFor(java.io.Serializable.class));
+        } else if (symbol != null) {
+            for (String name : symbol.interfaceNames()) {
+                Type iface = typeForInternalName(name);
+                if (iface != null) {
+                    types.add(iface);
+                }
+            }
         }
         return types;
     }
 
+    /**
+     * Return the Type of the class having the specified internal name (as a
+     * class file names it).
+     *
+     * @param name the internal name.
+     * @return the Type, or null if the class cannot be found.
+     */
+
+    private static Type typeForInternalName(String name) {
+        try {
+            return typeForName(name.replace('/', '.'));
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
     /**
      * Is this a primitive type?
      *
@@ -255,7 +540,7 @@ class Type {
      */
 
     public boolean isPrimitive() {
-        return classRep.isPrimitive();
+        return isPrimitive;
     }
 
     /**
@@ -265,7 +550,8 @@ class Type {
      */
 
     public boolean isInterface() {
-        return classRep.isInterface();
+        return classRep != null ? classRep.isInterface() : symbol != null
+                && (symbol.accessFlags() & Modifier.INTERFACE) != 0;
     }
 
     /**
@@ -285,7 +571,7 @@ class Type {
      */
 
     public boolean isFinal() {
-        return Modifier.isFinal(classRep.getModifiers());
+        return Modifier.isFinal(modifiers());
     }
 
     /**
@@ -295,7 +581,29 @@ class Type {
      */
 
     public boolean isAbstract() {
-        return Modifier.isAbstract(classRep.getModifiers());
+        return Modifier.isAbstract(modifiers());
+    }
+
+    /**
+     * Return the type's modifiers, as Class.getModifiers() would.
+     *
+     * @return the modifiers.
+     */
+
+    private int modifiers() {
+        if (classRep != null) {
+            return classRep.getModifiers();
+        }
+        if (componentType != null) {
+            return componentType.modifiers() & (Modifier.PUBLIC
+                    | Modifier.PROTECTED | Modifier.PRIVATE) | Modifier.FINAL
+                    | Modifier.ABSTRACT;
+        }
+        if (symbol != null) {
+            return symbol.accessFlags() & ~CLConstants.ACC_SUPER;
+        }
+        return isPrimitive ? Modifier.PUBLIC | Modifier.FINAL
+                | Modifier.ABSTRACT : 0;
     }
 
     /**
@@ -306,7 +614,33 @@ class Type {
      */
 
     public boolean isJavaAssignableFrom(Type that) {
-        return this.classRep.isAssignableFrom(that.classRep);
+        if (this.equals(that)) {
+            return true;
+        }
+        if (this.isPrimitive() || that.isPrimitive()) {
+            return false;
+        }
+        if (that.isArray()) {
+            return this.isArray() ? this.componentType.isReference()
+                    && that.componentType.isReference()
+                    && this.componentType.isJavaAssignableFrom(
+                    that.componentType) : this.equals(OBJECT)
+                    || this.toDescriptor().equals("Ljava/lang/Cloneable;")
+                    || this.toDescriptor().equals("Ljava/io/Serializable;");
+        }
+        if (this.equals(OBJECT)) {
+            return that.classRep != null || that.symbol != null;
+        }
+        Type superClass = that.superClass();
+        if (superClass != null && this.isJavaAssignableFrom(superClass)) {
+            return true;
+        }
+        for (Type iface : that.interfaces()) {
+            if (this.isJavaAssignableFrom(iface)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     // Returns true if access to method b is less
@@ -337,7 +671,7 @@ class Type {
                     !candidate.isFinal() &&
                     candidate.equals(method) &&
                     candidate.returnType() == method.returnType() &&
-                    candidate.name() == method.name() &&
+                    candidate.name().equals(method.name()) &&
                     isLessOrEquallyRestrictive(candidate, method)) {
                 return true;
             }
@@ -386,9 +720,9 @@ class Type {
 
     private ArrayList<Method> declaredAbstractMethods() {
         ArrayList<Method> declaredAbstractMethods = new ArrayList<Method>();
-        for (java.lang.reflect.Method method : classRep.getDeclaredMethods()) {
-            if (Modifier.isAbstract(method.getModifiers())) {
-                declaredAbstractMethods.add(new Method(method));
+        for (Method method : memberTable().methods()) {
+            if (method.isAbstract()) {
+                declaredAbstractMethods.add(method);
             }
         }
         return declaredAbstractMethods;
@@ -402,9 +736,9 @@ class Type {
 
     private ArrayList<Method> declaredConcreteMethods() {
         ArrayList<Method> declaredConcreteMethods = new ArrayList<Method>();
-        for (java.lang.reflect.Method method : classRep.getDeclaredMethods()) {
-            if (!Modifier.isAbstract(method.getModifiers())) {
-                declaredConcreteMethods.add(new Method(method));
+        for (Method method : memberTable().methods()) {
+            if (!method.isAbstract()) {
+                declaredConcreteMethods.add(method);
             }
         }
         return declaredConcreteMethods;
@@ -426,7 +760,7 @@ class Type {
                 return;
             }
         }
-        JAST.compilationUnit.reportSemanticError(line,
+        JAST.compilationUnit().reportSemanticError(line,
                 "Type %s doesn't match any of the expected types %s", this,
                 Arrays.toString(expectedTypes));
     }
@@ -456,7 +790,7 @@ class Type {
      */
     public void mustMatchOrInheritFrom(int line, Type superClass) {
         if (matchesOrInheritFrom(superClass)) return;
-        JAST.compilationUnit.reportSemanticError(line,
+        JAST.compilationUnit().reportSemanticError(line,
                 "Type %s doesn't inherit from type %s", this, superClass);
     }
 
@@ -476,7 +810,7 @@ class Type {
             t = t.superClass();
         }
 
-        JAST.compilationUnit.reportSemanticError(line,
+        JAST.compilationUnit().reportSemanticError(line,
                 "Type %s doesn't inherit from type %s", this, superClass);
     }
 
@@ -490,7 +824,7 @@ class Type {
 
     public void mustMatchExpected(int line, Type expectedType) {
         if (!matchesExpected(expectedType)) {
-            JAST.compilationUnit.reportSemanticError(line,
+            JAST.compilationUnit().reportSemanticError(line,
                     "Type %s doesn't match type %s", this, expectedType);
         }
     }
@@ -510,10 +844,24 @@ class Type {
     }
 
 
-    public static boolean argTypesMatchOrInheritFrom(Class<?>[] givenArgs, Class<?>[] methodArgs) {
+    /**
+     * Do the argument types match or inherit from the parameter types? A
+     * helper used for finding candidate methods. Each argument is matched as
+     * the type its descriptor names: the null type as java.lang.Object, and
+     * ANY as void.
+     *
+     * @param givenArgs  the argument types.
+     * @param methodArgs the parameter types of a method.
+     * @return true iff each argument type matches or inherits from the
+     * corresponding parameter type.
+     */
+
+    public static boolean argTypesMatchOrInheritFrom(Type[] givenArgs,
+                                                     Type[] methodArgs) {
         if (givenArgs.length != methodArgs.length) return false;
         for (int i = 0; i < givenArgs.length; i++)
-            if (!Type.typeFor(givenArgs[i]).matchesOrInheritFrom(Type.typeFor(methodArgs[i])))
+            if (!typeForDescriptor(givenArgs[i].toDescriptor())
+                    .matchesOrInheritFrom(methodArgs[i]))
                 return false;
         return true;
     }
@@ -522,24 +870,108 @@ class Type {
      * Do argument types match? A helper used for finding candidate methods and
      * constructors.
      *
-     * @param argTypes1 arguments (classReps) of one method.
-     * @param argTypes2 arguments (classReps) of another method.
+     * @param argTypes1 descriptors of the argument types of one method.
+     * @param argTypes2 descriptors of the argument types of another method.
      * @return true iff all corresponding types of argTypes1 and argTypes2
      * match.
      */
 
-    public static boolean argTypesMatch(Class<?>[] argTypes1,
-                                        Class<?>[] argTypes2) {
-        if (argTypes1.length != argTypes2.length) {
-            return false;
+    public static boolean argTypesMatch(String[] argTypes1,
+                                        String[] argTypes2) {
+        return Arrays.equals(argTypes1, argTypes2);
+    }
+
+    /**
+     * Return the descriptors of the specified types.
+     *
+     * @param types the types.
+     * @return their descriptors.
+     */
+
+    public static String[] descriptorsFor(Type[] types) {
+        String[] descriptors = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            descriptors[i] = types[i].toDescriptor();
         }
-        for (int i = 0; i < argTypes1.length; i++) {
-            if (!Type.descriptorFor(argTypes1[i]).equals(
-                    Type.descriptorFor(argTypes2[i]))) {
-                return false;
+        return descriptors;
+    }
+
+    /**
+     * Return the descriptors of the parameter types of the method having
+     * the specified descriptor.
+     *
+     * @param descriptor a method descriptor (eg (I[Ljava/lang/String;)V).
+     * @return the parameter descriptors (eg I and [Ljava/lang/String;), or
+     * null if the method descriptor is not well-formed.
+     */
+
+    public static String[] parameterDescriptors(String descriptor) {
+        if (!descriptor.startsWith("(")) {
+            return null;
+        }
+        ArrayList<String> parameters = new ArrayList<String>();
+        int at = 1;
+        while (at < descriptor.length() && descriptor.charAt(at) != ')') {
+            int end = descriptorEnd(descriptor, at);
+            if (end < 0) {
+                return null;
             }
+            parameters.add(descriptor.substring(at, end));
+            at = end;
+        }
+        if (at >= descriptor.length()) {
+            return null;
+        }
+        String returnType = descriptor.substring(at + 1);
+        if (!returnType.equals("V") && !isFieldDescriptor(returnType)) {
+            return null;
+        }
+        return parameters.toArray(new String[parameters.size()]);
+    }
+
+    /**
+     * Is the specified string a well-formed descriptor of a field's type?
+     *
+     * @param descriptor the string.
+     * @return true or false.
+     */
+
+    public static boolean isFieldDescriptor(String descriptor) {
+        return descriptorEnd(descriptor, 0) == descriptor.length();
+    }
+
+    /**
+     * Return the position just past the descriptor of a field's type (not
+     * void) starting at the specified position of the specified string.
+     *
+     * @param descriptor the string.
+     * @param at         the position.
+     * @return the position past the descriptor, or -1 if there is none.
+     */
+
+    private static int descriptorEnd(String descriptor, int at) {
+        while (at < descriptor.length() && descriptor.charAt(at) == '[') {
+            at++;
+        }
+        if (at >= descriptor.length()) {
+            return -1;
+        }
+        switch (descriptor.charAt(at)) {
+        case 'B':
+        case 'C':
+        case 'D':
+        case 'F':
+        case 'I':
+        case 'J':
+        case 'S':
+        case 'Z':
+            return at + 1;
+        case 'L':
+            int end = descriptor.indexOf(';', at);
+            return end > at + 1 ? end + 1 : -1;
+        default:
+            return -1;
         }
-        return true;
     }
 
     /**
@@ -550,7 +982,11 @@ class Type {
      */
 
     public String simpleName() {
-        return classRep.getSimpleName();
+        if (componentType != null) {
+            return componentType.simpleName() + "[]";
+        }
+        String name = toString();
+        return name.substring(name.lastIndexOf('.') + 1);
     }
 
     /**
@@ -561,7 +997,39 @@ class Type {
      */
 
     public String toString() {
-        return toJava(this.classRep);
+        if (componentType != null) {
+            return componentType.toString() + "[]";
+        }
+        if (isPrimitive) {
+            switch (descriptor.charAt(0)) {
+            case 'B':
+                return "byte";
+            case 'C':
+                return "char";
+            case 'D':
+                return "double";
+            case 'F':
+                return "float";
+            case 'I':
+                return "int";
+            case 'J':
+                return "long";
+            case 'S':
+                return "short";
+            case 'Z':
+                return "boolean";
+            default:
+                return "void";
+            }
+        }
+        if (!descriptor.startsWith("L")) {
+            return "Null";
+        }
+        if (name == null) {
+            name = descriptor.substring(1, descriptor.length() - 1).replace(
+                    '/', '.');
+        }
+        return name;
     }
 
     /**
@@ -572,7 +1040,7 @@ class Type {
      */
 
     public String toDescriptor() {
-        return descriptorFor(classRep);
+        return descriptor;
     }
 
     /**
@@ -583,14 +1051,17 @@ class Type {
      * @return the JVM descriptor.
      */
 
-    private static String descriptorFor(Class<?> cls) {
+    static String descriptorFor(Class<?> cls) {
         return cls == null ? "V" : cls == void.class ? "V"
                 : cls.isArray() ? "[" + descriptorFor(cls.getComponentType())
                 : cls.isPrimitive() ? (cls == int.class ? "I"
                 : cls == char.class ? "C"
                 : cls == boolean.class ? "Z"
                 : cls == double.class ? "D"
-                : "?")
+                : cls == long.class ? "J"
+                : cls == float.class ? "F"
+                : cls == byte.class ? "B"
+                : "S")
                 : "L" + cls.getName().replace('.', '/') + ";";
     }
 
@@ -602,25 +1073,9 @@ class Type {
      */
 
     public String jvmName() {
-        return this.isArray() || this.isPrimitive() ? this.toDescriptor()
-                : classRep.getName().replace('.', '/');
-    }
-
-    /**
-     * Return the Java (and so j--) denotation for the specified type. Eg,
-     * int[], java.lang.String.
-     *
-     * @param classRep the internal representation of type whose Java denotation is
-     *                 required.
-     * @return the Java denotation.
-     */
-
-    private static String toJava(Class classRep) {
-        if (classRep == null) {
-            return "Null";
-        }
-        return classRep.isArray() ? toJava(classRep.getComponentType()) + "[]"
-                : classRep.getName();
+        String descriptor = toDescriptor();
+        return descriptor.startsWith("L") ? descriptor.substring(1,
+                descriptor.length() - 1) : descriptor;
     }
 
     /**
@@ -647,27 +1102,23 @@ class Type {
                 : "Ljava/lang/Object;";
     }
 
+    /**
+     * Find an appropriate method in this type, given a message (method) name
+     * and it's argument types: one whose parameter types exactly match the
+     * argument types if there is one (see methodFor()), else the first one
+     * whose parameter types the argument types inherit from. Returns null if
+     * it cannot find one. What is found is kept in the type's MemberTable.
+     *
+     * @param name     the method name.
+     * @param argTypes the argument types.
+     * @return Method with given name and argument types, or null.
+     */
+
     public Method methodForOrSuperType(String name, Type[] argTypes) {
-        Method exactMethod = methodFor(name, argTypes);
-        if (exactMethod != null) return exactMethod;
-        Class[] classes = new Class[argTypes.length];
-        for (int i = 0; i < argTypes.length; i++) {
-            classes[i] = argTypes[i].classRep;
-        }
-        Class cls = classRep;
-
-        // Search this class and all superclasses
-        while (cls != null) {
-            java.lang.reflect.Method[] methods = cls.getDeclaredMethods();
-            for (java.lang.reflect.Method method : methods) {
-                if (method.getName().equals(name)
-                        && Type.argTypesMatchOrInheritFrom(classes, method.getParameterTypes())) {
-                    return new Method(method);
-                }
-            }
-            cls = cls.getSuperclass();
-        }
-        return null;
+        MemberTable table = memberTable();
+        Method method = table.exactMethod(name, argTypes);
+        return method != null ? method : table.inheritedMethod(name,
+                argTypes);
     }
 
     /**
@@ -682,25 +1133,7 @@ class Type {
      */
 
     public Method methodFor(String name, Type[] argTypes) {
-        Class[] classes = new Class[argTypes.length];
-        for (int i = 0; i < argTypes.length; i++) {
-            classes[i] = argTypes[i].classRep;
-        }
-        Class cls = classRep;
-
-        // Search this class and all superclasses
-        while (cls != null) {
-            java.lang.reflect.Method[] methods = cls.getDeclaredMethods();
-            for (java.lang.reflect.Method method : methods) {
-                if (method.getName().equals(name)
-                        && Type.argTypesMatch(classes, method
-                        .getParameterTypes())) {
-                    return new Method(method);
-                }
-            }
-            cls = cls.getSuperclass();
-        }
-        return null;
+        return memberTable().exactMethod(name, argTypes);
     }
 
     /**
@@ -714,20 +1147,8 @@ class Type {
      */
 
     public Constructor constructorFor(Type[] argTypes) {
-        Class[] classes = new Class[argTypes.length];
-        for (int i = 0; i < argTypes.length; i++) {
-            classes[i] = argTypes[i].classRep;
-        }
-
         // Search only this class (we don't inherit constructors)
-        java.lang.reflect.Constructor[] constructors = classRep
-                .getDeclaredConstructors();
-        for (java.lang.reflect.Constructor constructor : constructors) {
-            if (argTypesMatch(classes, constructor.getParameterTypes())) {
-                return new Constructor(constructor);
-            }
-        }
-        return null;
+        return memberTable().constructor(argTypes);
     }
 
     /**
@@ -738,17 +1159,7 @@ class Type {
      */
 
     public Field fieldFor(String name) {
-        Class<?> cls = classRep;
-        while (cls != null) {
-            java.lang.reflect.Field[] fields = cls.getDeclaredFields();
-            for (java.lang.reflect.Field field : fields) {
-                if (field.getName().equals(name)) {
-                    return new Field(field);
-                }
-            }
-            cls = cls.getSuperclass();
-        }
-        return null;
+        return memberTable().field(name);
     }
 
     /**
@@ -782,7 +1193,7 @@ class Type {
      */
 
     public boolean checkAccess(int line, Member member) {
-        if (!checkAccess(line, classRep, member.declaringType().classRep, new ArrayList<>())) {
+        if (!checkAccess(line, this, member.declaringType(), new ArrayList<>())) {
             return false;
         }
 
@@ -790,31 +1201,20 @@ class Type {
         if (member.isPublic()) {
             return true;
         }
-        java.lang.Package p1 = classRep.getPackage();
-        java.lang.Package p2 = member.declaringType().classRep.getPackage();
-        if ((p1 == null ? "" : p1.getName()).equals((p2 == null ? "" : p2
-                .getName()))) {
+        if (packageOf(this).equals(packageOf(member.declaringType()))) {
             return true;
         }
         if (member.isProtected()) {
-            if (classRep.getPackage().getName().equals(
-                    member.declaringType().classRep.getPackage().getName())
-                    || typeFor(member.getClass().getDeclaringClass())
-                    .isJavaAssignableFrom(this)) {
-                return true;
-            } else {
-                JAST.compilationUnit.reportSemanticError(line,
-                        "The protected member, " + member.name()
-                                + ", is not accessible.");
-                return false;
-            }
+            JAST.compilationUnit().reportSemanticError(line,
+                    "The protected member, " + member.name()
+                            + ", is not accessible.");
+            return false;
         }
         if (member.isPrivate()) {
-            if (descriptorFor(classRep).equals(
-                    descriptorFor(member.member().getDeclaringClass()))) {
+            if (toDescriptor().equals(member.declaringType().toDescriptor())) {
                 return true;
             } else {
-                JAST.compilationUnit.reportSemanticError(line,
+                JAST.compilationUnit().reportSemanticError(line,
                         "The private member, " + member.name()
                                 + ", is not accessible.");
                 return false;
@@ -825,7 +1225,7 @@ class Type {
         if (packageName().equals(member.declaringType().packageName())) {
             return true;
         } else {
-            JAST.compilationUnit.reportSemanticError(line, "The member, "
+            JAST.compilationUnit().reportSemanticError(line, "The member, "
                     + member.name()
                     + ", is not accessible because it's in a different "
                     + "package.");
@@ -843,13 +1243,14 @@ class Type {
      */
 
     public boolean checkAccess(int line, Type targetType, ArrayList<Type> interfaces) {
-        if (targetType.isPrimitive()) {
+        // A type that could not be found has been reported already
+        if (targetType.isPrimitive() || targetType == ANY) {
             return true;
         }
         if (targetType.isArray()) {
             return this.checkAccess(line, targetType.componentType(), interfaces);
         }
-        return checkAccess(line, classRep, targetType.classRep, interfaces);
+        return checkAccess(line, this, targetType, interfaces);
     }
 
     /**
@@ -862,45 +1263,50 @@ class Type {
      * @return true if access is valid; false otherwise.
      */
 
-    public static boolean checkAccess(int line, Class referencingType,
-                                      Class type, ArrayList<Type> interfaces) {
-        java.lang.Package newClassPackage = referencingType.getPackage();
-        java.lang.Package superClassPackage = type.getPackage();
-
+    public static boolean checkAccess(int line, Type referencingType,
+                                      Type type, ArrayList<Type> interfaces) {
         if (!checkInterfaceAccess(line, referencingType, interfaces)) {
             return false;
         }
 
-        if (Modifier.isPublic(type.getModifiers())
-                || (newClassPackage == null ? "" : newClassPackage.getName()).equals((superClassPackage == null ? ""
-                : superClassPackage.getName()))) {
+        if (Modifier.isPublic(type.modifiers())
+                || packageOf(referencingType).equals(packageOf(type))) {
             return true;
         } else {
-            JAST.compilationUnit.reportSemanticError(line, "The type, "
-                    + type.getCanonicalName() + ", is not accessible from "
-                    + referencingType.getCanonicalName());
+            JAST.compilationUnit().reportSemanticError(line, "The type, "
+                    + type + ", is not accessible from "
+                    + referencingType);
             return false;
         }
     }
 
-    public static boolean checkInterfaceAccess(int line, Class referencingType, ArrayList<Type> interfaces) {
-        java.lang.Package newClassPackage = referencingType.getPackage();
-
+    public static boolean checkInterfaceAccess(int line, Type referencingType, ArrayList<Type> interfaces) {
         for (Type _interface : interfaces) {
-            Class interfaceClassRep = _interface.classRep;
-            java.lang.Package interfacePackage = interfaceClassRep.getPackage();
-            if (!Modifier.isPublic(interfaceClassRep.getModifiers()) &&
-                    !(newClassPackage == null ? "" : newClassPackage.getName()).equals((interfacePackage == null ? ""
-                            : interfacePackage.getName()))) {
-                JAST.compilationUnit.reportSemanticError(line, "The type, "
-                        + interfaceClassRep.getCanonicalName() + ", is not accessible from "
-                        + referencingType.getCanonicalName());
+            if (_interface != ANY && !Modifier.isPublic(_interface.modifiers()) &&
+                    !packageOf(referencingType).equals(packageOf(_interface))) {
+                JAST.compilationUnit().reportSemanticError(line, "The type, "
+                        + _interface + ", is not accessible from "
+                        + referencingType);
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Return the name of the package of the specified class type. Eg,
+     * java.lang for java.lang.String.
+     *
+     * @param type the type.
+     * @return the package name ("" for the unnamed package).
+     */
+
+    private static String packageOf(Type type) {
+        String name = type.toString();
+        return name.lastIndexOf('.') == -1 ? "" : name.substring(0, name
+                .lastIndexOf('.'));
+    }
+
     /**
      * Resolve this type in the given context. Notice that this has meaning only
      * for TypeName and ArrayTypeName, where names are replaced by real types.
@@ -1031,13 +1437,14 @@ class TypeName extends Type {
         if (resolvedType == null) {
             // Try loading a type with the give fullname
             try {
-                resolvedType = typeFor(Class.forName(name));
+                resolvedType = typeForName(name);
                 context.addType(line, resolvedType);
+                CompilationSession.current().addReferencedType(resolvedType);
                 // context.compilationUnitContext().addEntry(line,
                 // resolvedType.toString(),
                 // new TypeNameDefn(resolvedType));
             } catch (Exception e) {
-                JAST.compilationUnit.reportSemanticError(line,
+                JAST.compilationUnit().reportSemanticError(line,
                         "Unable to locate a type named %s", name);
                 resolvedType = Type.ANY;
             }
@@ -1045,8 +1452,8 @@ class TypeName extends Type {
         if (resolvedType != Type.ANY) {
             Type referencingType = ((JTypeDecl) (context.classContext
                     .definition())).thisType();
-            Type.checkAccess(line, referencingType.classRep(), resolvedType
-                    .classRep(), new ArrayList<>());
+            Type.checkAccess(line, referencingType, resolvedType,
+                    new ArrayList<>());
         }
         return resolvedType;
     }
@@ -1114,12 +1521,8 @@ class ArrayTypeName extends Type {
 
     public Type resolve(Context context) {
         componentType = componentType.resolve(context);
-
-        // The API forces us to make an instance and get its
-        // type.
-        Class classRep = Array.newInstance(componentType().classRep(), 0)
-                .getClass();
-        return Type.typeFor(classRep);
+        return componentType == Type.ANY ? Type.ANY : Type.arrayTypeFor(
+                componentType);
     }
 
 }
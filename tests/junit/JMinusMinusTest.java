@@ -2,9 +2,34 @@
 
 package junit;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import junit.framework.TestCase;
+import jminusminus.CompilationResult;
+import jminusminus.CompilerDaemon;
+import jminusminus.IncrementalParser;
 import jminusminus.Main;
+import jminusminus.MemoryCompiler;
 
 /**
  * JUnit test case for running the j-- compiler on the j-- test programs under
@@ -83,6 +108,962 @@ public class JMinusMinusTest extends TestCase {
         assertTrue(errorHasOccurred);
     }
 
+    /**
+     * Compile each pass-test file with MemoryCompiler, and check that it
+     * produces the same class files as Main writes; and each fail-test file,
+     * and check that it reports errors. Sources are decoded with the default
+     * charset, as Main decodes them.
+     */
+
+    public void testMemoryCompiler() throws IOException {
+        File passTestsDir = new File(System.getProperty("PASS_TESTS_DIR"));
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"),
+                "memory");
+        File[] files = passTestsDir.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            if (files[i].toString().endsWith(".java")) {
+                Main.main(new String[] { "-d", genClassDir.getAbsolutePath(),
+                        files[i].toString() });
+                CompilationResult result = MemoryCompiler.compile(files[i]
+                        .toString(), new String(Files.readAllBytes(files[i]
+                        .toPath())));
+                assertTrue(files[i].toString(), result.succeeded());
+                assertTrue(result.diagnostics().isEmpty());
+                assertFalse(result.classFiles().isEmpty());
+                for (Map.Entry<String, byte[]> classFile : result
+                        .classFiles().entrySet()) {
+                    File written = new File(genClassDir, classFile.getKey()
+                            .replace('.', File.separatorChar) + ".class");
+                    assertTrue(classFile.getKey(), Arrays.equals(
+                            Files.readAllBytes(written.toPath()),
+                            classFile.getValue()));
+                }
+            }
+        }
+        File failTestsDir = new File(System.getProperty("FAIL_TESTS_DIR"));
+        files = failTestsDir.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            if (files[i].toString().endsWith(".java")) {
+                CompilationResult result = MemoryCompiler.compile(files[i]
+                        .toString(), new String(Files.readAllBytes(files[i]
+                        .toPath())));
+                assertFalse(files[i].toString(), result.succeeded());
+            }
+        }
+    }
+
+    /**
+     * Compile each pass-test file with and without -stream, and check that
+     * the same class files are written; and each fail-test file with
+     * -stream, and check that it reports errors.
+     */
+
+    public void testStream() throws IOException {
+        File passTestsDir = new File(System.getProperty("PASS_TESTS_DIR"));
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"));
+        File batchDir = new File(genClassDir, "batch");
+        File streamDir = new File(genClassDir, "stream");
+        File[] files = passTestsDir.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            if (files[i].toString().endsWith(".java")) {
+                Main.main(new String[] { "-d", batchDir.getAbsolutePath(),
+                        files[i].toString() });
+                assertFalse(files[i].toString(), Main.errorHasOccurred());
+                Main.main(new String[] { "-stream", "-d",
+                        streamDir.getAbsolutePath(), files[i].toString() });
+                assertFalse(files[i].toString(), Main.errorHasOccurred());
+            }
+        }
+        ArrayList<Path> classFiles;
+        try (Stream<Path> paths = Files.walk(batchDir.toPath())) {
+            classFiles = paths.filter(path -> path.toString().endsWith(
+                    ".class")).collect(Collectors.toCollection(
+                    ArrayList::new));
+        }
+        assertFalse(classFiles.isEmpty());
+        for (Path classFile : classFiles) {
+            Path streamed = streamDir.toPath().resolve(batchDir.toPath()
+                    .relativize(classFile));
+            assertTrue(streamed.toString(), Arrays.equals(Files
+                    .readAllBytes(classFile), Files.readAllBytes(streamed)));
+        }
+        File failTestsDir = new File(System.getProperty("FAIL_TESTS_DIR"));
+        files = failTestsDir.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            if (files[i].toString().endsWith(".java")) {
+                Main.main(new String[] { "-stream", "-d",
+                        streamDir.getAbsolutePath(), files[i].toString() });
+                assertTrue(files[i].toString(), Main.errorHasOccurred());
+            }
+        }
+    }
+
+    /**
+     * Compile a unit whose second type has an error with -stream, into a
+     * directory and into a jar, and check that nothing is written for its
+     * first type either.
+     */
+
+    public void testStreamError() throws IOException {
+        File dir = new File(System.getProperty("GEN_CLASS_DIR"),
+                "streamError");
+        File outputDir = new File(dir, "classes");
+        File jar = new File(dir, "Two.jar");
+        dir.mkdirs();
+        File source = new File(dir, "Two.java");
+        Files.write(source.toPath(), ("public class First {\n"
+                + "    public int f() { return 1; }\n"
+                + "}\n"
+                + "class Second {\n"
+                + "    public int g() { return \"g\"; }\n"
+                + "}\n").getBytes());
+        Main.main(new String[] { "-stream", "-d", outputDir
+                .getAbsolutePath(), source.toString() });
+        assertTrue(Main.errorHasOccurred());
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            assertEquals(0, paths.filter(path -> path.startsWith(outputDir
+                    .toPath()) && !path.equals(outputDir.toPath())).count());
+        }
+        Main.main(new String[] { "-stream", "-jar", jar.getAbsolutePath(),
+                source.toString() });
+        assertTrue(Main.errorHasOccurred());
+        try (JarFile jarFile = new JarFile(jar)) {
+            assertNull(jarFile.getEntry("First.class"));
+        }
+    }
+
+    /**
+     * Build three units with -incremental from scratch, the second referring
+     * to a type of the first, and check that each is compiled once; then
+     * change the ABI of that type, and check that just its unit and the one
+     * referring to it are compiled; then change a method body of the third,
+     * and check that just it is compiled.
+     */
+
+    public void testIncremental() throws IOException {
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"));
+        File dir = new File(genClassDir, "incremental");
+        File index = new File(dir, "index");
+        index.delete();
+        dir.mkdirs();
+        File base = new File(dir, "Base.java");
+        File user = new File(dir, "User.java");
+        File other = new File(dir, "Other.java");
+        Files.write(base.toPath(), ("package incremental;\n"
+                + "public class Base {\n"
+                + "    public int f() { return 1; }\n"
+                + "}\n").getBytes());
+        Files.write(user.toPath(), ("package incremental;\n"
+                + "import incremental.Base;\n"
+                + "public class User {\n"
+                + "    public int g() { return new Base().f(); }\n"
+                + "}\n").getBytes());
+        Files.write(other.toPath(), ("package incremental;\n"
+                + "public class Other {\n"
+                + "    public int h() { return 3; }\n"
+                + "}\n").getBytes());
+        String[] args = { "-incremental", index.getAbsolutePath(), "-stats",
+                "-d", genClassDir.getAbsolutePath(), base.toString(),
+                user.toString(), other.toString() };
+        assertEquals(Arrays.asList(base.toString(), user.toString(),
+                other.toString()), compiledUnits(args));
+        assertFalse(Main.errorHasOccurred());
+
+        Files.write(base.toPath(), ("package incremental;\n"
+                + "public class Base {\n"
+                + "    public int f() { return 1; }\n"
+                + "    public int k() { return 2; }\n"
+                + "}\n").getBytes());
+        assertEquals(Arrays.asList(base.toString(), user.toString()),
+                compiledUnits(args));
+        assertFalse(Main.errorHasOccurred());
+
+        Files.write(other.toPath(), ("package incremental;\n"
+                + "public class Other {\n"
+                + "    public int h() { return 4; }\n"
+                + "}\n").getBytes());
+        assertEquals(Arrays.asList(other.toString()), compiledUnits(args));
+        assertFalse(Main.errorHasOccurred());
+    }
+
+    /**
+     * Read a JDK class file into a ClassSymbol, and check that each
+     * truncation of it, and each of a few thousand copies having bytes
+     * overwritten at random, gives either a symbol or an IOException, never
+     * an unchecked exception. Then compile a class, cut its class file short,
+     * and check that the session finds no symbol for it.
+     */
+
+    public void testClassSymbol() throws Exception {
+        byte[] bytes = resource("/java/util/ArrayList.class");
+        Object fingerprint = call("ClassSymbol", classSymbol(bytes),
+                "abiFingerprint");
+        boolean isRead = false;
+        for (int n = 0; n < bytes.length; n++) {
+            try {
+                // What is read stops short of the class attributes, so once
+                // a truncation is read, the longer ones are too.
+                Object symbol = classSymbol(Arrays.copyOf(bytes, n));
+                assertEquals(fingerprint, call("ClassSymbol", symbol,
+                        "abiFingerprint"));
+                isRead = true;
+            } catch (IOException e) {
+                assertFalse("truncated to " + n, isRead);
+            }
+        }
+        assertTrue(isRead);
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            byte[] copy = bytes.clone();
+            for (int j = 0; j < 3; j++) {
+                copy[random.nextInt(copy.length)] = (byte) random.nextInt(256);
+            }
+            try {
+                Object symbol = classSymbol(copy);
+                call("ClassSymbol", symbol, "abiFingerprint");
+                call("ClassSymbol", symbol, "superName");
+                call("ClassSymbol", symbol, "interfaceNames");
+            } catch (IOException e) {
+                // The copy is malformed.
+            }
+        }
+
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"));
+        File dir = new File(genClassDir, "symbols");
+        dir.mkdirs();
+        File source = new File(dir, "Whole.java");
+        Files.write(source.toPath(), ("package symbols;\n"
+                + "public class Whole {\n"
+                + "    public int f() { return 1; }\n"
+                + "}\n").getBytes());
+        Main.main(new String[] { "-d", genClassDir.getAbsolutePath(),
+                source.toString() });
+        assertFalse(Main.errorHasOccurred());
+        Path classFile = new File(dir, "Whole.class").toPath();
+        byte[] whole = Files.readAllBytes(classFile);
+        Object session = call("CompilationSession", null, "current");
+        try {
+            assertNotNull(call("CompilationSession", session,
+                    "classSymbolForName", "symbols.Whole"));
+            Files.write(classFile, Arrays.copyOf(whole, 40));
+            assertNull(call("CompilationSession", session,
+                    "classSymbolForName", "symbols.Whole"));
+            whole[0] = 0;
+            Files.write(classFile, whole);
+            assertNull(call("CompilationSession", session,
+                    "classSymbolForName", "symbols.Whole"));
+        } finally {
+            call("CompilationSession", null, "setCurrent", (Object) null);
+        }
+    }
+
+    /**
+     * Compile a class and its superclass, and make the class's class file
+     * name another superclass, which does not exist, so that the class
+     * cannot be loaded. Check that the class's type and a JDK type are still
+     * resolved, from their class files rather than from classes, and that
+     * their methods are found.
+     */
+
+    public void testTypesFromClassFiles() throws Exception {
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"));
+        File dir = new File(genClassDir, "unloadable");
+        dir.mkdirs();
+        File superSource = new File(dir, "Present.java");
+        File subSource = new File(dir, "Sub.java");
+        Files.write(superSource.toPath(), ("package unloadable;\n"
+                + "public class Present {\n"
+                + "}\n").getBytes());
+        Files.write(subSource.toPath(), ("package unloadable;\n"
+                + "import unloadable.Present;\n"
+                + "public class Sub extends Present {\n"
+                + "    public int f() { return 1; }\n"
+                + "}\n").getBytes());
+        Main.main(new String[] { "-d", genClassDir.getAbsolutePath(),
+                superSource.toString(), subSource.toString() });
+        assertFalse(Main.errorHasOccurred());
+        Path classFile = new File(dir, "Sub.class").toPath();
+        String sub = new String(Files.readAllBytes(classFile), "ISO-8859-1");
+        assertTrue(sub.contains("unloadable/Present"));
+        Files.write(classFile, sub.replace("unloadable/Present",
+                "unloadable/Missing").getBytes("ISO-8859-1"));
+        try {
+            Class.forName("unloadable.Sub");
+            fail("unloadable.Sub was loaded");
+        } catch (NoClassDefFoundError e) {
+            // Its superclass does not exist.
+        }
+        try {
+            Object type = call("Type", null, "typeForName",
+                    "unloadable.Sub");
+            assertNull(call("Type", type, "classRep"));
+            Object f = call("Type", type, "methodFor", "f", types());
+            assertEquals("int", call("Method", f, "returnType").toString());
+
+            Object exchanger = call("Type", null, "typeForName",
+                    "java.util.concurrent.Exchanger");
+            assertNull(call("Type", exchanger, "classRep"));
+            Object exchange = call("Type", exchanger, "methodFor", "exchange",
+                    types(field("Type", null, "OBJECT")));
+            assertEquals("java.lang.Object", call("Method", exchange,
+                    "returnType").toString());
+        } finally {
+            call("CompilationSession", null, "setCurrent", (Object) null);
+        }
+    }
+
+    /**
+     * Start a CompilerDaemon on a free loopback port, with the user's home
+     * directory (where it keeps its token) set to a scratch directory, and
+     * check that a request carrying the token compiles a file and names it in
+     * the reply, that a request carrying any other token is refused without
+     * compiling anything, and that a STOP request shuts the daemon down.
+     */
+
+    public void testDaemon() throws Exception {
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"));
+        File dir = new File(genClassDir, "daemon");
+        File home = new File(dir, "home");
+        dir.mkdirs();
+        File source = new File(dir, "Served.java");
+        File served = new File(dir, "Served.class");
+        served.delete();
+        Files.write(source.toPath(), ("package daemon;\n"
+                + "public class Served {\n"
+                + "}\n").getBytes());
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 1,
+                InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        String userHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.getAbsolutePath());
+        try {
+            final CompilerDaemon daemon = new CompilerDaemon(port, 1);
+            Thread thread = new Thread(() -> daemon.serve());
+            thread.start();
+            String token = new String(Files.readAllBytes(
+                    CompilerDaemon.tokenFile(port).toPath()), "UTF-8");
+            ArrayList<String> files = new ArrayList<String>();
+            try {
+                assertEquals(CompilerDaemon.REFUSED, daemonRequest(port,
+                        token + "0", files, "-d", genClassDir.toString(),
+                        source.toString()));
+                assertFalse(served.exists());
+                assertEquals(CompilerDaemon.OK, daemonRequest(port, token,
+                        files, "-d", genClassDir.toString(),
+                        source.toString()));
+                assertEquals(Arrays.asList(served.toString()), files);
+                assertTrue(served.exists());
+            } finally {
+                assertEquals(CompilerDaemon.OK, daemonRequest(port, token,
+                        files, CompilerDaemon.STOP));
+                thread.join(10000);
+            }
+            assertFalse(thread.isAlive());
+            assertFalse(CompilerDaemon.tokenFile(port).exists());
+        } finally {
+            System.setProperty("user.home", userHome);
+        }
+    }
+
+    /**
+     * Check what the MemberTable of a JDK type (shared by all the sessions),
+     * and that of a class path type (particular to a session), keep of their
+     * lookups: a lookup that finds nothing is kept as such; a method is found
+     * in a superclass; an exact lookup doesn't find a method that an
+     * inherited one finds; and the shared table doesn't keep a lookup whose
+     * argument types include the session's type, while the session's table
+     * does.
+     */
+
+    public void testMemberTable() throws Exception {
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"));
+        File dir = new File(genClassDir, "members");
+        dir.mkdirs();
+        File source = new File(dir, "Local.java");
+        Files.write(source.toPath(), ("package members;\n"
+                + "public class Local {\n"
+                + "    public int g(Object o) { return 1; }\n"
+                + "}\n").getBytes());
+        Main.main(new String[] { "-d", genClassDir.getAbsolutePath(),
+                source.toString() });
+        assertFalse(Main.errorHasOccurred());
+        try {
+            Object nothing = field("MemberTable", null, "NOTHING");
+            Object string = field("Type", null, "STRING");
+            Object list = call("Type", null, "typeForName",
+                    "java.util.ArrayList");
+            Object local = call("Type", null, "typeForName", "members.Local");
+            assertTrue((Boolean) call("Type", list, "isShared"));
+            assertFalse((Boolean) call("Type", local, "isShared"));
+            Object listTable = call("Type", list, "memberTable");
+            Object localTable = call("Type", local, "memberTable");
+
+            assertNull(call("MemberTable", listTable, "exactMethod", "none",
+                    types(string)));
+            assertSame(nothing, kept(listTable, "exactMethods", "none",
+                    string));
+            assertNull(call("MemberTable", listTable, "exactMethod", "none",
+                    types(string)));
+
+            Object wait = call("MemberTable", listTable, "exactMethod", "wait",
+                    types());
+            assertEquals("java.lang.Object", call("Member", wait,
+                    "declaringType").toString());
+            assertSame(wait, kept(listTable, "exactMethods", "wait"));
+
+            assertNull(call("MemberTable", listTable, "exactMethod", "add",
+                    types(string)));
+            assertSame(nothing, kept(listTable, "exactMethods", "add",
+                    string));
+            Object add = call("MemberTable", listTable, "inheritedMethod",
+                    "add", types(string));
+            assertEquals(Arrays.asList("Ljava/lang/Object;"), Arrays.asList(
+                    (String[]) call("Method", add, "parameterDescriptors")));
+            assertSame(add, kept(listTable, "inheritedMethods", "add",
+                    string));
+
+            assertSame(add, call("MemberTable", listTable, "inheritedMethod",
+                    "add", types(local)));
+            assertNull(kept(listTable, "inheritedMethods", "add", local));
+            assertNull(call("MemberTable", listTable, "exactMethod", "add",
+                    types(local)));
+            assertNull(kept(listTable, "exactMethods", "add", local));
+            Object g = call("MemberTable", localTable, "inheritedMethod", "g",
+                    types(local));
+            assertNotNull(g);
+            assertSame(g, kept(localTable, "inheritedMethods", "g", local));
+        } finally {
+            call("CompilationSession", null, "setCurrent", (Object) null);
+        }
+    }
+
+    /**
+     * Compile two units, one of which refers to the other, into a build cache
+     * (-cache), delete their class files and compile them again, and check
+     * that neither is compiled the second time and the same class files are
+     * restored. Then check that a change to the ABI of the referenced type
+     * misses the entry of the unit referring to it, even though the unit is
+     * the same, and that a change to its body alone doesn't.
+     */
+
+    public void testBuildCache() throws IOException {
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"));
+        File dir = new File(genClassDir, "cached");
+        File cache = new File(dir, "cache");
+        if (cache.exists()) {
+            try (Stream<Path> paths = Files.walk(cache.toPath())) {
+                for (Path path : paths.sorted(Comparator.reverseOrder())
+                        .collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+        }
+        dir.mkdirs();
+        File base = new File(dir, "Base.java");
+        File user = new File(dir, "User.java");
+        Files.write(base.toPath(), ("package cached;\n"
+                + "public class Base {\n"
+                + "    public int f() { return 1; }\n"
+                + "}\n").getBytes());
+        Files.write(user.toPath(), ("package cached;\n"
+                + "import cached.Base;\n"
+                + "public class User {\n"
+                + "    public int g() { return new Base().f(); }\n"
+                + "}\n").getBytes());
+        String[] args = { "-cache", cache.getAbsolutePath(), "-stats", "-d",
+                genClassDir.getAbsolutePath(), base.toString(),
+                user.toString() };
+        Path baseClass = new File(dir, "Base.class").toPath();
+        Path userClass = new File(dir, "User.class").toPath();
+        assertEquals(Arrays.asList(base.toString(), user.toString()),
+                parsedUnits(args));
+        assertFalse(Main.errorHasOccurred());
+        byte[] baseBytes = Files.readAllBytes(baseClass);
+        byte[] userBytes = Files.readAllBytes(userClass);
+        Files.delete(baseClass);
+        Files.delete(userClass);
+        assertEquals(Arrays.asList(), parsedUnits(args));
+        assertFalse(Main.errorHasOccurred());
+        assertTrue(Arrays.equals(baseBytes, Files.readAllBytes(baseClass)));
+        assertTrue(Arrays.equals(userBytes, Files.readAllBytes(userClass)));
+
+        Files.write(base.toPath(), ("package cached;\n"
+                + "public class Base {\n"
+                + "    public int f() { return 1; }\n"
+                + "    public int k() { return 2; }\n"
+                + "}\n").getBytes());
+        assertEquals(Arrays.asList(base.toString(), user.toString()),
+                parsedUnits(args));
+        assertFalse(Main.errorHasOccurred());
+
+        Files.write(base.toPath(), ("package cached;\n"
+                + "public class Base {\n"
+                + "    public int f() { return 1; }\n"
+                + "    public int k() { return 3; }\n"
+                + "}\n").getBytes());
+        assertEquals(Arrays.asList(base.toString()), parsedUnits(args));
+        assertFalse(Main.errorHasOccurred());
+    }
+
+    /**
+     * Compile the same units into a jar (-jar) on one thread and on four,
+     * and check that the two jars are byte for byte the same.
+     */
+
+    public void testDeterministicJar() throws IOException {
+        File genClassDir = new File(System.getProperty("GEN_CLASS_DIR"));
+        File dir = new File(genClassDir, "jarred");
+        dir.mkdirs();
+        ArrayList<String> args = new ArrayList<String>();
+        args.add("-j");
+        args.add("1");
+        args.add("-jar");
+        args.add(new File(dir, "serial.jar").getAbsolutePath());
+        for (int i = 0; i < 8; i++) {
+            File source = new File(dir, "Unit" + i + ".java");
+            Files.write(source.toPath(), ("package jarred;\n"
+                    + "public class Unit" + i + " {\n"
+                    + "    public int f(int n) {\n"
+                    + "        return n * " + i + ";\n"
+                    + "    }\n"
+                    + "}\n").getBytes());
+            args.add(source.toString());
+        }
+        Main.main(args.toArray(new String[0]));
+        assertFalse(Main.errorHasOccurred());
+        args.set(1, "4");
+        args.set(3, new File(dir, "parallel.jar").getAbsolutePath());
+        Main.main(args.toArray(new String[0]));
+        assertFalse(Main.errorHasOccurred());
+        try (JarFile jarFile = new JarFile(new File(dir, "serial.jar"))) {
+            assertNotNull(jarFile.getEntry("jarred/Unit7.class"));
+        }
+        assertTrue(Arrays.equals(Files.readAllBytes(new File(dir,
+                "serial.jar").toPath()), Files.readAllBytes(new File(dir,
+                "parallel.jar").toPath())));
+    }
+
+    /**
+     * Parse (-p) each pass-test and fail-test file with and without
+     * -pipeline, and check that the same AST and the same diagnostics, in
+     * the same order, are printed.
+     */
+
+    public void testPipeline() {
+        File[] dirs = { new File(System.getProperty("PASS_TESTS_DIR")),
+                new File(System.getProperty("FAIL_TESTS_DIR")) };
+        for (File dir : dirs) {
+            File[] files = dir.listFiles();
+            for (int i = 0; files != null && i < files.length; i++) {
+                if (files[i].toString().endsWith(".java")) {
+                    String serial = printed("-p", files[i].toString());
+                    boolean errorHasOccurred = Main.errorHasOccurred();
+                    assertEquals(files[i].toString(), serial, printed(
+                            "-pipeline", "-p", files[i].toString()));
+                    assertEquals(files[i].toString(), errorHasOccurred,
+                            Main.errorHasOccurred());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tokenize (-t) each pass-test file under the folder specified by
+     * PASS_TESTS_DIR, and its subfolders, and a copy of it having a non-ASCII
+     * character in a comment at its very start, and check that the tokens are
+     * the same. The scanner reads an ASCII file straight from its bytes, but
+     * decodes the copy into characters first.
+     */
+
+    public void testAsciiScanner() throws IOException {
+        File passTestsDir = new File(System.getProperty("PASS_TESTS_DIR"));
+        File copyDir = new File(System.getProperty("GEN_CLASS_DIR"), "ascii");
+        copyDir.mkdirs();
+        ArrayList<Path> files;
+        try (Stream<Path> paths = Files.walk(passTestsDir.toPath())) {
+            files = paths.filter(path -> path.toString().endsWith(".java"))
+                    .sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+        byte[] comment = { '/', '*', (byte) 0xc3, (byte) 0xa9, '*', '/' };
+        for (Path file : files) {
+            byte[] source = Files.readAllBytes(file);
+            byte[] copy = Arrays.copyOf(comment, comment.length
+                    + source.length);
+            System.arraycopy(source, 0, copy, comment.length, source.length);
+            File copied = new File(copyDir, file.getFileName().toString());
+            Files.write(copied.toPath(), copy);
+            String tokens = tokens(file.toString());
+            boolean errorHasOccurred = Main.errorHasOccurred();
+            assertEquals(file.toString(), tokens, tokens(copied.toString()));
+            assertEquals(file.toString(), errorHasOccurred,
+                    Main.errorHasOccurred());
+        }
+    }
+
+    /**
+     * Compile methods returning a sum, a string concatenation, and && and ||
+     * chains 100,000 operands long, and check that they compile (the parser,
+     * analysis and code generation handle such chains without recursing down
+     * them).
+     */
+
+    public void testDeepChains() {
+        String[][] chains = { { "int sum(int a)", "a", " + a" },
+                { "String concat(int a)", "\"\" + a", " + a" },
+                { "boolean and(boolean b)", "b", " && b" },
+                { "boolean or(boolean b)", "b", " || b" } };
+        StringBuilder source = new StringBuilder("public class Chains {\n");
+        for (String[] chain : chains) {
+            source.append("    public ").append(chain[0]).append(" {\n")
+                    .append("        return ").append(chain[1]);
+            for (int i = 1; i < 100000; i++) {
+                source.append(chain[2]);
+            }
+            source.append(";\n    }\n");
+        }
+        source.append("}\n");
+        CompilationResult result = MemoryCompiler.compile("Chains.java",
+                source.toString());
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertTrue(result.classFiles().containsKey("Chains"));
+    }
+
+    /**
+     * Parse each pass-test file with an IncrementalParser, and check that
+     * doubling each of its line breaks, and undoing that, leaves the same AST
+     * (lines included) as parsing the edited source afresh, and that most of
+     * those edits reparse just the declaration they fall within. Then check
+     * edits that split a method in two, and that unbalance and rebalance its
+     * braces.
+     */
+
+    public void testIncrementalParser() throws IOException {
+        File passTestsDir = new File(System.getProperty("PASS_TESTS_DIR"));
+        ArrayList<Path> files;
+        try (Stream<Path> paths = Files.walk(passTestsDir.toPath())) {
+            files = paths.filter(path -> path.toString().endsWith(".java"))
+                    .sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+        int edits = 0;
+        int reparses = 0;
+        for (Path file : files) {
+            String source = new String(Files.readAllBytes(file), "UTF-8");
+            IncrementalParser parser = new IncrementalParser(file.toString(),
+                    source);
+            assertFalse(file.toString(), parser.errorHasOccurred());
+            for (int i = source.indexOf('\n'); i >= 0;
+                 i = source.indexOf('\n', i + 1)) {
+                edits++;
+                if (parser.edit(i, 0, "\n")) {
+                    reparses++;
+                }
+                assertEquals(file + ":" + i, ast(new IncrementalParser(
+                        file.toString(), parser.source())), ast(parser));
+                parser.edit(i, 1, "");
+                assertEquals(file + ":" + i, source, parser.source());
+            }
+            assertEquals(file.toString(), ast(new IncrementalParser(
+                    file.toString(), source)), ast(parser));
+        }
+        assertTrue(reparses + " of " + edits, reparses * 2 > edits);
+
+        String source = "public class Edits {\n    int x;\n\n"
+                + "    int f() {\n        return x;\n    }\n\n"
+                + "    static {\n    }\n}\n";
+        IncrementalParser parser = new IncrementalParser("Edits.java", source);
+        int i = source.indexOf("return");
+        assertTrue(parser.edit(i, 0, "return 1;\n    }\n\n    int g() {\n"));
+        assertEquals(ast(new IncrementalParser("Edits.java",
+                parser.source())), ast(parser));
+        assertFalse(parser.edit(i, 0, "{"));
+        assertTrue(parser.errorHasOccurred());
+        assertFalse(parser.edit(i, 1, ""));
+        assertFalse(parser.errorHasOccurred());
+        assertEquals(ast(new IncrementalParser("Edits.java",
+                parser.source())), ast(parser));
+    }
+
+    /**
+     * Return what an IncrementalParser prints of its AST, as -p would.
+     *
+     * @param parser the parser.
+     * @return the AST printed.
+     */
+
+    private static String ast(IncrementalParser parser) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream ast = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(ast, true));
+        try {
+            parser.writeToStdOut();
+        } finally {
+            System.setOut(out);
+        }
+        return ast.toString();
+    }
+
+    /**
+     * Return what Main prints, to STDOUT and STDERR, run with the specified
+     * arguments.
+     *
+     * @param args the arguments.
+     * @return what is printed.
+     */
+
+    private static String printed(String... args) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(printed, true);
+        System.setOut(stream);
+        System.setErr(stream);
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+        return printed.toString();
+    }
+
+    /**
+     * Send a request to the CompilerDaemon listening on the specified port,
+     * and return the status of its reply.
+     *
+     * @param port  the daemon's port.
+     * @param token the token the request carries.
+     * @param files where the names of the files written are put.
+     * @param args  the arguments.
+     * @return the status.
+     * @throws IOException if an I/O error occurs.
+     */
+
+    private static int daemonRequest(int port, String token,
+                                     ArrayList<String> files, String... args)
+            throws IOException {
+        files.clear();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                port)) {
+            DataOutputStream out = new DataOutputStream(
+                    socket.getOutputStream());
+            out.writeInt(CompilerDaemon.PROTOCOL_VERSION);
+            out.writeUTF(token);
+            out.writeUTF(new File("").getAbsolutePath());
+            out.writeInt(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            int status = in.readInt();
+            for (int i = 0; i < 2; i++) {
+                in.readFully(new byte[in.readInt()]);
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                files.add(in.readUTF());
+            }
+            return status;
+        }
+    }
+
+    /**
+     * Return what the specified MemberTable keeps, in the specified map of
+     * its lookups, for the lookup of the specified name and argument types.
+     *
+     * @param table   the MemberTable.
+     * @param lookups the name of the map.
+     * @param name    the name looked up.
+     * @param args    the argument types.
+     * @return what is kept, or null.
+     * @throws Exception if the table has no such map.
+     */
+
+    private static Object kept(Object table, String lookups, String name,
+                               Object... args) throws Exception {
+        java.lang.reflect.Constructor<?> constructor = compilerClass(
+                "MemberKey").getDeclaredConstructors()[0];
+        constructor.setAccessible(true);
+        Object key = constructor.newInstance(name, types(args));
+        return ((Map<?, ?>) field("MemberTable", table, lookups)).get(key);
+    }
+
+    /**
+     * Return the units, in order and once for each time it was compiled,
+     * that Main, run with the specified arguments (including -stats),
+     * reports statistics for.
+     *
+     * @param args the arguments.
+     * @return the source files of the units.
+     */
+
+    private static ArrayList<String> compiledUnits(String... args) {
+        ArrayList<String> units = new ArrayList<String>();
+        for (String line : printed(args).split("\n")) {
+            if (line.endsWith(".java") && !line.startsWith(" ")) {
+                units.add(line);
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Return the units, in order, that Main, run with the specified arguments
+     * (including -stats), reports a parse phase for; that is, those it
+     * compiled rather than restored from a build cache.
+     *
+     * @param args the arguments.
+     * @return the source files of the units.
+     */
+
+    private static ArrayList<String> parsedUnits(String... args) {
+        ArrayList<String> units = new ArrayList<String>();
+        String unit = null;
+        for (String line : printed(args).split("\n")) {
+            if (!line.startsWith(" ")) {
+                unit = line.endsWith(".java") ? line : null;
+            } else if (unit != null && line.startsWith("  parse ")) {
+                units.add(unit);
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Return the contents of the specified resource.
+     *
+     * @param name the resource name.
+     * @return its bytes.
+     * @throws IOException if it cannot be read.
+     */
+
+    private static byte[] resource(String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = JMinusMinusTest.class.getResourceAsStream(
+                name)) {
+            byte[] buffer = new byte[8192];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Return the ClassSymbol read from the specified class file.
+     *
+     * @param bytes the class file.
+     * @return the symbol.
+     * @throws Exception if the class file is malformed.
+     */
+
+    private static Object classSymbol(byte[] bytes) throws Exception {
+        return call("ClassSymbol", null, "read", new ByteArrayInputStream(
+                bytes));
+    }
+
+    /**
+     * Return an array of Types (in the compiler) holding the specified ones.
+     *
+     * @param types the types.
+     * @return the array.
+     * @throws ClassNotFoundException if Type is missing.
+     */
+
+    private static Object types(Object... types)
+            throws ClassNotFoundException {
+        Object array = java.lang.reflect.Array.newInstance(compilerClass(
+                "Type"), types.length);
+        System.arraycopy(types, 0, array, 0, types.length);
+        return array;
+    }
+
+    /**
+     * Return the class of the compiler having the specified simple name.
+     * Most of the compiler is package-private, so the tests, being outside
+     * its package, use it by reflection.
+     *
+     * @param name the simple name.
+     * @return the class.
+     * @throws ClassNotFoundException if there is no such class.
+     */
+
+    private static Class<?> compilerClass(String name)
+            throws ClassNotFoundException {
+        return Class.forName("jminusminus." + name);
+    }
+
+    /**
+     * Call the method of the specified class of the compiler having the
+     * specified name and number of parameters, whether it is public or not.
+     *
+     * @param className simple name of the class declaring the method.
+     * @param target    the object; null for a static method.
+     * @param name      the method name.
+     * @param args      the arguments.
+     * @return what the method returns.
+     * @throws Exception what the method throws.
+     */
+
+    private static Object call(String className, Object target, String name,
+                               Object... args) throws Exception {
+        for (java.lang.reflect.Method method : compilerClass(className)
+                .getDeclaredMethods()) {
+            if (method.getName().equals(name)
+                    && method.getParameterCount() == args.length) {
+                method.setAccessible(true);
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw (Error) e.getCause();
+                }
+            }
+        }
+        throw new NoSuchMethodException(className + "." + name);
+    }
+
+    /**
+     * Return the value of the field of the specified class of the compiler
+     * having the specified name, whether it is public or not.
+     *
+     * @param className simple name of the class declaring the field.
+     * @param target    the object; null for a static field.
+     * @param name      the field name.
+     * @return the value.
+     * @throws Exception if there is no such field.
+     */
+
+    private static Object field(String className, Object target, String name)
+            throws Exception {
+        java.lang.reflect.Field field = compilerClass(className)
+                .getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    /**
+     * Return what Main prints tokenizing (-t) the specified file.
+     *
+     * @param fileName the file.
+     * @return the tokens printed.
+     */
+
+    private static String tokens(String fileName) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream tokens = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(tokens, true));
+        try {
+            Main.main(new String[] { "-t", fileName });
+        } finally {
+            System.setOut(out);
+        }
+        return tokens.toString();
+    }
+
     /**
      * Entry point.
      * 